@@ -32,6 +32,8 @@ public final class Constants {
     public static final String MAVEN_PROJECT_VERSION = "MAVEN_PROJECT_VERSION";
 
     public static final String START_TIME = "carbon.start.time";
+    public static final String STARTUP_PHASE_PREFIX = "carbon.startup.phase.";
+    public static final String INITIAL_BUNDLE_PHASES = "carbon.startup.initial.bundles";
     public static final String LOGIN_MODULE_ENTRY = "CarbonSecurityConfig";
     public static final String DEFAULT_TENANT = "default";
     public static final String TENANT_NAME = "tenant.name";
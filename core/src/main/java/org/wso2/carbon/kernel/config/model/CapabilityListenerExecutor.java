@@ -0,0 +1,48 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+package org.wso2.carbon.kernel.config.model;
+
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+/**
+ * Config bean for capabilityListenerExecutor.
+ */
+@Configuration(description = "Configuration for the executor which notifies RequiredCapabilityListeners. " +
+        "If the pool size is greater than 0, independent RequiredCapabilityListeners are notified concurrently, and " +
+        "hence must be thread-safe, while a RequiredCapabilityListener is notified only after the listeners of the " +
+        "components it depends on have returned")
+public class CapabilityListenerExecutor {
+
+    @Element(description = "maximum number of RequiredCapabilityListeners notified concurrently. " +
+            "0 notifies them one after another, as in the previous releases")
+    private int poolSize = 0;
+
+    @Element(description = "time in milliseconds after which a RequiredCapabilityListener which has not returned is " +
+            "reported and no longer holds back the components depending on it. 0 disables the timeout")
+    private long timeout = 60000;
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+}
@@ -24,15 +24,16 @@ import org.wso2.carbon.config.annotation.Element;
 /**
  * Config bean for pendingCapabilityTimer.
  */
-@Configuration(description = "Configuration for the timer task which checks " +
-        "for satisfiable RequiredCapabilityListeners periodically")
+@Configuration(description = "Configuration for the watchdog timer task which checks " +
+        "for satisfiable RequiredCapabilityListeners periodically. RequiredCapabilityListeners are notified " +
+        "as soon as their required capabilities are available, this timer only covers missed notifications")
 public class CapabilityListenerTimer {
 
     @Element(description = "delay in milliseconds before task is to be executed")
-    private long delay = 20;
+    private long delay = 1000;
 
     @Element(description = "time in milliseconds between successive task executions")
-    private long period = 20;
+    private long period = 1000;
 
     public long getDelay() {
         return delay;
@@ -20,6 +20,7 @@ import org.wso2.carbon.config.annotation.Element;
 import org.wso2.carbon.config.annotation.Ignore;
 import org.wso2.carbon.kernel.Constants;
 import org.wso2.carbon.kernel.internal.config.JMXConfiguration;
+import org.wso2.carbon.kernel.internal.config.MetricsExporterConfiguration;
 import org.wso2.carbon.kernel.internal.utils.Utils;
 
 import java.util.Properties;
@@ -64,6 +65,9 @@ public class CarbonConfiguration {
     @Element(description = "JMX Configuration")
     private JMXConfiguration jmx = new JMXConfiguration();
 
+    @Element(description = "Metrics exporter configuration")
+    private MetricsExporterConfiguration metricsExporter = new MetricsExporterConfiguration();
+
     public String getId() {
         return id;
     }
@@ -103,4 +107,8 @@ public class CarbonConfiguration {
     public JMXConfiguration getJmxConfiguration() {
         return jmx;
     }
+
+    public MetricsExporterConfiguration getMetricsExporterConfiguration() {
+        return metricsExporter;
+    }
 }
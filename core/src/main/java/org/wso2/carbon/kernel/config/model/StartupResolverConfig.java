@@ -30,6 +30,8 @@ public class StartupResolverConfig {
 
     private PendingCapabilityTimer pendingCapabilityTimer = new PendingCapabilityTimer();
 
+    private CapabilityListenerExecutor capabilityListenerExecutor = new CapabilityListenerExecutor();
+
     public CapabilityListenerTimer getCapabilityListenerTimer() {
         return capabilityListenerTimer;
     }
@@ -37,4 +39,8 @@ public class StartupResolverConfig {
     public PendingCapabilityTimer getPendingCapabilityTimer() {
         return pendingCapabilityTimer;
     }
+
+    public CapabilityListenerExecutor getCapabilityListenerExecutor() {
+        return capabilityListenerExecutor;
+    }
 }
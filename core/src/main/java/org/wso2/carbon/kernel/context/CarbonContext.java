@@ -55,12 +55,13 @@ public class CarbonContext {
     }
 
     /**
-     * Returns the carbon context instance which is stored at current thread local space.
+     * Returns the carbon context instance which is stored at current thread local space. The same instance is
+     * returned by each call made by a thread, until its carbon context is destroyed.
      *
      * @return the carbon context instance.
      */
     public static CarbonContext getCurrentContext() {
-        return new CarbonContext(CarbonContextHolder.getCurrentContextHolder());
+        return CarbonContextHolder.getCurrentContextHolder().getCarbonContext(CarbonContext::new);
     }
 
     /**
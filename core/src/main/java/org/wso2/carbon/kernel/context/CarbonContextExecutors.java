@@ -0,0 +1,279 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.context;
+
+import org.wso2.carbon.utils.Utils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Propagates the carbon context to tasks executed by other threads. Each task captures a
+ * {@link CarbonContextSnapshot} of the carbon context of the thread which submits it, and runs with that snapshot
+ * restored, after which the carbon context of the executing thread is restored. Hence the user principal and the
+ * properties of the carbon context are available to tasks run by thread pools and {@link CompletableFuture}s, as well
+ * as by executors which start a new thread per task.
+ * <p>
+ * The dependent stages of a {@link CompletableFuture} are submitted by the thread which completes the previous stage,
+ * hence their functions should be wrapped when the pipeline is built, as shown below.
+ * <pre>
+ * ExecutorService executorService = CarbonContextExecutors.executorService(Executors.newFixedThreadPool(4));
+ * CompletableFuture&lt;String&gt; future = CarbonContextExecutors.supplyAsync(this::process, executorService)
+ *         .thenApplyAsync(CarbonContextExecutors.wrapFunction(this::transform), executorService);
+ * </pre>
+ *
+ * @since 5.2.9
+ */
+public final class CarbonContextExecutors {
+
+    /**
+     * Prevents instantiating this class.
+     */
+    private CarbonContextExecutors() {
+    }
+
+    /**
+     * Returns a task which runs the given task with the current carbon context.
+     *
+     * @param task the task to be wrapped
+     * @return the task which runs with the current carbon context
+     */
+    public static Runnable wrap(Runnable task) {
+        CarbonContextSnapshot snapshot = PrivilegedCarbonContext.snapshot();
+        return () -> {
+            CarbonContextSnapshot previous = snapshot.restore();
+            try {
+                task.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * Returns a task which calls the given task with the current carbon context.
+     *
+     * @param task the task to be wrapped
+     * @param <T>  the result type of the task
+     * @return the task which is called with the current carbon context
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        CarbonContextSnapshot snapshot = PrivilegedCarbonContext.snapshot();
+        return () -> {
+            CarbonContextSnapshot previous = snapshot.restore();
+            try {
+                return task.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * Returns a supplier which calls the given supplier with the current carbon context.
+     *
+     * @param supplier the supplier to be wrapped
+     * @param <T>      the type of the supplied results
+     * @return the supplier which is called with the current carbon context
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        CarbonContextSnapshot snapshot = PrivilegedCarbonContext.snapshot();
+        return () -> {
+            CarbonContextSnapshot previous = snapshot.restore();
+            try {
+                return supplier.get();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * Returns a function which is applied with the current carbon context.
+     *
+     * @param function the function to be wrapped
+     * @param <T>      the type of the input of the function
+     * @param <R>      the type of the result of the function
+     * @return the function which is applied with the current carbon context
+     */
+    public static <T, R> Function<T, R> wrapFunction(Function<T, R> function) {
+        CarbonContextSnapshot snapshot = PrivilegedCarbonContext.snapshot();
+        return input -> {
+            CarbonContextSnapshot previous = snapshot.restore();
+            try {
+                return function.apply(input);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * Returns an executor which runs the tasks with the carbon context of the threads which submit them.
+     *
+     * @param executor the executor to which the tasks are delegated
+     * @return the executor which propagates the carbon context
+     */
+    public static Executor executor(Executor executor) {
+        Utils.checkSecurity();
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (executor instanceof ExecutorService) {
+            return executorService((ExecutorService) executor);
+        }
+        return task -> executor.execute(wrap(task));
+    }
+
+    /**
+     * Returns an executor service which runs the tasks with the carbon context of the threads which submit them.
+     *
+     * @param executorService the executor service to which the tasks are delegated
+     * @return the executor service which propagates the carbon context
+     */
+    public static ExecutorService executorService(ExecutorService executorService) {
+        Utils.checkSecurity();
+        if (executorService == null) {
+            throw new IllegalArgumentException("Executor service cannot be null");
+        }
+        if (executorService instanceof CarbonContextExecutorService) {
+            return executorService;
+        }
+        return new CarbonContextExecutorService(executorService);
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which is completed by running the given supplier with the current carbon
+     * context, using the given executor.
+     *
+     * @param supplier the supplier which returns the value of the {@link CompletableFuture}
+     * @param executor the executor which runs the supplier
+     * @param <T>      the type of the value
+     * @return the new {@link CompletableFuture}
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(wrapSupplier(supplier), executor);
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which is completed after running the given task with the current carbon
+     * context, using the given executor.
+     *
+     * @param task     the task to be run
+     * @param executor the executor which runs the task
+     * @return the new {@link CompletableFuture}
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(wrap(task), executor);
+    }
+
+    /**
+     * An {@link ExecutorService} which wraps each task submitted to it, so that it runs with the carbon context of
+     * the submitting thread.
+     */
+    private static final class CarbonContextExecutorService implements ExecutorService {
+        private final ExecutorService executorService;
+
+        private CarbonContextExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            executorService.execute(wrap(command));
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return executorService.submit(wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return executorService.submit(wrap(task), result);
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return executorService.submit(wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return executorService.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return executorService.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+            return executorService.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return executorService.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            executorService.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return executorService.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return executorService.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executorService.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executorService.awaitTermination(timeout, unit);
+        }
+
+        private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+            return tasks.stream()
+                    .map(CarbonContextExecutors::wrap)
+                    .collect(Collectors.toList());
+        }
+    }
+}
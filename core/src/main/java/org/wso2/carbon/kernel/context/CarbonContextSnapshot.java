@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.context;
+
+import org.slf4j.MDC;
+import org.wso2.carbon.kernel.internal.context.CarbonContextHolder;
+import org.wso2.carbon.kernel.internal.context.CarbonContextProperties;
+import org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry;
+import org.wso2.carbon.kernel.metrics.Counter;
+
+import java.security.Principal;
+
+/**
+ * An immutable snapshot of the user principal and the properties of the carbon context of a thread, which can be
+ * restored in another thread. Taking a snapshot does not copy the properties, as they are never modified in place.
+ *
+ * @see PrivilegedCarbonContext#snapshot()
+ * @see PrivilegedCarbonContext#restore(CarbonContextSnapshot)
+ * @since 5.2.9
+ */
+public final class CarbonContextSnapshot {
+    private static final String USER_NAME_MDC_KEY = "user-name";
+    private static final Counter captures = CarbonMetricsRegistry.getInstance()
+            .counter(CarbonMetricsRegistry.CARBON_CONTEXT_COMPONENT, "snapshots.captured");
+    private static final Counter restores = CarbonMetricsRegistry.getInstance()
+            .counter(CarbonMetricsRegistry.CARBON_CONTEXT_COMPONENT, "snapshots.restored");
+
+    private final Principal userPrincipal;
+    private final CarbonContextProperties properties;
+
+    private CarbonContextSnapshot(Principal userPrincipal, CarbonContextProperties properties) {
+        this.userPrincipal = userPrincipal;
+        this.properties = properties;
+    }
+
+    /**
+     * Returns a snapshot of the carbon context instance which is stored at current thread local space.
+     *
+     * @return the snapshot of the current carbon context
+     */
+    static CarbonContextSnapshot capture() {
+        captures.increment();
+        return current();
+    }
+
+    /**
+     * Replaces the carbon context instance which is stored at current thread local space with this snapshot. If this
+     * snapshot is empty, the current carbon context is destroyed instead, so that no carbon context is left behind
+     * in pooled threads.
+     *
+     * @return the snapshot of the carbon context which was replaced
+     */
+    CarbonContextSnapshot restore() {
+        restores.increment();
+        CarbonContextSnapshot previous = current();
+        CarbonContextHolder carbonContextHolder = CarbonContextHolder.getCurrentContextHolder();
+        if (isEmpty()) {
+            carbonContextHolder.destroyCurrentCarbonContextHolder();
+            MDC.remove(USER_NAME_MDC_KEY);
+        } else {
+            carbonContextHolder.restore(userPrincipal, properties);
+            if (userPrincipal != null) {
+                MDC.put(USER_NAME_MDC_KEY, userPrincipal.getName());
+            } else {
+                MDC.remove(USER_NAME_MDC_KEY);
+            }
+        }
+        return previous;
+    }
+
+    private static CarbonContextSnapshot current() {
+        CarbonContextHolder carbonContextHolder = CarbonContextHolder.getCurrentContextHolder();
+        return new CarbonContextSnapshot(carbonContextHolder.getUserPrincipal(),
+                carbonContextHolder.getProperties());
+    }
+
+    /**
+     * Returns the user principal of this snapshot.
+     *
+     * @return the user principal, or null if no user principal was set
+     */
+    public Principal getUserPrincipal() {
+        return userPrincipal;
+    }
+
+    /**
+     * Returns the value of the property by the given name in this snapshot.
+     *
+     * @param name the property name
+     * @return the value of the property, or null if no value was set
+     */
+    public Object getProperty(String name) {
+        return properties.get(name);
+    }
+
+    private boolean isEmpty() {
+        return (userPrincipal == null) && properties.isEmpty();
+    }
+}
@@ -37,13 +37,14 @@ public final class PrivilegedCarbonContext extends CarbonContext {
     }
 
     /**
-     * Returns the carbon context instance which is stored at current thread local space.
+     * Returns the carbon context instance which is stored at current thread local space. The same instance is
+     * returned by each call made by a thread, until its carbon context is destroyed.
      *
      * @return the carbon context instance.
      */
     public static PrivilegedCarbonContext getCurrentContext() {
         Utils.checkSecurity();
-        return new PrivilegedCarbonContext(CarbonContextHolder.getCurrentContextHolder());
+        return CarbonContextHolder.getCurrentContextHolder().getPrivilegedCarbonContext(PrivilegedCarbonContext::new);
     }
 
     /**
@@ -51,7 +52,43 @@ public final class PrivilegedCarbonContext extends CarbonContext {
      */
     public static void destroyCurrentContext() {
         Utils.checkSecurity();
-        getCurrentContext().getCarbonContextHolder().destroyCurrentCarbonContextHolder();
+        CarbonContextHolder.getCurrentContextHolder().destroyCurrentCarbonContextHolder();
+    }
+
+    /**
+     * Returns a snapshot of the carbon context instance which is stored at current thread local space, which can be
+     * restored in another thread using {@link #restore(CarbonContextSnapshot)}.
+     *
+     * @return the snapshot of the current carbon context.
+     */
+    public static CarbonContextSnapshot snapshot() {
+        Utils.checkSecurity();
+        return CarbonContextSnapshot.capture();
+    }
+
+    /**
+     * Replaces the carbon context instance which is stored at current thread local space with the given snapshot. The
+     * returned snapshot should be restored once the work done on behalf of the given snapshot is complete, as shown
+     * below.
+     * <pre>
+     * CarbonContextSnapshot previous = PrivilegedCarbonContext.restore(snapshot);
+     * try {
+     *     ...
+     * } finally {
+     *     PrivilegedCarbonContext.restore(previous);
+     * }
+     * </pre>
+     *
+     * @param snapshot the snapshot of the carbon context to be restored.
+     * @return the snapshot of the carbon context which was replaced.
+     * @see CarbonContextExecutors
+     */
+    public static CarbonContextSnapshot restore(CarbonContextSnapshot snapshot) {
+        Utils.checkSecurity();
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Carbon context snapshot cannot be null");
+        }
+        return snapshot.restore();
     }
 
     /**
@@ -19,7 +19,9 @@ import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry;
 import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
+import org.wso2.carbon.kernel.metrics.MetricsRegistry;
 
 /**
  * Activator class for carbon core.
@@ -32,11 +34,19 @@ public class CarbonCoreBundleActivator implements BundleActivator {
     @Override
     public void start(BundleContext bundleContext) throws Exception {
         DataHolder.getInstance().setBundleContext(bundleContext);
+        try {
+            MBeanRegistrator.registerMBean(StartupTimeline.getInstance());
+        } catch (RuntimeException e) {
+            logger.debug("Could not register the startup timeline MBean", e);
+        }
+        CarbonMetricsRegistry.getInstance().publish();
+        bundleContext.registerService(MetricsRegistry.class, CarbonMetricsRegistry.getInstance(), null);
         logger.debug("Carbon core bundle is started successfully");
     }
 
     @Override
     public void stop(BundleContext bundleContext) throws Exception {
+        CarbonMetricsRegistry.getInstance().unpublish();
         MBeanRegistrator.unregisterAllMBeans();
         logger.debug("Carbon core bundle is stopped successfully");
     }
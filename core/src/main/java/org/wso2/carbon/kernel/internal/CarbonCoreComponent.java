@@ -28,6 +28,7 @@ public class CarbonCoreComponent {
 
     @Activate
     public void activate() {
+        long startTime = System.currentTimeMillis();
         try {
             logger.debug("Activating CarbonCoreComponent");
 
@@ -41,6 +42,8 @@ public class CarbonCoreComponent {
             DataHolder.getInstance().getBundleContext()
                     .registerService(CarbonRuntime.class.getName(), carbonRuntime, null);
 
+            StartupTimeline.getInstance().recordPhase("kernel.core.activation", startTime,
+                    System.currentTimeMillis());
         } catch (Throwable throwable) {
             logger.error("Error while activating CarbonCoreComponent");
         }
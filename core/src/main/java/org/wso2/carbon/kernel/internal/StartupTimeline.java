@@ -0,0 +1,209 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.Constants;
+import org.wso2.carbon.kernel.internal.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timeline of the startup phases of the Carbon server, from loading the launch configuration until all the startup
+ * components are notified.
+ * <p>
+ * Phases of the launcher, i.e. loading the launch configuration and initializing and starting the OSGi framework,
+ * are published by the launcher as System properties with the {@link Constants#STARTUP_PHASE_PREFIX} prefix. The
+ * install and start phases of all the initial bundles are published together in the
+ * {@link Constants#INITIAL_BUNDLE_PHASES} System property. Phases of the kernel and the RequiredCapabilityListeners
+ * are recorded directly in this timeline.
+ *
+ * @since 5.2.9
+ */
+public class StartupTimeline implements StartupTimelineMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+    private static final long UNKNOWN_TIME = -1;
+
+    private static StartupTimeline instance = new StartupTimeline();
+
+    private final Map<String, Phase> phaseMap = new ConcurrentHashMap<>();
+
+    private volatile long completedTime = UNKNOWN_TIME;
+
+    StartupTimeline() {
+    }
+
+    public static StartupTimeline getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records a startup phase of the kernel. A phase which is recorded again replaces the previous one.
+     *
+     * @param phaseName name of the phase, e.g. kernel.manifest.processing
+     * @param startTime start time of the phase in milliseconds
+     * @param endTime   end time of the phase in milliseconds
+     */
+    public void recordPhase(String phaseName, long startTime, long endTime) {
+        phaseMap.put(phaseName, new Phase(phaseName, startTime, endTime));
+    }
+
+    /**
+     * Marks the startup of the server as completed.
+     */
+    public void complete() {
+        completedTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public long getStartupDuration() {
+        return completedTime == UNKNOWN_TIME ? UNKNOWN_TIME : completedTime - getServerStartTime(getAllPhases());
+    }
+
+    @Override
+    public String[] getPhases() {
+        List<Phase> phases = getAllPhases();
+        long serverStartTime = getServerStartTime(phases);
+        return phases.stream()
+                .map(phase -> phase.name + " (started at " + (phase.startTime - serverStartTime) + " ms, took " +
+                        phase.getDuration() + " ms)")
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getPhaseDuration(String phaseName) {
+        return getAllPhases().stream()
+                .filter(phase -> phase.name.equals(phaseName))
+                .mapToLong(Phase::getDuration)
+                .findFirst()
+                .orElse(UNKNOWN_TIME);
+    }
+
+    @Override
+    public String dumpAsJson() {
+        List<Phase> phases = getAllPhases();
+        long serverStartTime = getServerStartTime(phases);
+        long startupDuration = completedTime == UNKNOWN_TIME ? UNKNOWN_TIME : completedTime - serverStartTime;
+        StringBuilder json = new StringBuilder("{\n  \"serverStartTime\": ").append(serverStartTime)
+                .append(",\n  \"startupDuration\": ").append(startupDuration)
+                .append(",\n  \"phases\": [");
+        String separator = "\n";
+        for (Phase phase : phases) {
+            json.append(separator)
+                    .append("    {\"name\": ").append(Utils.quote(phase.name))
+                    .append(", \"startedAt\": ").append(phase.startTime - serverStartTime)
+                    .append(", \"duration\": ").append(phase.getDuration())
+                    .append("}");
+            separator = ",\n";
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    /**
+     * Returns the phases recorded by the launcher and the kernel, ordered by their start time.
+     */
+    private List<Phase> getAllPhases() {
+        List<Phase> phases = new ArrayList<>(phaseMap.values());
+        Properties systemProperties = System.getProperties();
+        for (String propertyName : systemProperties.stringPropertyNames()) {
+            if (!propertyName.startsWith(Constants.STARTUP_PHASE_PREFIX)) {
+                continue;
+            }
+
+            String phaseName = propertyName.substring(Constants.STARTUP_PHASE_PREFIX.length());
+            String[] times = systemProperties.getProperty(propertyName).split(",");
+            try {
+                phases.add(new Phase(phaseName, Long.parseLong(times[0].trim()), Long.parseLong(times[1].trim())));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.debug("Ignoring the invalid startup phase {}", propertyName, e);
+            }
+        }
+        addInitialBundlePhases(phases, systemProperties.getProperty(Constants.INITIAL_BUNDLE_PHASES));
+        phases.sort(Comparator.<Phase>comparingLong(phase -> phase.startTime).thenComparing(phase -> phase.name));
+        return phases;
+    }
+
+    /**
+     * Adds the install and start phases of the initial bundles published by the launcher, as a list of
+     * "symbolicName,installStart,installEnd[,start,end]" entries separated by ";".
+     */
+    private static void addInitialBundlePhases(List<Phase> phases, String initialBundlePhases) {
+        if (initialBundlePhases == null || initialBundlePhases.isEmpty()) {
+            return;
+        }
+
+        for (String initialBundle : initialBundlePhases.split(";")) {
+            String[] times = initialBundle.split(",");
+            try {
+                phases.add(new Phase("bundle.install." + times[0], Long.parseLong(times[1].trim()),
+                        Long.parseLong(times[2].trim())));
+                if (times.length > 3) {
+                    phases.add(new Phase("bundle.start." + times[0], Long.parseLong(times[3].trim()),
+                            Long.parseLong(times[4].trim())));
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.debug("Ignoring the invalid initial bundle phases {}", initialBundle, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the server start time set by the launcher. The launch configuration is loaded before the start time is
+     * set by the Carbon server, hence the earliest phase is considered if it started before.
+     */
+    private static long getServerStartTime(List<Phase> phases) {
+        long serverStartTime = phases.stream()
+                .mapToLong(phase -> phase.startTime)
+                .min()
+                .orElse(System.currentTimeMillis());
+        String startTime = System.getProperty(Constants.START_TIME);
+        if (startTime != null) {
+            try {
+                serverStartTime = Math.min(serverStartTime, Long.parseLong(startTime));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring the invalid server start time {}", startTime, e);
+            }
+        }
+        return serverStartTime;
+    }
+
+    /**
+     * A startup phase.
+     */
+    private static class Phase {
+        private final String name;
+        private final long startTime;
+        private final long endTime;
+
+        private Phase(String name, long startTime, long endTime) {
+            this.name = name;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        private long getDuration() {
+            return endTime - startTime;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal;
+
+/**
+ * MBean interface for exposing the startup timeline of the Carbon server.
+ *
+ * @since 5.2.9
+ */
+public interface StartupTimelineMBean {
+
+    /**
+     * Returns the time in milliseconds from the server start until the startup order resolution completed, or -1 if
+     * the server is still starting.
+     *
+     * @return the startup time of the server
+     */
+    long getStartupDuration();
+
+    /**
+     * Returns the recorded startup phases ordered by their start time. Each element describes a phase with the time
+     * it started relative to the server start and its duration.
+     *
+     * @return the recorded startup phases
+     */
+    String[] getPhases();
+
+    /**
+     * Returns the duration of the given startup phase in milliseconds, or -1 if the phase is not recorded.
+     *
+     * @param phaseName name of the startup phase, e.g. framework.start
+     * @return the duration of the startup phase
+     */
+    long getPhaseDuration(String phaseName);
+
+    /**
+     * Returns the startup timeline as a JSON document.
+     *
+     * @return the JSON representation of the startup timeline
+     */
+    String dumpAsJson();
+}
@@ -15,10 +15,11 @@
  */
 package org.wso2.carbon.kernel.internal.context;
 
+import org.wso2.carbon.kernel.context.CarbonContext;
+
 import java.security.Principal;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * This class will preserve an instance the current CarbonContextHolder as a thread local variable.
@@ -31,7 +32,11 @@ import java.util.Optional;
 public final class CarbonContextHolder {
 
     private Principal userPrincipal;
-    private Map<String, Object> properties = new HashMap<>();
+    //  the properties are replaced on each change rather than modified, hence they can be shared by snapshots
+    private CarbonContextProperties properties = CarbonContextProperties.EMPTY;
+    //  the CarbonContext API instances backed by this instance, created once per thread
+    private CarbonContext carbonContext;
+    private CarbonContext privilegedCarbonContext;
 
     private static ThreadLocal<CarbonContextHolder> currentContextHolder = new ThreadLocal<CarbonContextHolder>() {
         protected CarbonContextHolder initialValue() {
@@ -78,7 +83,47 @@ public final class CarbonContextHolder {
      * @param value the value to be set to the property by the given name.
      */
     public void setProperty(String name, Object value) {
-        properties.put(name, value);
+        properties = properties.with(name, value);
+    }
+
+    /**
+     * Method to obtain all the properties on this CarbonContext instance. The returned properties are immutable,
+     * hence they are not affected by later changes to the properties of this instance.
+     *
+     * @return the properties of this CarbonContext instance.
+     */
+    public CarbonContextProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the read only CarbonContext backed by this instance, which is created using the given factory on the
+     * first call only.
+     *
+     * @param factory the factory which creates the CarbonContext backed by a CarbonContextHolder
+     * @return the CarbonContext backed by this instance
+     */
+    public CarbonContext getCarbonContext(Function<CarbonContextHolder, CarbonContext> factory) {
+        if (carbonContext == null) {
+            carbonContext = factory.apply(this);
+        }
+        return carbonContext;
+    }
+
+    /**
+     * Returns the privileged CarbonContext backed by this instance, which is created using the given factory on the
+     * first call only.
+     *
+     * @param factory the factory which creates the privileged CarbonContext backed by a CarbonContextHolder
+     * @param <T>     the type of the privileged CarbonContext
+     * @return the privileged CarbonContext backed by this instance
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends CarbonContext> T getPrivilegedCarbonContext(Function<CarbonContextHolder, T> factory) {
+        if (privilegedCarbonContext == null) {
+            privilegedCarbonContext = factory.apply(this);
+        }
+        return (T) privilegedCarbonContext;
     }
 
     /**
@@ -106,4 +151,17 @@ public final class CarbonContextHolder {
                             userPrincipal.toString()));
         }
     }
+
+    /**
+     * Replaces the user principal and the properties of this CarbonContext instance with the given ones, which were
+     * obtained from another CarbonContext instance, without the checks applied by
+     * {@link #setUserPrincipal(Principal)}.
+     *
+     * @param userPrincipal the user principal to be set, or null
+     * @param properties    the properties to be set, as returned by {@link #getProperties()}
+     */
+    public void restore(Principal userPrincipal, CarbonContextProperties properties) {
+        this.userPrincipal = userPrincipal;
+        this.properties = properties;
+    }
 }
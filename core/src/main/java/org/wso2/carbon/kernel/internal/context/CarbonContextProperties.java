@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.context;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable set of CarbonContext properties. A few properties are stored inline in two small arrays which are
+ * searched linearly, which is faster than hashing and allocates less than a {@link HashMap}. Properties beyond the
+ * inline capacity are stored in a {@link HashMap}.
+ * <p>
+ * Each change returns a new instance, hence an instance can be shared by snapshots of the CarbonContext.
+ *
+ * @since 5.2.9
+ */
+public final class CarbonContextProperties {
+    static final int INLINE_CAPACITY = 8;
+    static final CarbonContextProperties EMPTY = new CarbonContextProperties(new String[0], new Object[0], null);
+
+    private final String[] names;
+    private final Object[] values;
+    private final Map<String, Object> properties;
+
+    private CarbonContextProperties(String[] names, Object[] values, Map<String, Object> properties) {
+        this.names = names;
+        this.values = values;
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the value of the property by the given name.
+     *
+     * @param name the property name
+     * @return the value of the property, or null if no value is set
+     */
+    public Object get(String name) {
+        if (properties != null) {
+            return properties.get(name);
+        }
+        for (int index = 0; index < names.length; index++) {
+            if (Objects.equals(names[index], name)) {
+                return values[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the properties with the given property set to the given value. This instance is not modified.
+     *
+     * @param name  the property name
+     * @param value the value of the property
+     * @return the properties with the given property set
+     */
+    CarbonContextProperties with(String name, Object value) {
+        if (properties != null) {
+            Map<String, Object> newProperties = new HashMap<>(properties);
+            newProperties.put(name, value);
+            return new CarbonContextProperties(null, null, Collections.unmodifiableMap(newProperties));
+        }
+
+        for (int index = 0; index < names.length; index++) {
+            if (Objects.equals(names[index], name)) {
+                Object[] newValues = values.clone();
+                newValues[index] = value;
+                return new CarbonContextProperties(names, newValues, null);
+            }
+        }
+        if (names.length < INLINE_CAPACITY) {
+            String[] newNames = Arrays.copyOf(names, names.length + 1);
+            Object[] newValues = Arrays.copyOf(values, values.length + 1);
+            newNames[names.length] = name;
+            newValues[values.length] = value;
+            return new CarbonContextProperties(newNames, newValues, null);
+        }
+
+        Map<String, Object> newProperties = new HashMap<>();
+        for (int index = 0; index < names.length; index++) {
+            newProperties.put(names[index], values[index]);
+        }
+        newProperties.put(name, value);
+        return new CarbonContextProperties(null, null, Collections.unmodifiableMap(newProperties));
+    }
+
+    /**
+     * Returns whether no property is set.
+     *
+     * @return true if no property is set, false otherwise
+     */
+    public boolean isEmpty() {
+        return (properties != null) ? properties.isEmpty() : (names.length == 0);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.Constants;
+import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
+import org.wso2.carbon.kernel.metrics.Counter;
+import org.wso2.carbon.kernel.metrics.Gauge;
+import org.wso2.carbon.kernel.metrics.Histogram;
+import org.wso2.carbon.kernel.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.ObjectName;
+
+/**
+ * The {@link MetricsRegistry} of the Carbon kernel. The kernel reports into it before the Carbon core bundle is
+ * started, hence it is a singleton, of which the MBeans are registered with the MBeanServer only while the bundle is
+ * active.
+ *
+ * @since 5.2.9
+ */
+public class CarbonMetricsRegistry implements MetricsRegistry {
+    public static final String STARTUP_RESOLVER_COMPONENT = "startup-resolver";
+    public static final String RUNTIME_COMPONENT = "runtime";
+    public static final String CARBON_CONTEXT_COMPONENT = "carbon-context";
+
+    private static final Logger logger = LoggerFactory.getLogger(CarbonMetricsRegistry.class);
+    private static final String OBJECT_NAME_PREFIX = Constants.SERVER_PACKAGE + ":type=Metrics,component=";
+    private static final CarbonMetricsRegistry instance = new CarbonMetricsRegistry();
+
+    private final Map<String, ComponentMetrics> components = new ConcurrentHashMap<>();
+    private boolean published;
+
+    CarbonMetricsRegistry() {
+    }
+
+    /**
+     * Returns the metrics registry of the Carbon kernel.
+     *
+     * @return the metrics registry
+     */
+    public static CarbonMetricsRegistry getInstance() {
+        return instance;
+    }
+
+    @Override
+    public Counter counter(String component, String name) {
+        return getComponentMetrics(component, name).getOrCreate(name, Counter.class, Counter::new);
+    }
+
+    @Override
+    public Histogram histogram(String component, String name) {
+        return getComponentMetrics(component, name).getOrCreate(name, Histogram.class, Histogram::new);
+    }
+
+    @Override
+    public void gauge(String component, String name, Gauge gauge) {
+        if (gauge == null) {
+            throw new IllegalArgumentException("Gauge cannot be null");
+        }
+        getComponentMetrics(component, name).putGauge(name, gauge);
+    }
+
+    @Override
+    public synchronized void removeComponent(String component) {
+        if (components.remove(component) != null && published) {
+            MBeanRegistrator.unregisterMBean(getObjectName(component));
+        }
+    }
+
+    /**
+     * Registers the MBeans of the components with the MBeanServer, and the MBeans of the components added later on.
+     */
+    public synchronized void publish() {
+        published = true;
+        components.forEach(this::registerMBean);
+    }
+
+    /**
+     * Unregisters the MBeans of the components from the MBeanServer.
+     */
+    public synchronized void unpublish() {
+        published = false;
+        components.keySet().forEach(component -> MBeanRegistrator.unregisterMBean(getObjectName(component)));
+    }
+
+    /**
+     * Returns the object name of the MBean of the given component.
+     *
+     * @param component the name of the component
+     * @return the object name
+     */
+    public static String getObjectName(String component) {
+        return OBJECT_NAME_PREFIX + (component.matches("[^,=:\"*?\\s]+") ? component : ObjectName.quote(component));
+    }
+
+    private ComponentMetrics getComponentMetrics(String component, String name) {
+        if (component == null || component.isEmpty() || name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Component and metric names cannot be null or empty");
+        }
+        ComponentMetrics componentMetrics = components.get(component);
+        if (componentMetrics != null) {
+            return componentMetrics;
+        }
+
+        synchronized (this) {
+            return components.computeIfAbsent(component, key -> {
+                ComponentMetrics metrics = new ComponentMetrics(key);
+                if (published) {
+                    registerMBean(key, metrics);
+                }
+                return metrics;
+            });
+        }
+    }
+
+    private void registerMBean(String component, ComponentMetrics componentMetrics) {
+        try {
+            MBeanRegistrator.registerMBean(componentMetrics, getObjectName(component));
+        } catch (RuntimeException e) {
+            logger.debug("Could not register the metrics MBean of component " + component, e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.wso2.carbon.kernel.metrics.Counter;
+import org.wso2.carbon.kernel.metrics.Gauge;
+import org.wso2.carbon.kernel.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+
+/**
+ * The metrics of a component, which are published as the attributes of a dynamic MBean. The attribute values are
+ * read from the metrics when the MBean is queried.
+ * <p>
+ * Counters and gauges are published as attributes of their names. Each histogram is published as the attributes
+ * {@code [name].count}, {@code [name].mean}, {@code [name].max} and {@code [name].p50}, {@code [name].p90},
+ * {@code [name].p99} and {@code [name].p999} for its percentiles.
+ *
+ * @since 5.2.9
+ */
+class ComponentMetrics implements DynamicMBean {
+    private static final String COUNT = "count";
+    private static final String MEAN = "mean";
+    private static final String MAX = "max";
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String component;
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    ComponentMetrics(String component) {
+        this.component = component;
+    }
+
+    /**
+     * Returns the metric of the given name, which is created using the given factory if it does not exist.
+     *
+     * @param name    the name of the metric
+     * @param type    the type of the metric
+     * @param factory the factory which creates the metric
+     * @param <T>     the type of the metric
+     * @return the metric
+     */
+    <T> T getOrCreate(String name, Class<T> type, Supplier<T> factory) {
+        Object metric = metrics.computeIfAbsent(name, key -> factory.get());
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(getMetricTypeMessage(name, metric));
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Registers the given gauge, replacing any gauge of the same name.
+     *
+     * @param name  the name of the gauge
+     * @param gauge the gauge
+     */
+    void putGauge(String name, Gauge gauge) {
+        metrics.compute(name, (key, metric) -> {
+            if (metric != null && !(metric instanceof Gauge)) {
+                throw new IllegalArgumentException(getMetricTypeMessage(name, metric));
+            }
+            return gauge;
+        });
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Object metric = metrics.get(attribute);
+        if (metric instanceof Counter) {
+            return ((Counter) metric).getCount();
+        } else if (metric instanceof Gauge) {
+            return ((Gauge) metric).getValue();
+        }
+
+        int separatorIndex = attribute.lastIndexOf('.');
+        if (separatorIndex > 0) {
+            metric = metrics.get(attribute.substring(0, separatorIndex));
+            if (metric instanceof Histogram) {
+                Object value = getHistogramAttribute((Histogram) metric, attribute.substring(separatorIndex + 1));
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        throw new AttributeNotFoundException("No metric " + attribute + " in component " + component);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList attributeList = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                attributeList.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // attributes which are not found are omitted, as specified by DynamicMBean
+            }
+        }
+        return attributeList;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, MBeanException {
+        throw new MBeanException(new UnsupportedOperationException("Metrics of component " + component +
+                " are read-only"));
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        metrics.forEach((name, metric) -> {
+            if (metric instanceof Counter) {
+                attributes.add(createAttributeInfo(name, long.class, "Counter " + name));
+            } else if (metric instanceof Gauge) {
+                attributes.add(createAttributeInfo(name, long.class, "Gauge " + name));
+            } else if (metric instanceof Histogram) {
+                attributes.add(createAttributeInfo(name + "." + COUNT, long.class, "Number of values of " + name));
+                attributes.add(createAttributeInfo(name + "." + MEAN, double.class, "Mean of " + name));
+                attributes.add(createAttributeInfo(name + "." + MAX, long.class, "Maximum of " + name));
+                for (String percentileName : PERCENTILE_NAMES) {
+                    attributes.add(createAttributeInfo(name + "." + percentileName, long.class,
+                            percentileName + " percentile of " + name));
+                }
+            }
+        });
+        return new MBeanInfo(getClass().getName(), "Metrics of component " + component,
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+    }
+
+    private static Object getHistogramAttribute(Histogram histogram, String attribute) {
+        switch (attribute) {
+            case COUNT:
+                return histogram.getCount();
+            case MEAN:
+                return histogram.getMean();
+            case MAX:
+                return histogram.getMax();
+            default:
+                for (int i = 0; i < PERCENTILE_NAMES.length; i++) {
+                    if (PERCENTILE_NAMES[i].equals(attribute)) {
+                        return histogram.getValueAtPercentile(PERCENTILES[i]);
+                    }
+                }
+                return null;
+        }
+    }
+
+    private static MBeanAttributeInfo createAttributeInfo(String name, Class<?> type, String description) {
+        return new MBeanAttributeInfo(name, type.getName(), description, true, false, false);
+    }
+
+    private String getMetricTypeMessage(String name, Object metric) {
+        return "Metric " + name + " of component " + component + " is a " +
+                (metric instanceof Gauge ? Gauge.class.getSimpleName() : metric.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
+import org.wso2.carbon.kernel.internal.config.MetricsExporterConfiguration;
+
+/**
+ * This service component starts the {@link PrometheusMetricsExporter}, if it is enabled in the Carbon configuration.
+ * Unlike the remote JMX connector, it serves the MBean attributes over plain HTTP, to be scraped by monitoring
+ * systems without an RMI registry.
+ *
+ * @since 5.2.9
+ */
+@Component(
+        name = "org.wso2.carbon.kernel.internal.metrics.MetricsExporterComponent",
+        immediate = true
+)
+public class MetricsExporterComponent {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExporterComponent.class);
+    private PrometheusMetricsExporter metricsExporter;
+    private CarbonRuntime carbonRuntime;
+
+    /**
+     * This is the activation method of MetricsExporterComponent. This will be called when all the references are
+     * satisfied.
+     */
+    @Activate
+    protected void start() {
+        try {
+            CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
+            MetricsExporterConfiguration exporterConfiguration = carbonConfiguration.getMetricsExporterConfiguration();
+            if (!exporterConfiguration.isEnabled()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Metrics exporter is disabled.");
+                }
+                return;
+            }
+
+            int port = exporterConfiguration.getPort() + carbonConfiguration.getPortsConfig().getOffset();
+            metricsExporter = new PrometheusMetricsExporter(exporterConfiguration.getHostName(), port,
+                    exporterConfiguration.getCacheTimeout());
+            metricsExporter.start();
+            logger.info("Metrics exporter URL : http://" + exporterConfiguration.getHostName() + ":" + port +
+                    PrometheusMetricsExporter.METRICS_PATH);
+        } catch (Throwable throwable) {
+            metricsExporter = null;
+            logger.error("Failed to start MetricsExporterComponent.", throwable);
+        }
+    }
+
+    /**
+     * This is the deactivation method of MetricsExporterComponent. This will be called when this component
+     * is being stopped or references are un-satisfied during runtime.
+     */
+    @Deactivate
+    protected void stop() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+            metricsExporter = null;
+        }
+    }
+
+    @Reference(
+            name = "carbon.metrics.exporter.carbon.runtime",
+            service = CarbonRuntime.class,
+            cardinality = ReferenceCardinality.AT_LEAST_ONE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unregisterCarbonRuntime"
+    )
+    protected void registerCarbonRuntime(CarbonRuntime carbonRuntime) {
+        this.carbonRuntime = carbonRuntime;
+    }
+
+    protected void unregisterCarbonRuntime(CarbonRuntime carbonRuntime) {
+        this.carbonRuntime = null;
+    }
+}
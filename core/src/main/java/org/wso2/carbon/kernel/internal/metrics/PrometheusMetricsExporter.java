@@ -0,0 +1,388 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.Constants;
+import org.wso2.carbon.kernel.jmx.MBeanManagementFactory;
+import org.wso2.carbon.kernel.metrics.Histogram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Serves the attributes of the platform and kernel MBeans in the Prometheus text exposition format, at
+ * {@code /metrics} of a small HTTP listener which runs on a single NIO selector thread.
+ * <p>
+ * The attribute values are read with a single {@link MBeanServer#getAttributes(ObjectName, String[])} call per MBean,
+ * and the rendered metrics are cached for the configured time, so that frequent scrapes do not query the MBeans each
+ * time. Numeric and boolean attributes, and the numeric and boolean items of composite attributes, are exported as
+ * {@code [domain]_[type]_[attribute]} with the other key properties of the object name as labels.
+ *
+ * @since 5.2.9
+ */
+public class PrometheusMetricsExporter {
+    static final String METRICS_PATH = "/metrics";
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusMetricsExporter.class);
+    private static final String[] OBJECT_NAME_PATTERNS = {"java.lang:*", Constants.SERVER_PACKAGE + ":*"};
+    private static final String TYPE_KEY = "type";
+    private static final String COMPONENT = "metrics-exporter";
+    private static final int MAX_REQUEST_SIZE = 8192;
+
+    private final InetSocketAddress address;
+    private final long cacheTimeout;
+    private final Histogram renderLatency;
+    private ServerSocketChannel serverSocketChannel;
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    // accessed only by the selector thread
+    private byte[] metrics;
+    private long renderedTime;
+
+    /**
+     * Creates an exporter which listens on the given address once started.
+     *
+     * @param hostName     the host name to bind to
+     * @param port         the port to bind to, or 0 for an ephemeral port
+     * @param cacheTimeout time in milliseconds for which the rendered metrics are served before they are re-read
+     */
+    public PrometheusMetricsExporter(String hostName, int port, long cacheTimeout) {
+        if (cacheTimeout < 0) {
+            throw new IllegalArgumentException("Metrics cache timeout cannot be negative: " + cacheTimeout);
+        }
+        this.address = new InetSocketAddress(hostName, port);
+        this.cacheTimeout = TimeUnit.MILLISECONDS.toNanos(cacheTimeout);
+        this.renderLatency = CarbonMetricsRegistry.getInstance().histogram(COMPONENT, "render.latency");
+    }
+
+    /**
+     * Binds the listener and starts serving the metrics.
+     *
+     * @throws IOException if the listener could not be bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        try {
+            serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.configureBlocking(false);
+            serverSocketChannel.bind(address);
+            serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly();
+            throw e;
+        }
+
+        running = true;
+        selectorThread = new Thread(this::run, "CarbonMetricsExporter");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Stops serving the metrics and closes the listener.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the port the exporter is listening on.
+     *
+     * @return the local port, or -1 if the exporter is not started
+     */
+    public synchronized int getPort() {
+        return running ? serverSocketChannel.socket().getLocalPort() : -1;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        } else if (key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException e) {
+                        logger.debug("Metrics exporter connection failed", e);
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Metrics exporter stopped unexpectedly", e);
+        } finally {
+            running = false;
+            selector.keys().forEach(PrometheusMetricsExporter::closeQuietly);
+            closeQuietly();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel != null) {
+            socketChannel.configureBlocking(false);
+            socketChannel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(MAX_REQUEST_SIZE));
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        ByteBuffer request = (ByteBuffer) key.attachment();
+        if (((SocketChannel) key.channel()).read(request) < 0) {
+            closeQuietly(key);
+            return;
+        }
+
+        String received = new String(request.array(), 0, request.position(), StandardCharsets.ISO_8859_1);
+        if (received.contains("\r\n\r\n")) {
+            respond(key, received.substring(0, received.indexOf("\r\n")));
+        } else if (!request.hasRemaining()) {
+            respond(key, "431 Request Header Fields Too Large", new byte[0], true);
+        }
+    }
+
+    private void respond(SelectionKey key, String requestLine) throws IOException {
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3) {
+            respond(key, "400 Bad Request", new byte[0], true);
+        } else if (!"GET".equals(parts[0]) && !"HEAD".equals(parts[0])) {
+            respond(key, "405 Method Not Allowed", new byte[0], true);
+        } else if (!METRICS_PATH.equals(parts[1].split("\\?", 2)[0])) {
+            respond(key, "404 Not Found", new byte[0], true);
+        } else {
+            respond(key, "200 OK", getMetrics(), "GET".equals(parts[0]));
+        }
+    }
+
+    private void respond(SelectionKey key, String status, byte[] body, boolean includeBody) throws IOException {
+        byte[] headers = ("HTTP/1.1 " + status + "\r\n" +
+                "Content-Type: " + CONTENT_TYPE + "\r\n" +
+                "Content-Length: " + body.length + "\r\n" +
+                "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer response = ByteBuffer.allocate(headers.length + (includeBody ? body.length : 0));
+        response.put(headers);
+        if (includeBody) {
+            response.put(body);
+        }
+        response.flip();
+        key.attach(response);
+        key.interestOps(SelectionKey.OP_WRITE);
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        ByteBuffer response = (ByteBuffer) key.attachment();
+        ((SocketChannel) key.channel()).write(response);
+        if (!response.hasRemaining()) {
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Returns the rendered metrics, which are re-rendered only if they are older than the cache timeout.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    private byte[] getMetrics() {
+        long now = System.nanoTime();
+        if (metrics == null || now - renderedTime >= cacheTimeout) {
+            metrics = render().getBytes(StandardCharsets.UTF_8);
+            renderedTime = now;
+            renderLatency.record(System.nanoTime() - now);
+        }
+        return metrics;
+    }
+
+    /**
+     * Reads the attributes of the platform and kernel MBeans and renders them in the Prometheus text format.
+     *
+     * @return the rendered metrics
+     */
+    String render() {
+        // metric name -> labels -> value, sorted so that the samples of a metric are grouped together
+        Map<String, Map<String, String>> samples = new TreeMap<>();
+        Set<MBeanServer> mBeanServers = Collections.newSetFromMap(new IdentityHashMap<>());
+        mBeanServers.add(ManagementFactory.getPlatformMBeanServer());
+        mBeanServers.add(MBeanManagementFactory.getMBeanServer());
+        for (MBeanServer mBeanServer : mBeanServers) {
+            for (String pattern : OBJECT_NAME_PATTERNS) {
+                try {
+                    for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(pattern), null)) {
+                        collect(mBeanServer, objectName, samples);
+                    }
+                } catch (JMException e) {
+                    logger.debug("Could not query the MBeans of " + pattern, e);
+                }
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        samples.forEach((name, values) -> {
+            builder.append("# TYPE ").append(name).append(" untyped\n");
+            values.forEach((labels, value) -> builder.append(name).append(labels).append(' ').append(value)
+                    .append('\n'));
+        });
+        return builder.toString();
+    }
+
+    private static void collect(MBeanServer mBeanServer, ObjectName objectName,
+                                Map<String, Map<String, String>> samples) {
+        String[] attributeNames;
+        Object[] attributes;
+        try {
+            attributeNames = Arrays.stream(mBeanServer.getMBeanInfo(objectName).getAttributes())
+                    .filter(MBeanAttributeInfo::isReadable)
+                    .map(MBeanAttributeInfo::getName)
+                    .toArray(String[]::new);
+            attributes = mBeanServer.getAttributes(objectName, attributeNames).toArray();
+        } catch (JMException | RuntimeException e) {
+            // the MBean may have been unregistered since it was queried
+            logger.debug("Could not read the attributes of " + objectName, e);
+            return;
+        }
+
+        String type = objectName.getKeyProperty(TYPE_KEY);
+        String prefix = objectName.getDomain() + (type != null ? "_" + unquote(type) : "");
+        String labels = getLabels(objectName);
+        for (Object attribute : attributes) {
+            String name = prefix + "_" + ((Attribute) attribute).getName();
+            Object value = ((Attribute) attribute).getValue();
+            if (value instanceof CompositeData) {
+                CompositeData compositeData = (CompositeData) value;
+                for (String key : compositeData.getCompositeType().keySet()) {
+                    addSample(samples, name + "_" + key, labels, compositeData.get(key));
+                }
+            } else {
+                addSample(samples, name, labels, value);
+            }
+        }
+    }
+
+    private static void addSample(Map<String, Map<String, String>> samples, String name, String labels,
+                                  Object value) {
+        String sampleValue;
+        if (value instanceof Number) {
+            sampleValue = formatNumber((Number) value);
+        } else if (value instanceof Boolean) {
+            sampleValue = (Boolean) value ? "1" : "0";
+        } else {
+            return;
+        }
+        samples.computeIfAbsent(sanitize(name, true), key -> new TreeMap<>()).putIfAbsent(labels, sampleValue);
+    }
+
+    private static String getLabels(ObjectName objectName) {
+        StringBuilder labels = new StringBuilder();
+        new TreeMap<>(objectName.getKeyPropertyList()).forEach((key, value) -> {
+            if (!TYPE_KEY.equals(key)) {
+                labels.append(labels.length() == 0 ? '{' : ',').append(sanitize(key, false)).append("=\"")
+                        .append(unquote(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                        .append('"');
+            }
+        });
+        return labels.length() == 0 ? "" : labels.append('}').toString();
+    }
+
+    private static String formatNumber(Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            double doubleValue = value.doubleValue();
+            if (Double.isNaN(doubleValue)) {
+                return "NaN";
+            } else if (Double.isInfinite(doubleValue)) {
+                return doubleValue > 0 ? "+Inf" : "-Inf";
+            }
+            return Double.toString(doubleValue);
+        }
+        return value.toString();
+    }
+
+    private static String sanitize(String name, boolean metricName) {
+        String sanitized = name.replaceAll(metricName ? "[^a-zA-Z0-9_:]" : "[^a-zA-Z0-9_]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static String unquote(String value) {
+        return value.startsWith("\"") ? ObjectName.unquote(value) : value;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.debug("Could not close metrics exporter connection", e);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (serverSocketChannel != null) {
+                serverSocketChannel.close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Could not close the metrics exporter listener", e);
+        }
+    }
+}
@@ -17,13 +17,21 @@ package org.wso2.carbon.kernel.internal.runtime;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry;
+import org.wso2.carbon.kernel.internal.runtime.RuntimeLifecycleOrchestrator.Phase;
 import org.wso2.carbon.kernel.runtime.Runtime;
 import org.wso2.carbon.kernel.runtime.RuntimeService;
 import org.wso2.carbon.kernel.runtime.RuntimeState;
 import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
 import org.wso2.carbon.utils.Utils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Implementation class for the RuntimeService interface.
@@ -34,50 +42,62 @@ import java.util.List;
 public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServiceMBean {
     private static Logger logger = LoggerFactory.getLogger(CarbonRuntimeService.class);
     RuntimeManager runtimeManager;
+    private final RuntimeLifecycleOrchestrator orchestrator = new RuntimeLifecycleOrchestrator();
 
     public CarbonRuntimeService(RuntimeManager runtimeManager) {
         this.runtimeManager = runtimeManager;
+        CarbonMetricsRegistry metricsRegistry = CarbonMetricsRegistry.getInstance();
+        metricsRegistry.gauge(CarbonMetricsRegistry.RUNTIME_COMPONENT, "runtimes.active", () ->
+                runtimeManager.getRuntimeList().stream().filter(runtime -> runtime.getState() == RuntimeState.ACTIVE)
+                        .count());
+        metricsRegistry.gauge(CarbonMetricsRegistry.RUNTIME_COMPONENT, "requests.inflight", () ->
+                runtimeManager.getRuntimeList().stream().mapToLong(Runtime::getInFlightRequestCount).sum());
     }
 
     /**
-     * Starts registered runtime.
+     * Starts registered runtime. The runtimes are started in parallel, each after the runtimes which it depends on.
      *
      * @throws RuntimeServiceException - thrown if any issues occur during the process
      */
     @Override
     public void startRuntimes() throws RuntimeServiceException {
         Utils.checkSecurity();
-        List<Runtime> runtimeMap = runtimeManager.getRuntimeList();
+        //  runtimes may be registered or un-registered meanwhile, hence the same snapshot is checked and processed
+        List<Runtime> runtimeMap = new ArrayList<>(runtimeManager.getRuntimeList());
         for (Runtime runtime : runtimeMap) {
-            if (runtime.getState() == RuntimeState.INACTIVE) {
-                runtime.init();
-                runtime.start();
-            } else if (runtime.getState() == RuntimeState.PENDING) {
+            if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
             } else if (runtime.getState() == RuntimeState.MAINTENANCE) {
                 throw new RuntimeServiceException("Runtime is in maintenance mode." + runtime.getClass().getName());
+            }
+        }
+        orchestrator.run(runtimeMap, false, "start", runtime -> {
+            if (runtime.getState() == RuntimeState.INACTIVE) {
+                orchestrator.record(runtime, Phase.INIT, Runtime::init);
+                orchestrator.record(runtime, Phase.START, Runtime::start);
             } else {
                 logger.error("Runtime already started : " + runtime.getClass().getName());
             }
-        }
+        });
     }
 
     /**
-     * Stops registered runtime.
+     * Stops registered runtime. The runtimes are stopped in parallel, each after the runtimes which depend on it.
      *
      * @throws RuntimeServiceException - thrown if any issues occur during the process
      */
     @Override
     public void stopRuntimes() throws RuntimeServiceException {
         Utils.checkSecurity();
-        List<Runtime> runtimeMap = runtimeManager.getRuntimeList();
+        //  runtimes may be registered or un-registered meanwhile, hence the same snapshot is checked and processed
+        List<Runtime> runtimeMap = new ArrayList<>(runtimeManager.getRuntimeList());
         for (Runtime runtime : runtimeMap) {
             if (runtime.getState() == RuntimeState.PENDING) {
                 throw new RuntimeServiceException("Runtime not initialized." + runtime.getClass().getName());
-            } else {
-                runtime.stop();
             }
         }
+        orchestrator.run(runtimeMap, true, "stop", runtime -> orchestrator.record(runtime, Phase.STOP,
+                Runtime::stop));
     }
 
     /**
@@ -98,6 +118,45 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
         }
     }
 
+    /**
+     * Puts registered runtime into MAINTENANCE state, and waits for them to complete the requests in flight.
+     *
+     * @param timeout the maximum time to wait for the requests in flight to complete
+     * @param unit    the unit of the timeout
+     * @return a future which is completed once no request is in flight in any registered runtime
+     * @throws RuntimeServiceException - thrown if any issues occur during the process
+     */
+    @Override
+    public CompletableFuture<Void> beginMaintenance(long timeout, TimeUnit unit) throws RuntimeServiceException {
+        beginMaintenance();
+        return orchestrator.drain(runtimeManager.getRuntimeList(), timeout, unit);
+    }
+
+    /**
+     * Puts registered runtime into MAINTENANCE state, and waits for them to complete the requests in flight.
+     *
+     * @param timeoutMillis the maximum time to wait for the requests in flight to complete, in milliseconds
+     * @return true if no request is in flight in any registered runtime, false if requests are still in flight after
+     * the timeout
+     * @throws RuntimeServiceException - thrown if any issues occur during the process
+     */
+    @Override
+    public boolean beginMaintenance(long timeoutMillis) throws RuntimeServiceException {
+        try {
+            beginMaintenance(timeoutMillis, TimeUnit.MILLISECONDS).get();
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                logger.warn(e.getCause().getMessage());
+                return false;
+            }
+            throw new RuntimeServiceException("Error while waiting for runtimes to drain", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeServiceException("Interrupted while waiting for runtimes to drain", e);
+        }
+    }
+
     /**
      * Puts registered runtime into MAINTENANCE state.
      *
@@ -116,4 +175,23 @@ public class CarbonRuntimeService implements RuntimeService, CarbonRuntimeServic
         }
     }
 
+    /**
+     * Returns the time taken by the last init, start and stop of each registered runtime.
+     *
+     * @return the latencies in milliseconds, by keys of the form {@code [runtime name].[init|start|stop]}
+     */
+    @Override
+    public Map<String, Long> getRuntimeLatencies() {
+        return orchestrator.getLatencies();
+    }
+
+    /**
+     * Returns the number of requests in flight in each registered runtime.
+     *
+     * @return the number of requests in flight by runtime name
+     */
+    @Override
+    public Map<String, Long> getInFlightRequestCounts() {
+        return RuntimeLifecycleOrchestrator.getInFlightRequestCounts(runtimeManager.getRuntimeList());
+    }
 }
@@ -17,6 +17,8 @@ package org.wso2.carbon.kernel.internal.runtime;
 
 import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
 
+import java.util.Map;
+
 /**
  * MBean interface for exposing CarbonRuntimeService functionalities.
  *
@@ -46,6 +48,18 @@ public interface CarbonRuntimeServiceMBean {
      */
     void beginMaintenance() throws RuntimeServiceException;
 
+    /**
+     * Users can call this method to put the Carbon server on Maintenance Mode, and to wait for all registered
+     * runtime to complete the requests in flight, such as before restarting the server.
+     *
+     * @param timeoutMillis the maximum time to wait for the requests in flight to complete, in milliseconds
+     * @return true if no request is in flight in any registered runtime, false if requests are still in flight after
+     * the timeout
+     * @throws RuntimeServiceException - on error while trying to start server Maintenance mode
+     * @since 5.2.9
+     */
+    boolean beginMaintenance(long timeoutMillis) throws RuntimeServiceException;
+
     /**
      * Users can call this method to put the Carbon server back in normal state and this will affect
      * all registered runtime into INACTIVE state.
@@ -54,4 +68,19 @@ public interface CarbonRuntimeServiceMBean {
      */
     void endMaintenance() throws RuntimeServiceException;
 
+    /**
+     * Returns the time taken by the last init, start and stop of each registered runtime.
+     *
+     * @return the latencies in milliseconds, by keys of the form {@code [runtime name].[init|start|stop]}
+     * @since 5.2.9
+     */
+    Map<String, Long> getRuntimeLatencies();
+
+    /**
+     * Returns the number of requests in flight in each registered runtime.
+     *
+     * @return the number of requests in flight by runtime name
+     * @since 5.2.9
+     */
+    Map<String, Long> getInFlightRequestCounts();
 }
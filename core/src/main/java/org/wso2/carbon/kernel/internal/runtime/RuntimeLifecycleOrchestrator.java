@@ -0,0 +1,375 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.context.CarbonContextExecutors;
+import org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry;
+import org.wso2.carbon.kernel.metrics.Counter;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a lifecycle operation of the registered runtimes in parallel, in the order of the dependencies they declare
+ * using {@link Runtime#getDependencies()}. When starting, a runtime is started once the runtimes which it depends on
+ * have started, and when stopping, a runtime is stopped once the runtimes which depend on it have stopped. Hence
+ * independent runtimes start in the time taken by the slowest of them rather than in the sum of their times.
+ * <p>
+ * A runtime of which a dependency failed is skipped. The time taken by each lifecycle operation of each runtime is
+ * recorded, and reported into the {@code runtime} component of the {@link CarbonMetricsRegistry}. It also waits for
+ * runtimes in maintenance mode to drain their requests in flight, within a timeout.
+ * <p>
+ * The lifecycle operations run with the carbon context of the thread which requested them, as they used to when they
+ * were run by that thread.
+ *
+ * @since 5.2.9
+ */
+class RuntimeLifecycleOrchestrator {
+    private static final Logger logger = LoggerFactory.getLogger(RuntimeLifecycleOrchestrator.class);
+    private static final String THREAD_NAME_PREFIX = "carbon-runtime-lifecycle-";
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final long DRAIN_SCHEDULER_KEEP_ALIVE_SECONDS = 60;
+    private static volatile ScheduledThreadPoolExecutor drainScheduler;
+    private static final Counter drainTimeouts = CarbonMetricsRegistry.getInstance()
+            .counter(CarbonMetricsRegistry.RUNTIME_COMPONENT, "drain.timeouts");
+
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * The lifecycle phases of a runtime of which the latency is recorded.
+     */
+    enum Phase {
+        INIT, START, STOP
+    }
+
+    /**
+     * A lifecycle operation of a runtime.
+     */
+    @FunctionalInterface
+    interface RuntimeOperation {
+        void run(Runtime runtime) throws RuntimeServiceException;
+    }
+
+    /**
+     * Runs the specified operation on the specified runtimes, in parallel and in the order of their dependencies.
+     *
+     * @param runtimes  the runtimes
+     * @param reverse   true if a runtime is to be processed after the runtimes which depend on it, false if it is to
+     *                  be processed after the runtimes which it depends on
+     * @param action    the name of the operation, used in error messages
+     * @param operation the operation
+     * @throws RuntimeServiceException if the dependencies of the runtimes are cyclic, or if the operation fails on
+     *                                 any runtime
+     */
+    void run(List<Runtime> runtimes, boolean reverse, String action, RuntimeOperation operation)
+            throws RuntimeServiceException {
+        Map<Runtime, List<Runtime>> prerequisites = getPrerequisites(runtimes, reverse);
+        List<Runtime> order = sort(runtimes, prerequisites);
+
+        Map<Runtime, RuntimeServiceException> failures = new ConcurrentHashMap<>();
+        ExecutorService executorService = (runtimes.size() > 1) ? Executors.newFixedThreadPool(runtimes.size(),
+                createThreadFactory()) : null;
+        Executor executor = CarbonContextExecutors.executor((executorService != null) ? executorService :
+                Runnable::run);
+        try {
+            Map<Runtime, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+            for (Runtime runtime : order) {
+                CompletableFuture<?>[] dependencies = prerequisites.get(runtime).stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(runtime, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        operation.run(runtime);
+                    } catch (RuntimeServiceException e) {
+                        failures.put(runtime, e);
+                        throw new CompletionException(e);
+                    } catch (RuntimeException e) {
+                        failures.put(runtime, new RuntimeServiceException("Failed to " + action + " runtime " +
+                                runtime.getName(), e));
+                        throw e;
+                    }
+                }, executor));
+            }
+
+            for (Runtime runtime : order) {
+                try {
+                    futures.get(runtime).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    if (!failures.containsKey(runtime)) {
+                        logger.error("Skipped the " + action + " of runtime " + runtime.getName() + " as a runtime " +
+                                (reverse ? "which depends on it" : "which it depends on") + " failed");
+                    }
+                }
+            }
+        } finally {
+            if (executorService != null) {
+                executorService.shutdown();
+            }
+        }
+
+        if (failures.size() == 1) {
+            throw failures.values().iterator().next();
+        } else if (!failures.isEmpty()) {
+            List<Runtime> failedRuntimes = order.stream()
+                    .filter(failures::containsKey)
+                    .collect(Collectors.toList());
+            RuntimeServiceException exception = new RuntimeServiceException("Failed to " + action + " runtimes " +
+                    failedRuntimes.stream().map(Runtime::getName).collect(Collectors.toList()),
+                    failures.get(failedRuntimes.get(0)));
+            failedRuntimes.stream()
+                    .skip(1)
+                    .forEach(runtime -> exception.addSuppressed(failures.get(runtime)));
+            throw exception;
+        }
+    }
+
+    /**
+     * Runs the specified lifecycle phase of a runtime and records the time taken by it.
+     *
+     * @param runtime   the runtime
+     * @param phase     the lifecycle phase
+     * @param operation the lifecycle operation of the runtime
+     * @throws RuntimeServiceException if the lifecycle operation fails
+     */
+    void record(Runtime runtime, Phase phase, RuntimeOperation operation) throws RuntimeServiceException {
+        CarbonMetricsRegistry metricsRegistry = CarbonMetricsRegistry.getInstance();
+        String phaseName = phase.name().toLowerCase(Locale.ENGLISH);
+        long startTime = System.nanoTime();
+        try {
+            operation.run(runtime);
+        } catch (RuntimeServiceException | RuntimeException e) {
+            metricsRegistry.counter(CarbonMetricsRegistry.RUNTIME_COMPONENT, phaseName + ".failures").increment();
+            throw e;
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        metricsRegistry.histogram(CarbonMetricsRegistry.RUNTIME_COMPONENT, phaseName + ".latency").record(elapsedTime);
+        long latency = TimeUnit.NANOSECONDS.toMillis(elapsedTime);
+        latencies.put(getLatencyKey(runtime, phase), latency);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Runtime " + runtime.getName() + " completed " + phaseName + " in " + latency + " ms");
+        }
+    }
+
+    /**
+     * Returns a future which is completed once no request is in flight in any of the specified runtimes, or completed
+     * exceptionally with a {@link TimeoutException} if requests are still in flight after the specified timeout.
+     * The futures returned by the runtimes are cancelled if the returned future times out or is cancelled.
+     *
+     * @param runtimes the runtimes
+     * @param timeout  the maximum time to wait for the requests in flight to complete
+     * @param unit     the unit of the timeout
+     * @return the future which is completed once the runtimes are drained
+     */
+    CompletableFuture<Void> drain(List<Runtime> runtimes, long timeout, TimeUnit unit) {
+        CompletableFuture<?>[] drainFutures = runtimes.stream()
+                .map(Runtime::drain)
+                .filter(drainFuture -> drainFuture != null)
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        CompletableFuture.allOf(drainFutures).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                drained.completeExceptionally(throwable);
+            } else {
+                drained.complete(null);
+            }
+        });
+        if (drained.isDone()) {
+            return drained;
+        }
+
+        ScheduledFuture<?> timeoutTask = getDrainScheduler().schedule(() -> {
+            Map<String, Long> inFlightRequestCounts = getInFlightRequestCounts(runtimes);
+            inFlightRequestCounts.values().removeIf(count -> count == 0);
+            drainTimeouts.increment();
+            drained.completeExceptionally(new TimeoutException("Requests are still in flight in runtimes after " +
+                    timeout + " " + unit.name().toLowerCase(Locale.ENGLISH) + ": " + inFlightRequestCounts));
+        }, timeout, unit);
+        drained.whenComplete((result, throwable) -> {
+            timeoutTask.cancel(false);
+            if (throwable != null) {
+                //  the runtimes stop tracking the futures of a drain which timed out or was cancelled
+                Arrays.stream(drainFutures).forEach(drainFuture -> drainFuture.cancel(false));
+            }
+        });
+        return drained;
+    }
+
+    /**
+     * Returns the number of requests in flight in each of the specified runtimes.
+     *
+     * @param runtimes the runtimes
+     * @return the number of requests in flight by runtime name, in order of the names
+     */
+    static Map<String, Long> getInFlightRequestCounts(List<Runtime> runtimes) {
+        Map<String, Long> inFlightRequestCounts = new TreeMap<>();
+        runtimes.forEach(runtime -> inFlightRequestCounts.merge(runtime.getName(), runtime.getInFlightRequestCount(),
+                Long::sum));
+        return inFlightRequestCounts;
+    }
+
+    /**
+     * Returns the time taken by the last run of each lifecycle phase of each runtime, in milliseconds, by keys of
+     * the form {@code [runtime name].[phase]}, such as {@code org.wso2.carbon.sample.CustomRuntime.start}.
+     *
+     * @return the latencies of the lifecycle phases of the runtimes, in order of their keys
+     */
+    Map<String, Long> getLatencies() {
+        return Collections.unmodifiableMap(new TreeMap<>(latencies));
+    }
+
+    static String getLatencyKey(Runtime runtime, Phase phase) {
+        return runtime.getName() + "." + phase.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Returns the runtimes to be processed before each runtime, ignoring dependencies on runtimes which are not
+     * registered. All the runtimes of the same name are processed before a runtime which depends on that name.
+     */
+    private static Map<Runtime, List<Runtime>> getPrerequisites(List<Runtime> runtimes, boolean reverse) {
+        Map<String, List<Runtime>> runtimesByName = new HashMap<>();
+        runtimes.forEach(runtime -> runtimesByName.computeIfAbsent(runtime.getName(), name -> new ArrayList<>())
+                .add(runtime));
+
+        Map<Runtime, List<Runtime>> prerequisites = new IdentityHashMap<>();
+        runtimes.forEach(runtime -> prerequisites.put(runtime, new ArrayList<>()));
+        for (Runtime runtime : runtimes) {
+            Set<String> dependencies = runtime.getDependencies();
+            if (dependencies == null) {
+                continue;
+            }
+            for (String dependency : dependencies) {
+                List<Runtime> dependencyRuntimes = runtimesByName.get(dependency);
+                if (dependencyRuntimes == null) {
+                    logger.warn("Runtime " + runtime.getName() + " depends on runtime " + dependency +
+                            " which is not registered");
+                    continue;
+                }
+                for (Runtime dependencyRuntime : dependencyRuntimes) {
+                    if (reverse) {
+                        prerequisites.get(dependencyRuntime).add(runtime);
+                    } else {
+                        prerequisites.get(runtime).add(dependencyRuntime);
+                    }
+                }
+            }
+        }
+        return prerequisites;
+    }
+
+    /**
+     * Returns the runtimes in an order in which each runtime follows its prerequisites.
+     *
+     * @throws RuntimeServiceException if the dependencies of the runtimes are cyclic
+     */
+    private static List<Runtime> sort(List<Runtime> runtimes, Map<Runtime, List<Runtime>> prerequisites)
+            throws RuntimeServiceException {
+        Map<Runtime, Integer> remainingPrerequisites = new IdentityHashMap<>();
+        Map<Runtime, List<Runtime>> dependents = new IdentityHashMap<>();
+        Deque<Runtime> available = new ArrayDeque<>();
+        for (Runtime runtime : runtimes) {
+            remainingPrerequisites.put(runtime, prerequisites.get(runtime).size());
+            prerequisites.get(runtime).forEach(prerequisite -> dependents
+                    .computeIfAbsent(prerequisite, key -> new ArrayList<>())
+                    .add(runtime));
+            if (prerequisites.get(runtime).isEmpty()) {
+                available.add(runtime);
+            }
+        }
+
+        List<Runtime> order = new ArrayList<>(runtimes.size());
+        while (!available.isEmpty()) {
+            Runtime runtime = available.poll();
+            order.add(runtime);
+            dependents.getOrDefault(runtime, Collections.emptyList()).forEach(dependent -> {
+                if (remainingPrerequisites.merge(dependent, -1, Integer::sum) == 0) {
+                    available.add(dependent);
+                }
+            });
+        }
+
+        if (order.size() < runtimes.size()) {
+            throw new RuntimeServiceException("Cyclic dependencies between runtimes " + runtimes.stream()
+                    .filter(runtime -> remainingPrerequisites.get(runtime) > 0)
+                    .map(Runtime::getName)
+                    .collect(Collectors.toList()));
+        }
+        return order;
+    }
+
+    /**
+     * Returns the scheduler of drain timeouts, which is created on first use and of which the thread terminates when
+     * idle.
+     */
+    private static ScheduledThreadPoolExecutor getDrainScheduler() {
+        if (drainScheduler == null) {
+            synchronized (RuntimeLifecycleOrchestrator.class) {
+                if (drainScheduler == null) {
+                    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                            createThreadFactory());
+                    scheduler.setKeepAliveTime(DRAIN_SCHEDULER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                    scheduler.allowCoreThreadTimeOut(true);
+                    scheduler.setRemoveOnCancelPolicy(true);
+                    drainScheduler = scheduler;
+                }
+            }
+        }
+        return drainScheduler;
+    }
+
+    /**
+     * Returns a factory of daemon threads which use the context class loader of the current thread, as the
+     * lifecycle operations of runtimes used to be run by the current thread.
+     */
+    private static ThreadFactory createThreadFactory() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return task -> {
+            Thread thread = new Thread(task, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        };
+    }
+}
@@ -20,17 +20,20 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.runtime.Runtime;
 import org.wso2.carbon.utils.Utils;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Runtime Manager class.
+ * Runtime Manager class. Runtimes are registered and un-registered by the OSGi service component runtime while the
+ * registered runtimes are being started or stopped, hence they are kept in a copy-on-write list. A lifecycle operation
+ * which walks the list more than once should copy it first, so that it processes a single consistent snapshot.
  *
  * @since 5.0.0
  */
 public class RuntimeManager {
     private static Logger logger = LoggerFactory.getLogger(RuntimeManager.class);
-    private List<Runtime> runtimeList = new ArrayList<Runtime>();
+    private final List<Runtime> runtimeList = new CopyOnWriteArrayList<>();
 
 
     /**
@@ -56,10 +59,10 @@ public class RuntimeManager {
     /**
      * Return registered runtime list.
      *
-     * @return List of rumtimes
+     * @return an unmodifiable view of the list of runtimes, of which each iteration runs over a snapshot of the list
      */
     public List<Runtime> getRuntimeList() {
         Utils.checkSecurity();
-        return runtimeList;
+        return Collections.unmodifiableList(runtimeList);
     }
 }
@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Notifies {@code RequiredCapabilityListener}s as soon as the capabilities of their startup components change.
+ * <p>
+ * Capability updates only request a check. Checks are coalesced and executed on a single dispatcher thread, which
+ * re-checks only the components updated since the previous check. Listeners are therefore notified immediately
+ * instead of waiting for the next tick of the capability listener timer, which now acts only as a watchdog.
+ *
+ * @since 5.2.9
+ */
+class CapabilityListenerDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(CapabilityListenerDispatcher.class);
+
+    private static final String DISPATCHER_THREAD_NAME = "CarbonStartupOrderResolver-Dispatcher";
+
+    private final StartupComponentManager startupComponentManager;
+
+    private final Runnable completionHandler;
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, DISPATCHER_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean checkScheduled = new AtomicBoolean(false);
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a dispatcher for the given {@code StartupComponentManager}.
+     *
+     * @param startupComponentManager the manager which holds the startup components.
+     * @param completionHandler       invoked while holding the StartupComponentManager lock once all the components
+     *                                are satisfied.
+     */
+    CapabilityListenerDispatcher(StartupComponentManager startupComponentManager, Runnable completionHandler) {
+        this.startupComponentManager = startupComponentManager;
+        this.completionHandler = completionHandler;
+    }
+
+    /**
+     * Requests a satisfiability check of the updated components. Multiple requests made before the check starts are
+     * coalesced into a single check.
+     */
+    void requestCheck() {
+        if (closed || !checkScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executorService.execute(this::checkUpdatedComponents);
+        } catch (RejectedExecutionException e) {
+            checkScheduled.set(false);
+            logger.debug("Capability listener dispatcher is already closed, ignoring the check request.");
+        }
+    }
+
+    /**
+     * Stops the dispatcher. Requests made after this point are ignored.
+     */
+    void close() {
+        closed = true;
+        executorService.shutdown();
+    }
+
+    private void checkUpdatedComponents() {
+        checkScheduled.set(false);
+
+        synchronized (StartupComponentManager.class) {
+            if (closed) {
+                return;
+            }
+
+            try {
+                startupComponentManager.notifyUpdatedComponents();
+                if (!startupComponentManager.hasPendingComponents()) {
+                    completionHandler.run();
+                }
+            } catch (Throwable e) {
+                logger.error("Error occurred while notifying RequiredCapabilityListeners.", e);
+            }
+        }
+    }
+}
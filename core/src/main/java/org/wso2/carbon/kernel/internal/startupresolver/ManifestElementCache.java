@@ -0,0 +1,273 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.CARBON_COMPONENT_HEADER;
+
+/**
+ * Persistent cache of the parsed Carbon-Component manifest headers.
+ * <p>
+ * Cache entries are keyed by the bundle id and the last modified time of the bundle. On a warm restart, the manifest
+ * elements of an unchanged bundle are restored from the cache without reading its manifest headers or parsing them.
+ * Bundles without a Carbon-Component header are cached as well, as an entry with no manifest elements.
+ * <p>
+ * The cache file is expected to be stored in the persistent storage area of the Carbon core bundle, which resides in
+ * the OSGi configuration area. It is therefore discarded together with the rest of the framework state when the
+ * framework is started with a clean configuration area.
+ * <p>
+ * Manifest elements can be looked up concurrently. Loading and storing the cache file must not happen concurrently
+ * with lookups.
+ *
+ * @since 5.2.9
+ */
+class ManifestElementCache {
+    private static final Logger logger = LoggerFactory.getLogger(ManifestElementCache.class);
+
+    private static final int CACHE_FORMAT_VERSION = 1;
+
+    private final File cacheFile;
+
+    private final Map<Long, CacheEntry> loadedEntries = new HashMap<>();
+
+    private final Map<Long, CacheEntry> currentEntries = new ConcurrentHashMap<>();
+
+    private volatile boolean modified;
+
+    ManifestElementCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache entries from the cache file. A missing, outdated or corrupted cache file results in an empty
+     * cache.
+     */
+    void load() {
+        loadedEntries.clear();
+        if (!cacheFile.exists()) {
+            logger.debug("Manifest header cache file {} does not exist.", cacheFile);
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(cacheFile.toPath())))) {
+            if (in.readInt() != CACHE_FORMAT_VERSION) {
+                logger.debug("Ignoring manifest header cache file {} with an unsupported format.", cacheFile);
+                return;
+            }
+
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                CacheEntry cacheEntry = CacheEntry.read(in);
+                loadedEntries.put(cacheEntry.bundleId, cacheEntry);
+            }
+            logger.debug("Loaded {} entries from the manifest header cache file {}.", entryCount, cacheFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring the corrupted manifest header cache file " + cacheFile, e);
+            loadedEntries.clear();
+        }
+    }
+
+    /**
+     * Returns the manifest elements of the Carbon-Component header of the given bundle. The cached manifest elements
+     * are returned if the bundle is not modified since they were cached. Otherwise the manifest elements are created
+     * by the given function and cached.
+     *
+     * @param bundle       OSGi bundle
+     * @param headerParser creates the manifest elements of the bundle on a cache miss
+     * @return the list of manifest elements, an empty list if the bundle does not have a Carbon-Component header
+     */
+    List<ManifestElement> getManifestElements(Bundle bundle, Function<Bundle, List<ManifestElement>> headerParser) {
+        long bundleId = bundle.getBundleId();
+        long lastModified = bundle.getLastModified();
+
+        CacheEntry cacheEntry = loadedEntries.get(bundleId);
+        if (cacheEntry != null && cacheEntry.lastModified == lastModified) {
+            currentEntries.put(bundleId, cacheEntry);
+            return cacheEntry.toManifestElements(bundle);
+        }
+
+        List<ManifestElement> manifestElements = headerParser.apply(bundle);
+        currentEntries.put(bundleId, CacheEntry.from(bundleId, lastModified, manifestElements));
+        modified = true;
+        return manifestElements;
+    }
+
+    /**
+     * Stores the cache entries of the bundles looked up since the cache was loaded, if any of them differs from the
+     * loaded cache entries. The entries of uninstalled bundles are dropped.
+     */
+    void store() {
+        if (!modified && currentEntries.size() == loadedEntries.size()) {
+            return;
+        }
+
+        Path cacheFilePath = cacheFile.toPath();
+        Path tempFilePath = cacheFilePath.resolveSibling(cacheFilePath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cacheFilePath.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempFilePath)))) {
+                out.writeInt(CACHE_FORMAT_VERSION);
+                out.writeInt(currentEntries.size());
+                for (CacheEntry cacheEntry : currentEntries.values()) {
+                    cacheEntry.write(out);
+                }
+            }
+            Files.move(tempFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Stored {} entries in the manifest header cache file {}.", currentEntries.size(), cacheFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error occurred while storing the manifest header cache file " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Parsed Carbon-Component header of a bundle.
+     */
+    private static class CacheEntry {
+        private final long bundleId;
+        private final long lastModified;
+        private final List<CachedElement> elements;
+
+        private CacheEntry(long bundleId, long lastModified, List<CachedElement> elements) {
+            this.bundleId = bundleId;
+            this.lastModified = lastModified;
+            this.elements = elements;
+        }
+
+        private static CacheEntry from(long bundleId, long lastModified, List<ManifestElement> manifestElements) {
+            return new CacheEntry(bundleId, lastModified, manifestElements.stream()
+                    .map(manifestElement -> new CachedElement(manifestElement.getValue(),
+                            toTable(manifestElement.getKeys(), manifestElement::getAttributes),
+                            toTable(manifestElement.getDirectiveKeys(), manifestElement::getDirectives)))
+                    .collect(Collectors.toList()));
+        }
+
+        private List<ManifestElement> toManifestElements(Bundle bundle) {
+            List<ManifestElement> manifestElements = new ArrayList<>(elements.size());
+            for (CachedElement element : elements) {
+                manifestElements.add(ManifestElement.newInstance(CARBON_COMPONENT_HEADER, element.value,
+                        element.attributes, element.directives, bundle));
+            }
+            return manifestElements;
+        }
+
+        private static CacheEntry read(DataInputStream in) throws IOException {
+            long bundleId = in.readLong();
+            long lastModified = in.readLong();
+            int elementCount = in.readInt();
+            List<CachedElement> elements = new ArrayList<>(elementCount);
+            for (int i = 0; i < elementCount; i++) {
+                elements.add(new CachedElement(in.readUTF(), readTable(in), readTable(in)));
+            }
+            return new CacheEntry(bundleId, lastModified, elements);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(bundleId);
+            out.writeLong(lastModified);
+            out.writeInt(elements.size());
+            for (CachedElement element : elements) {
+                out.writeUTF(element.value);
+                writeTable(out, element.attributes);
+                writeTable(out, element.directives);
+            }
+        }
+
+        private static Map<String, List<String>> toTable(Enumeration<String> keys,
+                                                         Function<String, String[]> valueFunction) {
+            if (keys == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<String>> table = new LinkedHashMap<>();
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+                table.put(key, Arrays.asList(valueFunction.apply(key)));
+            }
+            return table;
+        }
+
+        private static Map<String, List<String>> readTable(DataInputStream in) throws IOException {
+            int keyCount = in.readInt();
+            if (keyCount == 0) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<String>> table = new LinkedHashMap<>();
+            for (int i = 0; i < keyCount; i++) {
+                String key = in.readUTF();
+                int valueCount = in.readInt();
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(in.readUTF());
+                }
+                table.put(key, values);
+            }
+            return table;
+        }
+
+        private static void writeTable(DataOutputStream out, Map<String, List<String>> table) throws IOException {
+            out.writeInt(table.size());
+            for (Map.Entry<String, List<String>> entry : table.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String value : entry.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parsed manifest element, without the bundle it belongs to.
+     */
+    private static class CachedElement {
+        private final String value;
+        private final Map<String, List<String>> attributes;
+        private final Map<String, List<String>> directives;
+
+        private CachedElement(String value, Map<String, List<String>> attributes,
+                              Map<String, List<String>> directives) {
+            this.value = value;
+            this.attributes = attributes;
+            this.directives = directives;
+        }
+    }
+}
@@ -15,26 +15,25 @@
  */
 package org.wso2.carbon.kernel.internal.startupresolver;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Counter implementation which maintains multiple key occurrences. This implementation is thread-safe.
+ * <p>
+ * Counters of existing keys are updated without locking. A lock is only taken by the underlying map when a counter
+ * is created for a new key.
  *
  * @param <K> the type of keys maintained by this map
  * @since 5.0.0
  */
 public class MultiCounter<K> {
-    private static final Logger logger = LoggerFactory.getLogger(MultiCounter.class);
 
-    private Map<K, AtomicInteger> counterMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, AtomicInteger> counterMap = new ConcurrentHashMap<>();
 
     /**
      * Increment the count of the specified key by one and returns new value.
@@ -42,16 +41,8 @@ public class MultiCounter<K> {
      * @param key with which the associated value is incremented by one
      * @return count after incrementing by one.
      */
-    public synchronized int incrementAndGet(K key) {
-        if (!counterMap.containsKey(key)) {
-            counterMap.put(key, new AtomicInteger(1));
-            logger.debug("IncrementAndGet key: {}, count: {}", key, 1);
-            return 1;
-        }
-
-        int tally = counterMap.get(key).incrementAndGet();
-        logger.debug("IncrementAndGet key: {}, count: {}", key, tally);
-        return tally;
+    public int incrementAndGet(K key) {
+        return getCounter(key).incrementAndGet();
     }
 
     /**
@@ -60,16 +51,8 @@ public class MultiCounter<K> {
      * @param key with which the associated value is decremented by one.
      * @return count after decrementing by one.
      */
-    public synchronized int decrementAndGet(K key) {
-        if (counterMap.containsKey(key)) {
-            int tally = counterMap.get(key).decrementAndGet();
-            logger.debug("DecrementAndGet key: {}, count: {}", key, tally);
-            return tally;
-        } else {
-            counterMap.put(key, new AtomicInteger(-1));
-            logger.debug("DecrementAndGet key: {}, count: {}", key, -1);
-            return -1;
-        }
+    public int decrementAndGet(K key) {
+        return getCounter(key).decrementAndGet();
     }
 
     /**
@@ -79,10 +62,8 @@ public class MultiCounter<K> {
      * @return count of the specified key.
      */
     public int get(K key) {
-        if (counterMap.get(key) == null) {
-            return 0;
-        }
-        return counterMap.get(key).get();
+        AtomicInteger counter = counterMap.get(key);
+        return counter == null ? 0 : counter.get();
     }
 
     /**
@@ -100,10 +81,32 @@ public class MultiCounter<K> {
      * @return a list of key with a non-zero count
      */
     public List<K> getKeysWithNonZeroCount() {
-        return counterMap.keySet()
-                .stream()
-                .filter(key -> counterMap.get(key).get() != 0)
-                .collect(Collectors.toList());
+        List<K> keys = new ArrayList<>();
+        forEachKeyWithNonZeroCount(keys::add);
+        return keys;
+    }
 
+    /**
+     * Performs the given action for each key with a non-zero count, without creating a copy of the keys.
+     * <p>
+     * Counts are read while iterating, hence concurrent updates may or may not be reflected.
+     *
+     * @param action the action to be performed for each key
+     */
+    public void forEachKeyWithNonZeroCount(Consumer<? super K> action) {
+        for (Map.Entry<K, AtomicInteger> entry : counterMap.entrySet()) {
+            if (entry.getValue().get() != 0) {
+                action.accept(entry.getKey());
+            }
+        }
+    }
+
+    private AtomicInteger getCounter(K key) {
+        // Avoid computeIfAbsent on the hot path, since it may lock the bin even if the key is present.
+        AtomicInteger counter = counterMap.get(key);
+        if (counter == null) {
+            counter = counterMap.computeIfAbsent(key, k -> new AtomicInteger());
+        }
+        return counter;
     }
 }
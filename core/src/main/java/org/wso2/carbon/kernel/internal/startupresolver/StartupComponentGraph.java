@@ -0,0 +1,415 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.kernel.internal.StartupTimeline;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.CapabilityProviderCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+import org.wso2.carbon.kernel.internal.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Dependency graph of the startup components, built from the Carbon-Component manifest headers before any startup
+ * component is notified.
+ * <p>
+ * A startup component depends on another startup component if it expects a capability, i.e. an OSGi service or a
+ * {@code CapabilityProvider} service, provided by the other startup component. Such capabilities are usually
+ * registered once the other startup component is notified, hence the startup component has to wait for it. The
+ * providing startup component is the one named by the {@code componentName} attribute of the {@code osgi.service}
+ * manifest element of the capability. If it is not named, the capability is considered to be provided by the startup
+ * component of the same bundle only if the bundle has a single startup component.
+ * <p>
+ * The graph is used to detect dependency cycles and capabilities without providers up front, and to record the
+ * activation timestamps of the startup components. The critical path of the startup is the chain of dependencies
+ * leading to the startup component which was activated last. Until the startup components are activated, the
+ * longest chain of dependencies is considered as the critical path.
+ *
+ * @since 5.2.9
+ */
+public class StartupComponentGraph implements StartupComponentGraphMBean {
+
+    private static final long UNKNOWN_TIME = -1;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private final Map<String, Node> nodeMap = new TreeMap<>();
+
+    private final List<List<String>> cycles = new ArrayList<>();
+
+    private final List<String> missingProviders = new ArrayList<>();
+
+    private StartupComponentGraph() {
+    }
+
+    /**
+     * Builds the dependency graph of the given startup components. This method should be invoked once all the
+     * manifest headers are processed and before the capability trackers are started.
+     *
+     * @param startupComponents all the startup components.
+     * @return the dependency graph
+     */
+    static StartupComponentGraph build(List<StartupComponent> startupComponents) {
+        StartupComponentGraph graph = new StartupComponentGraph();
+        Map<Bundle, List<String>> bundleComponentNames = new HashMap<>();
+        startupComponents.forEach(startupComponent -> {
+            graph.nodeMap.put(startupComponent.getName(), new Node(startupComponent));
+            bundleComponentNames.computeIfAbsent(startupComponent.getBundle(), bundle -> new ArrayList<>())
+                    .add(startupComponent.getName());
+        });
+
+        startupComponents.forEach(startupComponent -> {
+            Node node = graph.nodeMap.get(startupComponent.getName());
+            Set<String> providedCapabilityNames = new HashSet<>();
+
+            for (Capability capability : startupComponent.getExpectedCapabilities()) {
+                providedCapabilityNames.add(capability.getName());
+                graph.getProviderComponentName(capability, bundleComponentNames)
+                        .ifPresent(provider -> node.addDependency(provider, capability.getName()));
+            }
+
+            for (CapabilityProviderCapability capabilityProvider : startupComponent.getPendingCapabilityProviders()) {
+                providedCapabilityNames.add(capabilityProvider.getProvidedCapabilityName());
+                graph.getProviderComponentName(capabilityProvider, bundleComponentNames)
+                        .ifPresent(provider -> node.addDependency(provider,
+                                capabilityProvider.getProvidedCapabilityName()));
+            }
+
+            startupComponent.getRequiredServices().stream()
+                    .filter(requiredService -> !providedCapabilityNames.contains(requiredService))
+                    .distinct()
+                    .forEach(requiredService -> graph.missingProviders.add("Startup component " +
+                            startupComponent.getName() + " requires the capability " + requiredService +
+                            ", but no bundle provides it through the " +
+                            StartupResolverConstants.CARBON_COMPONENT_HEADER + " manifest header"));
+        });
+
+        graph.detectCycles();
+        return graph;
+    }
+
+    /**
+     * Returns the name of the startup component which provides the given capability. This is the startup component
+     * named in the manifest element of the capability, or else the only startup component of its bundle.
+     *
+     * @param capability           the capability
+     * @param bundleComponentNames the names of the startup components of each bundle
+     * @return the name of the providing startup component, if it is known
+     */
+    private Optional<String> getProviderComponentName(Capability capability,
+                                                      Map<Bundle, List<String>> bundleComponentNames) {
+        String providerComponentName = capability.getProviderComponentName();
+        if (providerComponentName != null) {
+            return nodeMap.containsKey(providerComponentName) ? Optional.of(providerComponentName) : Optional.empty();
+        }
+
+        List<String> componentNames = bundleComponentNames.get(capability.getBundle());
+        return componentNames != null && componentNames.size() == 1 ?
+                Optional.of(componentNames.get(0)) : Optional.empty();
+    }
+
+    /**
+     * Records the time at which the {@code RequiredCapabilityListener} of the given startup component is registered.
+     *
+     * @param componentName name of the startup component
+     */
+    void listenerRegistered(String componentName) {
+        Node node = nodeMap.get(componentName);
+        if (node != null) {
+            node.listenerRegisteredTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Records the time at which the given startup component is notified.
+     *
+     * @param componentName name of the startup component
+     */
+    void componentNotified(String componentName) {
+        Node node = nodeMap.get(componentName);
+        if (node != null) {
+            node.notifiedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Records the time at which the {@code RequiredCapabilityListener} of the given startup component returns.
+     *
+     * @param componentName name of the startup component
+     */
+    void componentActivated(String componentName) {
+        Node node = nodeMap.get(componentName);
+        if (node != null) {
+            node.activatedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Records the time each RequiredCapabilityListener waited for its required capabilities, and the time spent in
+     * its callback, as phases of the given startup timeline.
+     *
+     * @param startupTimeline startup timeline of the server
+     */
+    void recordListenerPhases(StartupTimeline startupTimeline) {
+        nodeMap.values().forEach(node -> {
+            if (node.listenerRegisteredTime != UNKNOWN_TIME && node.notifiedTime != UNKNOWN_TIME) {
+                startupTimeline.recordPhase("listener.wait." + node.name, node.listenerRegisteredTime,
+                        node.notifiedTime);
+            }
+            if (node.getActivationDuration() != UNKNOWN_TIME) {
+                startupTimeline.recordPhase("listener.callback." + node.name, node.notifiedTime,
+                        node.activatedTime);
+            }
+        });
+    }
+
+    /**
+     * Returns the names of the startup components the given startup component depends on.
+     *
+     * @param componentName name of the startup component
+     * @return the names of the dependencies, an empty set if the startup component is unknown
+     */
+    Set<String> getDependencies(String componentName) {
+        Node node = nodeMap.get(componentName);
+        if (node == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(node.dependencies.keySet());
+    }
+
+    List<String> getCriticalPathComponentNames() {
+        return getCriticalPathNodes().stream()
+                .map(node -> node.name)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int getComponentCount() {
+        return nodeMap.size();
+    }
+
+    @Override
+    public int getPendingComponentCount() {
+        return (int) nodeMap.values().stream()
+                .filter(node -> node.notifiedTime == UNKNOWN_TIME)
+                .count();
+    }
+
+    @Override
+    public String[] getCycles() {
+        return cycles.stream()
+                .map(cycle -> String.join(" -> ", cycle))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getMissingProviders() {
+        return missingProviders.toArray(new String[missingProviders.size()]);
+    }
+
+    @Override
+    public String[] getCriticalPath() {
+        return getCriticalPathNodes().stream()
+                .map(node -> node.name + " (notified at " + format(relativeTime(node.notifiedTime)) +
+                        ", activated in " + format(node.getActivationDuration()) + ")")
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getCriticalPathDuration() {
+        List<Node> criticalPath = getCriticalPathNodes();
+        if (criticalPath.isEmpty()) {
+            return 0;
+        }
+        return relativeTime(criticalPath.get(criticalPath.size() - 1).activatedTime);
+    }
+
+    @Override
+    public String dumpAsJson() {
+        Set<String> criticalPath = new HashSet<>(getCriticalPathComponentNames());
+        StringBuilder json = new StringBuilder("{\n  \"components\": [");
+        String separator = "\n";
+        for (Node node : nodeMap.values()) {
+            json.append(separator)
+                    .append("    {\"name\": ").append(Utils.quote(node.name))
+                    .append(", \"bundle\": ").append(Utils.quote(node.bundleName))
+                    .append(", \"depth\": ").append(node.depth)
+                    .append(", \"criticalPath\": ").append(criticalPath.contains(node.name))
+                    .append(", \"dependencies\": [")
+                    .append(node.dependencies.keySet().stream()
+                            .map(Utils::quote)
+                            .collect(Collectors.joining(", ")))
+                    .append("], \"listenerRegisteredAt\": ").append(relativeTime(node.listenerRegisteredTime))
+                    .append(", \"notifiedAt\": ").append(relativeTime(node.notifiedTime))
+                    .append(", \"activatedAt\": ").append(relativeTime(node.activatedTime))
+                    .append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"cycles\": [")
+                .append(cycles.stream()
+                        .map(cycle -> cycle.stream()
+                                .map(Utils::quote)
+                                .collect(Collectors.joining(", ", "[", "]")))
+                        .collect(Collectors.joining(", ")))
+                .append("],\n  \"missingProviders\": [")
+                .append(missingProviders.stream()
+                        .map(Utils::quote)
+                        .collect(Collectors.joining(", ")))
+                .append("],\n  \"criticalPathDuration\": ").append(getCriticalPathDuration())
+                .append("\n}\n");
+        return json.toString();
+    }
+
+    @Override
+    public String dumpAsDot() {
+        Set<String> criticalPath = new HashSet<>(getCriticalPathComponentNames());
+        StringBuilder dot = new StringBuilder("digraph StartupComponents {\n    rankdir=LR;\n");
+        for (Node node : nodeMap.values()) {
+            dot.append("    ").append(Utils.quote(node.name))
+                    .append(" [label=").append(Utils.quote(node.name + "\n" + format(node.getActivationDuration())));
+            if (criticalPath.contains(node.name)) {
+                dot.append(", color=red");
+            }
+            dot.append("];\n");
+        }
+        for (Node node : nodeMap.values()) {
+            node.dependencies.forEach((dependency, capabilityNames) -> {
+                dot.append("    ").append(Utils.quote(node.name)).append(" -> ").append(Utils.quote(dependency))
+                        .append(" [label=").append(Utils.quote(String.join("\n", capabilityNames)));
+                if (criticalPath.contains(node.name) && criticalPath.contains(dependency)) {
+                    dot.append(", color=red");
+                }
+                dot.append("];\n");
+            });
+        }
+        return dot.append("}\n").toString();
+    }
+
+    /**
+     * Detects the dependency cycles with a depth first traversal, and computes the depth of each startup component
+     * ignoring the dependencies which close a cycle.
+     */
+    private void detectCycles() {
+        Set<String> visited = new HashSet<>();
+        List<String> path = new ArrayList<>();
+        Set<String> detectedCycles = new HashSet<>();
+        nodeMap.keySet().forEach(componentName -> visit(componentName, visited, path, detectedCycles));
+    }
+
+    private void visit(String componentName, Set<String> visited, List<String> path, Set<String> detectedCycles) {
+        if (!visited.add(componentName)) {
+            return;
+        }
+
+        path.add(componentName);
+        Node node = nodeMap.get(componentName);
+        int depth = 0;
+        for (String dependency : node.dependencies.keySet()) {
+            int index = path.indexOf(dependency);
+            if (index >= 0) {
+                List<String> cycle = new ArrayList<>(path.subList(index, path.size()));
+                cycle.add(dependency);
+                // The same cycle can be reached from any of its startup components.
+                if (detectedCycles.add(new TreeSet<>(cycle).toString())) {
+                    cycles.add(cycle);
+                }
+                continue;
+            }
+            visit(dependency, visited, path, detectedCycles);
+            depth = Math.max(depth, nodeMap.get(dependency).depth);
+        }
+        node.depth = depth + 1;
+        path.remove(path.size() - 1);
+    }
+
+    /**
+     * Returns the startup components of the critical path, starting from the first one. The critical path ends at the
+     * startup component which was activated last and continues through the dependency which was activated last.
+     */
+    private List<Node> getCriticalPathNodes() {
+        Comparator<Node> comparator = Comparator.<Node>comparingLong(node -> node.activatedTime)
+                .thenComparingInt(node -> node.depth);
+        List<Node> criticalPath = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Node current = nodeMap.values().stream().max(comparator).orElse(null);
+        while (current != null) {
+            criticalPath.add(current);
+            visited.add(current.name);
+            current = current.dependencies.keySet().stream()
+                    .filter(dependency -> !visited.contains(dependency))
+                    .map(nodeMap::get)
+                    .max(comparator)
+                    .orElse(null);
+        }
+        Collections.reverse(criticalPath);
+        return criticalPath;
+    }
+
+    private long relativeTime(long time) {
+        return time == UNKNOWN_TIME ? UNKNOWN_TIME : time - startTime;
+    }
+
+    private static String format(long duration) {
+        return duration == UNKNOWN_TIME ? "n/a" : duration + " ms";
+    }
+
+    /**
+     * A startup component of the dependency graph.
+     */
+    private static class Node {
+        private final String name;
+        private final String bundleName;
+        // Key is the name of the dependency, value is the names of the capabilities expected from it.
+        private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        private int depth;
+        private volatile long listenerRegisteredTime = UNKNOWN_TIME;
+        private volatile long notifiedTime = UNKNOWN_TIME;
+        private volatile long activatedTime = UNKNOWN_TIME;
+
+        private Node(StartupComponent startupComponent) {
+            this.name = startupComponent.getName();
+            Bundle bundle = startupComponent.getBundle();
+            this.bundleName = bundle.getSymbolicName() + ":" + bundle.getVersion();
+        }
+
+        private void addDependency(String componentName, String capabilityName) {
+            if (!componentName.equals(name)) {
+                dependencies.computeIfAbsent(componentName, key -> new TreeSet<>()).add(capabilityName);
+            }
+        }
+
+        private long getActivationDuration() {
+            if (notifiedTime == UNKNOWN_TIME || activatedTime == UNKNOWN_TIME) {
+                return UNKNOWN_TIME;
+            }
+            return activatedTime - notifiedTime;
+        }
+    }
+}
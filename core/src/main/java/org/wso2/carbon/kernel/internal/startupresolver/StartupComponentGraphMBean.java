@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+/**
+ * MBean interface for exposing the startup component dependency graph built by the StartupOrderResolver.
+ *
+ * @since 5.2.9
+ */
+public interface StartupComponentGraphMBean {
+
+    /**
+     * Returns the number of startup components in the dependency graph.
+     *
+     * @return the number of startup components
+     */
+    int getComponentCount();
+
+    /**
+     * Returns the number of startup components which are not yet notified.
+     *
+     * @return the number of pending startup components
+     */
+    int getPendingComponentCount();
+
+    /**
+     * Returns the dependency cycles detected among the startup components, e.g. "a -> b -> a".
+     *
+     * @return the detected dependency cycles
+     */
+    String[] getCycles();
+
+    /**
+     * Returns the capabilities required by startup components, which are not provided by any bundle.
+     *
+     * @return descriptions of the missing capability providers
+     */
+    String[] getMissingProviders();
+
+    /**
+     * Returns the critical path of the startup, starting from the first startup component. Each element describes
+     * a startup component of the path with the time it was notified and the time spent in its
+     * RequiredCapabilityListener.
+     *
+     * @return the startup components of the critical path
+     */
+    String[] getCriticalPath();
+
+    /**
+     * Returns the time in milliseconds from the start of the startup order resolution until the last startup
+     * component of the critical path was activated, or -1 if it is not yet activated.
+     *
+     * @return the duration of the critical path
+     */
+    long getCriticalPathDuration();
+
+    /**
+     * Returns the dependency graph with the activation timestamps of the startup components as a JSON document.
+     *
+     * @return the JSON representation of the dependency graph
+     */
+    String dumpAsJson();
+
+    /**
+     * Returns the dependency graph as a Graphviz DOT document, with the critical path highlighted.
+     *
+     * @return the DOT representation of the dependency graph
+     */
+    String dumpAsDot();
+}
@@ -20,14 +20,25 @@ package org.wso2.carbon.kernel.internal.startupresolver;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.CapabilityProviderCapability;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+import org.wso2.carbon.kernel.metrics.Counter;
+import org.wso2.carbon.kernel.metrics.Histogram;
 import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -44,6 +55,81 @@ class StartupComponentManager {
     // Key of this map is the component name
     private Map<String, StartupComponent> startupComponentMap = new HashMap<>();
 
+    // Key of this map is the capability name, value is the list of components which require the capability.
+    private Map<String, List<StartupComponent>> requiredCapabilityIndex = new HashMap<>();
+
+    // Names of the components whose capabilities have changed since the last satisfiability check.
+    private final Set<String> updatedComponentNames = ConcurrentHashMap.newKeySet();
+
+    // Invoked whenever a component is marked as updated, so that it can be re-checked without waiting for a timer.
+    private volatile Runnable componentUpdateHandler = () -> {
+    };
+
+    // Records the activation timestamps of the startup components, if set.
+    private volatile StartupComponentGraph startupComponentGraph;
+
+    // Invokes the RequiredCapabilityListeners. Listeners are invoked on the notifying thread by default.
+    private volatile Executor listenerExecutor = Runnable::run;
+
+    // Time in milliseconds after which a running listener no longer holds back its dependents. 0 disables it.
+    private volatile long listenerTimeout = 0;
+
+    // Key is the component name, value is the invocation of its RequiredCapabilityListener which has not returned.
+    private final Map<String, ListenerInvocation> runningListeners = new ConcurrentHashMap<>();
+
+    // Names of the satisfiable components waiting for the listeners of the components they depend on to return.
+    private final Set<String> deferredComponentNames = ConcurrentHashMap.newKeySet();
+
+    // Metrics reported into the startup-resolver component of the kernel metrics registry.
+    private final Counter notifiedListeners;
+    private final Counter failedListeners;
+    private final Counter timedOutListeners;
+    private final Histogram listenerLatency;
+
+    StartupComponentManager() {
+        CarbonMetricsRegistry metricsRegistry = CarbonMetricsRegistry.getInstance();
+        String component = CarbonMetricsRegistry.STARTUP_RESOLVER_COMPONENT;
+        notifiedListeners = metricsRegistry.counter(component, "listeners.notified");
+        failedListeners = metricsRegistry.counter(component, "listeners.failed");
+        timedOutListeners = metricsRegistry.counter(component, "listeners.timedout");
+        listenerLatency = metricsRegistry.histogram(component, "listener.latency");
+        metricsRegistry.gauge(component, "listeners.running", runningListeners::size);
+        metricsRegistry.gauge(component, "components.deferred", deferredComponentNames::size);
+    }
+
+    /**
+     * Sets the handler which gets invoked whenever the capabilities of one or more startup components change.
+     *
+     * @param componentUpdateHandler handler to be invoked, typically schedules a satisfiability check.
+     */
+    void setComponentUpdateHandler(Runnable componentUpdateHandler) {
+        this.componentUpdateHandler = componentUpdateHandler;
+    }
+
+    /**
+     * Sets the dependency graph in which the activation timestamps of the startup components are recorded.
+     *
+     * @param startupComponentGraph dependency graph of the startup components.
+     */
+    void setStartupComponentGraph(StartupComponentGraph startupComponentGraph) {
+        this.startupComponentGraph = startupComponentGraph;
+    }
+
+    /**
+     * Sets the executor which invokes the {@code RequiredCapabilityListener}s of the satisfiable components.
+     * <p>
+     * Listeners of independent components may run concurrently. A component is notified only after the listeners of
+     * the components it depends on, according to the startup component graph, have returned or timed out.
+     *
+     * @param listenerExecutor executor which invokes the listeners.
+     * @param listenerTimeout  time in milliseconds after which a listener which has not returned is reported and no
+     *                         longer holds back the components depending on it. 0 disables the timeout.
+     */
+    void setListenerExecutor(Executor listenerExecutor, long listenerTimeout) {
+        this.listenerExecutor = listenerExecutor;
+        this.listenerTimeout = listenerTimeout;
+    }
+
     /**
      * Adds the given {@code StartupComponent}.
      * <p>
@@ -75,6 +161,8 @@ class StartupComponentManager {
         }
 
         startupComponentMap.put(componentName, startupComponent);
+        startupComponent.getRequiredServices()
+                .forEach(capabilityName -> indexRequiredCapability(capabilityName, startupComponent));
     }
 
     /**
@@ -95,6 +183,29 @@ class StartupComponentManager {
                 componentName, capabilityName);
 
         startupComponent.addRequiredService(capabilityName);
+        indexRequiredCapability(capabilityName, startupComponent);
+    }
+
+    /**
+     * Returns the components which require the given capability.
+     *
+     * @param capabilityName name of the capability.
+     * @return an unmodifiable list of components which require the given capability.
+     */
+    List<StartupComponent> getComponentsRequiringCapability(String capabilityName) {
+        List<StartupComponent> startupComponents = requiredCapabilityIndex.get(capabilityName);
+        if (startupComponents == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(startupComponents);
+    }
+
+    private void indexRequiredCapability(String capabilityName, StartupComponent startupComponent) {
+        List<StartupComponent> startupComponents =
+                requiredCapabilityIndex.computeIfAbsent(capabilityName, name -> new ArrayList<>());
+        if (!startupComponents.contains(startupComponent)) {
+            startupComponents.add(startupComponent);
+        }
     }
 
     /**
@@ -128,6 +239,12 @@ class StartupComponentManager {
                     componentName, bundle.getSymbolicName(), bundle.getVersion());
         }
         startupComponent.setListener(listener);
+        StartupComponentGraph graph = startupComponentGraph;
+        if (graph != null) {
+            graph.listenerRegistered(componentName);
+        }
+        updatedComponentNames.add(componentName);
+        componentUpdateHandler.run();
     }
 
     /**
@@ -145,11 +262,13 @@ class StartupComponentManager {
                     capabilityProvider.getBundle().getVersion());
         }
 
-        startupComponentMap.values().stream()
-                .filter(startupComponent ->
-                        startupComponent.isServiceRequired(capabilityProvider.getProvidedCapabilityName()))
-                .forEach(startupComponent ->
-                        startupComponent.addExpectedOrAvailableCapabilityProvider(capabilityProvider));
+        getComponentsRequiringCapability(capabilityProvider.getProvidedCapabilityName())
+                .forEach(startupComponent -> {
+                    startupComponent.addExpectedOrAvailableCapabilityProvider(capabilityProvider);
+                    updatedComponentNames.add(startupComponent.getName());
+                });
+
+        componentUpdateHandler.run();
     }
 
     /**
@@ -161,9 +280,7 @@ class StartupComponentManager {
      * @param capability {@code Capability} instance
      */
     void addExpectedCapability(Capability capability) {
-        startupComponentMap.values()
-                .stream()
-                .filter(startupComponent -> startupComponent.isServiceRequired(capability.getName()))
+        getComponentsRequiringCapability(capability.getName())
                 .forEach(startupComponent -> {
 
                     if (startupComponent.isSatisfied()) {
@@ -199,9 +316,7 @@ class StartupComponentManager {
      * @param capability the capability to be updated.
      */
     void updateCapability(Capability capability) {
-        startupComponentMap.values()
-                .stream()
-                .filter(startupComponent -> startupComponent.isServiceRequired(capability.getName()))
+        getComponentsRequiringCapability(capability.getName())
                 .forEach(startupComponent -> {
                     if (startupComponent.isSatisfied()) {
                         logger.warn("You are trying to add an {} capability {} from bundle({}:{}) to an already " +
@@ -218,7 +333,47 @@ class StartupComponentManager {
                                     startupComponent.getBundle().getVersion());
                     }
                     startupComponent.updateCapability(capability);
+                    updatedComponentNames.add(startupComponent.getName());
                 });
+
+        componentUpdateHandler.run();
+    }
+
+    /**
+     * Updates the number of OSGi services of the given interface reported by the specified component, and marks the
+     * component as updated so that it is re-checked during the next satisfiability check.
+     * <p>
+     * This method is invoked when a component reports an OSGi service through the {@code StartupServiceCache}.
+     *
+     * @param componentName name of the reporting component.
+     * @param interfaceName name of the OSGi service interface.
+     */
+    void updateAvailableService(String componentName, String interfaceName) {
+        StartupComponent startupComponent = startupComponentMap.get(componentName);
+        if (startupComponent != null) {
+            startupComponent.updateAvailableServiceCount(interfaceName,
+                    StartupServiceCache.getInstance().getServiceCount(componentName, interfaceName));
+            updatedComponentNames.add(componentName);
+            componentUpdateHandler.run();
+        }
+    }
+
+    /**
+     * Reloads the available OSGi service counts of all the startup components from the {@code StartupServiceCache}.
+     * <p>
+     * Components may report OSGi services before the StartupOrderResolver starts listening to the
+     * {@code StartupServiceCache}.
+     */
+    void refreshAvailableServices() {
+        startupComponentMap.values().forEach(StartupComponent::refreshAvailableServiceCounts);
+    }
+
+    /**
+     * Marks all the startup components as updated. This is required once all the capability trackers are started.
+     */
+    void markAllComponentsUpdated() {
+        updatedComponentNames.addAll(startupComponentMap.keySet());
+        componentUpdateHandler.run();
     }
 
     /**
@@ -247,27 +402,171 @@ class StartupComponentManager {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns 'true' if there is at least one component which is not yet satisfied, or whose
+     * {@code RequiredCapabilityListener} has not yet returned.
+     *
+     * @return 'true' if there are pending components.
+     */
+    boolean hasPendingComponents() {
+        return !runningListeners.isEmpty() ||
+                startupComponentMap.values().stream().anyMatch(StartupComponent::isPending);
+    }
+
+    /**
+     * Reports the {@code RequiredCapabilityListener}s which have been running for longer than the listener timeout.
+     * Such listeners no longer hold back the components depending on them, nor the completion of the startup order
+     * resolution.
+     */
+    void checkListenerTimeouts() {
+        long timeout = listenerTimeout;
+        if (timeout <= 0 || runningListeners.isEmpty()) {
+            return;
+        }
+
+        long currentTime = System.nanoTime();
+        boolean timedOut = false;
+        for (ListenerInvocation invocation : runningListeners.values()) {
+            long runningTime = TimeUnit.NANOSECONDS.toMillis(currentTime - invocation.startTime);
+            if (runningTime < timeout || !runningListeners.remove(invocation.componentName, invocation)) {
+                continue;
+            }
+
+            invocation.timedOut = true;
+            timedOut = true;
+            timedOutListeners.increment();
+            Throwable stackTrace = new Throwable("Stack trace of the RequiredCapabilityListener thread");
+            Thread thread = invocation.thread;
+            if (thread != null) {
+                stackTrace.setStackTrace(thread.getStackTrace());
+            }
+            logger.warn("RequiredCapabilityListener of component " + invocation.componentName + " has not returned " +
+                    "within " + runningTime + " ms. Components depending on it are notified without waiting for it.",
+                    stackTrace);
+        }
+
+        if (timedOut) {
+            releaseDeferredComponents();
+        }
+    }
+
+    /**
+     * Checks all the startup components and notifies the satisfiable ones.
+     */
     void notifySatisfiableComponents() {
+        updatedComponentNames.clear();
         getComponents(StartupComponent::isSatisfiable)
-                .forEach(startupComponent -> {
+                .forEach(this::notifyComponent);
+    }
 
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Notifying RequiredCapabilityListener of component {} from bundle({}:{}) " +
-                                        "since all the required capabilities are available",
-                                startupComponent.getName(),
-                                startupComponent.getBundle().getSymbolicName(),
-                                startupComponent.getBundle().getVersion());
-                    }
+    /**
+     * Checks only the components which have been updated since the last check and notifies the satisfiable ones.
+     */
+    void notifyUpdatedComponents() {
+        List<StartupComponent> satisfiableComponents = new ArrayList<>();
+        Iterator<String> componentNameIterator = updatedComponentNames.iterator();
+        while (componentNameIterator.hasNext()) {
+            StartupComponent startupComponent = startupComponentMap.get(componentNameIterator.next());
+            componentNameIterator.remove();
+            if (startupComponent != null && startupComponent.isSatisfiable()) {
+                satisfiableComponents.add(startupComponent);
+            }
+        }
 
-                    startupComponent.setSatisfied(true);
-                    RequiredCapabilityListener capabilityListener = startupComponent.getListener();
+        satisfiableComponents.forEach(this::notifyComponent);
+    }
 
-                    try {
-                        capabilityListener.onAllRequiredCapabilitiesAvailable();
-                    } catch (RuntimeException e) {
-                        logger.error("Runtime Exception occurred while calling onAllRequiredCapabilitiesAvailable of "
-                                + "component " + startupComponent.getName(), e);
-                    }
-                });
+    private void notifyComponent(StartupComponent startupComponent) {
+        String componentName = startupComponent.getName();
+        StartupComponentGraph graph = startupComponentGraph;
+        if (graph != null && graph.getDependencies(componentName).stream().anyMatch(runningListeners::containsKey)) {
+            logger.debug("Deferring the notification of component {} until the RequiredCapabilityListeners of the " +
+                    "components it depends on return", componentName);
+            deferredComponentNames.add(componentName);
+            // Covers the case where the running listeners returned after the dependencies were checked.
+            if (graph.getDependencies(componentName).stream().noneMatch(runningListeners::containsKey)) {
+                releaseDeferredComponents();
+            }
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Notifying RequiredCapabilityListener of component {} from bundle({}:{}) " +
+                            "since all the required capabilities are available",
+                    componentName,
+                    startupComponent.getBundle().getSymbolicName(),
+                    startupComponent.getBundle().getVersion());
+        }
+
+        startupComponent.setSatisfied(true);
+        if (graph != null) {
+            graph.componentNotified(componentName);
+        }
+
+        ListenerInvocation invocation = new ListenerInvocation(componentName);
+        runningListeners.put(componentName, invocation);
+        notifiedListeners.increment();
+        try {
+            listenerExecutor.execute(() -> invokeListener(startupComponent, invocation));
+        } catch (RejectedExecutionException e) {
+            logger.debug("RequiredCapabilityListener executor rejected the notification of component {}, notifying " +
+                    "it on the current thread", componentName);
+            invokeListener(startupComponent, invocation);
+        }
+    }
+
+    private void invokeListener(StartupComponent startupComponent, ListenerInvocation invocation) {
+        invocation.thread = Thread.currentThread();
+        RequiredCapabilityListener capabilityListener = startupComponent.getListener();
+
+        try {
+            capabilityListener.onAllRequiredCapabilitiesAvailable();
+        } catch (RuntimeException | LinkageError e) {
+            failedListeners.increment();
+            logger.error("Exception occurred while calling onAllRequiredCapabilitiesAvailable of "
+                    + "component " + startupComponent.getName(), e);
+        } finally {
+            invocation.thread = null;
+            listenerLatency.record(System.nanoTime() - invocation.startTime);
+            StartupComponentGraph graph = startupComponentGraph;
+            if (graph != null) {
+                graph.componentActivated(startupComponent.getName());
+            }
+
+            if (invocation.timedOut) {
+                logger.warn("RequiredCapabilityListener of component {} returned after {} ms.",
+                        startupComponent.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - invocation.startTime));
+            } else {
+                runningListeners.remove(startupComponent.getName(), invocation);
+                releaseDeferredComponents();
+            }
+        }
+    }
+
+    /**
+     * Marks the deferred components as updated, so that they are checked again.
+     */
+    private void releaseDeferredComponents() {
+        Iterator<String> componentNameIterator = deferredComponentNames.iterator();
+        while (componentNameIterator.hasNext()) {
+            updatedComponentNames.add(componentNameIterator.next());
+            componentNameIterator.remove();
+        }
+        componentUpdateHandler.run();
+    }
+
+    /**
+     * An invocation of a {@code RequiredCapabilityListener}.
+     */
+    private static class ListenerInvocation {
+        private final String componentName;
+        private final long startTime = System.nanoTime();
+        private volatile Thread thread;
+        private volatile boolean timedOut;
+
+        private ListenerInvocation(String componentName) {
+            this.componentName = componentName;
+        }
     }
 }
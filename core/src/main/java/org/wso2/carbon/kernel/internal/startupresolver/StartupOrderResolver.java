@@ -26,17 +26,29 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.CarbonRuntime;
+import org.wso2.carbon.kernel.config.model.CapabilityListenerExecutor;
 import org.wso2.carbon.kernel.config.model.CarbonConfiguration;
 import org.wso2.carbon.kernel.internal.CarbonStartupHandler;
+import org.wso2.carbon.kernel.internal.DataHolder;
+import org.wso2.carbon.kernel.internal.StartupTimeline;
 import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+import org.wso2.carbon.kernel.jmx.MBeanRegistrator;
 import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.capabilityProviderElementPredicate;
@@ -44,8 +56,11 @@ import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolv
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.logPendingComponentDetails;
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.logPendingRequiredCapabilityListenerServiceDetails;
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupOrderResolverUtils.requiredCapabilityListenerElementPredicate;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.MANIFEST_HEADER_CACHE_FILE;
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.OSGI_SERVICE_COMPONENT;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.STARTUP_COMPONENT_GRAPH_FILE;
 import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.STARTUP_LISTENER_COMPONENT;
+import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverConstants.STARTUP_TIMELINE_FILE;
 
 
 /**
@@ -70,19 +85,30 @@ import static org.wso2.carbon.kernel.internal.startupresolver.StartupResolverCon
 public class StartupOrderResolver {
     private static final Logger logger = LoggerFactory.getLogger(StartupOrderResolver.class);
 
+    private static final String LISTENER_THREAD_NAME_PREFIX = "CarbonStartupOrderResolver-Listener-";
+
     private StartupComponentManager startupComponentManager = new StartupComponentManager();
 
     private OSGiServiceCapabilityTracker osgiServiceTracker;
 
+    private CapabilityListenerDispatcher capabilityListenerDispatcher;
+
+    private StartupComponentGraph startupComponentGraph;
+
+    private ExecutorService capabilityListenerExecutor;
+
     private Timer capabilityListenerTimer = new Timer();
 
     private Timer pendingCapabilityTimer = new Timer();
 
     private CarbonRuntime carbonRuntime;
 
+    private long resolutionStartTime;
+
     /**
      * Process Provide-Capability headers and populate a counter which keep all the expected service counts. Register
-     * timers to track the service availability as well as pending service registrations.
+     * capability trackers which notify startup components as soon as their required capabilities are available, and
+     * timers to track pending service registrations.
      * <p>
      * If there are no RequireCapabilityListener instances then this method returns.
      *
@@ -93,19 +119,35 @@ public class StartupOrderResolver {
     public void start(BundleContext bundleContext) throws Exception {
         try {
             logger.debug("Initialize - Startup Order Resolver.");
+            resolutionStartTime = System.currentTimeMillis();
 
             // 1) Process OSGi manifest headers to calculate the expected list required capabilities.
-            processManifestHeaders(Arrays.asList(bundleContext.getBundles()));
-
-            // 2) Register capability trackers to get notified when required capabilities are available.
-            startCapabilityTrackers();
-
-            // 3) Schedule a time task to check for startup components with zero pending required capabilities.
-            scheduleCapabilityListenerTimer();
-
-            // 4) Start a timer task to track pending capabilities, pending CapabilityProvider services,
-            // pending RequiredCapabilityLister services.
-            schedulePendingCapabilityTimerTask();
+            processManifestHeaders(bundleContext);
+            StartupTimeline.getInstance().recordPhase("kernel.manifest.processing", resolutionStartTime,
+                    System.currentTimeMillis());
+
+            // Build the dependency graph of the startup components to detect cycles and missing capability providers
+            // up front, and to record the activation timestamps of the startup components.
+            buildStartupComponentGraph();
+
+            // Satisfiability checks triggered while the resolver is being initialized wait until it is complete.
+            synchronized (StartupComponentManager.class) {
+                // 2) Start the dispatcher which notifies startup components as soon as their capabilities change.
+                startCapabilityListenerDispatcher();
+
+                // 3) Register capability trackers to get notified when required capabilities are available.
+                startCapabilityTrackers();
+                startupComponentManager.markAllComponentsUpdated();
+
+                // 4) Schedule a watchdog timer task to check for startup components with zero pending required
+                // capabilities, in case a capability update is missed by the dispatcher, and for
+                // RequiredCapabilityListeners which have not returned within the configured timeout.
+                scheduleCapabilityListenerTimer();
+
+                // 5) Start a timer task to track pending capabilities, pending CapabilityProvider services,
+                // pending RequiredCapabilityLister services.
+                schedulePendingCapabilityTimerTask();
+            }
         } catch (Throwable e) {
             logger.error("Error occurred in Startup Order Resolver.", e);
         }
@@ -140,21 +182,41 @@ public class StartupOrderResolver {
      * Process Provide-Capability headers to calculate the expected number of required capabilities.
      * <p>
      * Process Provide-Capability headers to get a list of CapabilityProviders and RequiredCapabilityListeners.
+     * <p>
+     * Manifest headers of the bundles are parsed in parallel. Parsed manifest headers are cached in the persistent
+     * storage area of this bundle, so that the headers of unchanged bundles are not parsed again on a restart.
      *
-     * @param bundleList list of bundles to be scanned for Provide-Capability headers.
+     * @param bundleContext OSGi bundle context used to get the bundles to be scanned for Provide-Capability headers.
      */
-    private void processManifestHeaders(List<Bundle> bundleList) {
+    private void processManifestHeaders(BundleContext bundleContext) {
+        long startTime = System.currentTimeMillis();
+        List<Bundle> bundleList = Arrays.asList(bundleContext.getBundles());
+
+        Function<Bundle, List<ManifestElement>> headerParser = StartupOrderResolverUtils::getManifestElements;
+        File cacheFile = bundleContext.getDataFile(MANIFEST_HEADER_CACHE_FILE);
+        ManifestElementCache manifestElementCache = null;
+        if (cacheFile != null) {
+            ManifestElementCache cache = new ManifestElementCache(cacheFile);
+            cache.load();
+            headerParser = bundle -> cache.getManifestElements(bundle, StartupOrderResolverUtils::getManifestElements);
+            manifestElementCache = cache;
+        }
+
         Map<String, List<ManifestElement>> groupedManifestElements =
-                bundleList.stream()
-                        // Filter out all the bundles with the Carbon-Component manifest header.
-                        .filter(StartupOrderResolverUtils::isCarbonComponentHeaderPresent)
-                        // Process filtered manifest headers and get a list of ManifestElements.
-                        .map(StartupOrderResolverUtils::getManifestElements)
+                bundleList.parallelStream()
+                        // Process the Carbon-Component manifest headers and get a list of ManifestElements.
+                        .map(headerParser)
                         // Merge all the manifest elements lists into a single list.
                         .flatMap(Collection::stream)
                         // Partition all the ManifestElements with the manifest header name.
                         .collect(Collectors.groupingBy(ManifestElement::getValue));
 
+        if (manifestElementCache != null) {
+            manifestElementCache.store();
+        }
+        logger.debug("Processed manifest headers of {} bundles in {} ms.", bundleList.size(),
+                System.currentTimeMillis() - startTime);
+
         if (groupedManifestElements.get(STARTUP_LISTENER_COMPONENT) != null) {
             processServiceComponents(groupedManifestElements);
         }
@@ -169,7 +231,45 @@ public class StartupOrderResolver {
     }
 
     /**
-     * Schedule a timer task to monitor satisfiable CapabilityListeners.
+     * Starts the dispatcher which checks the updated startup components whenever a capability changes.
+     */
+    private void startCapabilityListenerDispatcher() {
+        startCapabilityListenerExecutor();
+        capabilityListenerDispatcher = new CapabilityListenerDispatcher(startupComponentManager,
+                this::completeStartupOrderResolution);
+        startupComponentManager.setComponentUpdateHandler(capabilityListenerDispatcher::requestCheck);
+        StartupServiceCache.getInstance().setServiceUpdateListener(startupComponentManager::updateAvailableService);
+        startupComponentManager.refreshAvailableServices();
+    }
+
+    /**
+     * Creates the executor which notifies the RequiredCapabilityListeners of independent startup components
+     * concurrently. If the configured pool size is zero, listeners are notified one after another on the dispatcher
+     * thread.
+     */
+    private void startCapabilityListenerExecutor() {
+        CapabilityListenerExecutor executorConfig = carbonRuntime.getConfiguration().getStartupResolverConfig()
+                .getCapabilityListenerExecutor();
+        if (executorConfig.getPoolSize() <= 0) {
+            startupComponentManager.setListenerExecutor(Runnable::run, executorConfig.getTimeout());
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        capabilityListenerExecutor = Executors.newFixedThreadPool(executorConfig.getPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, LISTENER_THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        startupComponentManager.setListenerExecutor(capabilityListenerExecutor, executorConfig.getTimeout());
+    }
+
+    /**
+     * Schedule a watchdog timer task to monitor satisfiable CapabilityListeners.
+     * <p>
+     * Satisfiable components are notified by the {@code CapabilityListenerDispatcher} as soon as their capabilities
+     * change. This timer periodically checks all the components as a fallback. It also reports the
+     * RequiredCapabilityListeners which have not returned within the configured timeout.
      */
     private void scheduleCapabilityListenerTimer() {
         CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
@@ -183,29 +283,125 @@ public class StartupOrderResolver {
             @Override
             public void run() {
                 synchronized (StartupComponentManager.class) {
-                    if (startupComponentManager.getComponents(StartupComponent::isPending).size() == 0) {
-                        startupComponentManager.notifySatisfiableComponents();
-
-                        logger.debug("All the StartupComponents are satisfied. Cancelling the capabilityListenerTimer");
-
-                        CarbonStartupHandler.logServerStartupTime(carbonConfiguration.getName());
-                        CarbonStartupHandler.registerCarbonServerInfoService();
-
-                        capabilityListenerTimer.cancel();
-                        capabilityListenerTimer = null;
-                        startupComponentManager = null;
-                        stopCapabilityTrackers();
-
-                        logger.debug("Complete - Startup Order Resolver.");
+                    if (startupComponentManager == null) {
                         return;
                     }
-                }
 
-                startupComponentManager.notifySatisfiableComponents();
+                    startupComponentManager.checkListenerTimeouts();
+                    startupComponentManager.notifySatisfiableComponents();
+                    if (!startupComponentManager.hasPendingComponents()) {
+                        completeStartupOrderResolution();
+                    }
+                }
             }
         }, capabilityListenerTimerDelay, capabilityListenerTimerPeriod);
     }
 
+    /**
+     * Completes the startup order resolution once all the StartupComponents are satisfied. Must be invoked while
+     * holding the StartupComponentManager lock.
+     */
+    private void completeStartupOrderResolution() {
+        if (startupComponentManager == null) {
+            return;
+        }
+
+        logger.debug("All the StartupComponents are satisfied. Cancelling the capabilityListenerTimer");
+
+        CarbonStartupHandler.logServerStartupTime(carbonRuntime.getConfiguration().getName());
+        CarbonStartupHandler.registerCarbonServerInfoService();
+
+        capabilityListenerTimer.cancel();
+        capabilityListenerTimer = null;
+        capabilityListenerDispatcher.close();
+        capabilityListenerDispatcher = null;
+        if (capabilityListenerExecutor != null) {
+            // Listeners which have timed out may still be running, they are allowed to complete.
+            capabilityListenerExecutor.shutdown();
+            capabilityListenerExecutor = null;
+        }
+        StartupServiceCache.getInstance().setServiceUpdateListener(null);
+        startupComponentManager = null;
+        stopCapabilityTrackers();
+        dumpStartupComponentGraph();
+        dumpStartupTimeline();
+
+        logger.debug("Complete - Startup Order Resolver.");
+    }
+
+    /**
+     * Builds the dependency graph of the startup components, logs the detected dependency cycles and missing
+     * capability providers, and exposes the graph as an MBean.
+     */
+    private void buildStartupComponentGraph() {
+        startupComponentGraph = StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true));
+
+        Arrays.stream(startupComponentGraph.getCycles())
+                .forEach(cycle -> logger.warn("Dependency cycle detected among startup components: {}. These " +
+                        "components may never be notified. Refer the Startup Order Resolver documentation and " +
+                        "verify your configuration", cycle));
+        Arrays.stream(startupComponentGraph.getMissingProviders())
+                .forEach(missingProvider -> logger.warn("{}. Refer the Startup Order Resolver documentation and " +
+                        "verify your configuration", missingProvider));
+
+        startupComponentManager.setStartupComponentGraph(startupComponentGraph);
+        try {
+            MBeanRegistrator.registerMBean(startupComponentGraph);
+        } catch (RuntimeException e) {
+            logger.debug("Could not register the startup component graph MBean", e);
+        }
+    }
+
+    /**
+     * Writes the dependency graph of the startup components in JSON and DOT formats to the persistent storage area
+     * of this bundle.
+     */
+    private void dumpStartupComponentGraph() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Critical path of the startup: {}",
+                    String.join(" -> ", startupComponentGraph.getCriticalPath()));
+        }
+
+        BundleContext bundleContext = DataHolder.getInstance().getBundleContext();
+        File jsonFile = bundleContext.getDataFile(STARTUP_COMPONENT_GRAPH_FILE + ".json");
+        File dotFile = bundleContext.getDataFile(STARTUP_COMPONENT_GRAPH_FILE + ".dot");
+        if (jsonFile == null || dotFile == null) {
+            return;
+        }
+
+        try {
+            Files.write(jsonFile.toPath(), startupComponentGraph.dumpAsJson().getBytes(StandardCharsets.UTF_8));
+            Files.write(dotFile.toPath(), startupComponentGraph.dumpAsDot().getBytes(StandardCharsets.UTF_8));
+            logger.debug("Startup component graph is written to {} and {}", jsonFile, dotFile);
+        } catch (IOException e) {
+            logger.warn("Error occurred while writing the startup component graph", e);
+        }
+    }
+
+    /**
+     * Records the startup order resolution and the RequiredCapabilityListeners in the startup timeline, and writes the
+     * startup timeline in JSON format to the persistent storage area of this bundle.
+     */
+    private void dumpStartupTimeline() {
+        StartupTimeline startupTimeline = StartupTimeline.getInstance();
+        startupTimeline.recordPhase("kernel.startup.order.resolution", resolutionStartTime, System.currentTimeMillis());
+        startupComponentGraph.recordListenerPhases(startupTimeline);
+        startupTimeline.complete();
+
+        File jsonFile = DataHolder.getInstance().getBundleContext().getDataFile(STARTUP_TIMELINE_FILE);
+        if (jsonFile == null) {
+            return;
+        }
+
+        try {
+            Files.write(jsonFile.toPath(), startupTimeline.dumpAsJson().getBytes(StandardCharsets.UTF_8));
+            logger.debug("Startup timeline is written to {}", jsonFile);
+        } catch (IOException e) {
+            logger.warn("Error occurred while writing the startup timeline", e);
+        }
+    }
+
     private void schedulePendingCapabilityTimerTask() {
         CarbonConfiguration carbonConfiguration = carbonRuntime.getConfiguration();
         long pendingCapabilityTimerDelay = carbonConfiguration.getStartupResolverConfig().
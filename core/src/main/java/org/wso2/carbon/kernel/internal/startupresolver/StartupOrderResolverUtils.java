@@ -68,16 +68,11 @@ class StartupOrderResolverUtils {
             manifestElement -> RequiredCapabilityListener.class.getName().equals(
                     getObjectClassName(manifestElement));
 
-    static Boolean isCarbonComponentHeaderPresent(Bundle bundle) {
-        return AccessController.doPrivileged((PrivilegedAction<Boolean>) () ->
-                bundle.getHeaders().get(CARBON_COMPONENT_HEADER) != null);
-    }
-
     /**
      * Creates {@code ManifestElement} instances from CARBON_COMPONENT_HEADER in the given bundle.
      *
      * @param bundle from the which the header value should retrieved.
-     * @return the created list of {@code ManifestElement} instances
+     * @return the created list of {@code ManifestElement} instances, an empty list if the header is not present
      */
     static List<ManifestElement> getManifestElements(Bundle bundle) {
         String headerValue = AccessController.doPrivileged((PrivilegedAction<String>) () ->
@@ -133,12 +128,17 @@ class StartupOrderResolverUtils {
                                 manifestElement.getBundle().getSymbolicName() + ":" +
                                 manifestElement.getBundle().getVersion() + ")"));
 
-        return new CapabilityProviderCapability(
+        CapabilityProviderCapability capabilityProvider = new CapabilityProviderCapability(
                 getObjectClassName(manifestElement),
                 Capability.CapabilityType.OSGi_SERVICE,
                 Capability.CapabilityState.EXPECTED,
                 providedCapabilityName,
                 manifestElement.getBundle());
+
+        // Check whether the startup component which registers the CapabilityProvider is specified.
+        getNonEmptyStringAfterTrim(manifestElement.getAttribute(COMPONENT_NAME))
+                .ifPresent(capabilityProvider::setProviderComponentName);
+        return capabilityProvider;
     }
 
     static List<OSGiServiceCapability> getOSGiServiceCapabilities(ManifestElement manifestElement) {
@@ -166,6 +166,10 @@ class StartupOrderResolverUtils {
                             manifestElement.getBundle(),
                             true);
 
+                    // Check whether the startup component which registers the service is specified.
+                    getNonEmptyStringAfterTrim(manifestElement.getAttribute(COMPONENT_NAME))
+                            .ifPresent(osgiServiceCapability::setProviderComponentName);
+
                     // Check whether requiredByComponent property is specified.
                     getNonEmptyStringAfterTrim(manifestElement.getAttribute(REQUIRED_BY_COMPONENT_NAME))
                             .ifPresent(requiredByComponentNameStr -> {
@@ -36,6 +36,9 @@ class StartupResolverConstants {
     static final String OBJECT_CLASS = "objectClass";
     static final String CAPABILITY_NAME_SPLIT_CHAR = ",";
     static final String REQUIRED_SERVICE = "requiredService";
+    static final String MANIFEST_HEADER_CACHE_FILE = "startup-resolver-manifest-headers.cache";
+    static final String STARTUP_COMPONENT_GRAPH_FILE = "startup-component-graph";
+    static final String STARTUP_TIMELINE_FILE = "startup-timeline.json";
 
 
     private StartupResolverConstants() {
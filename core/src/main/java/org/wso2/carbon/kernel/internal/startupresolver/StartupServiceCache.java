@@ -18,15 +18,24 @@ package org.wso2.carbon.kernel.internal.startupresolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 /**
  * StartupServiceCache caches all the startup services against the component name.
  * Component name is taken from ${@link org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener}
  * and interface name of the services.
+ * <p>
+ * Service counts are kept in per-component concurrent maps, hence components reporting services concurrently do not
+ * contend on a single lock.
  *
  * @since 5.2.0
  */
@@ -36,10 +45,13 @@ public class StartupServiceCache {
     private static StartupServiceCache serviceCacheInstance = new StartupServiceCache();
 
     /*
-    The internal map contains interface name (OSGi service class) against a list of implementation objects. The outer
+    The internal map contains interface name (OSGi service class) against the number of reported services. The outer
     map has the mapping between the component name and the internal map.
      */
-    private Map<String, Map<String, Long>> componentMap = new HashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> componentMap = new ConcurrentHashMap<>();
+
+    // Notified with the component name and the interface name whenever a component reports a new OSGi service.
+    private volatile BiConsumer<String, String> serviceUpdateListener;
 
     public static StartupServiceCache getInstance() {
         return serviceCacheInstance;
@@ -58,42 +70,124 @@ public class StartupServiceCache {
         logger.debug("Updating StartupServiceCache, componentName={}, interfaceName={}.",
                 componentName, interfaceName.getName());
 
-        synchronized (componentMap) {
-            Map<String, Long> componentServicesMap = componentMap.get(componentName);
-            if (componentServicesMap == null) {
-                logger.debug("Creating a Component Services Map for component {}", componentName);
-                componentServicesMap = new HashMap<>();
-                componentMap.put(componentName, componentServicesMap);
-            }
-
-            Long serviceCount = componentServicesMap.get(interfaceName.getName());
-            if (serviceCount == null) {
-                logger.debug("Creating a Service Instance List for interface {} in component {}",
-                        interfaceName, componentName);
-                serviceCount = 1L;
-            } else {
-                serviceCount++;
-            }
-            componentServicesMap.put(interfaceName.getName(), serviceCount);
+        ConcurrentMap<String, AtomicLong> componentServicesMap = componentMap.get(componentName);
+        if (componentServicesMap == null) {
+            componentServicesMap = componentMap.computeIfAbsent(componentName, name -> {
+                logger.debug("Creating a Component Services Map for component {}", name);
+                return new ConcurrentHashMap<>();
+            });
+        }
+
+        AtomicLong serviceCount = componentServicesMap.get(interfaceName.getName());
+        if (serviceCount == null) {
+            serviceCount = componentServicesMap.computeIfAbsent(interfaceName.getName(), name -> {
+                logger.debug("Creating a Service Counter for interface {} in component {}", name, componentName);
+                return new AtomicLong();
+            });
+        }
+        serviceCount.incrementAndGet();
+
+        BiConsumer<String, String> listener = serviceUpdateListener;
+        if (listener != null) {
+            listener.accept(componentName, interfaceName.getName());
+        }
+    }
+
+    /**
+     * Sets the listener which gets notified with the component name and the interface name whenever a component
+     * reports an OSGi service.
+     *
+     * @param serviceUpdateListener the listener to be notified, or {@code null} to remove the current listener
+     */
+    void setServiceUpdateListener(BiConsumer<String, String> serviceUpdateListener) {
+        this.serviceUpdateListener = serviceUpdateListener;
+    }
+
+    /**
+     * This method provides the number of OSGi services of the given interface reported by the given component.
+     * <p>
+     * Unlike {@link #getAvailableService(String)}, this method does not allocate.
+     *
+     * @param componentName name of the reporter component
+     * @param interfaceName name of the OSGi service interface
+     * @return the number of reported OSGi services
+     */
+    public long getServiceCount(String componentName, String interfaceName) {
+        Map<String, AtomicLong> availableServices = componentMap.get(componentName);
+        if (availableServices == null) {
+            return 0;
         }
+        AtomicLong serviceCount = availableServices.get(interfaceName);
+        return serviceCount == null ? 0 : serviceCount.get();
     }
 
     /**
      * This method provides a map of OSGi services and service count for the given {@code componentName}.
+     * <p>
+     * The returned map is a read-only view which reflects subsequent updates of the component.
      *
      * @param componentName name of the reporter component
      * @return a list of reported OSGi service names
      */
     public Map<String, Long> getAvailableService(String componentName) {
-        synchronized (componentMap) {
-            Map<String, Long> availableServices = componentMap.get(componentName);
-            if (availableServices == null) {
-                return Collections.emptyMap();
-            }
-            return availableServices.entrySet()
-                    .stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey,
-                            stringLongEntry -> Long.valueOf(stringLongEntry.getValue())));
+        Map<String, AtomicLong> availableServices = componentMap.get(componentName);
+        if (availableServices == null) {
+            return Collections.emptyMap();
+        }
+        return new ServiceCountView(availableServices);
+    }
+
+    /**
+     * Read-only view of the service counts of a single component.
+     */
+    private static class ServiceCountView extends AbstractMap<String, Long> {
+        private final Map<String, AtomicLong> serviceCounts;
+
+        private ServiceCountView(Map<String, AtomicLong> serviceCounts) {
+            this.serviceCounts = serviceCounts;
+        }
+
+        @Override
+        public Long get(Object key) {
+            AtomicLong serviceCount = serviceCounts.get(key);
+            return serviceCount == null ? null : serviceCount.get();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return serviceCounts.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return serviceCounts.size();
+        }
+
+        @Override
+        public Set<Entry<String, Long>> entrySet() {
+            return new AbstractSet<Entry<String, Long>>() {
+                @Override
+                public Iterator<Entry<String, Long>> iterator() {
+                    Iterator<Entry<String, AtomicLong>> iterator = serviceCounts.entrySet().iterator();
+                    return new Iterator<Entry<String, Long>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Long> next() {
+                            Entry<String, AtomicLong> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return serviceCounts.size();
+                }
+            };
         }
     }
 }
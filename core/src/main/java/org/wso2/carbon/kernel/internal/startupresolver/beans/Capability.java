@@ -34,6 +34,7 @@ public class Capability {
     protected Bundle bundle;
     protected boolean directDependency;
     protected boolean secondCheck;
+    protected String providerComponentName;
 
     /**
      * Describes the type of the Capability.
@@ -83,6 +84,7 @@ public class Capability {
     public Capability(Capability capability) {
         this(capability.getName(), capability.getType(), capability.getState(), capability.getBundle(),
                 capability.isDirectDependency());
+        this.providerComponentName = capability.getProviderComponentName();
     }
 
     public String getName() {
@@ -121,6 +123,20 @@ public class Capability {
         this.secondCheck = secondCheck;
     }
 
+    /**
+     * Returns the name of the startup component which provides this capability, as specified by the
+     * {@code componentName} attribute of its {@code osgi.service} manifest element.
+     *
+     * @return the name of the providing startup component, or null if it is not specified
+     */
+    public String getProviderComponentName() {
+        return providerComponentName;
+    }
+
+    public void setProviderComponentName(String providerComponentName) {
+        this.providerComponentName = providerComponentName;
+    }
+
     /**
      * Checks whether the given {@code Capability} is equal to this {@code Capability} instance.
      * @param obj Capability to be compared.
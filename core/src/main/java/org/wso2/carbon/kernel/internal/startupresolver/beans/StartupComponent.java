@@ -21,12 +21,13 @@ import org.osgi.framework.Bundle;
 import org.wso2.carbon.kernel.internal.startupresolver.StartupServiceCache;
 import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -59,15 +60,28 @@ public class StartupComponent {
      */
     private final List<Capability> expectedCapabilityList = Collections.synchronizedList(new ArrayList<>());
 
+    /**
+     * Expected and available counts of each capability in the expectedCapabilityList. Key is the capability name.
+     * Guarded by the expectedCapabilityList lock.
+     */
+    private final Map<String, CapabilityCounter> capabilityCounterMap = new HashMap<>();
+
+    /**
+     * Number of capabilities with less available services than expected. Guarded by the expectedCapabilityList lock.
+     */
+    private int outstandingCapabilityCount = 0;
+
     /**
      * RequiredCapabilityListener service instance.
      */
-    private RequiredCapabilityListener listener;
+    private volatile RequiredCapabilityListener listener;
 
     /**
-     * List of pending expected or available CapabilityProvider OSGi services.
+     * List of pending expected or available CapabilityProvider OSGi services. CapabilityProvider services may be
+     * registered concurrently by RequiredCapabilityListeners of other components.
      */
-    private List<CapabilityProviderCapability> pendingCapabilityProviderList = new ArrayList<>();
+    private final List<CapabilityProviderCapability> pendingCapabilityProviderList =
+            Collections.synchronizedList(new ArrayList<>());
 
     /**
      * OSGi bundle to which this component resides.
@@ -77,7 +91,7 @@ public class StartupComponent {
     /**
      * Indicates whether this startup listener component is already satisfied or not.
      */
-    private boolean satisfied = false;
+    private volatile boolean satisfied = false;
 
     /**
      * Constructor to create a {@code StartupComponent} instance.
@@ -129,17 +143,15 @@ public class StartupComponent {
      */
     public void addExpectedCapability(Capability capability) {
         synchronized (expectedCapabilityList) {
-            Capability expectedCapability = expectedCapabilityList.stream()
-                    .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                    .filter(expCapability -> !expCapability.isSecondCheck()
-                            && expCapability.getState() == Capability.CapabilityState.AVAILABLE)
-                    .findFirst().orElse(null);
+            CapabilityCounter capabilityCounter = getCapabilityCounter(capability.getName());
+            Capability expectedCapability = capabilityCounter.unmatchedAvailableCapabilities.pollFirst();
 
             if (expectedCapability != null) {
                 expectedCapability.setSecondCheck(true);
-                expectedCapability.setDirectDependency(capability.isDirectDependency());
+                updateCapabilityCounter(capabilityCounter, expectedCapability,
+                        () -> expectedCapability.setDirectDependency(capability.isDirectDependency()));
             } else {
-                expectedCapabilityList.add(capability);
+                addCapability(capabilityCounter, capability);
             }
         }
     }
@@ -154,35 +166,67 @@ public class StartupComponent {
      */
     public void updateCapability(Capability capability) {
         synchronized (expectedCapabilityList) {
+            CapabilityCounter capabilityCounter = getCapabilityCounter(capability.getName());
             if (capability.getState() == Capability.CapabilityState.EXPECTED) {
-                Optional<Capability> optCapability = expectedCapabilityList.stream()
-                        .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                        .filter(expCapability -> expCapability.getState() == Capability.CapabilityState.AVAILABLE)
-                        .filter(expCapability -> !expCapability.isSecondCheck())
-                        .findFirst();
-
-                if (optCapability.isPresent()) {
-                    optCapability.get().setSecondCheck(true);
+                Capability availableCapability = capabilityCounter.unmatchedAvailableCapabilities.pollFirst();
+
+                if (availableCapability != null) {
+                    availableCapability.setSecondCheck(true);
                 } else {
-                    expectedCapabilityList.add(capability);
+                    addCapability(capabilityCounter, capability);
                 }
             } else {
                 // if Capability.CapabilityState.AVAILABLE
-                Optional<Capability> optCapability = expectedCapabilityList.stream()
-                        .filter(expCapability -> expCapability.getName().equals(capability.getName()))
-                        .filter(expCapability -> expCapability.getState() == Capability.CapabilityState.EXPECTED)
-                        .findFirst();
-
-                if (optCapability.isPresent()) {
-                    optCapability.get().setState(Capability.CapabilityState.AVAILABLE);
-                    optCapability.get().setSecondCheck(true);
+                Capability expectedCapability = capabilityCounter.expectedStateCapabilities.pollFirst();
+
+                if (expectedCapability != null) {
+                    updateCapabilityCounter(capabilityCounter, expectedCapability, () -> {
+                        expectedCapability.setState(Capability.CapabilityState.AVAILABLE);
+                        expectedCapability.setSecondCheck(true);
+                    });
                 } else {
-                    expectedCapabilityList.add(capability);
+                    addCapability(capabilityCounter, capability);
                 }
             }
         }
     }
 
+    /**
+     * Updates the number of OSGi services of the given capability which are reported by this component through the
+     * {@code StartupServiceCache}.
+     * <p>
+     * Reported service counts never decrease, hence the larger of the current count and the given count is kept.
+     *
+     * @param capabilityName name of the capability.
+     * @param serviceCount   number of reported OSGi services.
+     */
+    public void updateAvailableServiceCount(String capabilityName, long serviceCount) {
+        synchronized (expectedCapabilityList) {
+            CapabilityCounter capabilityCounter = getCapabilityCounter(capabilityName);
+            if (serviceCount > capabilityCounter.availableCount) {
+                boolean outstanding = capabilityCounter.isOutstanding();
+                capabilityCounter.availableCount = serviceCount;
+                updateOutstandingCapabilityCount(outstanding, capabilityCounter.isOutstanding());
+            }
+        }
+    }
+
+    /**
+     * Reloads the reported OSGi service counts of all the known capabilities from the {@code StartupServiceCache}.
+     */
+    public void refreshAvailableServiceCounts() {
+        synchronized (expectedCapabilityList) {
+            capabilityCounterMap.forEach((capabilityName, capabilityCounter) -> {
+                long serviceCount = StartupServiceCache.getInstance().getServiceCount(name, capabilityName);
+                if (serviceCount > capabilityCounter.availableCount) {
+                    boolean outstanding = capabilityCounter.isOutstanding();
+                    capabilityCounter.availableCount = serviceCount;
+                    updateOutstandingCapabilityCount(outstanding, capabilityCounter.isOutstanding());
+                }
+            });
+        }
+    }
+
     /**
      * Returns all the pending capabilities of this startup listener component. There could capabilities
      * in both AVAILABLE and EXPECTED state.
@@ -200,33 +244,39 @@ public class StartupComponent {
      * @return the list of pending capabilities.
      */
     public List<Capability> getPendingCapabilities() {
-        Map<String, Long> availableServiceCounts = StartupServiceCache.getInstance().getAvailableService(name);
-
         synchronized (expectedCapabilityList) {
-            Map<String, Long> expectedServiceCounts = expectedCapabilityList.stream()
-                    .filter(expCapability -> expCapability.isDirectDependency()
-                            || (!expCapability.isDirectDependency()
-                            && expCapability.getState() == Capability.CapabilityState.EXPECTED))
-                    .map(expCapability -> expCapability.getName())
-                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-            availableServiceCounts.forEach((s, aLong) -> {
-                Long eCount = expectedServiceCounts.get(s);
-                if (eCount != null && aLong >= eCount) {
-                    expectedServiceCounts.remove(s);
-                }
-            });
-
-            if (expectedServiceCounts.isEmpty()) {
+            if (outstandingCapabilityCount == 0) {
                 return Collections.emptyList();
             } else {
                 return expectedCapabilityList.stream()
-                        .filter(expCapability -> expectedServiceCounts.keySet().contains(expCapability.getName()))
+                        .filter(expCapability -> capabilityCounterMap.get(expCapability.getName()).isOutstanding())
                         .collect(Collectors.toList());
             }
         }
     }
 
+    /**
+     * Returns all the capabilities expected by this component, irrespective of whether they are available.
+     *
+     * @return a copy of the list of expected capabilities.
+     */
+    public List<Capability> getExpectedCapabilities() {
+        synchronized (expectedCapabilityList) {
+            return new ArrayList<>(expectedCapabilityList);
+        }
+    }
+
+    /**
+     * Returns 'true' if all the expected capabilities of this component are available.
+     *
+     * @return 'true' if there are no pending capabilities.
+     */
+    public boolean hasPendingCapabilities() {
+        synchronized (expectedCapabilityList) {
+            return outstandingCapabilityCount != 0;
+        }
+    }
+
     public RequiredCapabilityListener getListener() {
         return listener;
     }
@@ -236,15 +286,19 @@ public class StartupComponent {
     }
 
     public void addExpectedOrAvailableCapabilityProvider(CapabilityProviderCapability capabilityProvider) {
-        if (pendingCapabilityProviderList.contains(capabilityProvider)) {
-            pendingCapabilityProviderList.remove(capabilityProvider);
-        } else {
-            pendingCapabilityProviderList.add(capabilityProvider);
+        synchronized (pendingCapabilityProviderList) {
+            if (pendingCapabilityProviderList.contains(capabilityProvider)) {
+                pendingCapabilityProviderList.remove(capabilityProvider);
+            } else {
+                pendingCapabilityProviderList.add(capabilityProvider);
+            }
         }
     }
 
     public List<CapabilityProviderCapability> getPendingCapabilityProviders() {
-        return Collections.unmodifiableList(pendingCapabilityProviderList);
+        synchronized (pendingCapabilityProviderList) {
+            return new ArrayList<>(pendingCapabilityProviderList);
+        }
     }
 
     public Bundle getBundle() {
@@ -271,7 +325,7 @@ public class StartupComponent {
      */
     public boolean isSatisfiable() {
         return !satisfied &&
-                getPendingCapabilities().size() == 0 &&
+                !hasPendingCapabilities() &&
                 listener != null &&
                 pendingCapabilityProviderList.size() == 0;
     }
@@ -290,6 +344,61 @@ public class StartupComponent {
         return !satisfied;
     }
 
+    private CapabilityCounter getCapabilityCounter(String capabilityName) {
+        CapabilityCounter capabilityCounter = capabilityCounterMap.get(capabilityName);
+        if (capabilityCounter == null) {
+            capabilityCounter = new CapabilityCounter();
+            capabilityCounter.availableCount = StartupServiceCache.getInstance().getServiceCount(name, capabilityName);
+            capabilityCounterMap.put(capabilityName, capabilityCounter);
+        }
+        return capabilityCounter;
+    }
+
+    private void addCapability(CapabilityCounter capabilityCounter, Capability capability) {
+        expectedCapabilityList.add(capability);
+        if (capability.getState() == Capability.CapabilityState.EXPECTED) {
+            capabilityCounter.expectedStateCapabilities.addLast(capability);
+        } else if (!capability.isSecondCheck()) {
+            capabilityCounter.unmatchedAvailableCapabilities.addLast(capability);
+        }
+
+        if (isCountedAsExpected(capability)) {
+            boolean outstanding = capabilityCounter.isOutstanding();
+            capabilityCounter.expectedCount++;
+            updateOutstandingCapabilityCount(outstanding, capabilityCounter.isOutstanding());
+        }
+    }
+
+    /**
+     * Applies the given update to a capability, which is already in the expectedCapabilityList, and adjusts the
+     * expected count of the capability accordingly.
+     */
+    private void updateCapabilityCounter(CapabilityCounter capabilityCounter, Capability capability,
+                                         Runnable capabilityUpdate) {
+        boolean counted = isCountedAsExpected(capability);
+        capabilityUpdate.run();
+        boolean countedAfterUpdate = isCountedAsExpected(capability);
+
+        if (counted != countedAfterUpdate) {
+            boolean outstanding = capabilityCounter.isOutstanding();
+            capabilityCounter.expectedCount += countedAfterUpdate ? 1 : -1;
+            updateOutstandingCapabilityCount(outstanding, capabilityCounter.isOutstanding());
+        }
+    }
+
+    private void updateOutstandingCapabilityCount(boolean outstanding, boolean outstandingAfterUpdate) {
+        if (outstanding != outstandingAfterUpdate) {
+            outstandingCapabilityCount += outstandingAfterUpdate ? 1 : -1;
+        }
+    }
+
+    /**
+     * All the direct dependencies and the indirect dependencies at EXPECTED state are considered as expected.
+     */
+    private static boolean isCountedAsExpected(Capability capability) {
+        return capability.isDirectDependency() || capability.getState() == Capability.CapabilityState.EXPECTED;
+    }
+
     /**
      * Checks whether the given components is equal to this component.
      * <p>
@@ -311,4 +420,19 @@ public class StartupComponent {
         assert false;
         return 10;
     }
+
+    /**
+     * Expected and available counts of a single capability, together with the capabilities which may be matched by
+     * subsequent capability updates.
+     */
+    private static class CapabilityCounter {
+        private final Deque<Capability> expectedStateCapabilities = new ArrayDeque<>();
+        private final Deque<Capability> unmatchedAvailableCapabilities = new ArrayDeque<>();
+        private int expectedCount;
+        private long availableCount;
+
+        private boolean isOutstanding() {
+            return availableCount < expectedCount;
+        }
+    }
 }
@@ -67,4 +67,26 @@ public class Utils {
         }
         return properties;
     }
+
+    /**
+     * Quotes the given value, so that it is a valid string in both JSON and Graphviz DOT documents.
+     *
+     * @param value value to be quoted
+     * @return the quoted value
+     */
+    public static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c == '\n') {
+                quoted.append("\\n");
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
 }
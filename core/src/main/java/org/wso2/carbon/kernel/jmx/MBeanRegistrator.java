@@ -19,9 +19,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.kernel.Constants;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanRegistrationException;
@@ -37,7 +37,7 @@ import javax.management.ObjectName;
  */
 public class MBeanRegistrator {
     private static final Logger logger = LoggerFactory.getLogger(MBeanRegistrator.class);
-    private static List<ObjectName> mBeans = new ArrayList<>();
+    private static List<ObjectName> mBeans = new CopyOnWriteArrayList<>();
 
     private MBeanRegistrator() {
     }
@@ -54,7 +54,17 @@ public class MBeanRegistrator {
             className = className.substring(className.lastIndexOf('.') + 1);
         }
 
-        String objectName = Constants.SERVER_PACKAGE + ":type=" + className;
+        registerMBean(mBeanInstance, Constants.SERVER_PACKAGE + ":type=" + className);
+    }
+
+    /**
+     * Registers an object as an MBean with the MBean server by the given object name.
+     *
+     * @param mBeanInstance - The MBean to be registered as an MBean.
+     * @param objectName    - The object name of the MBean.
+     * @since 5.2.9
+     */
+    public static void registerMBean(Object mBeanInstance, String objectName) throws RuntimeException {
         try {
             MBeanServer mBeanServer = MBeanManagementFactory.getMBeanServer();
             Set set = mBeanServer.queryNames(new ObjectName(objectName), null);
@@ -84,18 +94,38 @@ public class MBeanRegistrator {
         }
     }
 
+    /**
+     * Unregisters an MBean registered by this class from the MBean server.
+     *
+     * @param objectName - The object name of the MBean.
+     * @since 5.2.9
+     */
+    public static void unregisterMBean(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            if (mBeans.remove(name)) {
+                unregisterMBean(MBeanManagementFactory.getMBeanServer(), name);
+            }
+        } catch (MalformedObjectNameException e) {
+            logger.error("Cannot unregister MBean " + objectName, e);
+        }
+    }
+
     /**
      * Unregisters all MBeans from the MBean server.
      *
      */
     public static void unregisterAllMBeans() {
         MBeanServer mBeanServer = MBeanManagementFactory.getMBeanServer();
-        mBeans.forEach(mBean -> {
-            try {
-                mBeanServer.unregisterMBean(mBean);
-            } catch (InstanceNotFoundException | MBeanRegistrationException e) {
-                logger.error("Cannot unregister MBean " + mBean.getCanonicalName(), e);
-            }
-        });
+        mBeans.forEach(mBean -> unregisterMBean(mBeanServer, mBean));
+        mBeans.clear();
+    }
+
+    private static void unregisterMBean(MBeanServer mBeanServer, ObjectName mBean) {
+        try {
+            mBeanServer.unregisterMBean(mBean);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            logger.error("Cannot unregister MBean " + mBean.getCanonicalName(), e);
+        }
     }
 }
@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe counter. The count is striped across cells, so that threads which update the counter concurrently
+ * do not contend on a single memory location.
+ *
+ * @since 5.2.9
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Increments the count by one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Increments the count by the given value.
+     *
+     * @param value the value to be added
+     */
+    public void increment(long value) {
+        count.add(value);
+    }
+
+    /**
+     * Decrements the count by one.
+     */
+    public void decrement() {
+        count.decrement();
+    }
+
+    /**
+     * Returns the current count. The count is not an atomic snapshot if the counter is updated concurrently.
+     *
+     * @return the current count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.metrics;
+
+/**
+ * A metric of which the value is computed only when it is read, such as the size of a queue.
+ *
+ * @since 5.2.9
+ */
+@FunctionalInterface
+public interface Gauge {
+
+    /**
+     * Returns the current value of the gauge. This method is called by the thread which reads the metrics, hence it
+     * should be thread-safe and should not block.
+     *
+     * @return the current value
+     */
+    long getValue();
+}
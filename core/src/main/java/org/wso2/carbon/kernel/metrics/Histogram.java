@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A thread-safe histogram of non-negative values, such as latencies in nanoseconds, which records a value without
+ * acquiring any lock or allocating memory.
+ * </p>
+ * Values are counted in buckets of which the width grows with the magnitude of the values, in the same way as an
+ * HdrHistogram. Values below 64 are counted exactly, and each power of two above is divided into 32 buckets, hence
+ * the percentiles are reported with a relative error of at most 1/32 across the whole range of {@code long} values,
+ * using a fixed amount of memory.
+ *
+ * @since 5.2.9
+ */
+public final class Histogram {
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKET_BITS = 6;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (Long.SIZE - 1 - LINEAR_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value to be recorded
+     */
+    public void record(long value) {
+        long nonNegativeValue = Math.max(value, 0);
+        buckets.incrementAndGet(getBucketIndex(nonNegativeValue));
+        sum.add(nonNegativeValue);
+        max.accumulate(nonNegativeValue);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest recorded value, or 0 if no value is recorded.
+     *
+     * @return the largest recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values, or 0 if no value is recorded.
+     *
+     * @return the mean of the recorded values
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall, or 0 if no value is recorded.
+     * The returned value is the largest value counted in the same bucket, hence it is never less than the exact
+     * percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the value at the given percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            totalCount += counts[i];
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= rank) {
+                return Math.min(getHighestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private static int getBucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (exponent - LINEAR_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getHighestEquivalentValue(int bucketIndex) {
+        if (bucketIndex < LINEAR_BUCKETS) {
+            return bucketIndex;
+        }
+        int exponent = (bucketIndex - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_BUCKET_BITS;
+        long subBucket = (bucketIndex - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        // overflows to Long.MAX_VALUE for the last bucket
+        return ((subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
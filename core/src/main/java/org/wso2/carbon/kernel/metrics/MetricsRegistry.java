@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.metrics;
+
+/**
+ * <p>
+ * The registry of the metrics of the Carbon kernel and its components, which is registered as an OSGi service by the
+ * Carbon core bundle.
+ * </p>
+ * The metrics of each component are published through a single dynamic MBean named
+ * {@code org.wso2.carbon:type=Metrics,component=[component]}, of which the attributes are read from the metrics only
+ * when the MBean is queried. Hence a component obtains its metrics once and updates them on its hot path without
+ * touching the MBeanServer, as shown below.
+ * <pre>
+ * Counter requests = metricsRegistry.counter("my-component", "requests");
+ * Histogram latency = metricsRegistry.histogram("my-component", "request.latency");
+ * ...
+ * long startTime = System.nanoTime();
+ * requests.increment();
+ * ...
+ * latency.record(System.nanoTime() - startTime);
+ * </pre>
+ * The kernel records latencies in nanoseconds, and reports into the {@code startup-resolver}, {@code runtime} and
+ * {@code carbon-context} components.
+ *
+ * @since 5.2.9
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Returns the counter of the given name of the given component, which is created if it does not exist.
+     *
+     * @param component the name of the component
+     * @param name      the name of the counter
+     * @return the counter
+     * @throws IllegalArgumentException if a metric of a different type exists by the given name
+     */
+    Counter counter(String component, String name);
+
+    /**
+     * Returns the histogram of the given name of the given component, which is created if it does not exist.
+     *
+     * @param component the name of the component
+     * @param name      the name of the histogram
+     * @return the histogram
+     * @throws IllegalArgumentException if a metric of a different type exists by the given name
+     */
+    Histogram histogram(String component, String name);
+
+    /**
+     * Registers a gauge by the given name for the given component, which replaces any gauge registered by that name.
+     *
+     * @param component the name of the component
+     * @param name      the name of the gauge
+     * @param gauge     the gauge
+     * @throws IllegalArgumentException if a metric of a different type exists by the given name
+     */
+    void gauge(String component, String name, Gauge gauge);
+
+    /**
+     * Removes the metrics of the given component and unregisters its MBean.
+     *
+     * @param component the name of the component
+     */
+    void removeComponent(String component);
+}
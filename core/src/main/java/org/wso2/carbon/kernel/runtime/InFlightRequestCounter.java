@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.runtime;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A thread-safe counter of the requests in flight in a {@link Runtime}, which notifies when no request is in flight.
+ * </p>
+ * A runtime increments the counter when it accepts a request and decrements it when the request completes, and
+ * implements {@link Runtime#getInFlightRequestCount()} and {@link Runtime#drain()} using {@link #get()} and
+ * {@link #whenDrained()}, as shown below. Counting a request does not acquire any lock.
+ * <pre>
+ * public void handle(Request request) {
+ *     inFlightRequests.increment();
+ *     try {
+ *         ...
+ *     } finally {
+ *         inFlightRequests.decrement();
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 5.2.9
+ */
+public final class InFlightRequestCounter {
+    private final AtomicLong count = new AtomicLong();
+    private final Queue<CompletableFuture<Void>> drainListeners = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Records that a request is accepted.
+     */
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    /**
+     * Records that a request is completed, and notifies the listeners waiting for the runtime to drain if it was the
+     * last request in flight.
+     */
+    public void decrement() {
+        if ((count.decrementAndGet() <= 0) && !drainListeners.isEmpty()) {
+            notifyDrained();
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     *
+     * @return the number of requests in flight
+     */
+    public long get() {
+        return count.get();
+    }
+
+    /**
+     * Returns a future which is completed once no request is in flight, which is already completed if no request is
+     * in flight. A caller which stops waiting, such as on a timeout, should cancel the future, so that it is no longer
+     * retained by this counter.
+     *
+     * @return the future which is completed once no request is in flight
+     */
+    public CompletableFuture<Void> whenDrained() {
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        drainListeners.add(drained);
+        drained.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                drainListeners.remove(drained);
+            }
+        });
+        //  checked after adding the listener, so that a concurrent decrement to zero is not missed
+        if (count.get() <= 0) {
+            notifyDrained();
+        }
+        return drained;
+    }
+
+    private void notifyDrained() {
+        CompletableFuture<Void> drained;
+        while ((drained = drainListeners.poll()) != null) {
+            drained.complete(null);
+        }
+    }
+}
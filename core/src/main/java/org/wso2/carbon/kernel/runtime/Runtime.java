@@ -17,6 +17,10 @@ package org.wso2.carbon.kernel.runtime;
 
 import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * <p>
  * This interface is used to register/integrate custom runtime into Carbon server, by extending this
@@ -72,6 +76,7 @@ public interface Runtime {
      * Put the Runtime into maintenance mode.
      * </p>
      * This will contain all the code that need to be called when runtime starting its MAINTENANCE state.
+     * A runtime in MAINTENANCE state should not accept new requests, and complete those in flight.
      *
      * @throws RuntimeServiceException - on error while trying to start maintenance of the Runtime
      */
@@ -103,4 +108,56 @@ public interface Runtime {
      */
     void setState(RuntimeState runtimeState);
 
+    /**
+     * Return the name of the runtime, which other runtimes use to declare their dependency on it.
+     *
+     * @return the name of the runtime, which is the name of its class by default
+     * @since 5.2.9
+     */
+    default String getName() {
+        return getClass().getName();
+    }
+
+    /**
+     * <p>
+     * Return the names of the runtimes which this runtime depends on.
+     * </p>
+     * Runtimes are started in parallel, and each runtime is started only after the runtimes which it depends on have
+     * started. Runtimes are stopped in the reverse order. A dependency on a runtime which is not registered is ignored.
+     * The lifecycle methods may hence be called by a thread other than the one which requested the operation, but with
+     * the carbon context of that thread.
+     *
+     * @return the names of the runtimes which this runtime depends on, none by default
+     * @see #getName()
+     * @since 5.2.9
+     */
+    default Set<String> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Return the number of requests in flight in the runtime, which is always zero by default.
+     *
+     * @return the number of requests in flight
+     * @see InFlightRequestCounter
+     * @since 5.2.9
+     */
+    default long getInFlightRequestCount() {
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Return a future which is completed once no request is in flight in the runtime.
+     * </p>
+     * This is used to wait for a runtime in MAINTENANCE state to complete the requests which it accepted before,
+     * and is already completed by default.
+     *
+     * @return the future which is completed once no request is in flight
+     * @see InFlightRequestCounter#whenDrained()
+     * @since 5.2.9
+     */
+    default CompletableFuture<Void> drain() {
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -17,6 +17,9 @@ package org.wso2.carbon.kernel.runtime;
 
 import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * User level APIs for consuming RuntimeManager functionality.
  * This will be registered as an OSGi service so that users can reference this in their component.
@@ -52,6 +55,26 @@ public interface RuntimeService {
      */
     void beginMaintenance() throws RuntimeServiceException;
 
+    /**
+     * Users can call this method to put the Carbon server on Maintenance Mode, and to wait for all registered
+     * runtime to complete the requests in flight, such as before taking the server out of a load balancer.
+     * <p>
+     * By default, this puts the server on Maintenance Mode and returns an already completed future, without waiting
+     * for the requests in flight.
+     *
+     * @param timeout the maximum time to wait for the requests in flight to complete
+     * @param unit    the unit of the timeout
+     * @return a future which is completed once no request is in flight in any registered runtime, or completed
+     * exceptionally with a {@link java.util.concurrent.TimeoutException} if requests are still in flight after the
+     * timeout
+     * @throws RuntimeServiceException - on error while trying to start server Maintenance mode
+     * @since 5.2.9
+     */
+    default CompletableFuture<Void> beginMaintenance(long timeout, TimeUnit unit) throws RuntimeServiceException {
+        beginMaintenance();
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Users can call this method to put the Carbon server back in normal state and this will affect
      * all registered runtime into INACTIVE state.
@@ -21,9 +21,11 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.utils.Tokenizer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class represents a single manifest element.  A manifest element must consist of a single
@@ -82,6 +84,11 @@ public class ManifestElement {
 
     private static final String MANIFEST_INVALID_HEADER_EXCEPTION = "Invalid header found.";
 
+    /**
+     * Initial capacity of the attribute and directive tables. Manifest elements rarely have more than a few of them.
+     */
+    private static final int INITIAL_TABLE_CAPACITY = 4;
+
     private final String manifestHeaderName;
 
     /**
@@ -90,14 +97,15 @@ public class ManifestElement {
     private final String mainValue;
 
     /**
-     * The table of attributes for the manifest element.
+     * The table of attributes for the manifest element. A manifest element is populated by a single thread while it
+     * is being parsed and is read-only afterwards, hence the table is not synchronized.
      */
-    private Hashtable<String, Object> attributes;
+    private Map<String, Object> attributes;
 
     /**
      * The table of directives for the manifest element.
      */
-    private Hashtable<String, Object> directives;
+    private Map<String, Object> directives;
 
     /**
      * Containing OSGi bundle.
@@ -235,11 +243,11 @@ public class ManifestElement {
     /**
      * Return the last value associated with the given key in the specified table.
      *
-     * @param table Hashtable&lt;String, Object&gt;
+     * @param table Map&lt;String, Object&gt;
      * @param key   String
      * @return String
      */
-    private String getTableValue(Hashtable<String, Object> table, String key) {
+    private String getTableValue(Map<String, Object> table, String key) {
         if (table == null) {
             return null;
         }
@@ -259,11 +267,11 @@ public class ManifestElement {
     /**
      * Return the values associated with the given key in the specified table.
      *
-     * @param table Hashtable&lt;String, Object&gt;
+     * @param table Map&lt;String, Object&gt;
      * @param key   String
      * @return String[]
      */
-    private String[] getTableValues(Hashtable<String, Object> table, String key) {
+    private String[] getTableValues(Map<String, Object> table, String key) {
         if (table == null) {
             return new String[]{};
         }
@@ -282,14 +290,14 @@ public class ManifestElement {
     /**
      * Return an enumeration of table keys for the specified table.
      *
-     * @param table Hashtable&lt;String, Object&gt;
+     * @param table Map&lt;String, Object&gt;
      * @return Enumeration&lt;String&gt;
      */
-    private Enumeration<String> getTableKeys(Hashtable<String, Object> table) {
+    private Enumeration<String> getTableKeys(Map<String, Object> table) {
         if (table == null) {
             return null;
         }
-        return table.keys();
+        return Collections.enumeration(table.keySet());
     }
 
     /**
@@ -297,15 +305,15 @@ public class ManifestElement {
      * for this key, then create an array list from the current value (if necessary) and
      * append the new value to the end of the list.
      *
-     * @param table Hashtable&lt;String, Object&gt;
+     * @param table Map&lt;String, Object&gt;
      * @param key   String
      * @param value String
-     * @return Hashtable&lt;String, Object&gt;
+     * @return Map&lt;String, Object&gt;
      */
     @SuppressWarnings("unchecked")
-    private Hashtable<String, Object> addTableValue(Hashtable<String, Object> table, String key, String value) {
+    private Map<String, Object> addTableValue(Map<String, Object> table, String key, String value) {
         if (table == null) {
-            table = new Hashtable<>(7);
+            table = new LinkedHashMap<>(INITIAL_TABLE_CAPACITY);
         }
         Object curValue = table.get(key);
         if (curValue != null) {
@@ -325,6 +333,25 @@ public class ManifestElement {
         return table;
     }
 
+    /**
+     * Creates a manifest element from already parsed values, e.g. values restored from a cache of previously parsed
+     * manifest headers.
+     *
+     * @param header     the name of the manifest header of the manifest element
+     * @param value      the value of the manifest element
+     * @param attributes the attribute values of the manifest element by the attribute key
+     * @param directives the directive values of the manifest element by the directive key
+     * @param bundle     OSGi bundle
+     * @return the created {@code ManifestElement}
+     */
+    public static ManifestElement newInstance(String header, String value, Map<String, List<String>> attributes,
+                                              Map<String, List<String>> directives, Bundle bundle) {
+        ManifestElement manifestElement = new ManifestElement(header, value, bundle);
+        attributes.forEach((key, values) -> values.forEach(val -> manifestElement.addAttribute(key, val)));
+        directives.forEach((key, values) -> values.forEach(val -> manifestElement.addDirective(key, val)));
+        return manifestElement;
+    }
+
     /**
      * Parses a manifest header value into an array of ManifestElements.  Each
      * ManifestElement returned will have a non-null value returned by getValue().
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the throughput of the CarbonContext API, as used several times by each request on the threads
+ * which serve requests. It is not part of the unit tests, and is run using the main method from the test classpath
+ * of this module, such as by
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.kernel.context.CarbonContextBenchmark}.
+ *
+ * @since 5.2.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CarbonContextBenchmark {
+    private static final String[] PROPERTY_KEYS = {"tenant", "correlation-id", "locale", "client-ip"};
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getCurrentContext();
+        privilegedCarbonContext.setUserPrincipal(() -> "admin");
+        for (String key : PROPERTY_KEYS) {
+            privilegedCarbonContext.setProperty(key, key + "-value");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        PrivilegedCarbonContext.destroyCurrentContext();
+    }
+
+    @Benchmark
+    public CarbonContext getCurrentContext() {
+        return CarbonContext.getCurrentContext();
+    }
+
+    @Benchmark
+    public PrivilegedCarbonContext getCurrentPrivilegedContext() {
+        return PrivilegedCarbonContext.getCurrentContext();
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return CarbonContext.getCurrentContext().getProperty(PROPERTY_KEYS[counter++ & 3]);
+    }
+
+    @Benchmark
+    public void setProperty() {
+        PrivilegedCarbonContext.getCurrentContext().setProperty(PROPERTY_KEYS[counter & 3], counter++);
+    }
+
+    @Benchmark
+    public CarbonContextSnapshot snapshot() {
+        return PrivilegedCarbonContext.snapshot();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CarbonContextBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.context;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the propagation of the carbon context to other threads, using CarbonContextExecutors.
+ *
+ * @since 5.2.9
+ */
+public class CarbonContextExecutorsTest {
+    private static final String PROPERTY_KEY = "KEY";
+
+    private final Principal userPrincipal = () -> "test";
+    private ExecutorService pool;
+
+    @BeforeClass
+    public void init() {
+        pool = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public void cleanup() {
+        pool.shutdownNow();
+    }
+
+    @AfterMethod
+    public void destroyContext() {
+        PrivilegedCarbonContext.destroyCurrentContext();
+    }
+
+    @Test
+    public void testSnapshotAndRestore() {
+        setContext("VALUE");
+        CarbonContextSnapshot snapshot = PrivilegedCarbonContext.snapshot();
+        //  later changes to the carbon context do not affect the snapshot
+        PrivilegedCarbonContext.getCurrentContext().setProperty(PROPERTY_KEY, "NEW_VALUE");
+        Assert.assertEquals(snapshot.getProperty(PROPERTY_KEY), "VALUE");
+
+        PrivilegedCarbonContext.destroyCurrentContext();
+        CarbonContextSnapshot previous = PrivilegedCarbonContext.restore(snapshot);
+        Assert.assertNull(previous.getUserPrincipal());
+        Assert.assertEquals(CarbonContext.getCurrentContext().getUserPrincipal(), userPrincipal);
+        Assert.assertEquals(CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY), "VALUE");
+
+        PrivilegedCarbonContext.restore(previous);
+        Assert.assertNull(CarbonContext.getCurrentContext().getUserPrincipal());
+        Assert.assertNull(CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY));
+    }
+
+    @Test
+    public void testExecutorServicePropagation() throws Exception {
+        ExecutorService executorService = CarbonContextExecutors.executorService(pool);
+        setContext("VALUE1");
+        Future<Object> first = executorService
+                .submit(() -> CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY));
+        PrivilegedCarbonContext.getCurrentContext().setProperty(PROPERTY_KEY, "VALUE2");
+        List<Callable<Principal>> tasks = Arrays.asList(() -> CarbonContext.getCurrentContext().getUserPrincipal(),
+                () -> CarbonContext.getCurrentContext().getUserPrincipal());
+        List<Future<Principal>> principals = executorService.invokeAll(tasks);
+
+        Assert.assertEquals(first.get(), "VALUE1");
+        for (Future<Principal> principal : principals) {
+            Assert.assertEquals(principal.get(), userPrincipal);
+        }
+        //  the carbon context is not left behind in the pooled thread
+        Assert.assertNull(pool.submit(() -> CarbonContext.getCurrentContext().getUserPrincipal()).get());
+    }
+
+    @Test
+    public void testCompletableFuturePropagation() throws Exception {
+        setContext("VALUE");
+        CompletableFuture<Object> future = CarbonContextExecutors
+                .supplyAsync(() -> CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY), pool)
+                .thenApplyAsync(CarbonContextExecutors.wrapFunction(value ->
+                        value + ":" + CarbonContext.getCurrentContext().getUserPrincipal().getName()), pool);
+        Assert.assertEquals(future.get(), "VALUE:test");
+    }
+
+    @Test
+    public void testExecutorPropagationToNewThreads() throws Exception {
+        setContext("VALUE");
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CarbonContextExecutors.executor(task -> new Thread(task).start())
+                .execute(() -> future.complete(CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY)));
+        Assert.assertEquals(future.get(), "VALUE");
+    }
+
+    private void setContext(String propertyValue) {
+        PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getCurrentContext();
+        privilegedCarbonContext.setUserPrincipal(userPrincipal);
+        privilegedCarbonContext.setProperty(PROPERTY_KEY, propertyValue);
+    }
+}
@@ -44,6 +44,17 @@ public class CarbonContextTest {
     }
 
     @Test(dependsOnMethods = "testCarbonContext")
+    public void testCarbonContextInstancePerThread() throws Exception {
+        Assert.assertSame(CarbonContext.getCurrentContext(), CarbonContext.getCurrentContext());
+        PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getCurrentContext();
+        Assert.assertSame(PrivilegedCarbonContext.getCurrentContext(), privilegedCarbonContext);
+        Assert.assertNotSame(CarbonContext.getCurrentContext(), privilegedCarbonContext);
+
+        PrivilegedCarbonContext.destroyCurrentContext();
+        Assert.assertNotSame(PrivilegedCarbonContext.getCurrentContext(), privilegedCarbonContext);
+    }
+
+    @Test(dependsOnMethods = "testCarbonContextInstancePerThread")
     public void testPrivilegeCarbonContext() throws Exception {
         Principal userPrincipal = () -> "test";
         String carbonContextPropertyKey = "KEY";
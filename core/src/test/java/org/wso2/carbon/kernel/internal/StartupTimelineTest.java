@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.Constants;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.StartupTimeline.
+ *
+ * @since 5.2.9
+ */
+public class StartupTimelineTest {
+
+    private static final String FRAMEWORK_START_PROPERTY = Constants.STARTUP_PHASE_PREFIX + "framework.start";
+    private static final String INVALID_PHASE_PROPERTY = Constants.STARTUP_PHASE_PREFIX + "invalid";
+
+    private String originalStartTime;
+
+    private long serverStartTime;
+
+    @BeforeMethod
+    public void setServerStartTime() {
+        originalStartTime = System.getProperty(Constants.START_TIME);
+        serverStartTime = System.currentTimeMillis();
+        System.setProperty(Constants.START_TIME, Long.toString(serverStartTime));
+    }
+
+    @AfterMethod
+    public void clearLauncherPhases() {
+        System.clearProperty(FRAMEWORK_START_PROPERTY);
+        System.clearProperty(INVALID_PHASE_PROPERTY);
+        System.clearProperty(Constants.INITIAL_BUNDLE_PHASES);
+        if (originalStartTime == null) {
+            System.clearProperty(Constants.START_TIME);
+        } else {
+            System.setProperty(Constants.START_TIME, originalStartTime);
+        }
+    }
+
+    @Test
+    public void testLauncherAndKernelPhases() {
+        System.setProperty(FRAMEWORK_START_PROPERTY, (serverStartTime + 10) + "," + (serverStartTime + 110));
+        System.setProperty(INVALID_PHASE_PROPERTY, "10");
+
+        StartupTimeline startupTimeline = new StartupTimeline();
+        startupTimeline.recordPhase("kernel.core.activation", serverStartTime + 50, serverStartTime + 80);
+        startupTimeline.recordPhase("kernel.manifest.processing", serverStartTime + 60, serverStartTime + 70);
+
+        Assert.assertEquals(startupTimeline.getPhaseDuration("framework.start"), 100);
+        Assert.assertEquals(startupTimeline.getPhaseDuration("kernel.core.activation"), 30);
+        Assert.assertEquals(startupTimeline.getPhaseDuration("invalid"), -1);
+        Assert.assertEquals(startupTimeline.getStartupDuration(), -1);
+
+        String[] phases = startupTimeline.getPhases();
+        Assert.assertEquals(phases.length, 3);
+        Assert.assertTrue(phases[0].startsWith("framework.start "), phases[0]);
+        Assert.assertTrue(phases[1].startsWith("kernel.core.activation "), phases[1]);
+        Assert.assertTrue(phases[2].startsWith("kernel.manifest.processing "), phases[2]);
+
+        startupTimeline.complete();
+        Assert.assertTrue(startupTimeline.getStartupDuration() >= 0);
+        String json = startupTimeline.dumpAsJson();
+        Assert.assertTrue(json.contains("{\"name\": \"kernel.manifest.processing\", \"startedAt\": 60, " +
+                "\"duration\": 10}"), json);
+    }
+
+    @Test
+    public void testInitialBundlePhases() {
+        System.setProperty(Constants.INITIAL_BUNDLE_PHASES, "first," + (serverStartTime + 10) + "," +
+                (serverStartTime + 15) + "," + (serverStartTime + 20) + "," + (serverStartTime + 40) + ";second," +
+                (serverStartTime + 12) + "," + (serverStartTime + 18) + ";invalid,10");
+
+        StartupTimeline startupTimeline = new StartupTimeline();
+        Assert.assertEquals(startupTimeline.getPhaseDuration("bundle.install.first"), 5);
+        Assert.assertEquals(startupTimeline.getPhaseDuration("bundle.start.first"), 20);
+        Assert.assertEquals(startupTimeline.getPhaseDuration("bundle.install.second"), 6);
+        Assert.assertEquals(startupTimeline.getPhaseDuration("bundle.start.second"), -1);
+        Assert.assertEquals(startupTimeline.getPhases().length, 3);
+    }
+
+    @Test
+    public void testPhaseStartedBeforeServerStartTime() {
+        StartupTimeline startupTimeline = new StartupTimeline();
+        startupTimeline.recordPhase("launcher.config.load", serverStartTime - 20, serverStartTime - 5);
+
+        // Relative times are computed from the earliest phase, if it started before the server.
+        Assert.assertTrue(startupTimeline.dumpAsJson().contains("{\"name\": \"launcher.config.load\", " +
+                "\"startedAt\": 0, \"duration\": 15}"));
+    }
+}
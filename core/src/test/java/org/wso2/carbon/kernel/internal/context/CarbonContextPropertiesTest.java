@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.context;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit testing class for org.wso2.carbon.kernel.internal.context.CarbonContextProperties.
+ *
+ * @since 5.2.9
+ */
+public class CarbonContextPropertiesTest {
+
+    @Test
+    public void testInlineProperties() {
+        CarbonContextProperties properties = CarbonContextProperties.EMPTY.with("key1", "value1").with("key2", null);
+        CarbonContextProperties updated = properties.with("key1", "value2");
+
+        Assert.assertTrue(CarbonContextProperties.EMPTY.isEmpty());
+        Assert.assertFalse(properties.isEmpty());
+        Assert.assertEquals(properties.get("key1"), "value1");
+        Assert.assertEquals(updated.get("key1"), "value2");
+        Assert.assertNull(updated.get("key2"));
+        Assert.assertNull(updated.get("key3"));
+    }
+
+    @Test
+    public void testPropertiesBeyondInlineCapacity() {
+        CarbonContextProperties properties = CarbonContextProperties.EMPTY;
+        for (int index = 0; index <= CarbonContextProperties.INLINE_CAPACITY; index++) {
+            properties = properties.with("key" + index, index);
+        }
+        CarbonContextProperties updated = properties.with("key0", -1).with(null, "null");
+
+        for (int index = 1; index <= CarbonContextProperties.INLINE_CAPACITY; index++) {
+            Assert.assertEquals(updated.get("key" + index), index);
+        }
+        Assert.assertEquals(properties.get("key0"), 0);
+        Assert.assertEquals(updated.get("key0"), -1);
+        Assert.assertEquals(updated.get(null), "null");
+        Assert.assertNull(properties.get(null));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.context.PrivilegedCarbonContext;
+import org.wso2.carbon.kernel.internal.runtime.CarbonRuntimeService;
+import org.wso2.carbon.kernel.internal.runtime.RuntimeManager;
+import org.wso2.carbon.kernel.jmx.MBeanManagementFactory;
+import org.wso2.carbon.kernel.metrics.Counter;
+import org.wso2.carbon.kernel.metrics.Histogram;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.RuntimeState;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Unit testing class for org.wso2.carbon.kernel.internal.metrics.CarbonMetricsRegistry.
+ *
+ * @since 5.2.9
+ */
+public class CarbonMetricsRegistryTest {
+    private static final String COMPONENT = "metrics-test";
+
+    private CarbonMetricsRegistry metricsRegistry;
+    private MBeanServer mBeanServer;
+
+    @BeforeClass
+    public void init() {
+        metricsRegistry = new CarbonMetricsRegistry();
+        metricsRegistry.publish();
+        mBeanServer = MBeanManagementFactory.getMBeanServer();
+    }
+
+    @AfterClass
+    public void destroy() {
+        metricsRegistry.unpublish();
+    }
+
+    @Test
+    public void testMetricsMBean() throws Exception {
+        Counter counter = metricsRegistry.counter(COMPONENT, "requests");
+        counter.increment(3);
+        Histogram histogram = metricsRegistry.histogram(COMPONENT, "request.latency");
+        histogram.record(100);
+        histogram.record(200);
+        AtomicLong queueSize = new AtomicLong(7);
+        metricsRegistry.gauge(COMPONENT, "queue.size", queueSize::get);
+
+        ObjectName objectName = new ObjectName(CarbonMetricsRegistry.getObjectName(COMPONENT));
+        Assert.assertSame(metricsRegistry.counter(COMPONENT, "requests"), counter);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "requests"), 3L);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "queue.size"), 7L);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "request.latency.count"), 2L);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "request.latency.max"), 200L);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "request.latency.mean"), 150.0);
+
+        // values are read from the metrics when the MBean is queried
+        counter.increment();
+        queueSize.set(0);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "requests"), 4L);
+        Assert.assertEquals(mBeanServer.getAttribute(objectName, "queue.size"), 0L);
+
+        List<String> attributeNames = Arrays.stream(mBeanServer.getMBeanInfo(objectName).getAttributes())
+                .map(MBeanAttributeInfo::getName)
+                .collect(Collectors.toList());
+        Assert.assertTrue(attributeNames.containsAll(Arrays.asList("requests", "queue.size",
+                "request.latency.p50", "request.latency.p99", "request.latency.p999")), attributeNames.toString());
+    }
+
+    @Test(expectedExceptions = AttributeNotFoundException.class)
+    public void testUnknownAttribute() throws Exception {
+        metricsRegistry.counter(COMPONENT, "requests");
+        mBeanServer.getAttribute(new ObjectName(CarbonMetricsRegistry.getObjectName(COMPONENT)), "requests.p99");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMetricTypeMismatch() {
+        metricsRegistry.counter(COMPONENT, "mismatch");
+        metricsRegistry.histogram(COMPONENT, "mismatch");
+    }
+
+    @Test
+    public void testRemoveComponent() throws Exception {
+        metricsRegistry.counter("metrics-test-removed", "requests");
+        ObjectName objectName = new ObjectName(CarbonMetricsRegistry.getObjectName("metrics-test-removed"));
+        Assert.assertTrue(mBeanServer.isRegistered(objectName));
+
+        metricsRegistry.removeComponent("metrics-test-removed");
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+        Assert.assertEquals(metricsRegistry.counter("metrics-test-removed", "requests").getCount(), 0);
+    }
+
+    @Test
+    public void testKernelMetrics() throws Exception {
+        CarbonMetricsRegistry kernelMetrics = CarbonMetricsRegistry.getInstance();
+        Counter snapshots = kernelMetrics.counter(CarbonMetricsRegistry.CARBON_CONTEXT_COMPONENT,
+                "snapshots.captured");
+        long capturedSnapshots = snapshots.getCount();
+        PrivilegedCarbonContext.snapshot();
+        Assert.assertEquals(snapshots.getCount(), capturedSnapshots + 1);
+
+        Histogram startLatency = kernelMetrics.histogram(CarbonMetricsRegistry.RUNTIME_COMPONENT, "start.latency");
+        long startCount = startLatency.getCount();
+        RuntimeManager runtimeManager = new RuntimeManager();
+        runtimeManager.registerRuntime(new TestRuntime());
+        new CarbonRuntimeService(runtimeManager).startRuntimes();
+        Assert.assertEquals(startLatency.getCount(), startCount + 1);
+    }
+
+    /**
+     * A runtime which does nothing.
+     */
+    private static class TestRuntime implements Runtime {
+        private RuntimeState state = RuntimeState.INACTIVE;
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void start() {
+            state = RuntimeState.ACTIVE;
+        }
+
+        @Override
+        public void stop() {
+            state = RuntimeState.INACTIVE;
+        }
+
+        @Override
+        public void beginMaintenance() {
+            state = RuntimeState.MAINTENANCE;
+        }
+
+        @Override
+        public void endMaintenance() {
+            state = RuntimeState.INACTIVE;
+        }
+
+        @Override
+        public Enum<RuntimeState> getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(RuntimeState runtimeState) {
+            state = runtimeState;
+        }
+    }
+}
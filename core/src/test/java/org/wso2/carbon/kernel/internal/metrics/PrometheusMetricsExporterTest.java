@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.metrics.Counter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit testing class for org.wso2.carbon.kernel.internal.metrics.PrometheusMetricsExporter.
+ *
+ * @since 5.2.9
+ */
+public class PrometheusMetricsExporterTest {
+    private static final String COMPONENT = "exporter-test";
+    private static final String METRIC = "org_wso2_carbon_Metrics_requests{component=\"" + COMPONENT + "\"}";
+
+    private CarbonMetricsRegistry metricsRegistry;
+    private PrometheusMetricsExporter cachingExporter;
+    private PrometheusMetricsExporter exporter;
+
+    @BeforeClass
+    public void init() throws IOException {
+        metricsRegistry = new CarbonMetricsRegistry();
+        metricsRegistry.publish();
+        cachingExporter = new PrometheusMetricsExporter("127.0.0.1", 0, 60000);
+        cachingExporter.start();
+        exporter = new PrometheusMetricsExporter("127.0.0.1", 0, 0);
+        exporter.start();
+    }
+
+    @AfterClass
+    public void destroy() {
+        cachingExporter.stop();
+        exporter.stop();
+        metricsRegistry.unpublish();
+    }
+
+    @Test
+    public void testPlatformAndKernelMetrics() throws IOException {
+        Counter counter = metricsRegistry.counter(COMPONENT, "requests");
+        counter.increment(5);
+
+        HttpURLConnection connection = connect(exporter, PrometheusMetricsExporter.METRICS_PATH);
+        Assert.assertEquals(connection.getResponseCode(), 200);
+        Assert.assertEquals(connection.getContentType(), PrometheusMetricsExporter.CONTENT_TYPE);
+        String metrics = read(connection);
+        Assert.assertTrue(metrics.contains("# TYPE java_lang_Threading_ThreadCount untyped\n"), metrics);
+        Assert.assertTrue(metrics.contains("java_lang_Memory_HeapMemoryUsage_used "), metrics);
+        Assert.assertTrue(metrics.contains(METRIC + " 5\n"), metrics);
+
+        counter.increment();
+        Assert.assertTrue(read(connect(exporter, PrometheusMetricsExporter.METRICS_PATH)).contains(METRIC + " 6\n"));
+    }
+
+    @Test
+    public void testCachedMetrics() throws IOException {
+        Counter counter = metricsRegistry.counter(COMPONENT, "cached.requests");
+        String metric = METRIC.replace("requests", "cached_requests");
+        Assert.assertTrue(read(connect(cachingExporter, "/metrics?name=x")).contains(metric + " 0\n"));
+
+        // the attribute values are not read again until the cache timeout elapses
+        counter.increment();
+        Assert.assertTrue(read(connect(cachingExporter, PrometheusMetricsExporter.METRICS_PATH))
+                .contains(metric + " 0\n"));
+    }
+
+    @Test
+    public void testUnknownPath() throws IOException {
+        Assert.assertEquals(connect(exporter, "/").getResponseCode(), 404);
+        HttpURLConnection connection = connect(exporter, PrometheusMetricsExporter.METRICS_PATH);
+        connection.setRequestMethod("DELETE");
+        Assert.assertEquals(connection.getResponseCode(), 405);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeCacheTimeout() {
+        new PrometheusMetricsExporter("127.0.0.1", 0, -1);
+    }
+
+    private static HttpURLConnection connect(PrometheusMetricsExporter exporter, String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + exporter.getPort() + path).openConnection();
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        try (InputStream inputStream = connection.getInputStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.runtime;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.context.CarbonContext;
+import org.wso2.carbon.kernel.context.PrivilegedCarbonContext;
+import org.wso2.carbon.kernel.runtime.InFlightRequestCounter;
+import org.wso2.carbon.kernel.runtime.Runtime;
+import org.wso2.carbon.kernel.runtime.RuntimeState;
+import org.wso2.carbon.kernel.runtime.exception.RuntimeServiceException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Test class to test the parallel start and stop of runtimes, and the drain of runtimes in maintenance mode, by
+ * CarbonRuntimeService, using org.wso2.carbon.kernel.internal.runtime.RuntimeLifecycleOrchestrator.
+ *
+ * @since 5.2.9
+ */
+public class RuntimeLifecycleOrchestratorTest {
+
+    @Test
+    public void testParallelStart() throws RuntimeServiceException {
+        //  each runtime completes its start only once all the runtimes are starting
+        CountDownLatch latch = new CountDownLatch(3);
+        List<String> events = new CopyOnWriteArrayList<>();
+        CarbonRuntimeService runtimeService = createRuntimeService(
+                new TestRuntime("a", events, latch), new TestRuntime("b", events, latch),
+                new TestRuntime("c", events, latch));
+
+        runtimeService.startRuntimes();
+        Assert.assertEquals(new HashSet<>(events), new HashSet<>(Arrays.asList("start:a", "start:b", "start:c")));
+        Map<String, Long> latencies = runtimeService.getRuntimeLatencies();
+        Assert.assertTrue(latencies.keySet().containsAll(Arrays.asList("a.init", "a.start", "c.start")));
+    }
+
+    @Test
+    public void testCarbonContextPropagation() throws RuntimeServiceException {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CarbonRuntimeService runtimeService = createRuntimeService(new ContextRuntime("a", events),
+                new ContextRuntime("b", events, "a"), new ContextRuntime("c", events));
+
+        PrivilegedCarbonContext.getCurrentContext().setProperty(ContextRuntime.PROPERTY_KEY, "caller");
+        try {
+            runtimeService.startRuntimes();
+        } finally {
+            PrivilegedCarbonContext.destroyCurrentContext();
+        }
+        Assert.assertEquals(new HashSet<>(events), new HashSet<>(Arrays.asList("start:a:caller", "start:b:caller",
+                "start:c:caller")));
+    }
+
+    @Test
+    public void testRegistrationDuringStart() throws RuntimeServiceException {
+        List<String> events = new CopyOnWriteArrayList<>();
+        RuntimeManager runtimeManager = new RuntimeManager();
+        TestRuntime late = new TestRuntime("late", events, null);
+        TestRuntime registering = new TestRuntime("a", events, null) {
+            @Override
+            public void start() throws RuntimeServiceException {
+                runtimeManager.registerRuntime(late);
+                super.start();
+            }
+        };
+        runtimeManager.registerRuntime(registering);
+        runtimeManager.registerRuntime(new TestRuntime("b", events, null, "a"));
+        runtimeManager.registerRuntime(new TestRuntime("c", events, null));
+
+        //  the runtime registered meanwhile is not part of the snapshot being started
+        CarbonRuntimeService runtimeService = new CarbonRuntimeService(runtimeManager);
+        runtimeService.startRuntimes();
+        Assert.assertEquals(new HashSet<>(events), new HashSet<>(Arrays.asList("start:a", "start:b", "start:c")));
+        Assert.assertEquals(late.getState(), RuntimeState.INACTIVE);
+
+        runtimeService.stopRuntimes();
+        Assert.assertTrue(events.containsAll(Arrays.asList("stop:a", "stop:b", "stop:c", "stop:late")));
+    }
+
+    @Test
+    public void testDependencyOrder() throws RuntimeServiceException {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CarbonRuntimeService runtimeService = createRuntimeService(
+                new TestRuntime("c", events, null, "b"), new TestRuntime("b", events, null, "a"),
+                new TestRuntime("a", events, null, "not-registered"));
+
+        runtimeService.startRuntimes();
+        runtimeService.stopRuntimes();
+        Assert.assertEquals(events, Arrays.asList("start:a", "start:b", "start:c", "stop:c", "stop:b", "stop:a"));
+        Assert.assertTrue(runtimeService.getRuntimeLatencies().containsKey("a.stop"));
+    }
+
+    @Test
+    public void testFailedDependency() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        TestRuntime failing = new TestRuntime("a", events, null);
+        failing.failure = new RuntimeServiceException("Failed to start a");
+        TestRuntime dependent = new TestRuntime("b", events, null, "a");
+        TestRuntime independent = new TestRuntime("c", events, null);
+        CarbonRuntimeService runtimeService = createRuntimeService(failing, dependent, independent);
+
+        try {
+            runtimeService.startRuntimes();
+            Assert.fail("Runtime failure was not reported");
+        } catch (RuntimeServiceException e) {
+            Assert.assertSame(e, failing.failure);
+        }
+        Assert.assertEquals(dependent.getState(), RuntimeState.INACTIVE);
+        Assert.assertEquals(independent.getState(), RuntimeState.ACTIVE);
+    }
+
+    @Test(expectedExceptions = RuntimeServiceException.class,
+            expectedExceptionsMessageRegExp = "Cyclic dependencies between runtimes.*")
+    public void testCyclicDependencies() throws RuntimeServiceException {
+        List<String> events = new CopyOnWriteArrayList<>();
+        createRuntimeService(new TestRuntime("a", events, null, "b"), new TestRuntime("b", events, null, "a"),
+                new TestRuntime("c", events, null)).startRuntimes();
+    }
+
+    @Test
+    public void testDrain() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        TestRuntime runtime1 = new TestRuntime("a", events, null);
+        TestRuntime runtime2 = new TestRuntime("b", events, null);
+        CarbonRuntimeService runtimeService = createRuntimeService(runtime1, runtime2);
+        runtime1.inFlightRequests.increment();
+        runtime1.inFlightRequests.increment();
+        runtime2.inFlightRequests.increment();
+
+        CompletableFuture<Void> drained = runtimeService.beginMaintenance(10, TimeUnit.SECONDS);
+        Assert.assertEquals(runtime1.getState(), RuntimeState.MAINTENANCE);
+        Assert.assertEquals(runtimeService.getInFlightRequestCounts().get("a"), Long.valueOf(2));
+        runtime1.inFlightRequests.decrement();
+        runtime2.inFlightRequests.decrement();
+        Assert.assertFalse(drained.isDone());
+
+        runtime1.inFlightRequests.decrement();
+        drained.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(runtimeService.getInFlightRequestCounts().get("a"), Long.valueOf(0));
+        runtimeService.endMaintenance();
+        Assert.assertTrue(runtimeService.beginMaintenance(0));
+    }
+
+    @Test
+    public void testDrainTimeout() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        TestRuntime runtime = new TestRuntime("a", events, null);
+        CarbonRuntimeService runtimeService = createRuntimeService(runtime);
+        runtime.inFlightRequests.increment();
+
+        try {
+            runtimeService.beginMaintenance(100, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+            Assert.fail("Drain did not time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            Assert.assertTrue(e.getCause().getMessage().contains("{a=1}"), e.getCause().getMessage());
+        }
+        try {
+            //  the drain of the runtime is cancelled by the thread which times out, which may be after get returns
+            runtime.lastDrain.get(10, TimeUnit.SECONDS);
+            Assert.fail("Drain of the runtime was completed while a request is in flight");
+        } catch (CancellationException e) {
+            Assert.assertTrue(runtime.lastDrain.isCancelled());
+        }
+        Assert.assertFalse(runtimeService.beginMaintenance(100));
+    }
+
+    private static CarbonRuntimeService createRuntimeService(Runtime... runtimes) {
+        RuntimeManager runtimeManager = new RuntimeManager();
+        Arrays.stream(runtimes).forEach(runtimeManager::registerRuntime);
+        return new CarbonRuntimeService(runtimeManager);
+    }
+
+    /**
+     * A runtime which records the carbon context property it is started with.
+     */
+    private static class ContextRuntime extends TestRuntime {
+        private static final String PROPERTY_KEY = "runtime.test.property";
+
+        ContextRuntime(String name, List<String> events, String... dependencies) {
+            super(name, events, null, dependencies);
+        }
+
+        @Override
+        public void start() {
+            getEvents().add("start:" + getName() + ":" + CarbonContext.getCurrentContext().getProperty(PROPERTY_KEY));
+        }
+    }
+
+    /**
+     * A runtime which records its start and stop, and counts its requests in flight.
+     */
+    private static class TestRuntime implements Runtime {
+        private final String name;
+        private final Set<String> dependencies;
+        private final List<String> events;
+        private final CountDownLatch latch;
+        private volatile RuntimeState state = RuntimeState.INACTIVE;
+        private RuntimeServiceException failure;
+        private final InFlightRequestCounter inFlightRequests = new InFlightRequestCounter();
+        private volatile CompletableFuture<Void> lastDrain;
+
+        TestRuntime(String name, List<String> events, CountDownLatch latch, String... dependencies) {
+            this.name = name;
+            this.events = events;
+            this.latch = latch;
+            this.dependencies = new HashSet<>(Arrays.asList(dependencies));
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void start() throws RuntimeServiceException {
+            if (failure != null) {
+                throw failure;
+            }
+            if (latch != null) {
+                latch.countDown();
+                try {
+                    Assert.assertTrue(latch.await(10, TimeUnit.SECONDS), "Runtimes were not started in parallel");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add("start:" + name);
+            state = RuntimeState.ACTIVE;
+        }
+
+        @Override
+        public void stop() {
+            events.add("stop:" + name);
+            state = RuntimeState.INACTIVE;
+        }
+
+        @Override
+        public void beginMaintenance() {
+            state = RuntimeState.MAINTENANCE;
+        }
+
+        @Override
+        public void endMaintenance() {
+            state = RuntimeState.INACTIVE;
+        }
+
+        @Override
+        public Enum<RuntimeState> getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(RuntimeState runtimeState) {
+            this.state = runtimeState;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        List<String> getEvents() {
+            return events;
+        }
+
+        @Override
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public long getInFlightRequestCount() {
+            return inFlightRequests.get();
+        }
+
+        @Override
+        public CompletableFuture<Void> drain() {
+            lastDrain = inFlightRequests.whenDrained();
+            return lastDrain;
+        }
+    }
+}
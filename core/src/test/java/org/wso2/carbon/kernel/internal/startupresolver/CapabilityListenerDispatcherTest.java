@@ -0,0 +1,228 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.CapabilityListenerDispatcher.
+ * <p>
+ * The startup time benchmark builds a synthetic graph of 200 startup components arranged in waves. Each component
+ * requires the services registered by all the components of the previous wave. The graph is resolved once with the
+ * polling timer used before the dispatcher was introduced and once with the dispatcher. The dispatcher must notify
+ * every wave, in order, without any timer tick. The time taken by both is logged for comparison only, as it depends
+ * on the load of the machine running the tests.
+ *
+ * @since 5.2.9
+ */
+public class CapabilityListenerDispatcherTest {
+    private static final Logger logger = LoggerFactory.getLogger(CapabilityListenerDispatcherTest.class);
+
+    private static final int WAVE_COUNT = 20;
+    private static final int COMPONENTS_PER_WAVE = 10;
+    private static final long POLLING_PERIOD = 20;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @Test
+    public void testNotifyOnCapabilityUpdate() throws Exception {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        Bundle bundle = createBundle();
+        CountDownLatch notified = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+
+        StartupComponent startupComponent = new StartupComponent("dispatcher-test-component", bundle);
+        startupComponent.addRequiredService(Runnable.class.getName());
+        startupComponentManager.addStartupComponent(startupComponent);
+        startupComponentManager.addExpectedCapability(new OSGiServiceCapability(Runnable.class.getName(),
+                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED, bundle, true));
+        startupComponentManager.addRequiredCapabilityListener(notified::countDown, "dispatcher-test-component",
+                bundle);
+
+        CapabilityListenerDispatcher dispatcher = startDispatcher(startupComponentManager, completed::countDown);
+        try {
+            startupComponentManager.markAllComponentsUpdated();
+            Assert.assertFalse(notified.await(200, TimeUnit.MILLISECONDS));
+
+            StartupServiceCache.getInstance().update("dispatcher-test-component", Runnable.class);
+            Assert.assertTrue(notified.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            stopDispatcher(dispatcher);
+        }
+    }
+
+    @Test
+    public void testStartupTimeWithSyntheticComponentGraph() throws Exception {
+        long pollingTime = resolveWithPollingTimer("polling");
+
+        AtomicIntegerArray notifiedComponents = new AtomicIntegerArray(WAVE_COUNT);
+        AtomicBoolean notifiedOutOfOrder = new AtomicBoolean();
+        long dispatcherTime = resolveWithDispatcher("dispatcher", notifiedComponents, notifiedOutOfOrder);
+        for (int wave = 0; wave < WAVE_COUNT; wave++) {
+            Assert.assertEquals(notifiedComponents.get(wave), COMPONENTS_PER_WAVE, "Components of wave " + wave +
+                    " were not notified by the dispatcher");
+        }
+        Assert.assertFalse(notifiedOutOfOrder.get(), "A wave was notified before the previous wave completed");
+
+        logger.info("Resolved {} startup components in {} waves. Polling timer: {} ms, dispatcher: {} ms",
+                WAVE_COUNT * COMPONENTS_PER_WAVE, WAVE_COUNT, pollingTime, dispatcherTime);
+    }
+
+    private long resolveWithPollingTimer(String prefix) throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        StartupComponentManager startupComponentManager = createComponentGraph(prefix, completed,
+                new AtomicIntegerArray(WAVE_COUNT), new AtomicBoolean());
+        StartupServiceCache.getInstance().setServiceUpdateListener(startupComponentManager::updateAvailableService);
+        Timer timer = new Timer();
+
+        long startTime = System.nanoTime();
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                synchronized (StartupComponentManager.class) {
+                    startupComponentManager.notifySatisfiableComponents();
+                }
+            }
+        }, 0, POLLING_PERIOD);
+
+        try {
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        } finally {
+            timer.cancel();
+            StartupServiceCache.getInstance().setServiceUpdateListener(null);
+        }
+    }
+
+    /**
+     * Resolves the component graph with the dispatcher alone. No timer is scheduled, hence each wave is notified
+     * only through the service updates of the previous wave.
+     */
+    private long resolveWithDispatcher(String prefix, AtomicIntegerArray notifiedComponents,
+                                       AtomicBoolean notifiedOutOfOrder) throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        StartupComponentManager startupComponentManager = createComponentGraph(prefix, completed,
+                notifiedComponents, notifiedOutOfOrder);
+        CapabilityListenerDispatcher dispatcher = startDispatcher(startupComponentManager, () -> {
+        });
+
+        long startTime = System.nanoTime();
+        try {
+            startupComponentManager.markAllComponentsUpdated();
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        } finally {
+            stopDispatcher(dispatcher);
+        }
+    }
+
+    /**
+     * Creates WAVE_COUNT x COMPONENTS_PER_WAVE startup components. Components of a wave require one service from
+     * each component of the previous wave, which is registered when the component of the previous wave is notified.
+     * The notified components are counted by wave, and a component notified before all the components of the
+     * previous wave is flagged.
+     */
+    private StartupComponentManager createComponentGraph(String prefix, CountDownLatch completed,
+                                                         AtomicIntegerArray notifiedComponents,
+                                                         AtomicBoolean notifiedOutOfOrder) {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        String serviceName = Runnable.class.getName();
+        Bundle[] bundles = new Bundle[COMPONENTS_PER_WAVE];
+        for (int i = 0; i < COMPONENTS_PER_WAVE; i++) {
+            bundles[i] = createBundle();
+        }
+
+        CountDownLatch lastWave = new CountDownLatch(COMPONENTS_PER_WAVE);
+        for (int wave = 0; wave < WAVE_COUNT; wave++) {
+            for (int i = 0; i < COMPONENTS_PER_WAVE; i++) {
+                String componentName = getComponentName(prefix, wave, i);
+                StartupComponent startupComponent = new StartupComponent(componentName, bundles[i]);
+                startupComponent.addRequiredService(serviceName);
+                startupComponentManager.addStartupComponent(startupComponent);
+
+                if (wave > 0) {
+                    for (int provider = 0; provider < COMPONENTS_PER_WAVE; provider++) {
+                        startupComponent.addExpectedCapability(new OSGiServiceCapability(serviceName,
+                                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED,
+                                bundles[provider], true));
+                    }
+                }
+
+                int currentWave = wave;
+                int nextWave = wave + 1;
+                startupComponentManager.addRequiredCapabilityListener(() -> {
+                    if (currentWave > 0 && notifiedComponents.get(currentWave - 1) < COMPONENTS_PER_WAVE) {
+                        notifiedOutOfOrder.set(true);
+                    }
+                    notifiedComponents.incrementAndGet(currentWave);
+                    if (nextWave == WAVE_COUNT) {
+                        lastWave.countDown();
+                        if (lastWave.getCount() == 0) {
+                            completed.countDown();
+                        }
+                        return;
+                    }
+
+                    // Simulates the consumption of the service registered by this component in the next wave.
+                    for (int consumer = 0; consumer < COMPONENTS_PER_WAVE; consumer++) {
+                        StartupServiceCache.getInstance().update(getComponentName(prefix, nextWave, consumer),
+                                Runnable.class);
+                    }
+                }, componentName, bundles[i]);
+            }
+        }
+        return startupComponentManager;
+    }
+
+    private CapabilityListenerDispatcher startDispatcher(StartupComponentManager startupComponentManager,
+                                                         Runnable completionHandler) {
+        CapabilityListenerDispatcher dispatcher = new CapabilityListenerDispatcher(startupComponentManager,
+                completionHandler);
+        startupComponentManager.setComponentUpdateHandler(dispatcher::requestCheck);
+        StartupServiceCache.getInstance().setServiceUpdateListener(startupComponentManager::updateAvailableService);
+        return dispatcher;
+    }
+
+    private void stopDispatcher(CapabilityListenerDispatcher dispatcher) {
+        StartupServiceCache.getInstance().setServiceUpdateListener(null);
+        dispatcher.close();
+    }
+
+    private static String getComponentName(String prefix, int wave, int index) {
+        return prefix + "-component-" + wave + "-" + index;
+    }
+
+    private static Bundle createBundle() {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElement;
+import org.wso2.carbon.kernel.startupresolver.manifest.ManifestElementParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.ManifestElementCache.
+ *
+ * @since 5.2.9
+ */
+public class ManifestElementCacheTest {
+
+    private static final String CARBON_COMPONENT_HEADER_VALUE = "startup.listener;" +
+            "componentName=\"carbon-sample-transport-mgt\";" +
+            "requiredService=\"org.wso2.carbon.sample.transport.mgt.Transport\";effective:=active," +
+            "osgi.service;objectClass=\"org.wso2.carbon.sample.transport.mgt.Transport\";serviceCount=\"2\"";
+
+    private Path cacheDirectory;
+    private File cacheFile;
+
+    @BeforeMethod
+    public void createCacheDirectory() throws IOException {
+        cacheDirectory = Files.createTempDirectory("manifest-element-cache");
+        cacheFile = cacheDirectory.resolve("data").resolve("manifest-headers.cache").toFile();
+    }
+
+    @AfterMethod
+    public void deleteCacheDirectory() throws IOException {
+        Files.walk(cacheDirectory)
+                .sorted(Collections.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testRestoreUnmodifiedBundles() {
+        Bundle carbonComponentBundle = createBundle(1, 1000);
+        Bundle plainBundle = createBundle(2, 1000);
+        AtomicInteger parseCount = new AtomicInteger();
+        Function<Bundle, List<ManifestElement>> headerParser = bundle -> {
+            parseCount.incrementAndGet();
+            return bundle == carbonComponentBundle ? parse(bundle) : Collections.emptyList();
+        };
+
+        ManifestElementCache coldCache = new ManifestElementCache(cacheFile);
+        coldCache.load();
+        List<ManifestElement> parsedElements = coldCache.getManifestElements(carbonComponentBundle, headerParser);
+        coldCache.getManifestElements(plainBundle, headerParser);
+        coldCache.store();
+        Assert.assertEquals(parseCount.get(), 2);
+        Assert.assertTrue(cacheFile.exists());
+
+        ManifestElementCache warmCache = new ManifestElementCache(cacheFile);
+        warmCache.load();
+        List<ManifestElement> cachedElements = warmCache.getManifestElements(carbonComponentBundle, headerParser);
+        Assert.assertTrue(warmCache.getManifestElements(plainBundle, headerParser).isEmpty());
+        Assert.assertEquals(parseCount.get(), 2);
+
+        Assert.assertEquals(cachedElements.size(), parsedElements.size());
+        for (int i = 0; i < parsedElements.size(); i++) {
+            ManifestElement parsedElement = parsedElements.get(i);
+            ManifestElement cachedElement = cachedElements.get(i);
+            Assert.assertEquals(cachedElement.getValue(), parsedElement.getValue());
+            Assert.assertEquals(cachedElement.toString(), parsedElement.toString());
+            Assert.assertSame(cachedElement.getBundle(), carbonComponentBundle);
+        }
+        Assert.assertEquals(cachedElements.get(0).getAttribute("componentName"), "carbon-sample-transport-mgt");
+        Assert.assertEquals(cachedElements.get(0).getDirectives("effective")[0], "active");
+        Assert.assertEquals(cachedElements.get(1).getAttribute("serviceCount"), "2");
+    }
+
+    @Test
+    public void testReparseModifiedBundles() {
+        AtomicInteger parseCount = new AtomicInteger();
+        Function<Bundle, List<ManifestElement>> headerParser = bundle -> {
+            parseCount.incrementAndGet();
+            return parse(bundle);
+        };
+
+        ManifestElementCache coldCache = new ManifestElementCache(cacheFile);
+        coldCache.load();
+        coldCache.getManifestElements(createBundle(1, 1000), headerParser);
+        coldCache.getManifestElements(createBundle(2, 1000), headerParser);
+        coldCache.store();
+
+        ManifestElementCache warmCache = new ManifestElementCache(cacheFile);
+        warmCache.load();
+        warmCache.getManifestElements(createBundle(1, 2000), headerParser);
+        warmCache.getManifestElements(createBundle(3, 1000), headerParser);
+        warmCache.store();
+        Assert.assertEquals(parseCount.get(), 4);
+
+        // The updated and the newly installed bundles are restored, the uninstalled bundle is dropped.
+        ManifestElementCache nextCache = new ManifestElementCache(cacheFile);
+        nextCache.load();
+        nextCache.getManifestElements(createBundle(1, 2000), headerParser);
+        nextCache.getManifestElements(createBundle(3, 1000), headerParser);
+        Assert.assertEquals(parseCount.get(), 4);
+        nextCache.getManifestElements(createBundle(2, 1000), headerParser);
+        Assert.assertEquals(parseCount.get(), 5);
+    }
+
+    @Test
+    public void testIgnoreCorruptedCacheFile() throws IOException {
+        Files.createDirectories(cacheFile.toPath().getParent());
+        Files.write(cacheFile.toPath(), new byte[]{0, 0, 0, 1, 0, 0, 0, 5, 1});
+        AtomicInteger parseCount = new AtomicInteger();
+
+        ManifestElementCache cache = new ManifestElementCache(cacheFile);
+        cache.load();
+        List<ManifestElement> manifestElements = cache.getManifestElements(createBundle(1, 1000), bundle -> {
+            parseCount.incrementAndGet();
+            return parse(bundle);
+        });
+        Assert.assertEquals(parseCount.get(), 1);
+        Assert.assertEquals(manifestElements.size(), 2);
+    }
+
+    private static List<ManifestElement> parse(Bundle bundle) {
+        try {
+            return ManifestElement.parseHeader(StartupResolverConstants.CARBON_COMPONENT_HEADER,
+                    CARBON_COMPONENT_HEADER_VALUE, bundle);
+        } catch (ManifestElementParserException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Bundle createBundle(long bundleId, long lastModified) {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getBundleId()).andReturn(bundleId).anyTimes();
+        EasyMock.expect(bundle.getLastModified()).andReturn(lastModified).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the throughput of a MultiCounter shared by concurrent threads, as updated by the capability
+ * trackers during a service registration burst. The keys are spread over the given number of keys, of which a single
+ * key is the most contended case. The main method runs the benchmark with 1 to 64 threads; the {@link Threads}
+ * annotation only applies when the benchmark is run otherwise. It is not part of the unit tests, and is run using
+ * the main method from the test classpath of this module, such as by
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.kernel.internal.startupresolver.MultiCounterBenchmark}.
+ *
+ * @since 5.2.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class MultiCounterBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"1", "16", "256"})
+    private int keyCount;
+
+    private MultiCounter<String> multiCounter;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        multiCounter = new MultiCounter<>();
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+            multiCounter.incrementAndGet(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public int incrementAndDecrement(ThreadState threadState) {
+        String key = keys[threadState.nextIndex(keyCount)];
+        multiCounter.incrementAndGet(key);
+        return multiCounter.decrementAndGet(key);
+    }
+
+    @Benchmark
+    public int get(ThreadState threadState) {
+        return multiCounter.get(keys[threadState.nextIndex(keyCount)]);
+    }
+
+    /**
+     * The key index of a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index = (int) Thread.currentThread().getId();
+
+        private int nextIndex(int keyCount) {
+            index = (index + 1) % keyCount;
+            return index;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threadCount : THREAD_COUNTS) {
+            new Runner(new OptionsBuilder()
+                    .include(MultiCounterBenchmark.class.getSimpleName())
+                    .threads(threadCount)
+                    .build())
+                    .run();
+        }
+    }
+}
@@ -17,17 +17,29 @@ package org.wso2.carbon.kernel.internal.startupresolver;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.MultiCounter.
+ * <p>
+ * The throughput of concurrent updates is measured by {@link MultiCounterBenchmark}.
  *
  * @since 5.0.0
  */
 public class MultiCounterTest {
+    private static final int STRESS_TEST_KEY_COUNT = 16;
+    private static final int STRESS_TEST_OPERATIONS_PER_THREAD = 200000;
 
     private MultiCounter<String> multiCounter;
     private int randomInt;
@@ -85,4 +97,64 @@ public class MultiCounterTest {
     public void testDecrementAndGetWrongKey() throws Exception {
         Assert.assertEquals(multiCounter.decrementAndGet("wrong-key"), -1);
     }
+
+    @Test(dependsOnMethods = "testDecrementAndGetWrongKey")
+    public void testKeysWithNonZeroCount() throws Exception {
+        Set<String> nonZeroKeys = new HashSet<>(keySet);
+        nonZeroKeys.remove("key-5");
+        nonZeroKeys.add("wrong-key");
+        Assert.assertEquals(new HashSet<>(multiCounter.getKeysWithNonZeroCount()), nonZeroKeys);
+
+        Set<String> iteratedKeys = new HashSet<>();
+        multiCounter.forEachKeyWithNonZeroCount(iteratedKeys::add);
+        Assert.assertEquals(iteratedKeys, nonZeroKeys);
+    }
+
+    @DataProvider(name = "threadCounts")
+    public Object[][] threadCounts() {
+        return new Object[][]{{1}, {4}, {16}, {64}};
+    }
+
+    /**
+     * Each thread increments every key twice and decrements it once per round, so each key ends up with a count
+     * equal to the total number of rounds.
+     */
+    @Test(dataProvider = "threadCounts")
+    public void testConcurrentUpdates(int threadCount) throws Exception {
+        MultiCounter<String> counter = new MultiCounter<>();
+        int roundsPerThread = STRESS_TEST_OPERATIONS_PER_THREAD / (STRESS_TEST_KEY_COUNT * 3);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                int offset = i;
+                futures.add(executorService.submit(() -> {
+                    startSignal.await();
+                    for (int round = 0; round < roundsPerThread; round++) {
+                        for (int k = 0; k < STRESS_TEST_KEY_COUNT; k++) {
+                            String key = "key-" + ((k + offset) % STRESS_TEST_KEY_COUNT);
+                            counter.incrementAndGet(key);
+                            counter.decrementAndGet(key);
+                            counter.incrementAndGet(key);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            Assert.assertEquals(counter.getAllKeys().size(), STRESS_TEST_KEY_COUNT);
+            for (int k = 0; k < STRESS_TEST_KEY_COUNT; k++) {
+                Assert.assertEquals(counter.get("key-" + k), threadCount * roundsPerThread);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.StartupTimeline;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.CapabilityProviderCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.StartupComponentGraph.
+ *
+ * @since 5.2.9
+ */
+public class StartupComponentGraphTest {
+
+    private static final String DEPLOYER = "org.wso2.carbon.deployment.engine.Deployer";
+    private static final String TRANSPORT = "org.wso2.carbon.kernel.transports.CarbonTransport";
+    private static final String RUNTIME = "org.wso2.carbon.kernel.runtime.Runtime";
+
+    @Test
+    public void testDependenciesAndCycles() {
+        Bundle deploymentBundle = createBundle("deployment");
+        Bundle transportBundle = createBundle("transport");
+        Bundle runtimeBundle = createBundle("runtime");
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        addStartupComponent(startupComponentManager, "deployment-engine", deploymentBundle, DEPLOYER);
+        addStartupComponent(startupComponentManager, "transport-mgt", transportBundle, TRANSPORT);
+        addStartupComponent(startupComponentManager, "runtime-mgt", runtimeBundle, RUNTIME);
+
+        // Transports are registered by the deployment engine, runtimes by the transport manager.
+        addExpectedCapability(startupComponentManager, TRANSPORT, deploymentBundle);
+        addExpectedCapability(startupComponentManager, RUNTIME, transportBundle);
+        addExpectedCapability(startupComponentManager, RUNTIME, runtimeBundle);
+        startupComponentManager.addExpectedOrAvailableCapabilityProvider(new CapabilityProviderCapability(
+                "org.wso2.carbon.kernel.startupresolver.CapabilityProvider", Capability.CapabilityType.OSGi_SERVICE,
+                Capability.CapabilityState.EXPECTED, DEPLOYER, runtimeBundle));
+
+        StartupComponentGraph graph = StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true));
+
+        Assert.assertEquals(graph.getComponentCount(), 3);
+        Assert.assertEquals(graph.getDependencies("transport-mgt"), Collections.singleton("deployment-engine"));
+        Assert.assertEquals(graph.getDependencies("runtime-mgt"), Collections.singleton("transport-mgt"));
+        Assert.assertEquals(graph.getDependencies("deployment-engine"), Collections.singleton("runtime-mgt"));
+        Assert.assertEquals(graph.getMissingProviders().length, 0);
+        Assert.assertEquals(graph.getCycles().length, 1);
+        Assert.assertTrue(graph.getCycles()[0].contains("deployment-engine"));
+    }
+
+    @Test
+    public void testCriticalPathFollowsActivationTimes() throws InterruptedException {
+        Bundle kernelBundle = createBundle("kernel");
+        Bundle deploymentBundle = createBundle("deployment");
+        Bundle transportBundle = createBundle("transport");
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        addStartupComponent(startupComponentManager, "kernel", kernelBundle, "org.wso2.carbon.kernel.Kernel");
+        addStartupComponent(startupComponentManager, "deployment-engine", deploymentBundle, DEPLOYER);
+        addStartupComponent(startupComponentManager, "transport-mgt", transportBundle, TRANSPORT);
+        addExpectedCapability(startupComponentManager, "org.wso2.carbon.kernel.Kernel", createBundle("config"));
+        addExpectedCapability(startupComponentManager, DEPLOYER, kernelBundle);
+        addExpectedCapability(startupComponentManager, TRANSPORT, kernelBundle);
+        addExpectedCapability(startupComponentManager, TRANSPORT, deploymentBundle);
+
+        StartupComponentGraph graph = StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true));
+        Assert.assertEquals(graph.getCycles().length, 0);
+        Assert.assertEquals(graph.getPendingComponentCount(), 3);
+        // Without activation timestamps the longest chain of dependencies is the critical path.
+        Assert.assertEquals(graph.getCriticalPathComponentNames(),
+                Arrays.asList("kernel", "deployment-engine", "transport-mgt"));
+
+        activate(graph, "kernel");
+        activate(graph, "transport-mgt");
+        activate(graph, "deployment-engine");
+        Assert.assertEquals(graph.getPendingComponentCount(), 0);
+        Assert.assertEquals(graph.getCriticalPathComponentNames(), Arrays.asList("kernel", "deployment-engine"));
+        Assert.assertEquals(graph.getCriticalPath().length, 2);
+        Assert.assertTrue(graph.getCriticalPathDuration() >= 0);
+
+        String json = graph.dumpAsJson();
+        Assert.assertTrue(json.contains("{\"name\": \"transport-mgt\", \"bundle\": \"transport:1.0.0\", " +
+                "\"depth\": 3, \"criticalPath\": false, \"dependencies\": [\"kernel\", \"deployment-engine\"]"), json);
+        String dot = graph.dumpAsDot();
+        Assert.assertTrue(dot.contains("\"deployment-engine\" -> \"kernel\" [label=\"" + DEPLOYER + "\", color=red];"),
+                dot);
+        Assert.assertTrue(dot.contains("\"transport-mgt\" -> \"kernel\" [label=\"" + TRANSPORT + "\"];"), dot);
+
+        StartupTimeline startupTimeline = StartupTimeline.getInstance();
+        graph.recordListenerPhases(startupTimeline);
+        Assert.assertTrue(startupTimeline.getPhaseDuration("listener.wait.kernel") >= 0);
+        Assert.assertTrue(startupTimeline.getPhaseDuration("listener.callback.transport-mgt") >= 5);
+    }
+
+    @Test
+    public void testDependenciesOfMultiComponentBundle() {
+        Bundle deploymentBundle = createBundle("deployment");
+        Bundle runtimeBundle = createBundle("runtime");
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        addStartupComponent(startupComponentManager, "deployment-engine", deploymentBundle, TRANSPORT);
+        addStartupComponent(startupComponentManager, "transport-mgt", deploymentBundle, DEPLOYER);
+        addStartupComponent(startupComponentManager, "runtime-mgt", runtimeBundle, RUNTIME);
+
+        // Transports are registered by the transport manager, runtimes by the deployment engine. The provider of
+        // the deployers is not named, hence it cannot be told apart from the other components of its bundle.
+        addExpectedCapability(startupComponentManager, TRANSPORT, deploymentBundle, "transport-mgt");
+        addExpectedCapability(startupComponentManager, RUNTIME, deploymentBundle, "deployment-engine");
+        addExpectedCapability(startupComponentManager, DEPLOYER, deploymentBundle, null);
+
+        StartupComponentGraph graph = StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true));
+
+        Assert.assertEquals(graph.getDependencies("deployment-engine"), Collections.singleton("transport-mgt"));
+        Assert.assertEquals(graph.getDependencies("transport-mgt"), Collections.emptySet());
+        Assert.assertEquals(graph.getDependencies("runtime-mgt"), Collections.singleton("deployment-engine"));
+        Assert.assertEquals(graph.getCycles().length, 0);
+    }
+
+    @Test
+    public void testMissingProviders() {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        addStartupComponent(startupComponentManager, "transport-mgt", createBundle("transport"), TRANSPORT);
+
+        StartupComponentGraph graph = StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true));
+        Assert.assertEquals(graph.getMissingProviders().length, 1);
+        Assert.assertTrue(graph.getMissingProviders()[0].contains("transport-mgt"));
+        Assert.assertTrue(graph.getMissingProviders()[0].contains(TRANSPORT));
+    }
+
+    private static void activate(StartupComponentGraph graph, String componentName) throws InterruptedException {
+        graph.listenerRegistered(componentName);
+        graph.componentNotified(componentName);
+        Thread.sleep(5);
+        graph.componentActivated(componentName);
+    }
+
+    private static void addStartupComponent(StartupComponentManager startupComponentManager, String componentName,
+                                            Bundle bundle, String requiredService) {
+        StartupComponent startupComponent = new StartupComponent(componentName, bundle);
+        startupComponent.addRequiredService(requiredService);
+        startupComponentManager.addStartupComponent(startupComponent);
+    }
+
+    private static void addExpectedCapability(StartupComponentManager startupComponentManager, String capabilityName,
+                                              Bundle bundle) {
+        addExpectedCapability(startupComponentManager, capabilityName, bundle, null);
+    }
+
+    private static void addExpectedCapability(StartupComponentManager startupComponentManager, String capabilityName,
+                                              Bundle bundle, String providerComponentName) {
+        OSGiServiceCapability capability = new OSGiServiceCapability(capabilityName,
+                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED, bundle, true);
+        capability.setProviderComponentName(providerComponentName);
+        startupComponentManager.addExpectedCapability(capability);
+    }
+
+    private static Bundle createBundle(String symbolicName) {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getSymbolicName()).andReturn(symbolicName).anyTimes();
+        EasyMock.expect(bundle.getVersion()).andReturn(new Version("1.0.0")).anyTimes();
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the capability lookup of the StartupComponentManager, which compares the linear scan over all the
+ * startup components with the indexed lookup, for a service registration burst of one registration per required
+ * service. It is not part of the unit tests, and is run using the main method from the test classpath of this module,
+ * such as by
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.kernel.internal.startupresolver.StartupComponentManagerBenchmark}.
+ *
+ * @since 5.2.9
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StartupComponentManagerBenchmark {
+    @Param({"50", "500", "5000"})
+    private int componentCount;
+
+    private StartupComponentManager startupComponentManager;
+    private int serviceCount;
+
+    @Setup
+    public void setup() {
+        startupComponentManager = new StartupComponentManager();
+        serviceCount = StartupComponentTestUtils.addStartupComponents(startupComponentManager, componentCount,
+                StartupComponentTestUtils.createBundle());
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matches = 0;
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceName = StartupComponentTestUtils.getServiceName(i);
+            matches += startupComponentManager
+                    .getComponents(startupComponent -> startupComponent.isServiceRequired(serviceName)).size();
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int indexedLookup() {
+        int matches = 0;
+        for (int i = 0; i < serviceCount; i++) {
+            matches += startupComponentManager.getComponentsRequiringCapability(
+                    StartupComponentTestUtils.getServiceName(i)).size();
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StartupComponentManagerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.osgi.framework.Bundle;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.Capability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.OSGiServiceCapability;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.StartupComponentManager.
+ * <p>
+ * The performance of the capability lookup is measured by {@link StartupComponentManagerBenchmark}.
+ *
+ * @since 5.2.9
+ */
+public class StartupComponentManagerTest {
+    private static final int LISTENER_COUNT = 8;
+    private static final long SLOW_LISTENER_TIME = 100;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @Test
+    public void testGetComponentsRequiringCapability() {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        Bundle bundle = createBundle();
+
+        StartupComponent transportMgt = new StartupComponent("transport-mgt", bundle);
+        transportMgt.addRequiredService("org.wso2.carbon.kernel.transports.CarbonTransport");
+        startupComponentManager.addStartupComponent(transportMgt);
+        StartupComponent deployerMgt = new StartupComponent("deployer-mgt", bundle);
+        startupComponentManager.addStartupComponent(deployerMgt);
+
+        startupComponentManager.addRequiredOSGiServiceToComponent("deployer-mgt",
+                "org.wso2.carbon.kernel.transports.CarbonTransport");
+        startupComponentManager.addRequiredOSGiServiceToComponent("deployer-mgt",
+                "org.wso2.carbon.deployment.engine.Deployer");
+        startupComponentManager.addRequiredOSGiServiceToComponent("unknown-component",
+                "org.wso2.carbon.deployment.engine.Deployer");
+
+        List<StartupComponent> transportConsumers = startupComponentManager
+                .getComponentsRequiringCapability("org.wso2.carbon.kernel.transports.CarbonTransport");
+        Assert.assertEquals(transportConsumers.size(), 2);
+        Assert.assertTrue(transportConsumers.contains(transportMgt));
+        Assert.assertTrue(transportConsumers.contains(deployerMgt));
+
+        List<StartupComponent> deployerConsumers = startupComponentManager
+                .getComponentsRequiringCapability("org.wso2.carbon.deployment.engine.Deployer");
+        Assert.assertEquals(deployerConsumers.size(), 1);
+        Assert.assertTrue(deployerConsumers.contains(deployerMgt));
+
+        Assert.assertTrue(startupComponentManager.getComponentsRequiringCapability("unknown.Service").isEmpty());
+    }
+
+    @DataProvider(name = "componentCounts")
+    public Object[][] componentCounts() {
+        return new Object[][]{{50}, {500}, {5000}};
+    }
+
+    @Test(dataProvider = "componentCounts")
+    public void testCapabilityLookupMatchesLinearScan(int componentCount) {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        int serviceCount = StartupComponentTestUtils.addStartupComponents(startupComponentManager,
+                componentCount, createBundle());
+
+        int scanMatches = 0;
+        int indexMatches = 0;
+        for (int i = 0; i < serviceCount; i++) {
+            String serviceName = getServiceName(i);
+            List<StartupComponent> indexedComponents =
+                    startupComponentManager.getComponentsRequiringCapability(serviceName);
+            List<StartupComponent> scannedComponents = startupComponentManager
+                    .getComponents(startupComponent -> startupComponent.isServiceRequired(serviceName));
+            Assert.assertTrue(indexedComponents.containsAll(scannedComponents));
+            scanMatches += scannedComponents.size();
+            indexMatches += indexedComponents.size();
+        }
+
+        Assert.assertEquals(indexMatches, scanMatches);
+        Assert.assertEquals(indexMatches, componentCount * StartupComponentTestUtils.REQUIRED_SERVICES);
+    }
+
+    @Test
+    public void testConcurrentListenerDispatch() throws Exception {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        CountDownLatch running = new CountDownLatch(LISTENER_COUNT);
+        CountDownLatch completed = new CountDownLatch(LISTENER_COUNT);
+        for (int i = 0; i < LISTENER_COUNT; i++) {
+            Bundle bundle = createBundle();
+            addComponent(startupComponentManager, "component-" + i, bundle, getServiceName(i));
+            startupComponentManager.addRequiredCapabilityListener(() -> {
+                // Returns only once all the independent listeners are running at the same time.
+                running.countDown();
+                try {
+                    if (running.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        completed.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "component-" + i, bundle);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(LISTENER_COUNT);
+        CapabilityListenerDispatcher dispatcher = startDispatcher(startupComponentManager, executorService, 0, () -> {
+        });
+        try {
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.close();
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testDependentListenersAreNotifiedInOrder() throws Exception {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        Bundle kernelBundle = createBundle();
+        Bundle transportBundle = createBundle();
+        String transportService = "org.wso2.carbon.kernel.transports.CarbonTransport";
+        addComponent(startupComponentManager, "kernel", kernelBundle, "org.wso2.carbon.kernel.Kernel");
+        addComponent(startupComponentManager, "transport-mgt", transportBundle, transportService);
+        startupComponentManager.addExpectedCapability(new OSGiServiceCapability(transportService,
+                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED, kernelBundle, false));
+
+        AtomicBoolean kernelActivated = new AtomicBoolean(false);
+        AtomicBoolean kernelActivatedBeforeTransports = new AtomicBoolean(false);
+        CountDownLatch completed = new CountDownLatch(1);
+        startupComponentManager.addRequiredCapabilityListener(() -> {
+            // The transport is registered before this listener returns.
+            startupComponentManager.updateCapability(new OSGiServiceCapability(transportService,
+                    Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.AVAILABLE, kernelBundle,
+                    false));
+            sleep(SLOW_LISTENER_TIME);
+            kernelActivated.set(true);
+        }, "kernel", kernelBundle);
+        startupComponentManager.addRequiredCapabilityListener(() -> {
+            kernelActivatedBeforeTransports.set(kernelActivated.get());
+            completed.countDown();
+        }, "transport-mgt", transportBundle);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        CapabilityListenerDispatcher dispatcher = startDispatcher(startupComponentManager, executorService, 0, () -> {
+        });
+        try {
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertTrue(kernelActivatedBeforeTransports.get());
+        } finally {
+            dispatcher.close();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testListenerFailureAndTimeout() throws Exception {
+        StartupComponentManager startupComponentManager = new StartupComponentManager();
+        Bundle failingBundle = createBundle();
+        Bundle blockingBundle = createBundle();
+        Bundle dependentBundle = createBundle();
+        String blockingService = "org.wso2.carbon.sample.BlockingService";
+        addComponent(startupComponentManager, "failing", failingBundle, "org.wso2.carbon.sample.FailingService");
+        addComponent(startupComponentManager, "blocking", blockingBundle, "org.wso2.carbon.sample.Service");
+        addComponent(startupComponentManager, "dependent", dependentBundle, blockingService);
+        startupComponentManager.addExpectedCapability(new OSGiServiceCapability(blockingService,
+                Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.EXPECTED, blockingBundle, false));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch dependentNotified = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        startupComponentManager.addRequiredCapabilityListener(() -> {
+            throw new IllegalStateException("Listener failure");
+        }, "failing", failingBundle);
+        startupComponentManager.addRequiredCapabilityListener(() -> {
+            startupComponentManager.updateCapability(new OSGiServiceCapability(blockingService,
+                    Capability.CapabilityType.OSGi_SERVICE, Capability.CapabilityState.AVAILABLE, blockingBundle,
+                    false));
+            try {
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "blocking", blockingBundle);
+        startupComponentManager.addRequiredCapabilityListener(dependentNotified::countDown, "dependent",
+                dependentBundle);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        CapabilityListenerDispatcher dispatcher = startDispatcher(startupComponentManager, executorService, 50,
+                completed::countDown);
+        try {
+            // The dependent component waits for the blocking listener until it times out.
+            Assert.assertFalse(dependentNotified.await(200, TimeUnit.MILLISECONDS));
+            synchronized (StartupComponentManager.class) {
+                Assert.assertTrue(startupComponentManager.hasPendingComponents());
+                startupComponentManager.checkListenerTimeouts();
+            }
+            Assert.assertTrue(dependentNotified.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertTrue(completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            dispatcher.close();
+            executorService.shutdown();
+        }
+    }
+
+    private static CapabilityListenerDispatcher startDispatcher(StartupComponentManager startupComponentManager,
+                                                                ExecutorService executorService, long timeout,
+                                                                Runnable completionHandler) {
+        startupComponentManager.setStartupComponentGraph(StartupComponentGraph.build(
+                startupComponentManager.getComponents(startupComponent -> true)));
+        if (executorService != null) {
+            startupComponentManager.setListenerExecutor(executorService, timeout);
+        }
+        CapabilityListenerDispatcher dispatcher = new CapabilityListenerDispatcher(startupComponentManager,
+                completionHandler);
+        startupComponentManager.setComponentUpdateHandler(dispatcher::requestCheck);
+        startupComponentManager.markAllComponentsUpdated();
+        return dispatcher;
+    }
+
+    private static void addComponent(StartupComponentManager startupComponentManager, String componentName,
+                                     Bundle bundle, String requiredService) {
+        StartupComponent startupComponent = new StartupComponent(componentName, bundle);
+        startupComponent.addRequiredService(requiredService);
+        startupComponentManager.addStartupComponent(startupComponent);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String getServiceName(int index) {
+        return StartupComponentTestUtils.getServiceName(index);
+    }
+
+    private static Bundle createBundle() {
+        return StartupComponentTestUtils.createBundle();
+    }
+}
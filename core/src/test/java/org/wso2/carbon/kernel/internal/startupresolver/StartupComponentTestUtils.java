@@ -0,0 +1,62 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent;
+
+/**
+ * Builds the startup components shared by the unit tests and the benchmarks of the startup order resolver.
+ *
+ * @since 5.2.9
+ */
+final class StartupComponentTestUtils {
+    static final int REQUIRED_SERVICES = 3;
+    private static final int COMPONENTS_PER_SERVICE = 5;
+
+    private StartupComponentTestUtils() {
+    }
+
+    /**
+     * Adds the given number of startup components, each requiring {@link #REQUIRED_SERVICES} services, such that each
+     * service is required by {@link #COMPONENTS_PER_SERVICE} startup components.
+     *
+     * @return the number of distinct services required
+     */
+    static int addStartupComponents(StartupComponentManager startupComponentManager, int componentCount,
+                                    Bundle bundle) {
+        int serviceCount = componentCount * REQUIRED_SERVICES / COMPONENTS_PER_SERVICE;
+        for (int i = 0; i < componentCount; i++) {
+            StartupComponent startupComponent = new StartupComponent("component-" + i, bundle);
+            for (int j = 0; j < REQUIRED_SERVICES; j++) {
+                startupComponent.addRequiredService(getServiceName((i * REQUIRED_SERVICES + j) % serviceCount));
+            }
+            startupComponentManager.addStartupComponent(startupComponent);
+        }
+        return serviceCount;
+    }
+
+    static String getServiceName(int index) {
+        return "org.wso2.carbon.sample.Service" + index;
+    }
+
+    static Bundle createBundle() {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class tests the functionality of org.wso2.carbon.kernel.internal.startupresolver.StartupServiceCache.
+ *
+ * @since 5.2.9
+ */
+public class StartupServiceCacheTest {
+    private static final int THREAD_COUNT = 16;
+    private static final int UPDATES_PER_THREAD = 10000;
+
+    @Test
+    public void testUpdate() {
+        StartupServiceCache serviceCache = StartupServiceCache.getInstance();
+        Assert.assertEquals(serviceCache.getServiceCount("service-cache-test", Runnable.class.getName()), 0);
+        Assert.assertTrue(serviceCache.getAvailableService("service-cache-test").isEmpty());
+
+        serviceCache.update("service-cache-test", Runnable.class);
+        serviceCache.update("service-cache-test", Runnable.class);
+        serviceCache.update("service-cache-test", AutoCloseable.class);
+
+        Assert.assertEquals(serviceCache.getServiceCount("service-cache-test", Runnable.class.getName()), 2);
+        Assert.assertEquals(serviceCache.getServiceCount("service-cache-test", AutoCloseable.class.getName()), 1);
+
+        Map<String, Long> availableServices = serviceCache.getAvailableService("service-cache-test");
+        Assert.assertEquals(availableServices.size(), 2);
+        Assert.assertEquals(availableServices.get(Runnable.class.getName()), Long.valueOf(2));
+        Assert.assertEquals(availableServices.get(AutoCloseable.class.getName()), Long.valueOf(1));
+
+        // The available service map is a read-only view of the cache.
+        serviceCache.update("service-cache-test", Runnable.class);
+        Assert.assertEquals(availableServices.get(Runnable.class.getName()), Long.valueOf(3));
+        try {
+            availableServices.put(Runnable.class.getName(), 0L);
+            Assert.fail("Available service map should be read-only");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertEquals(availableServices.get(Runnable.class.getName()), Long.valueOf(3));
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        StartupServiceCache serviceCache = StartupServiceCache.getInstance();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                String componentName = "service-cache-concurrent-test-" + (i % 4);
+                futures.add(executorService.submit(() -> {
+                    startSignal.await();
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        serviceCache.update(componentName, Runnable.class);
+                    }
+                    return null;
+                }));
+            }
+
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(serviceCache.getServiceCount("service-cache-concurrent-test-" + i,
+                    Runnable.class.getName()), THREAD_COUNT / 4 * UPDATES_PER_THREAD);
+        }
+    }
+}
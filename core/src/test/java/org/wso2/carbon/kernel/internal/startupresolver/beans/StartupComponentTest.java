@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.internal.startupresolver.beans;
+
+import org.easymock.EasyMock;
+import org.osgi.framework.Bundle;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * This class tests the pending capability tracking of
+ * org.wso2.carbon.kernel.internal.startupresolver.beans.StartupComponent.
+ *
+ * @since 5.2.9
+ */
+public class StartupComponentTest {
+    private static final String TRANSPORT_SERVICE = "org.wso2.carbon.kernel.transports.CarbonTransport";
+    private static final String DEPLOYER_SERVICE = "org.wso2.carbon.deployment.engine.Deployer";
+
+    @Test
+    public void testDirectDependencies() {
+        StartupComponent startupComponent = createComponent("startup-component-direct");
+        Bundle bundle = createBundle();
+
+        startupComponent.addExpectedCapability(createCapability(TRANSPORT_SERVICE,
+                Capability.CapabilityState.EXPECTED, bundle, true));
+        startupComponent.addExpectedCapability(createCapability(TRANSPORT_SERVICE,
+                Capability.CapabilityState.EXPECTED, bundle, true));
+        Assert.assertEquals(startupComponent.getPendingCapabilities().size(), 2);
+        Assert.assertFalse(startupComponent.isSatisfiable());
+
+        startupComponent.updateAvailableServiceCount(TRANSPORT_SERVICE, 1);
+        Assert.assertTrue(startupComponent.hasPendingCapabilities());
+
+        startupComponent.updateAvailableServiceCount(TRANSPORT_SERVICE, 2);
+        Assert.assertFalse(startupComponent.hasPendingCapabilities());
+        Assert.assertTrue(startupComponent.getPendingCapabilities().isEmpty());
+        Assert.assertTrue(startupComponent.isSatisfiable());
+
+        // Reported service counts never decrease.
+        startupComponent.updateAvailableServiceCount(TRANSPORT_SERVICE, 1);
+        Assert.assertTrue(startupComponent.isSatisfiable());
+    }
+
+    @Test
+    public void testIndirectDependencies() {
+        StartupComponent startupComponent = createComponent("startup-component-indirect");
+        Bundle bundle = createBundle();
+
+        // Indirect dependencies are pending until the service is available.
+        startupComponent.addExpectedCapability(createCapability(DEPLOYER_SERVICE,
+                Capability.CapabilityState.EXPECTED, bundle, false));
+        Assert.assertTrue(startupComponent.hasPendingCapabilities());
+
+        startupComponent.updateCapability(createCapability(DEPLOYER_SERVICE,
+                Capability.CapabilityState.AVAILABLE, bundle, false));
+        Assert.assertFalse(startupComponent.hasPendingCapabilities());
+
+        // An available indirect dependency is not pending, even if the expected capability is not registered yet.
+        startupComponent.updateCapability(createCapability(TRANSPORT_SERVICE,
+                Capability.CapabilityState.AVAILABLE, bundle, false));
+        Assert.assertFalse(startupComponent.hasPendingCapabilities());
+
+        // A direct dependency matched with an available capability waits for the service to be reported.
+        startupComponent.addExpectedCapability(createCapability(TRANSPORT_SERVICE,
+                Capability.CapabilityState.EXPECTED, bundle, true));
+        Assert.assertTrue(startupComponent.hasPendingCapabilities());
+        Assert.assertEquals(startupComponent.getPendingCapabilities().size(), 1);
+
+        startupComponent.updateAvailableServiceCount(TRANSPORT_SERVICE, 1);
+        Assert.assertFalse(startupComponent.hasPendingCapabilities());
+    }
+
+    private static StartupComponent createComponent(String componentName) {
+        StartupComponent startupComponent = new StartupComponent(componentName, createBundle());
+        startupComponent.setListener(() -> {
+        });
+        return startupComponent;
+    }
+
+    private static Capability createCapability(String name, Capability.CapabilityState state, Bundle bundle,
+                                               boolean directDependency) {
+        return new OSGiServiceCapability(name, Capability.CapabilityType.OSGi_SERVICE, state, bundle,
+                directDependency);
+    }
+
+    private static Bundle createBundle() {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.replay(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.kernel.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit testing class for org.wso2.carbon.kernel.metrics.Histogram and org.wso2.carbon.kernel.metrics.Counter.
+ *
+ * @since 5.2.9
+ */
+public class HistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 1000000; value++) {
+            histogram.record(value);
+        }
+
+        Assert.assertEquals(histogram.getCount(), 1000000);
+        Assert.assertEquals(histogram.getMax(), 1000000);
+        Assert.assertEquals(histogram.getMean(), 500000.5, 0.001);
+        assertWithinRelativeError(histogram.getValueAtPercentile(50), 500000);
+        assertWithinRelativeError(histogram.getValueAtPercentile(99), 990000);
+        assertWithinRelativeError(histogram.getValueAtPercentile(99.9), 999000);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 1000000);
+        Assert.assertEquals(histogram.getValueAtPercentile(0), 1);
+    }
+
+    @Test
+    public void testExactSmallValuesAndExtremes() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+        Assert.assertEquals(histogram.getMean(), 0.0);
+
+        for (long value = 0; value < 64; value++) {
+            histogram.record(value);
+        }
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 31);
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getCount(), 66);
+        Assert.assertEquals(histogram.getMax(), Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), Long.MAX_VALUE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new Histogram().getValueAtPercentile(101);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        Counter counter = new Counter();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executorService.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(i);
+                    counter.increment();
+                }
+            });
+        }
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(histogram.getCount(), 40000);
+        Assert.assertEquals(counter.getCount(), 40000);
+        counter.decrement();
+        counter.increment(10);
+        Assert.assertEquals(counter.getCount(), 40009);
+    }
+
+    private static void assertWithinRelativeError(long actual, long expected) {
+        Assert.assertTrue(actual >= expected && actual <= expected + expected / 32,
+                "Expected " + expected + " within 1/32, but found " + actual);
+    }
+}
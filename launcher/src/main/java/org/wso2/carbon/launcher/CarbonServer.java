@@ -23,12 +23,27 @@ import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
 import org.wso2.carbon.launcher.config.CarbonInitialBundle;
 import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+import org.wso2.carbon.launcher.utils.FrameworkCacheUtils;
+import org.wso2.carbon.launcher.utils.Utils;
 
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import static org.wso2.carbon.launcher.Constants.CARBON_START_TIME;
 
@@ -40,6 +55,7 @@ import static org.wso2.carbon.launcher.Constants.CARBON_START_TIME;
 public class CarbonServer {
 
     private static final Logger logger = Logger.getLogger(CarbonServer.class.getName());
+    private static final int SLOWEST_BUNDLES_LOGGED = 5;
 
     private CarbonLaunchConfig config;
     private Framework framework;
@@ -70,6 +86,9 @@ public class CarbonServer {
             // Creates an OSGi framework instance.
             ClassLoader fwkClassLoader = createOSGiFwkClassLoader();
             FrameworkFactory fwkFactory = loadOSGiFwkFactory(fwkClassLoader);
+            if (config.isWarmStartEnabled()) {
+                prepareFrameworkStorage();
+            }
             framework = fwkFactory.newFramework(config.getProperties());
 
             setServerCurrentStatus(ServerStatus.STARTING);
@@ -82,6 +101,12 @@ public class CarbonServer {
             // Loads initial bundles listed in the launch.properties file.
             loadInitialBundles(framework.getBundleContext());
 
+            if (config.isWarmStartEnabled()) {
+                // Carbon server listeners may have updated the bundles.info file, hence the fingerprint is computed
+                // once the framework is started.
+                recordFrameworkStorageFingerprint();
+            }
+
             setServerCurrentStatus(ServerStatus.STARTED);
             // This thread waits until the OSGi framework comes to a complete shutdown.
             waitForServerStop(framework);
@@ -108,33 +133,35 @@ public class CarbonServer {
         }
 
         // Framework.stop() method returns before the framework shutdown. But this.stop() method should only return
-        //  after framework stops completely. Therefore we invokes the framework.stop() method in a new
-        //  thread and this thread waits till the framework stops completely using the framework.waitForStop() method.
-        new Thread() {
-            public void run() {
-                try {
-                    framework.stop();
-                } catch (BundleException e) {
-                    logger.log(Level.SEVERE, e.getMessage(), e);
-                    throw new RuntimeException(e);
-                }
-            }
-        }.start();
-
-
+        //  after framework stops completely, or the shutdown timeout elapses.
+        ShutdownCoordinator shutdownCoordinator = new ShutdownCoordinator(framework, config.getShutdownTimeout(),
+                config.getBundleStopBudget(), config.isParallelBundleStopEnabled());
         try {
-            FrameworkEvent event = framework.waitForStop(1000 * 60 * 3);
-            if (event.getType() == FrameworkEvent.WAIT_TIMEDOUT) {
-                if (logger.isLoggable(Level.FINE)) {
-                    logger.log(Level.FINE, "OSGi framework did not stop during the given time.");
-                }
-            }
+            shutdownCoordinator.shutdown();
+            logSlowestBundles(shutdownCoordinator.getBundleStopTimes());
         } catch (InterruptedException e) {
             logger.log(Level.SEVERE, e.getMessage(), e);
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Logs the bundles which took the longest time to stop, to help identifying the bundles which slow down the
+     * shutdown.
+     *
+     * @param bundleStopTimes the time taken to stop each bundle, in the descending order of the times
+     */
+    private static void logSlowestBundles(Map<String, Long> bundleStopTimes) {
+        if (bundleStopTimes.isEmpty()) {
+            return;
+        }
+        logger.log(Level.INFO, "Slowest bundles to stop: " + bundleStopTimes.entrySet().stream()
+                .limit(SLOWEST_BUNDLES_LOGGED)
+                .map(entry -> entry.getKey() + " (" + entry.getValue() + " ms)")
+                .collect(Collectors.joining(", ")));
+    }
+
     /**
      * Initializes and start framework. Framework will try to resolve all the bundles if their requirements
      * can be satisfied.
@@ -147,20 +174,56 @@ public class CarbonServer {
             logger.log(Level.FINE, "Initializing the OSGi framework.");
         }
 
+        long initStartTime = System.currentTimeMillis();
         framework.init();
+        StartupPhases.record("framework.init", initStartTime);
 
         // Starts the framework.
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Starting the OSGi framework.");
         }
 
+        long startTime = System.currentTimeMillis();
         framework.start();
+        StartupPhases.record("framework.start", startTime);
 
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "Started the OSGi framework.");
         }
     }
 
+    /**
+     * Decides whether the storage area of the OSGi framework can be reused. The storage area is cleaned if anything it
+     * was built from has changed since the last start, or if the fingerprint cannot be computed.
+     */
+    private void prepareFrameworkStorage() {
+        long startTime = System.currentTimeMillis();
+        boolean clean = true;
+        try {
+            clean = FrameworkCacheUtils.prepareFrameworkStorage(config, Utils.getCarbonHomeDirectory());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error while validating the OSGi framework storage, hence it is cleaned", e);
+            config.setCleanFrameworkStorage(true);
+        }
+        StartupPhases.record("framework.storage.validation", startTime);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, clean ? "Bundles have changed since the last start, cleaning the OSGi framework " +
+                    "storage." : "Reusing the OSGi framework storage of the last start.");
+        }
+    }
+
+    /**
+     * Records the fingerprint of the bundles the storage area of the OSGi framework is built from.
+     */
+    private void recordFrameworkStorageFingerprint() {
+        try {
+            FrameworkCacheUtils.recordFingerprint(config,
+                    FrameworkCacheUtils.getFingerprint(config, Utils.getCarbonHomeDirectory()));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error while recording the OSGi framework storage fingerprint", e);
+        }
+    }
+
     /**
      * Wait until this Framework has completely stopped.
      *
@@ -221,26 +284,123 @@ public class CarbonServer {
     }
 
     /**
-     * Installs a bundle from the specified locations.
+     * Installs and starts the initial bundles listed in the launch.properties file, and notifies the Carbon server
+     * listeners with the time taken for each bundle.
+     * <p>
+     * If parallel loading is enabled, all the initial bundles are installed concurrently, since the installation is
+     * I/O bound. The bundles are then started in batches of the same start level, in the ascending order of the start
+     * levels. The bundles of a batch are started concurrently, and a batch is started only once all the bundles of
+     * the previous batch are started.
      *
      * @param bundleContext bundle's execution context within the Framework
-     * @throws BundleException
+     * @throws BundleException if an initial bundle cannot be installed or started
      */
     private void loadInitialBundles(BundleContext bundleContext) throws BundleException {
         //Setting this property due to an issue with equinox simple configurator where it tries to uninstall bundles
         //which are loaded from initial bundle list.
         System.setProperty(Constants.EQUINOX_SIMPLE_CONFIGURATOR_EXCLUSIVE_INSTALLATION, "false");
 
-        for (CarbonInitialBundle initialBundleInfo : config.getInitialBundles()) {
-            if (logger.isLoggable(Level.FINE)) {
-                logger.log(Level.FINE, "Loading initial bundle: " + initialBundleInfo.getLocation().toExternalForm() +
-                        " with startlevel " + initialBundleInfo.getLevel());
+        List<CarbonInitialBundle> initialBundles = config.getInitialBundles();
+        Map<CarbonInitialBundle, InitialBundleLoadTime> loadTimes;
+        if (config.isParallelInitialBundleLoadingEnabled() && initialBundles.size() > 1) {
+            loadTimes = loadInitialBundlesInParallel(bundleContext, initialBundles);
+        } else {
+            loadTimes = new HashMap<>();
+            for (CarbonInitialBundle initialBundleInfo : initialBundles) {
+                Bundle bundle = installInitialBundle(bundleContext, initialBundleInfo, loadTimes);
+                if (initialBundleInfo.shouldStart()) {
+                    startInitialBundle(bundle, loadTimes.get(initialBundleInfo));
+                }
+            }
+        }
+
+        List<InitialBundleLoadTime> orderedLoadTimes = initialBundles.stream()
+                .map(loadTimes::get)
+                .collect(Collectors.toList());
+        StartupPhases.recordInitialBundles(orderedLoadTimes);
+        dispatchEvent(new CarbonServerEvent(CarbonServerEvent.INITIAL_BUNDLES_LOADED, config, orderedLoadTimes));
+    }
+
+    private Map<CarbonInitialBundle, InitialBundleLoadTime> loadInitialBundlesInParallel(
+            BundleContext bundleContext, List<CarbonInitialBundle> initialBundles) throws BundleException {
+        Map<CarbonInitialBundle, InitialBundleLoadTime> loadTimes = new ConcurrentHashMap<>();
+        Map<CarbonInitialBundle, Bundle> bundles = new ConcurrentHashMap<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(initialBundles.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "CarbonServer-InitialBundleLoader-" +
+                            threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        try {
+            invokeAll(executor, initialBundles.stream()
+                    .map(initialBundle -> (Callable<Void>) () -> {
+                        bundles.put(initialBundle, installInitialBundle(bundleContext, initialBundle, loadTimes));
+                        return null;
+                    })
+                    .collect(Collectors.toList()));
+
+            Map<Integer, List<CarbonInitialBundle>> startLevelBatches = initialBundles.stream()
+                    .filter(CarbonInitialBundle::shouldStart)
+                    .collect(Collectors.groupingBy(CarbonInitialBundle::getLevel, TreeMap::new,
+                            Collectors.toList()));
+            for (List<CarbonInitialBundle> batch : startLevelBatches.values()) {
+                invokeAll(executor, batch.stream()
+                        .map(initialBundle -> (Callable<Void>) () -> {
+                            startInitialBundle(bundles.get(initialBundle), loadTimes.get(initialBundle));
+                            return null;
+                        })
+                        .collect(Collectors.toList()));
             }
+        } finally {
+            executor.shutdown();
+        }
+        return loadTimes;
+    }
+
+    private Bundle installInitialBundle(BundleContext bundleContext, CarbonInitialBundle initialBundleInfo,
+                                        Map<CarbonInitialBundle, InitialBundleLoadTime> loadTimes)
+            throws BundleException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Loading initial bundle: " + initialBundleInfo.getLocation().toExternalForm() +
+                    " with startlevel " + initialBundleInfo.getLevel());
+        }
+
+        long startTime = System.currentTimeMillis();
+        Bundle bundle = bundleContext.installBundle(initialBundleInfo.getLocation().toString());
+        loadTimes.put(initialBundleInfo, new InitialBundleLoadTime(initialBundleInfo, bundle.getSymbolicName(),
+                startTime, System.currentTimeMillis()));
+        return bundle;
+    }
+
+    private void startInitialBundle(Bundle bundle, InitialBundleLoadTime loadTime) throws BundleException {
+        long startTime = System.currentTimeMillis();
+        bundle.start();
+        loadTime.setStartTimes(startTime, System.currentTimeMillis());
+    }
 
-            Bundle bundle = bundleContext.installBundle(initialBundleInfo.getLocation().toString());
-            if (initialBundleInfo.shouldStart()) {
-                bundle.start();
+    /**
+     * Executes the given tasks and waits until all of them are completed.
+     *
+     * @param executor executor service to execute the tasks
+     * @param tasks    tasks to be executed
+     * @throws BundleException if a task fails or the current thread is interrupted
+     */
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) throws BundleException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BundleException("Interrupted while loading the initial bundles", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BundleException) {
+                throw (BundleException) e.getCause();
             }
+            throw new BundleException("Error while loading the initial bundles", e.getCause());
         }
     }
 
@@ -276,13 +436,34 @@ public class CarbonServer {
      * @param event number to notify
      */
     private void dispatchEvent(int event) {
-        CarbonServerEvent carbonServerEvent = new CarbonServerEvent(event, config);
+        dispatchEvent(new CarbonServerEvent(event, config));
+    }
+
+    /**
+     * Notify Carbon server listeners about the given event.
+     *
+     * @param carbonServerEvent event to notify
+     */
+    private void dispatchEvent(CarbonServerEvent carbonServerEvent) {
         config.getCarbonServerListeners().forEach(listener -> {
             if (logger.isLoggable(Level.FINE)) {
-                String eventName = (event == CarbonServerEvent.STARTING) ? "STARTING" : "STOPPING";
-                logger.log(Level.FINE, "Dispatching " + eventName + " event to " + listener.getClass().getName());
+                logger.log(Level.FINE, "Dispatching " + getEventName(carbonServerEvent.getType()) + " event to " +
+                        listener.getClass().getName());
             }
             listener.notify(carbonServerEvent);
         });
     }
+
+    private static String getEventName(int event) {
+        switch (event) {
+            case CarbonServerEvent.STARTING:
+                return "STARTING";
+            case CarbonServerEvent.STOPPING:
+                return "STOPPING";
+            case CarbonServerEvent.INITIAL_BUNDLES_LOADED:
+                return "INITIAL_BUNDLES_LOADED";
+            default:
+                return Integer.toString(event);
+        }
+    }
 }
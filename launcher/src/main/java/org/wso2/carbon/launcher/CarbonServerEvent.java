@@ -17,6 +17,9 @@ package org.wso2.carbon.launcher;
 
 import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An event from the CarbonServer.
  *
@@ -38,6 +41,14 @@ public class CarbonServerEvent {
      */
     public static final int STOPPING = 0x00000002;
 
+    /**
+     * The CarbonServer has installed and started the initial bundles.
+     * <p>
+     * This event is fired just after the CarbonServer loads the initial bundles listed in the launch.properties file,
+     * with the time taken to install and start each of them.
+     */
+    public static final int INITIAL_BUNDLES_LOADED = 0x00000004;
+
     /**
      * Type of event.
      */
@@ -48,6 +59,11 @@ public class CarbonServerEvent {
      */
     private final CarbonLaunchConfig config;
 
+    /**
+     * Time taken to install and start the initial bundles.
+     */
+    private final List<InitialBundleLoadTime> initialBundleLoadTimes;
+
     /**
      * Constructor.
      *
@@ -55,8 +71,20 @@ public class CarbonServerEvent {
      * @param config Carbon Launch Configuration
      */
     public CarbonServerEvent(int type, CarbonLaunchConfig config) {
+        this(type, config, Collections.emptyList());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param type                   event type
+     * @param config                 Carbon Launch Configuration
+     * @param initialBundleLoadTimes time taken to install and start the initial bundles
+     */
+    public CarbonServerEvent(int type, CarbonLaunchConfig config, List<InitialBundleLoadTime> initialBundleLoadTimes) {
         this.type = type;
         this.config = config;
+        this.initialBundleLoadTimes = Collections.unmodifiableList(initialBundleLoadTimes);
     }
 
     /**
@@ -76,4 +104,14 @@ public class CarbonServerEvent {
     public CarbonLaunchConfig getConfig() {
         return config;
     }
+
+    /**
+     * Returns the time taken to install and start each initial bundle. The list is empty unless the type of the event
+     * is {@link #INITIAL_BUNDLES_LOADED}.
+     *
+     * @return initial bundle load times
+     */
+    public List<InitialBundleLoadTime> getInitialBundleLoadTimes() {
+        return initialBundleLoadTimes;
+    }
 }
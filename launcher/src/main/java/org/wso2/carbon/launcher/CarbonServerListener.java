@@ -20,6 +20,9 @@ package org.wso2.carbon.launcher;
  * the Carbon server shutdown. These listener implementations will get notified before launching the OSGi framework
  * as well as after shutting down the OSGi framework. CarbonServer notifies these listeners synchronously.
  * <p>
+ * Listeners are also notified once the initial bundles are loaded, with the time taken to install and start each of
+ * them. Listeners which are only interested in the startup and the shutdown should check the type of the event.
+ * <p>
  * To register a CarbonServerListener, add the fully qualified class name to carbon.server.listeners property in
  * launch.properties file. This property accepts a list of comma separated fully qualified class names.
  *
@@ -38,17 +38,27 @@ public class Constants {
     public static final String OSGI_LIB = "lib";
     public static final String PLUGINS = "plugins";
     public static final String BUNDLES_INFO = "bundles.info";
+    public static final String OSGI_LIB_INDEX = "osgi-lib.index";
+    public static final String OSGI_LIB_LOCK = "osgi-lib.lock";
 
     public static final String CARBON_OSGI_REPOSITORY = "carbon.osgi.repository";
     public static final String CARBON_PROFILE_REPOSITORY = "carbon.runtime.repository";
     public static final String CARBON_OSGI_FRAMEWORK = "carbon.osgi.framework";
     public static final String CARBON_INITIAL_OSGI_BUNDLES = "carbon.initial.osgi.bundles";
     public static final String CARBON_SERVER_LISTENERS = "carbon.server.listeners";
+    public static final String CARBON_OSGI_WARM_START = "carbon.osgi.warm.start";
+    public static final String CARBON_INITIAL_OSGI_BUNDLES_PARALLEL = "carbon.initial.osgi.bundles.parallel";
+    public static final String CARBON_SHUTDOWN_TIMEOUT = "carbon.shutdown.timeout";
+    public static final String CARBON_SHUTDOWN_BUNDLE_STOP_BUDGET = "carbon.shutdown.bundle.stop.budget";
+    public static final String CARBON_SHUTDOWN_BUNDLES_PARALLEL = "carbon.shutdown.bundles.parallel";
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 1000 * 60 * 3;
+    public static final long DEFAULT_SHUTDOWN_BUNDLE_STOP_BUDGET = 1000 * 10;
 
     public static final String OSGI_INSTALL_AREA = "osgi.install.area";
     public static final String OSGI_CONFIG_AREA = "osgi.configuration.area";
     public static final String OSGI_INSTANCE_AREA = "osgi.instance.area";
     public static final String ECLIPSE_P2_DATA_AREA = "eclipse.p2.data.area";
+    public static final String OSGI_CLEAN = "osgi.clean";
 
     public static final String PAX_LOGGING_PROPERTY_FILE_KEY = "org.ops4j.pax.logging.property.file";
     public static final String PAX_LOGGING_PROPERTIES_FILE = "pax-logging.properties";
@@ -60,6 +70,19 @@ public class Constants {
 
     static final String START_TIME = "carbon.start.time";
 
+    /**
+     * Prefix of the System properties through which the launcher publishes the timestamps of the startup phases to
+     * the Carbon kernel. The value of each property is "startTime,endTime" in milliseconds.
+     */
+    public static final String STARTUP_PHASE_PREFIX = "carbon.startup.phase.";
+
+    /**
+     * System property through which the launcher publishes the install and start timestamps of all the initial
+     * bundles to the Carbon kernel. The value is a list of "symbolicName,installStart,installEnd[,start,end]"
+     * entries separated by ";", so that the number of System properties does not grow with the initial bundles.
+     */
+    public static final String INITIAL_BUNDLE_PHASES = "carbon.startup.initial.bundles";
+
     //  Constants relevant to log level.
     public static final String LOG_LEVEL_WARN = "WARN";
 
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import org.wso2.carbon.launcher.config.CarbonInitialBundle;
+
+/**
+ * Time taken to install and start an initial bundle listed in the launch.properties file.
+ *
+ * @since 5.2.9
+ */
+public class InitialBundleLoadTime {
+
+    private final CarbonInitialBundle initialBundle;
+    private final String symbolicName;
+    private final long installBeginTime;
+    private final long installEndTime;
+    private volatile long startBeginTime = -1;
+    private volatile long startEndTime = -1;
+
+    InitialBundleLoadTime(CarbonInitialBundle initialBundle, String symbolicName, long installBeginTime,
+                          long installEndTime) {
+        this.initialBundle = initialBundle;
+        this.symbolicName = symbolicName;
+        this.installBeginTime = installBeginTime;
+        this.installEndTime = installEndTime;
+    }
+
+    /**
+     * Returns the initial bundle.
+     *
+     * @return initial bundle
+     */
+    public CarbonInitialBundle getInitialBundle() {
+        return initialBundle;
+    }
+
+    /**
+     * Returns the symbolic name of the installed bundle.
+     *
+     * @return bundle symbolic name
+     */
+    public String getSymbolicName() {
+        return symbolicName;
+    }
+
+    /**
+     * Returns the time taken to install the bundle in milliseconds.
+     *
+     * @return install time
+     */
+    public long getInstallTime() {
+        return installEndTime - installBeginTime;
+    }
+
+    /**
+     * Returns the time taken to start the bundle in milliseconds, or -1 if the bundle is not started.
+     *
+     * @return start time
+     */
+    public long getStartTime() {
+        return startEndTime == -1 ? -1 : startEndTime - startBeginTime;
+    }
+
+    void setStartTimes(long startBeginTime, long startEndTime) {
+        this.startBeginTime = startBeginTime;
+        this.startEndTime = startEndTime;
+    }
+
+    /**
+     * Returns the install and start timestamps of the bundle in the format published to the Carbon kernel, i.e.
+     * "symbolicName,installStart,installEnd[,start,end]".
+     *
+     * @return install and start timestamps of the bundle
+     */
+    String toPhases() {
+        StringBuilder phases = new StringBuilder(symbolicName).append(',').append(installBeginTime).append(',')
+                .append(installEndTime);
+        if (startEndTime != -1) {
+            phases.append(',').append(startBeginTime).append(',').append(startEndTime);
+        }
+        return phases.toString();
+    }
+}
@@ -68,7 +68,9 @@ public class Main {
         initAndVerifySysProps();
 
         // 3) Load the Carbon start configuration
+        long configLoadStartTime = System.currentTimeMillis();
         CarbonLaunchConfig config = loadCarbonLaunchConfig();
+        StartupPhases.record("launcher.config.load", configLoadStartTime);
 
         CarbonServer carbonServer = new CarbonServer(config);
 
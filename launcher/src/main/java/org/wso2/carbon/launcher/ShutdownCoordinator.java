@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Stops the OSGi framework within a bounded time.
+ * <p>
+ * The active bundles are stopped before the framework, in batches of the same start level. Batches are stopped in
+ * the descending order of the start levels, and the bundles of a batch are stopped in the reverse order of their
+ * installation, as the framework does. If parallel stop is enabled, the bundles of a batch are stopped in parallel by
+ * as many threads as processors, and at least two, but a bundle is still stopped only after the bundles of the batch installed after it
+ * which are wired to it, such as by importing its packages, are stopped.
+ * <p>
+ * The time taken to stop each bundle is recorded, and the stack traces of the threads are logged for each bundle
+ * which takes longer than the bundle stop budget, so that the bundles which slow down the shutdown can be identified.
+ * Once the shutdown timeout has elapsed, the remaining bundles are left to the framework, and the server stops
+ * waiting for it.
+ * <p>
+ * The bundles are stopped transiently, hence their autostart settings are retained for the next start of the
+ * framework.
+ *
+ * @since 5.2.9
+ */
+public class ShutdownCoordinator {
+
+    private static final Logger logger = Logger.getLogger(ShutdownCoordinator.class.getName());
+    private static final int MIN_PARALLEL_STOP_THREADS = 2;
+
+    private final Framework framework;
+    private final long shutdownTimeout;
+    private final long bundleStopBudget;
+    private final boolean parallel;
+    private final Map<String, Long> bundleStopTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor of a coordinator which stops the bundles of a start level one at a time.
+     *
+     * @param framework        OSGi framework to be stopped
+     * @param shutdownTimeout  maximum time to wait for the framework to stop, in milliseconds
+     * @param bundleStopBudget time a bundle may take to stop before the stack traces are logged, in milliseconds
+     */
+    public ShutdownCoordinator(Framework framework, long shutdownTimeout, long bundleStopBudget) {
+        this(framework, shutdownTimeout, bundleStopBudget, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param framework        OSGi framework to be stopped
+     * @param shutdownTimeout  maximum time to wait for the framework to stop, in milliseconds
+     * @param bundleStopBudget time a bundle may take to stop before the stack traces are logged, in milliseconds
+     * @param parallel         whether the bundles of a start level are stopped in parallel
+     */
+    public ShutdownCoordinator(Framework framework, long shutdownTimeout, long bundleStopBudget, boolean parallel) {
+        this.framework = framework;
+        this.shutdownTimeout = shutdownTimeout;
+        this.bundleStopBudget = bundleStopBudget;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Stops the active bundles and then the OSGi framework. This method returns once the framework has stopped, or
+     * the shutdown timeout has elapsed.
+     *
+     * @return true if the framework stopped within the shutdown timeout
+     * @throws InterruptedException if the current thread is interrupted while waiting for the framework to stop
+     */
+    public boolean shutdown() throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + shutdownTimeout;
+
+        if (!stopBundles(deadline)) {
+            logger.log(Level.WARNING, "Bundles did not stop within the shutdown timeout of " + shutdownTimeout +
+                    " ms, stopping the OSGi framework.");
+        }
+
+        try {
+            // Framework.stop() returns once the framework has started stopping on another thread.
+            framework.stop();
+        } catch (BundleException e) {
+            logger.log(Level.SEVERE, "Error while stopping the OSGi framework", e);
+            return false;
+        }
+        // A timeout of 0 waits indefinitely, hence the framework is given at least a millisecond to stop.
+        FrameworkEvent event = framework.waitForStop(Math.max(deadline - System.currentTimeMillis(), 1));
+        boolean stopped = event.getType() != FrameworkEvent.WAIT_TIMEDOUT;
+        if (stopped) {
+            logger.log(Level.INFO, "Stopped the OSGi framework in " + (System.currentTimeMillis() - startTime) +
+                    " ms.");
+        } else {
+            logger.log(Level.WARNING, "OSGi framework did not stop within the shutdown timeout of " +
+                    shutdownTimeout + " ms.");
+        }
+        return stopped;
+    }
+
+    /**
+     * Returns the time taken to stop each bundle stopped by this coordinator, in the descending order of the times.
+     *
+     * @return map of the bundle symbolic names and versions, as {@code symbolicName:version}, to the time taken to
+     * stop them in milliseconds
+     */
+    public Map<String, Long> getBundleStopTimes() {
+        return Collections.unmodifiableMap(bundleStopTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (time1, time2) -> time1,
+                        LinkedHashMap::new)));
+    }
+
+    /**
+     * Stops the active bundles in batches of the same start level.
+     *
+     * @param deadline time by which the bundles must be stopped, in milliseconds
+     * @return true if all the bundles were stopped before the deadline
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    private boolean stopBundles(long deadline) throws InterruptedException {
+        Map<Integer, List<Bundle>> startLevelBatches = Arrays.stream(framework.getBundleContext().getBundles())
+                .filter(bundle -> bundle.getBundleId() != 0)
+                .filter(bundle -> (bundle.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0)
+                .sorted(Comparator.comparingLong(Bundle::getBundleId).reversed())
+                .collect(Collectors.groupingBy(ShutdownCoordinator::getStartLevel,
+                        () -> new TreeMap<>(Comparator.reverseOrder()), Collectors.toList()));
+        int maxBatchSize = startLevelBatches.values().stream().mapToInt(List::size).max().orElse(1);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "CarbonServer-BundleStopper-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int threads = parallel ? Math.min(maxBatchSize, Math.max(Runtime.getRuntime().availableProcessors(),
+                MIN_PARALLEL_STOP_THREADS)) : 1;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+        ScheduledExecutorService budgetMonitor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        try {
+            for (List<Bundle> batch : startLevelBatches.values()) {
+                if (!stopBatch(executor, budgetMonitor, batch, deadline)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            // Bundles which are still stopping are not interrupted, since the framework waits for them to stop.
+            executor.shutdown();
+            budgetMonitor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops the given bundles, each after the bundles of the batch installed after it which are wired to it, and
+     * waits until they are stopped.
+     *
+     * @param executor      executor service to stop the bundles
+     * @param budgetMonitor executor service to log the bundles which exceed the bundle stop budget
+     * @param batch         bundles of the same start level, in the descending order of the bundle ids
+     * @param deadline      time by which the bundles must be stopped, in milliseconds
+     * @return true if all the bundles were stopped before the deadline
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    private boolean stopBatch(ExecutorService executor, ScheduledExecutorService budgetMonitor, List<Bundle> batch,
+                              long deadline) throws InterruptedException {
+        Map<Bundle, Thread> stoppingThreads = new ConcurrentHashMap<>();
+        AtomicBoolean threadsDumped = new AtomicBoolean();
+        Map<Bundle, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Bundle bundle : batch) {
+            CompletableFuture<?>[] dependants = getWiredBundles(bundle).stream()
+                    .filter(futures::containsKey)
+                    .map(futures::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            // A bundle is stopped even if a bundle wired to it failed to stop, as the framework would.
+            futures.put(bundle, CompletableFuture.allOf(dependants)
+                    .handle((result, throwable) -> null)
+                    .thenRunAsync(() -> {
+                        stoppingThreads.put(bundle, Thread.currentThread());
+                        ScheduledFuture<?> budgetCheck = budgetMonitor.schedule(() -> {
+                            Thread stoppingThread = stoppingThreads.get(bundle);
+                            if (stoppingThread != null) {
+                                logSlowBundle(bundle, stoppingThread, threadsDumped.compareAndSet(false, true));
+                            }
+                        }, bundleStopBudget, TimeUnit.MILLISECONDS);
+                        try {
+                            stopBundle(bundle);
+                        } catch (BundleException e) {
+                            throw new CompletionException(e);
+                        } finally {
+                            stoppingThreads.remove(bundle);
+                            budgetCheck.cancel(false);
+                        }
+                    }, executor));
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Bundle bundle = batch.get(i);
+            try {
+                futures.get(bundle).get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "Error while stopping bundle " + bundle.getSymbolicName(), e.getCause());
+            } catch (TimeoutException e) {
+                logger.log(Level.WARNING, "Bundles " + batch.subList(i, batch.size()).stream()
+                        .filter(remaining -> !futures.get(remaining).isDone())
+                        .map(Bundle::getSymbolicName)
+                        .collect(Collectors.toList()) + " did not stop within the shutdown timeout.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bundles which are wired to the given bundle, such as by importing its packages or requiring it.
+     *
+     * @param bundle bundle of which the wired bundles are returned
+     * @return the bundles which are wired to the given bundle, or an empty set if the bundle is not resolved
+     */
+    private static Set<Bundle> getWiredBundles(Bundle bundle) {
+        BundleWiring bundleWiring = bundle.adapt(BundleWiring.class);
+        List<BundleWire> providedWires = (bundleWiring != null) ? bundleWiring.getProvidedWires(null) : null;
+        if (providedWires == null) {
+            return Collections.emptySet();
+        }
+        return providedWires.stream()
+                .map(wire -> wire.getRequirerWiring().getBundle())
+                .filter(wiredBundle -> !wiredBundle.equals(bundle))
+                .collect(Collectors.toSet());
+    }
+
+    private void stopBundle(Bundle bundle) throws BundleException {
+        long startTime = System.currentTimeMillis();
+        try {
+            bundle.stop(Bundle.STOP_TRANSIENT);
+        } finally {
+            long stopTime = System.currentTimeMillis() - startTime;
+            bundleStopTimes.put(bundle.getSymbolicName() + ":" + bundle.getVersion(), stopTime);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "Stopped bundle " + bundle.getSymbolicName() + " in " + stopTime + " ms");
+            }
+        }
+    }
+
+    /**
+     * Logs the stack trace of the thread stopping a bundle which has exceeded the bundle stop budget, and optionally
+     * the stack traces of all the threads, since the bundle may be waiting for another thread.
+     *
+     * @param bundle         bundle which is being stopped
+     * @param stoppingThread thread which is stopping the bundle
+     * @param dumpAllThreads whether the stack traces of all the threads are logged
+     */
+    private void logSlowBundle(Bundle bundle, Thread stoppingThread, boolean dumpAllThreads) {
+        StringBuilder message = new StringBuilder("Bundle ").append(bundle.getSymbolicName())
+                .append(" did not stop within ").append(bundleStopBudget).append(" ms.");
+        if (dumpAllThreads) {
+            message.append(" Stack traces of the threads:");
+            Thread.getAllStackTraces().forEach((thread, stackTrace) -> appendStackTrace(message, thread, stackTrace));
+        } else {
+            appendStackTrace(message, stoppingThread, stoppingThread.getStackTrace());
+        }
+        logger.log(Level.WARNING, message.toString());
+    }
+
+    private static void appendStackTrace(StringBuilder message, Thread thread, StackTraceElement[] stackTrace) {
+        message.append(System.lineSeparator()).append('"').append(thread.getName()).append("\" ")
+                .append(thread.getState());
+        for (StackTraceElement element : stackTrace) {
+            message.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+    }
+
+    private static int getStartLevel(Bundle bundle) {
+        BundleStartLevel bundleStartLevel = bundle.adapt(BundleStartLevel.class);
+        return bundleStartLevel != null ? bundleStartLevel.getStartLevel() : 0;
+    }
+}
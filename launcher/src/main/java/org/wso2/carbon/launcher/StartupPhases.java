@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.wso2.carbon.launcher.Constants.INITIAL_BUNDLE_PHASES;
+import static org.wso2.carbon.launcher.Constants.STARTUP_PHASE_PREFIX;
+
+/**
+ * Records the startup phases of the launcher, so that the Carbon kernel can include them in its startup timeline.
+ * <p>
+ * The launcher and the Carbon kernel are loaded by different class loaders, hence the phases are published as System
+ * properties in the same way as the server start time. The coarse phases are published as a property each, while the
+ * install and start times of all the initial bundles are aggregated into a single property.
+ *
+ * @since 5.2.9
+ */
+public class StartupPhases {
+
+    private static final Logger logger = Logger.getLogger(StartupPhases.class.getName());
+
+    private StartupPhases() {
+    }
+
+    /**
+     * Records a startup phase which started at the given time and ends now.
+     *
+     * @param phaseName name of the phase, e.g. framework.start
+     * @param startTime start time of the phase in milliseconds
+     * @return the duration of the phase in milliseconds
+     */
+    public static long record(String phaseName, long startTime) {
+        long endTime = System.currentTimeMillis();
+        System.setProperty(STARTUP_PHASE_PREFIX + phaseName, startTime + "," + endTime);
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Startup phase " + phaseName + " completed in " + (endTime - startTime) + " ms");
+        }
+        return endTime - startTime;
+    }
+
+    /**
+     * Records the install and start phases of the initial bundles.
+     *
+     * @param loadTimes load times of the initial bundles
+     */
+    static void recordInitialBundles(List<InitialBundleLoadTime> loadTimes) {
+        System.setProperty(INITIAL_BUNDLE_PHASES, loadTimes.stream()
+                .filter(Objects::nonNull)
+                .map(InitialBundleLoadTime::toPhases)
+                .collect(Collectors.joining(";")));
+
+        if (logger.isLoggable(Level.FINE)) {
+            loadTimes.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(loadTime -> logger.log(Level.FINE, "Initial bundle " + loadTime.getSymbolicName() +
+                            " installed in " + loadTime.getInstallTime() + " ms and started in " +
+                            loadTime.getStartTime() + " ms"));
+        }
+    }
+}
@@ -41,11 +41,19 @@ import java.util.stream.Collectors;
 
 import static org.wso2.carbon.launcher.Constants.CARBON_HOME;
 import static org.wso2.carbon.launcher.Constants.CARBON_INITIAL_OSGI_BUNDLES;
+import static org.wso2.carbon.launcher.Constants.CARBON_INITIAL_OSGI_BUNDLES_PARALLEL;
 import static org.wso2.carbon.launcher.Constants.CARBON_OSGI_FRAMEWORK;
 import static org.wso2.carbon.launcher.Constants.CARBON_OSGI_REPOSITORY;
+import static org.wso2.carbon.launcher.Constants.CARBON_OSGI_WARM_START;
 import static org.wso2.carbon.launcher.Constants.CARBON_PROFILE_REPOSITORY;
 import static org.wso2.carbon.launcher.Constants.CARBON_SERVER_LISTENERS;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_BUNDLES_PARALLEL;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_BUNDLE_STOP_BUDGET;
+import static org.wso2.carbon.launcher.Constants.CARBON_SHUTDOWN_TIMEOUT;
+import static org.wso2.carbon.launcher.Constants.DEFAULT_SHUTDOWN_BUNDLE_STOP_BUDGET;
+import static org.wso2.carbon.launcher.Constants.DEFAULT_SHUTDOWN_TIMEOUT;
 import static org.wso2.carbon.launcher.Constants.ECLIPSE_P2_DATA_AREA;
+import static org.wso2.carbon.launcher.Constants.OSGI_CLEAN;
 import static org.wso2.carbon.launcher.Constants.OSGI_CONFIG_AREA;
 import static org.wso2.carbon.launcher.Constants.OSGI_INSTALL_AREA;
 import static org.wso2.carbon.launcher.Constants.OSGI_INSTANCE_AREA;
@@ -72,6 +80,16 @@ public class CarbonLaunchConfig {
 
     private String carbonHome;
 
+    private boolean warmStartEnabled;
+
+    private boolean parallelInitialBundleLoadingEnabled;
+
+    private long shutdownTimeout;
+
+    private long bundleStopBudget;
+
+    private boolean parallelBundleStopEnabled;
+
     private String carbonOSGiRepositoryPath;
     private String carbonProfileRepositoryPath;
 
@@ -255,6 +273,65 @@ public class CarbonLaunchConfig {
         return eclipseP2DataArea;
     }
 
+    /**
+     * Returns whether the storage area of the OSGi framework is kept across restarts, unless the bundles it was
+     * built from have changed.
+     *
+     * @return true if the warm start mode is enabled
+     */
+    public boolean isWarmStartEnabled() {
+        return warmStartEnabled;
+    }
+
+    /**
+     * Sets whether the OSGi framework should clean its storage area when it is initialized. This overrides the
+     * osgi.clean property of the launch configuration.
+     *
+     * @param clean true to clean the storage area of the OSGi framework
+     */
+    public void setCleanFrameworkStorage(boolean clean) {
+        properties.put(OSGI_CLEAN, Boolean.toString(clean));
+    }
+
+    /**
+     * Returns whether the initial bundles are installed concurrently and started in parallel batches of the same
+     * start level.
+     *
+     * @return true if parallel loading of the initial bundles is enabled
+     */
+    public boolean isParallelInitialBundleLoadingEnabled() {
+        return parallelInitialBundleLoadingEnabled;
+    }
+
+    /**
+     * Returns the maximum time the server waits for the OSGi framework to stop, including the time taken to stop the
+     * bundles.
+     *
+     * @return the shutdown timeout in milliseconds
+     */
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Returns the time a bundle may take to stop during the server shutdown, after which the stack traces of the
+     * threads are logged.
+     *
+     * @return the bundle stop budget in milliseconds
+     */
+    public long getBundleStopBudget() {
+        return bundleStopBudget;
+    }
+
+    /**
+     * Returns whether the bundles of the same start level are stopped in parallel during the server shutdown.
+     *
+     * @return true if parallel stop of the bundles is enabled
+     */
+    public boolean isParallelBundleStopEnabled() {
+        return parallelBundleStopEnabled;
+    }
+
     /**
      * @return initial bundle list
      */
@@ -329,10 +406,42 @@ public class CarbonLaunchConfig {
         eclipseP2DataArea = resolvePath(properties.get(ECLIPSE_P2_DATA_AREA), carbonOSGiRepositoryPath,
                 ECLIPSE_P2_DATA_AREA);
 
+        warmStartEnabled = Boolean.parseBoolean(properties.get(CARBON_OSGI_WARM_START));
+        parallelInitialBundleLoadingEnabled =
+                Boolean.parseBoolean(properties.get(CARBON_INITIAL_OSGI_BUNDLES_PARALLEL));
+        shutdownTimeout = parseDuration(CARBON_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT);
+        bundleStopBudget = parseDuration(CARBON_SHUTDOWN_BUNDLE_STOP_BUDGET, DEFAULT_SHUTDOWN_BUNDLE_STOP_BUDGET);
+        parallelBundleStopEnabled = Boolean.parseBoolean(properties.get(CARBON_SHUTDOWN_BUNDLES_PARALLEL));
+
         populateInitialBundlesList(properties.get(CARBON_INITIAL_OSGI_BUNDLES));
         loadCarbonServerListeners(properties.get(CARBON_SERVER_LISTENERS));
     }
 
+    /**
+     * Parses the value of a property which is a duration in milliseconds.
+     *
+     * @param key          property key
+     * @param defaultValue value used if the property is not set
+     * @return the duration in milliseconds
+     */
+    private long parseDuration(String key, long defaultValue) {
+        String value = properties.get(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            long duration = Long.parseLong(value.trim());
+            if (duration > 0) {
+                return duration;
+            }
+        } catch (NumberFormatException e) {
+            logger.log(Level.FINE, "Invalid number " + value, e);
+        }
+        String errorMsg = "The property " + key + " must be a positive number of milliseconds: " + value;
+        logger.log(Level.SEVERE, errorMsg);
+        throw new RuntimeException(errorMsg);
+    }
+
     /**
      * Resolve a file path against a parent path.
      *
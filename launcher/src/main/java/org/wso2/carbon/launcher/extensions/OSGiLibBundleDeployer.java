@@ -48,13 +48,15 @@ public class OSGiLibBundleDeployer implements CarbonServerListener {
         if (event.getType() == CarbonServerEvent.STARTING) {
             Path carbonHome = Utils.getCarbonHomeDirectory();
             Path libDirectoryPath = Paths.get(carbonHome.toString(), Constants.OSGI_LIB);
+            Path libIndexPath = Paths.get(carbonHome.toString(), Constants.OSGI_REPOSITORY, Constants.OSGI_LIB_INDEX);
             String profile = Optional.ofNullable(System.getProperty(Constants.PROFILE))
                     .orElse(Constants.DEFAULT_PROFILE);
 
             try {
                 logger.log(Level.FINE,
                         "Loading the new OSGi bundle information from " + Constants.OSGI_LIB + " folder...");
-                List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectoryPath);
+                List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils
+                        .getBundlesInfo(libDirectoryPath, libIndexPath);
                 logger.log(Level.FINE, "Successfully loaded the new OSGi bundle information from " +
                         Constants.OSGI_LIB + " folder");
 
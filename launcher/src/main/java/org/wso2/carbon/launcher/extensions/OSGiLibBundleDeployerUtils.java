@@ -19,18 +19,27 @@ import org.wso2.carbon.launcher.Constants;
 import org.wso2.carbon.launcher.extensions.model.BundleInfo;
 import org.wso2.carbon.launcher.extensions.model.BundleInstallStatus;
 import org.wso2.carbon.launcher.extensions.model.BundleLocation;
+import org.wso2.carbon.launcher.utils.JarManifestReader;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,31 +74,98 @@ public class OSGiLibBundleDeployerUtils {
      * @param carbonProfile  the name of the Carbon Runtime of which the bundles.info is to be updated
      * @param newBundlesInfo the new OSGi bundle information
      * @throws IOException if an I/O error occurs
+     * @see #updateOSGiLibForProfiles(String, List, List)
      */
-    public static synchronized void updateOSGiLib(String carbonHome, String carbonProfile,
+    public static void updateOSGiLib(String carbonHome, String carbonProfile, List<BundleInfo> newBundlesInfo)
+            throws IOException {
+        if ((carbonProfile == null) || (carbonProfile.isEmpty())) {
+            throw new IllegalArgumentException("Carbon Runtime specified is invalid");
+        }
+        updateOSGiLibForProfiles(carbonHome, Collections.singletonList(carbonProfile), newBundlesInfo);
+    }
+
+    /**
+     * Updates the bundles.info files of the specified Carbon Runtimes based on the OSGi bundles deployed in the
+     * {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory, as explained in
+     * {@link #updateOSGiLib(String, String, List)}.
+     * <p>
+     * The bundles.info files are read and written while holding an exclusive lock on the
+     * {@value org.wso2.carbon.launcher.Constants#OSGI_LIB_LOCK} file in the OSGi repository, hence concurrent updates
+     * by the OSGi-lib tool and by starting Carbon servers are serialized. Each bundles.info file is replaced by an
+     * atomic move, so that it is never seen partially written. A failure to update a Carbon Runtime does not prevent
+     * updating the others.
+     *
+     * @param carbonHome     the {@link String} representation of carbon.home
+     * @param carbonProfiles the names of the Carbon Runtimes of which the bundles.info files are to be updated
+     * @param newBundlesInfo the new OSGi bundle information
+     * @throws IOException if an I/O error occurs when acquiring the lock, or when updating any Carbon Runtime
+     */
+    public static synchronized void updateOSGiLibForProfiles(String carbonHome, List<String> carbonProfiles,
             List<BundleInfo> newBundlesInfo) throws IOException {
         //  validates the arguments provided
         if ((carbonHome == null) || (carbonHome.isEmpty())) {
             throw new IllegalArgumentException("Carbon home specified is invalid");
         }
 
-        if ((carbonProfile == null) || (carbonProfile.isEmpty())) {
+        if ((carbonProfiles == null) || (carbonProfiles.isEmpty()) || (carbonProfiles.stream()
+                .anyMatch(carbonProfile -> (carbonProfile == null) || (carbonProfile.isEmpty())))) {
             throw new IllegalArgumentException("Carbon Runtime specified is invalid");
         }
 
         if (newBundlesInfo == null) {
             throw new IllegalArgumentException("No new OSGi bundle information specified, for updating the " +
-                    "Carbon Runtime: " + carbonProfile);
+                    "Carbon Runtimes: " + carbonProfiles);
         }
 
+        Path lockFile = Paths.get(carbonHome, Constants.OSGI_REPOSITORY, Constants.OSGI_LIB_LOCK);
+        Path lockDirectory = lockFile.getParent();
+        if (lockDirectory != null) {
+            Files.createDirectories(lockDirectory);
+        }
+
+        Map<String, IOException> failures = new LinkedHashMap<>();
+        try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            FileLock lock = lockChannel.lock();
+            try {
+                for (String carbonProfile : carbonProfiles) {
+                    try {
+                        updateBundlesInfo(carbonHome, carbonProfile, newBundlesInfo);
+                    } catch (IOException e) {
+                        failures.put(carbonProfile, e);
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            IOException exception = new IOException("Failed to update the OSGi bundle information of Carbon " +
+                    "Runtimes: " + failures.keySet(), failures.values().iterator().next());
+            failures.values().stream()
+                    .skip(1)
+                    .forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    /**
+     * Updates the bundles.info file of the specified Carbon Runtime, if its OSGi-lib bundle information differs from
+     * the specified new OSGi bundle information.
+     */
+    private static void updateBundlesInfo(String carbonHome, String carbonProfile, List<BundleInfo> newBundlesInfo)
+            throws IOException {
         Path bundlesInfoFile = Paths.get(carbonHome, Constants.PROFILE_REPOSITORY, carbonProfile, "configuration",
                 "org.eclipse.equinox.simpleconfigurator", Constants.BUNDLES_INFO);
         //  retrieves the OSGi bundle information defined in the existing bundles.info file
-        Map<BundleLocation, List<BundleInfo>> existingBundlesInfo = Files.readAllLines(bundlesInfoFile)
-                .stream()
-                .filter(line -> !line.startsWith("#"))
-                .map(BundleInfo::getInstance)
-                .collect(Collectors.groupingBy(BundleInfo::isFromOSGiLib));
+        Map<BundleLocation, List<BundleInfo>> existingBundlesInfo;
+        try (Stream<String> lines = Files.lines(bundlesInfoFile)) {
+            existingBundlesInfo = lines
+                    .filter(line -> !line.startsWith("#") && !line.trim().isEmpty())
+                    .map(BundleInfo::getInstance)
+                    .collect(Collectors.groupingBy(BundleInfo::isFromOSGiLib));
+        }
 
         Map<BundleInstallStatus, List<BundleInfo>> updatableBundles =
                 getUpdatableBundles(newBundlesInfo, existingBundlesInfo.get(BundleLocation.OSGI_LIB_BUNDLE));
@@ -143,6 +219,89 @@ public class OSGiLibBundleDeployerUtils {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Scans through the specified directory and constructs corresponding {@code BundleInfo} instances, using the
+     * specified index file to avoid reading the manifest of OSGi bundles which have not changed since the last scan.
+     * <p>
+     * An OSGi bundle is considered unchanged if its size and last modified time are the same as the indexed ones,
+     * hence a scan of an unchanged directory only reads the file attributes. The index file is rewritten only if
+     * any OSGi bundle has been added, changed or removed. No duplicated OSGi bundles are returned.
+     *
+     * @param sourceDirectory the source folder in which the OSGi bundles reside
+     * @param indexFile       the index file of the OSGi bundles in the {@code sourceDirectory}
+     * @return the constructed {@link BundleInfo} instances list
+     * @throws IOException if an I/O error occurs or if the {@code sourceDirectory} is invalid
+     */
+    public static List<BundleInfo> getBundlesInfo(Path sourceDirectory, Path indexFile) throws IOException {
+        if ((sourceDirectory == null) || (!Files.exists(sourceDirectory))) {
+            throw new IOException("Invalid OSGi bundle source directory. The specified path may not exist or " +
+                    "user may not have required file permissions for the specified path: " + sourceDirectory);
+        }
+
+        OSGiLibIndex existingIndex = OSGiLibIndex.load(indexFile);
+        OSGiLibIndex newIndex = new OSGiLibIndex();
+        List<BundleInfo> bundlesInfo;
+        try (Stream<Path> children = Files.list(sourceDirectory)) {
+            bundlesInfo = children
+                    .parallel()
+                    .map(child -> {
+                        BundleInfo bundleInfo = null;
+                        try {
+                            bundleInfo = getBundleInfo(child, existingIndex, newIndex).orElse(null);
+                        } catch (IOException e) {
+                            logger.log(Level.WARNING, "Error when loading the OSGi bundle information from " + child,
+                                    e);
+                        }
+                        return bundleInfo;
+                    })
+                    .distinct()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        if (!newIndex.equals(existingIndex)) {
+            try {
+                newIndex.save(indexFile);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to update the OSGi-lib index " + indexFile, e);
+            }
+        }
+        return bundlesInfo;
+    }
+
+    /**
+     * Constructs a {@code BundleInfo} instance out of the OSGi bundle file path specified, from the existing index
+     * if the OSGi bundle has not changed since it was indexed, or else from its manifest. The result is added to
+     * the new index.
+     *
+     * @param bundlePath    path to the OSGi bundle from which the {@link BundleInfo} is to be generated
+     * @param existingIndex the index of the previous scan
+     * @param newIndex      the index of the current scan
+     * @return a {@link BundleInfo} instance
+     * @throws IOException if an I/O error occurs or if an invalid {@code bundlePath} is found
+     */
+    private static Optional<BundleInfo> getBundleInfo(Path bundlePath, OSGiLibIndex existingIndex,
+            OSGiLibIndex newIndex) throws IOException {
+        Path bundleFileName = bundlePath.getFileName();
+        if ((bundleFileName == null) || (!bundleFileName.toString().endsWith(".jar"))) {
+            return Optional.empty();
+        }
+
+        String fileName = bundleFileName.toString();
+        BasicFileAttributes attributes = Files.readAttributes(bundlePath, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Optional<BundleInfo> bundleInfo = existingIndex.get(fileName, size, lastModified)
+                .map(entry -> createBundleInfo(entry.getSymbolicName(), entry.getVersion(), fileName,
+                        entry.isFragment()));
+        if (!bundleInfo.isPresent()) {
+            bundleInfo = getBundleInfo(bundlePath);
+        }
+        bundleInfo.ifPresent(info -> newIndex.put(fileName, size, lastModified, info));
+        return bundleInfo;
+    }
+
     /**
      * Constructs a {@code BundleInfo} instance out of the OSGi bundle file path specified.
      * <p>
@@ -169,36 +328,38 @@ public class OSGiLibBundleDeployerUtils {
             return Optional.empty();
         }
 
-        try (JarFile jarFile = new JarFile(bundlePath.toString())) {
-            Manifest manifest = jarFile.getManifest();
+        Manifest manifest = JarManifestReader.readManifest(bundlePath).orElse(null);
+        if ((manifest == null) || (manifest.getMainAttributes() == null)) {
+            throw new IOException("Invalid OSGi bundle found in the " + Constants.OSGI_LIB + " folder");
+        }
 
-            if ((manifest == null) || (manifest.getMainAttributes() == null)) {
-                throw new IOException("Invalid OSGi bundle found in the " + Constants.OSGI_LIB + " folder");
-            }
+        String bundleSymbolicName = manifest.getMainAttributes().getValue("Bundle-SymbolicName");
+        String bundleVersion = manifest.getMainAttributes().getValue("Bundle-Version");
 
-            String bundleSymbolicName = manifest.getMainAttributes().getValue("Bundle-SymbolicName");
-            String bundleVersion = manifest.getMainAttributes().getValue("Bundle-Version");
+        if (bundleSymbolicName == null || bundleVersion == null) {
+            throw new IOException("Required bundle manifest headers do not exist");
+        }
 
-            if (bundleSymbolicName == null || bundleVersion == null) {
-                throw new IOException("Required bundle manifest headers do not exist");
-            }
+        logger.log(Level.FINE,
+                "Loading information from OSGi bundle: " + bundleSymbolicName + ":" + bundleVersion + "...");
 
-            logger.log(Level.FINE,
-                    "Loading information from OSGi bundle: " + bundleSymbolicName + ":" + bundleVersion + "...");
+        if (bundleSymbolicName.contains(";")) {
+            bundleSymbolicName = bundleSymbolicName.split(";")[0];
+        }
 
-            if (bundleSymbolicName.contains(";")) {
-                bundleSymbolicName = bundleSymbolicName.split(";")[0];
-            }
+        //  checks whether this bundle is a fragment or not
+        boolean isFragment = (manifest.getMainAttributes().getValue("Fragment-Host") != null);
+        BundleInfo generated = createBundleInfo(bundleSymbolicName, bundleVersion, fileName, isFragment);
+        logger.log(Level.FINE,
+                "Successfully loaded information from OSGi bundle: " + bundleSymbolicName + ":" + bundleVersion);
+        return Optional.of(generated);
+    }
 
-            //  checks whether this bundle is a fragment or not
-            boolean isFragment = (manifest.getMainAttributes().getValue("Fragment-Host") != null);
-            int defaultBundleStartLevel = 4;
-            BundleInfo generated = new BundleInfo(bundleSymbolicName, bundleVersion,
-                    "../../" + Constants.OSGI_LIB + "/" + fileName, defaultBundleStartLevel, isFragment);
-            logger.log(Level.FINE,
-                    "Successfully loaded information from OSGi bundle: " + bundleSymbolicName + ":" + bundleVersion);
-            return Optional.of(generated);
-        }
+    private static BundleInfo createBundleInfo(String bundleSymbolicName, String bundleVersion, String fileName,
+            boolean isFragment) {
+        int defaultBundleStartLevel = 4;
+        return new BundleInfo(bundleSymbolicName, bundleVersion, "../../" + Constants.OSGI_LIB + "/" + fileName,
+                defaultBundleStartLevel, isFragment);
     }
 
     /**
@@ -276,13 +437,7 @@ public class OSGiLibBundleDeployerUtils {
                         .stream()
                         .forEach(information -> bundleInfoLines.add(information.toString()));
 
-                Path parent = bundlesInfoFilePath.getParent();
-                if (parent != null) {
-                    Path newBundlesInfoFile = Paths.get(parent.toString(), "new.info");
-                    Files.write(newBundlesInfoFile, bundleInfoLines);
-                    Files.deleteIfExists(bundlesInfoFilePath);
-                    Files.move(newBundlesInfoFile, newBundlesInfoFile.resolveSibling("bundles.info"));
-                }
+                write(bundlesInfoFilePath, bundleInfoLines);
             }
         } else {
             throw new IOException("Invalid file path. The specified path may not exist or " +
@@ -290,6 +445,34 @@ public class OSGiLibBundleDeployerUtils {
         }
     }
 
+    /**
+     * Writes the specified lines to the specified file, by writing a temporary file in the same directory and moving
+     * it to the specified file atomically, where supported by the file system.
+     *
+     * @param file  the file to be written
+     * @param lines the lines to be written
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Path file, List<String> lines) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path fileName = file.getFileName();
+        if ((parent == null) || (fileName == null)) {
+            throw new IOException("Invalid file path: " + file);
+        }
+
+        Path tempFile = Files.createTempFile(parent, fileName.toString(), ".tmp");
+        try {
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
     /**
      * Returns a list of WSO2 Carbon Runtime names.
      *
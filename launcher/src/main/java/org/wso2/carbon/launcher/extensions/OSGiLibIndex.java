@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.extensions;
+
+import org.wso2.carbon.launcher.extensions.model.BundleInfo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An on-disk index of the OSGi bundles found in the {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory.
+ * <p>
+ * Each entry records the file name, size and last modified time of a bundle along with the manifest headers read from
+ * it, so that a bundle whose size and last modified time have not changed need not be opened again.
+ *
+ * @since 5.2.9
+ */
+class OSGiLibIndex {
+    private static final Logger logger = Logger.getLogger(OSGiLibIndex.class.getName());
+    private static final String INDEX_VERSION_LINE = "#version=1";
+    private static final String SEPARATOR = "\t";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the index from the specified file. An empty index is returned if the file does not exist or cannot be
+     * read, in which case every bundle is read again.
+     *
+     * @param indexFile the index file
+     * @return the loaded index
+     */
+    static OSGiLibIndex load(Path indexFile) {
+        OSGiLibIndex index = new OSGiLibIndex();
+        if (!Files.exists(indexFile)) {
+            return index;
+        }
+
+        try {
+            List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !INDEX_VERSION_LINE.equals(lines.get(0))) {
+                return index;
+            }
+            lines.stream()
+                    .filter(line -> !line.startsWith("#"))
+                    .forEach(line -> {
+                        String[] parts = line.split(SEPARATOR, 6);
+                        if (parts.length == 6) {
+                            try {
+                                index.entries.put(parts[5], new Entry(Long.parseLong(parts[0]),
+                                        Long.parseLong(parts[1]), parts[2], parts[3], Boolean.parseBoolean(parts[4])));
+                            } catch (NumberFormatException e) {
+                                logger.log(Level.FINE, "Ignoring invalid OSGi-lib index entry: " + line);
+                            }
+                        }
+                    });
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read the OSGi-lib index " + indexFile + ", the OSGi bundles in the " +
+                    "OSGi-lib directory will be read again", e);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the indexed bundle information of the specified file, if its size and last modified time are the
+     * same as the indexed ones.
+     *
+     * @param fileName     the bundle file name
+     * @param size         the current size of the bundle file
+     * @param lastModified the current last modified time of the bundle file in milliseconds
+     * @return the indexed symbolic name, version and fragment flag, or an empty Optional if the file is not indexed
+     * or has changed since
+     */
+    Optional<Entry> get(String fileName, long size, long lastModified) {
+        Entry entry = entries.get(fileName);
+        if ((entry == null) || (entry.size != size) || (entry.lastModified != lastModified)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    void put(String fileName, long size, long lastModified, BundleInfo bundleInfo) {
+        entries.put(fileName, new Entry(size, lastModified, bundleInfo.getBundleSymbolicName(),
+                bundleInfo.getBundleVersion(), bundleInfo.isFragment()));
+    }
+
+    /**
+     * Writes the index to the specified file, replacing the existing index file.
+     *
+     * @param indexFile the index file
+     * @throws IOException if an I/O error occurs while writing the index
+     */
+    void save(Path indexFile) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(INDEX_VERSION_LINE);
+        new TreeMap<>(entries).forEach((fileName, entry) -> lines.add(entry.size + SEPARATOR + entry.lastModified +
+                SEPARATOR + entry.symbolicName + SEPARATOR + entry.version + SEPARATOR + entry.fragment + SEPARATOR +
+                fileName));
+
+        Path parent = indexFile.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OSGiLibBundleDeployerUtils.write(indexFile, lines);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return (object instanceof OSGiLibIndex) && entries.equals(((OSGiLibIndex) object).entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return entries.hashCode();
+    }
+
+    /**
+     * An OSGi-lib index entry.
+     */
+    static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String symbolicName;
+        private final String version;
+        private final boolean fragment;
+
+        Entry(long size, long lastModified, String symbolicName, String version, boolean fragment) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.symbolicName = symbolicName;
+            this.version = version;
+            this.fragment = fragment;
+        }
+
+        String getSymbolicName() {
+            return symbolicName;
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        boolean isFragment() {
+            return fragment;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) object;
+            return (size == other.size) && (lastModified == other.lastModified) && (fragment == other.fragment) &&
+                    symbolicName.equals(other.symbolicName) && version.equals(other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * symbolicName.hashCode() + version.hashCode()) ^ Long.hashCode(size ^ lastModified);
+        }
+    }
+}
@@ -53,6 +53,10 @@ public class BundleInfo {
         return bundleVersion;
     }
 
+    public boolean isFragment() {
+        return isFragment;
+    }
+
     public BundleLocation isFromOSGiLib() {
         return isFromOSGiLib;
     }
@@ -0,0 +1,185 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.utils;
+
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.config.CarbonInitialBundle;
+import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Utilities for keeping the storage area of the OSGi framework across restarts.
+ * <p>
+ * The storage area is reused only if nothing it was built from has changed since the last start. This is detected by
+ * a fingerprint of the OSGi framework, the initial bundles, the bundles.info file of the Carbon runtime and the
+ * contents of the {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory, which is recorded in the OSGi
+ * configuration area once the framework is started.
+ *
+ * @since 5.2.9
+ */
+public class FrameworkCacheUtils {
+
+    private static final String FINGERPRINT_FILE = "carbon-framework-cache.fingerprint";
+    private static final String SIMPLE_CONFIGURATOR_DIRECTORY = "org.eclipse.equinox.simpleconfigurator";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private FrameworkCacheUtils() {
+    }
+
+    /**
+     * Computes the fingerprint of the contents the OSGi framework storage area is built from.
+     * <p>
+     * The bundles.info file is hashed by its content. The OSGi framework, the initial bundles and the files in the
+     * {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory are hashed by their path, size and last modified
+     * time, which is enough to detect a replaced jar without reading every jar on each start.
+     *
+     * @param config     Carbon launch configuration
+     * @param carbonHome Carbon home directory
+     * @return the fingerprint as a hexadecimal string
+     * @throws IOException if an I/O error occurs while reading the files
+     */
+    public static String getFingerprint(CarbonLaunchConfig config, Path carbonHome) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported by the JVM", e);
+        }
+
+        updateDigest(digest, toPath(config.getCarbonOSGiFramework()));
+        for (CarbonInitialBundle initialBundle : config.getInitialBundles()) {
+            updateDigest(digest, toPath(initialBundle.getLocation()));
+        }
+
+        Path bundlesInfoFile = getBundlesInfoFile(config);
+        digest.update(bundlesInfoFile.toString().getBytes(StandardCharsets.UTF_8));
+        if (Files.exists(bundlesInfoFile)) {
+            digest.update(Files.readAllBytes(bundlesInfoFile));
+        }
+
+        Path libDirectory = carbonHome.resolve(Constants.OSGI_LIB);
+        if (Files.isDirectory(libDirectory)) {
+            List<Path> libFiles;
+            try (Stream<Path> stream = Files.walk(libDirectory)) {
+                libFiles = stream.filter(Files::isRegularFile)
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path libFile : libFiles) {
+                updateDigest(digest, libFile);
+            }
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Decides whether the storage area of the OSGi framework can be reused, by comparing the fingerprint of the
+     * bundles it was built from with the fingerprint recorded at the last start, and sets the osgi.clean property of
+     * the launch configuration accordingly. If the storage area is cleaned, the recorded fingerprint is removed.
+     *
+     * @param config     Carbon launch configuration
+     * @param carbonHome Carbon home directory
+     * @return true if the storage area of the OSGi framework is cleaned
+     * @throws IOException if an I/O error occurs while reading or removing the fingerprint
+     */
+    public static boolean prepareFrameworkStorage(CarbonLaunchConfig config, Path carbonHome) throws IOException {
+        String fingerprint = getFingerprint(config, carbonHome);
+        boolean clean = !getRecordedFingerprint(config)
+                .map(fingerprint::equals)
+                .orElse(false);
+        if (clean) {
+            // The fingerprint is recorded again once the cleaned storage area is populated.
+            recordFingerprint(config, null);
+        }
+        config.setCleanFrameworkStorage(clean);
+        return clean;
+    }
+
+    /**
+     * Returns the fingerprint recorded at the last start of the OSGi framework.
+     *
+     * @param config Carbon launch configuration
+     * @return the recorded fingerprint, or an empty Optional if there is none
+     * @throws IOException if an I/O error occurs while reading the fingerprint
+     */
+    public static Optional<String> getRecordedFingerprint(CarbonLaunchConfig config) throws IOException {
+        Path fingerprintFile = getFingerprintFile(config);
+        if (!Files.exists(fingerprintFile)) {
+            return Optional.empty();
+        }
+        return Optional.of(new String(Files.readAllBytes(fingerprintFile), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Records the given fingerprint, or removes the recorded fingerprint if it is null. The fingerprint should be
+     * removed before the storage area is cleaned, so that an interrupted start is not taken as a valid cache.
+     *
+     * @param config      Carbon launch configuration
+     * @param fingerprint the fingerprint to be recorded, or null
+     * @throws IOException if an I/O error occurs while writing the fingerprint
+     */
+    public static void recordFingerprint(CarbonLaunchConfig config, String fingerprint) throws IOException {
+        Path fingerprintFile = getFingerprintFile(config);
+        if (fingerprint == null) {
+            Files.deleteIfExists(fingerprintFile);
+            return;
+        }
+
+        Files.createDirectories(fingerprintFile.getParent());
+        Path tempFile = fingerprintFile.resolveSibling(FINGERPRINT_FILE + ".tmp");
+        Files.write(tempFile, fingerprint.getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile, fingerprintFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path getFingerprintFile(CarbonLaunchConfig config) {
+        return toPath(config.getOSGiConfigurationArea()).resolve(FINGERPRINT_FILE);
+    }
+
+    private static Path getBundlesInfoFile(CarbonLaunchConfig config) {
+        return toPath(config.getOSGiConfigurationArea()).resolve(SIMPLE_CONFIGURATOR_DIRECTORY)
+                .resolve(Constants.BUNDLES_INFO);
+    }
+
+    private static void updateDigest(MessageDigest digest, Path file) throws IOException {
+        digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+        if (Files.exists(file)) {
+            digest.update((Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Path toPath(URL url) {
+        return Paths.get(url.getPath());
+    }
+}
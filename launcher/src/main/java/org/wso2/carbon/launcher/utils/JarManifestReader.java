@@ -0,0 +1,217 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the manifest of a JAR file without opening it as a {@link JarFile}.
+ * <p>
+ * The end of central directory record is located at the end of the file, and the central directory is scanned only
+ * up to the {@value JarFile#MANIFEST_NAME} entry, which is usually one of the first entries. Only that entry is then
+ * read and inflated, hence no index of the other entries in the file is built. JAR files which cannot be read this
+ * way, such as ZIP64 or encrypted archives, are read using a {@link JarFile}.
+ *
+ * @since 5.2.9
+ */
+public class JarManifestReader {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int MAX_MANIFEST_SIZE = 8 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final byte[] MANIFEST_NAME = JarFile.MANIFEST_NAME.getBytes(StandardCharsets.UTF_8);
+
+    private JarManifestReader() {
+    }
+
+    /**
+     * Reads the manifest of the specified JAR file.
+     *
+     * @param jarFile path to the JAR file
+     * @return the manifest of the JAR file, or an empty Optional if the JAR file has no manifest
+     * @throws IOException if an I/O error occurs or if the specified file is not a valid JAR file
+     */
+    public static Optional<Manifest> readManifest(Path jarFile) throws IOException {
+        byte[] manifestContent;
+        try (FileChannel channel = FileChannel.open(jarFile, StandardOpenOption.READ)) {
+            manifestContent = readManifestContent(channel);
+        } catch (ZipException e) {
+            try (JarFile file = new JarFile(jarFile.toFile())) {
+                return Optional.ofNullable(file.getManifest());
+            }
+        }
+
+        if (manifestContent == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Manifest(new ByteArrayInputStream(manifestContent)));
+    }
+
+    private static byte[] readManifestContent(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            throw new ZipException("File is too small to be a ZIP archive");
+        }
+
+        //  locates the end of central directory record, which is followed by an archive comment of up to 64KB
+        int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+        int recordPosition = -1;
+        for (int position = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if ((tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) && (position
+                    + END_OF_CENTRAL_DIRECTORY_SIZE + (tail.getShort(position + 20) & 0xFFFF) == tailSize)) {
+                recordPosition = position;
+                break;
+            }
+        }
+        if (recordPosition < 0) {
+            throw new ZipException("End of central directory record not found");
+        }
+
+        int entryCount = tail.getShort(recordPosition + 10) & 0xFFFF;
+        long centralDirectorySize = tail.getInt(recordPosition + 12) & 0xFFFFFFFFL;
+        long centralDirectoryOffset = tail.getInt(recordPosition + 16) & 0xFFFFFFFFL;
+        if ((entryCount == 0xFFFF) || (centralDirectorySize == 0xFFFFFFFFL)
+                || (centralDirectoryOffset == 0xFFFFFFFFL)) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+        long centralDirectoryEnd = centralDirectoryOffset + centralDirectorySize;
+        if (centralDirectoryEnd > fileSize - tailSize + recordPosition) {
+            throw new ZipException("Invalid central directory location");
+        }
+
+        //  scans the central directory in chunks, until the manifest entry is found
+        ByteBuffer chunk = ByteBuffer.allocate(0);
+        long chunkOffset = centralDirectoryOffset;
+        long entryOffset = centralDirectoryOffset;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (entryOffset + CENTRAL_DIRECTORY_HEADER_SIZE > chunkOffset + chunk.limit()) {
+                chunkOffset = entryOffset;
+                chunk = read(channel, chunkOffset, (int) Math.min(BUFFER_SIZE, centralDirectoryEnd - chunkOffset));
+            }
+            int header = (int) (entryOffset - chunkOffset);
+            if ((chunk.limit() - header < CENTRAL_DIRECTORY_HEADER_SIZE)
+                    || (chunk.getInt(header) != CENTRAL_DIRECTORY_HEADER_SIGNATURE)) {
+                throw new ZipException("Invalid central directory entry");
+            }
+            int nameLength = chunk.getShort(header + 28) & 0xFFFF;
+            int extraLength = chunk.getShort(header + 30) & 0xFFFF;
+            int commentLength = chunk.getShort(header + 32) & 0xFFFF;
+
+            if (nameLength == MANIFEST_NAME.length) {
+                if (header + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength > chunk.limit()) {
+                    chunkOffset = entryOffset;
+                    chunk = read(channel, chunkOffset, CENTRAL_DIRECTORY_HEADER_SIZE + nameLength);
+                    header = 0;
+                }
+                if (isManifestName(chunk, header + CENTRAL_DIRECTORY_HEADER_SIZE)) {
+                    return readEntry(channel, chunk, header);
+                }
+            }
+            entryOffset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return null;
+    }
+
+    private static byte[] readEntry(FileChannel channel, ByteBuffer centralDirectory, int header) throws IOException {
+        int flags = centralDirectory.getShort(header + 8) & 0xFFFF;
+        int method = centralDirectory.getShort(header + 10) & 0xFFFF;
+        long compressedSize = centralDirectory.getInt(header + 20) & 0xFFFFFFFFL;
+        long size = centralDirectory.getInt(header + 24) & 0xFFFFFFFFL;
+        long localHeaderOffset = centralDirectory.getInt(header + 42) & 0xFFFFFFFFL;
+        if (((flags & 1) != 0) || ((method != STORED) && (method != DEFLATED))) {
+            throw new ZipException("Unsupported manifest entry compression");
+        }
+        if ((compressedSize > MAX_MANIFEST_SIZE) || (size > MAX_MANIFEST_SIZE)) {
+            throw new ZipException("Manifest entry is too large");
+        }
+
+        ByteBuffer localHeader = read(channel, localHeaderOffset, LOCAL_FILE_HEADER_SIZE);
+        if (localHeader.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header");
+        }
+        long dataOffset = localHeaderOffset + LOCAL_FILE_HEADER_SIZE + (localHeader.getShort(26) & 0xFFFF)
+                + (localHeader.getShort(28) & 0xFFFF);
+        byte[] data = read(channel, dataOffset, (int) compressedSize).array();
+        if (method == STORED) {
+            return data;
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] content = new byte[(int) size];
+            int length = 0;
+            while ((length < content.length) && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if ((inflated == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Unexpected end of the manifest entry");
+                }
+                length += inflated;
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid manifest entry: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean isManifestName(ByteBuffer buffer, int position) {
+        for (int index = 0; index < MANIFEST_NAME.length; index++) {
+            byte character = buffer.get(position + index);
+            if ((character >= 'a') && (character <= 'z')) {
+                character -= 'a' - 'A';
+            }
+            if (character != MANIFEST_NAME[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of the JAR file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.extensions.OSGiLibBundleDeployerUtils;
+import org.wso2.carbon.launcher.extensions.model.BundleInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test the update of the bundles.info files of multiple Carbon Runtimes with the OSGi-lib bundle information.
+ *
+ * @since 5.2.9
+ */
+public class BundlesInfoUpdateTest {
+    private static final List<String> PROFILES = Arrays.asList("default", "mss", "worker");
+    private static final String NON_OSGI_LIB_BUNDLE =
+            "org.eclipse.osgi,3.11.3,../../plugins/org.eclipse.osgi_3.11.3.jar,4,true";
+    private static final int CONCURRENT_UPDATES = 40;
+
+    private Path carbonHome;
+
+    @BeforeClass
+    public void init() throws IOException {
+        carbonHome = Files.createTempDirectory("bundles-info-update");
+        for (String profile : PROFILES) {
+            Path bundlesInfo = getBundlesInfoFile(profile);
+            Files.createDirectories(bundlesInfo.getParent());
+            Files.write(bundlesInfo, Arrays.asList("#version=1", NON_OSGI_LIB_BUNDLE));
+        }
+    }
+
+    @AfterClass
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(carbonHome.toFile());
+    }
+
+    @Test
+    public void testUpdatingMultipleProfiles() throws IOException {
+        List<BundleInfo> bundlesInfo = createBundlesInfo(3);
+        OSGiLibBundleDeployerUtils.updateOSGiLibForProfiles(carbonHome.toString(), PROFILES, bundlesInfo);
+        for (String profile : PROFILES) {
+            assertBundlesInfo(profile, bundlesInfo);
+        }
+    }
+
+    @Test(dependsOnMethods = "testUpdatingMultipleProfiles")
+    public void testConcurrentUpdates() throws Exception {
+        List<List<BundleInfo>> updates = Arrays.asList(createBundlesInfo(2), createBundlesInfo(5));
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int index = 0; index < CONCURRENT_UPDATES; index++) {
+                List<BundleInfo> bundlesInfo = updates.get(index % updates.size());
+                futures.add(executorService.submit(() -> {
+                    OSGiLibBundleDeployerUtils.updateOSGiLibForProfiles(carbonHome.toString(), PROFILES,
+                            bundlesInfo);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        //  each bundles.info file is the complete result of one of the updates, and no temporary file is left behind
+        for (String profile : PROFILES) {
+            int lineCount = Files.readAllLines(getBundlesInfoFile(profile)).size();
+            assertBundlesInfo(profile, updates.get(lineCount == 3 ? 0 : 1));
+            try (Stream<Path> files = Files.list(getBundlesInfoFile(profile).getParent())) {
+                Assert.assertEquals(files.count(), 1);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testUpdatingWithInvalidProfile() throws IOException {
+        OSGiLibBundleDeployerUtils.updateOSGiLibForProfiles(carbonHome.toString(), Arrays.asList("default", ""),
+                new ArrayList<>());
+    }
+
+    @Test(expectedExceptions = {IOException.class})
+    public void testUpdatingNonExistingProfile() throws IOException {
+        OSGiLibBundleDeployerUtils.updateOSGiLibForProfiles(carbonHome.toString(), Arrays.asList("non-existing"),
+                createBundlesInfo(1));
+    }
+
+    private Path getBundlesInfoFile(String profile) {
+        return Paths.get(carbonHome.toString(), Constants.PROFILE_REPOSITORY, profile, "configuration",
+                "org.eclipse.equinox.simpleconfigurator", Constants.BUNDLES_INFO);
+    }
+
+    private void assertBundlesInfo(String profile, List<BundleInfo> osgiLibBundlesInfo) throws IOException {
+        List<BundleInfo> expected = new ArrayList<>(osgiLibBundlesInfo);
+        expected.add(BundleInfo.getInstance(NON_OSGI_LIB_BUNDLE));
+        List<BundleInfo> actual = Files.readAllLines(getBundlesInfoFile(profile))
+                .stream()
+                .map(BundleInfo::getInstance)
+                .collect(Collectors.toList());
+        Assert.assertEquals(actual.size(), expected.size());
+        Assert.assertEquals(new HashSet<>(actual), new HashSet<>(expected));
+    }
+
+    private static List<BundleInfo> createBundlesInfo(int count) {
+        List<BundleInfo> bundlesInfo = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            bundlesInfo.add(BundleInfo.getInstance("org.wso2.carbon.test" + index + ",1.0.0,../../" +
+                    Constants.OSGI_LIB + "/org.wso2.carbon.test" + index + "_1.0.0.jar,4,false"));
+        }
+        return bundlesInfo;
+    }
+}
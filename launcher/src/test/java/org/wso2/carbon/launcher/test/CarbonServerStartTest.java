@@ -19,6 +19,7 @@ import static org.wso2.carbon.launcher.Constants.LAUNCH_PROPERTIES_FILE;
 import static org.wso2.carbon.launcher.Constants.LOG_LEVEL_WARN;
 import static org.wso2.carbon.launcher.Constants.PAX_DEFAULT_SERVICE_LOG_LEVEL;
 import static org.wso2.carbon.launcher.Constants.PROFILE;
+import static org.wso2.carbon.launcher.Constants.STARTUP_PHASE_PREFIX;
 /**
  * Test server start and stop events.
  *
@@ -48,6 +49,7 @@ public class CarbonServerStartTest extends BaseTest {
     @Test(dependsOnMethods = {"stopCarbonServerTestCase"})
     public void startCarbonServerTestCase() throws Exception {
         carbonServer.start();
+        Assert.assertNotNull(System.getProperty(STARTUP_PHASE_PREFIX + "framework.start"));
     }
 
     @Test
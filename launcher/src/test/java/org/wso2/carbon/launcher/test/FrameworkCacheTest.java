@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+import org.wso2.carbon.launcher.utils.FrameworkCacheUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.wso2.carbon.launcher.Constants.DEFAULT_PROFILE;
+import static org.wso2.carbon.launcher.Constants.PROFILE;
+
+/**
+ * Test the warm start mode, which keeps the OSGi framework storage across restarts. The launch configuration points
+ * to a Carbon home created for each test, so that its files can be edited without starting the OSGi framework.
+ *
+ * @since 5.2.9
+ */
+public class FrameworkCacheTest extends BaseTest {
+
+    private Path carbonHome;
+    private Path frameworkJar;
+    private Path initialBundleJar;
+    private Path bundlesInfoFile;
+    private Path libDirectory;
+    private CarbonLaunchConfig launchConfig;
+
+    @BeforeClass
+    public void init() {
+        setupCarbonHome();
+        String profileName = System.getProperty(PROFILE);
+        if (profileName == null || profileName.length() == 0) {
+            System.setProperty(PROFILE, DEFAULT_PROFILE);
+        }
+    }
+
+    @BeforeMethod
+    public void createCarbonHome() throws IOException {
+        carbonHome = Files.createTempDirectory("framework-cache");
+        Path pluginsDirectory = Files.createDirectories(carbonHome.resolve("osgi").resolve("plugins"));
+        frameworkJar = Files.write(pluginsDirectory.resolve("framework.jar"), new byte[]{0});
+        initialBundleJar = Files.write(pluginsDirectory.resolve("initial-bundle.jar"), new byte[]{0});
+
+        Path configurationArea = carbonHome.resolve("configuration");
+        bundlesInfoFile = Files.createDirectories(configurationArea.resolve("org.eclipse.equinox.simpleconfigurator"))
+                .resolve(Constants.BUNDLES_INFO);
+        Files.write(bundlesInfoFile, "bundle,1.0.0,../plugins/bundle.jar,4,true".getBytes(StandardCharsets.UTF_8));
+
+        libDirectory = Files.createDirectories(carbonHome.resolve(Constants.OSGI_LIB));
+        Files.write(libDirectory.resolve("lib-bundle.jar"), new byte[]{0});
+
+        Properties launchProperties = new Properties();
+        launchProperties.setProperty(Constants.CARBON_OSGI_REPOSITORY, "file:" + carbonHome.resolve("osgi"));
+        launchProperties.setProperty(Constants.CARBON_OSGI_FRAMEWORK, "file:plugins/framework.jar");
+        launchProperties.setProperty(Constants.CARBON_INITIAL_OSGI_BUNDLES, "file:plugins/initial-bundle.jar@1:true");
+        launchProperties.setProperty(Constants.OSGI_CONFIG_AREA, "file:" + configurationArea);
+        launchProperties.setProperty(Constants.CARBON_OSGI_WARM_START, "true");
+        Path launchPropFile = carbonHome.resolve("launch.properties");
+        try (OutputStream outputStream = Files.newOutputStream(launchPropFile)) {
+            launchProperties.store(outputStream, null);
+        }
+        launchConfig = new CarbonLaunchConfig(launchPropFile.toFile());
+    }
+
+    @AfterMethod
+    public void deleteCarbonHome() throws IOException {
+        try (Stream<Path> stream = Files.walk(carbonHome)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testFingerprintIsStable() throws IOException {
+        Assert.assertTrue(launchConfig.isWarmStartEnabled());
+        String fingerprint = FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome);
+        Assert.assertEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+        Assert.assertEquals(FrameworkCacheUtils.getFingerprint(new CarbonLaunchConfig(
+                carbonHome.resolve("launch.properties").toFile()), carbonHome), fingerprint);
+    }
+
+    @Test
+    public void testFingerprintChangesWithFrameworkJar() throws IOException {
+        String fingerprint = FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome);
+        Files.write(frameworkJar, new byte[]{1}, StandardOpenOption.APPEND);
+        Assert.assertNotEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+    }
+
+    @Test
+    public void testFingerprintChangesWithInitialBundleJar() throws IOException {
+        String fingerprint = FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome);
+        Files.write(initialBundleJar, new byte[]{1}, StandardOpenOption.APPEND);
+        Assert.assertNotEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+    }
+
+    @Test
+    public void testFingerprintChangesWithBundlesInfo() throws IOException {
+        String fingerprint = FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome);
+        // The bundles.info file is hashed by its content, hence an edit of the same size is detected as well.
+        Files.write(bundlesInfoFile, "bundle,2.0.0,../plugins/bundle.jar,4,true".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNotEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+    }
+
+    @Test
+    public void testFingerprintChangesWithOSGiLib() throws IOException {
+        String fingerprint = FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome);
+
+        Path newBundle = Files.write(libDirectory.resolve("new-lib-bundle.jar"), new byte[]{0});
+        Assert.assertNotEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+        Files.delete(newBundle);
+        Assert.assertEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+
+        Files.write(libDirectory.resolve("lib-bundle.jar"), new byte[]{1}, StandardOpenOption.APPEND);
+        Assert.assertNotEquals(FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome), fingerprint);
+    }
+
+    @Test
+    public void testRecordFingerprint() throws IOException {
+        FrameworkCacheUtils.recordFingerprint(launchConfig, "fingerprint");
+        Assert.assertEquals(FrameworkCacheUtils.getRecordedFingerprint(launchConfig), Optional.of("fingerprint"));
+
+        FrameworkCacheUtils.recordFingerprint(launchConfig, null);
+        Assert.assertEquals(FrameworkCacheUtils.getRecordedFingerprint(launchConfig), Optional.empty());
+    }
+
+    @Test
+    public void testColdAndWarmStart() throws IOException {
+        // Cold start, as no fingerprint is recorded yet.
+        Assert.assertTrue(FrameworkCacheUtils.prepareFrameworkStorage(launchConfig, carbonHome));
+        Assert.assertEquals(launchConfig.getProperties().get(Constants.OSGI_CLEAN), "true");
+
+        // The Carbon server records the fingerprint once the OSGi framework is started.
+        FrameworkCacheUtils.recordFingerprint(launchConfig,
+                FrameworkCacheUtils.getFingerprint(launchConfig, carbonHome));
+
+        // Warm start, as nothing has changed since the last start.
+        Assert.assertFalse(FrameworkCacheUtils.prepareFrameworkStorage(launchConfig, carbonHome));
+        Assert.assertEquals(launchConfig.getProperties().get(Constants.OSGI_CLEAN), "false");
+        Assert.assertTrue(FrameworkCacheUtils.getRecordedFingerprint(launchConfig).isPresent());
+
+        // Cold start, as the bundles.info file has changed, which removes the recorded fingerprint.
+        Files.write(bundlesInfoFile, "bundle,2.0.0,../plugins/bundle.jar,4,true".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(FrameworkCacheUtils.prepareFrameworkStorage(launchConfig, carbonHome));
+        Assert.assertEquals(launchConfig.getProperties().get(Constants.OSGI_CLEAN), "true");
+        Assert.assertEquals(FrameworkCacheUtils.getRecordedFingerprint(launchConfig), Optional.empty());
+    }
+}
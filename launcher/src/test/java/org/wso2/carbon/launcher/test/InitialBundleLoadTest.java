@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.CarbonServer;
+import org.wso2.carbon.launcher.CarbonServerEvent;
+import org.wso2.carbon.launcher.CarbonServerListener;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.InitialBundleLoadTime;
+import org.wso2.carbon.launcher.ServerStatus;
+import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+import org.wso2.carbon.launcher.utils.Utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.wso2.carbon.launcher.Constants.DEFAULT_PROFILE;
+import static org.wso2.carbon.launcher.Constants.LOG_LEVEL_WARN;
+import static org.wso2.carbon.launcher.Constants.PAX_DEFAULT_SERVICE_LOG_LEVEL;
+import static org.wso2.carbon.launcher.Constants.PROFILE;
+
+/**
+ * Test installing and starting the initial bundles in parallel.
+ *
+ * @since 5.2.9
+ */
+public class InitialBundleLoadTest extends BaseTest {
+    private static final Logger logger = Logger.getLogger(InitialBundleLoadTest.class.getName());
+
+    private static volatile CarbonServerEvent initialBundlesLoadedEvent;
+
+    private CarbonLaunchConfig launchConfig;
+
+    @BeforeClass
+    public void init() throws IOException {
+        setupCarbonHome();
+        String profileName = System.getProperty(PROFILE);
+        if (profileName == null || profileName.length() == 0) {
+            System.setProperty(PROFILE, DEFAULT_PROFILE);
+        }
+
+        // Set log level for Pax logger to WARN.
+        System.setProperty(PAX_DEFAULT_SERVICE_LOG_LEVEL, LOG_LEVEL_WARN);
+
+        Path pluginsDirectory = Utils.getCarbonHomeDirectory().resolve(Constants.OSGI_REPOSITORY)
+                .resolve(Constants.PLUGINS);
+        Files.createDirectories(pluginsDirectory);
+        createBundle(pluginsDirectory.resolve("org.wso2.carbon.launcher.test.first_1.0.0.jar"),
+                "org.wso2.carbon.launcher.test.first");
+        createBundle(pluginsDirectory.resolve("org.wso2.carbon.launcher.test.second_1.0.0.jar"),
+                "org.wso2.carbon.launcher.test.second");
+
+        Path launchPropFile = Files.createTempFile("parallel-launch", ".properties");
+        String launchProperties = Constants.CARBON_INITIAL_OSGI_BUNDLES_PARALLEL + "=true\n" +
+                Constants.CARBON_SERVER_LISTENERS + "=" + InitialBundlesLoadedListener.class.getName() + "\n" +
+                Constants.CARBON_INITIAL_OSGI_BUNDLES + "=" +
+                "file\\:plugins/org.wso2.carbon.launcher.test.first_1.0.0.jar@2\\:true," +
+                "file\\:plugins/org.wso2.carbon.launcher.test.second_1.0.0.jar@2\\:true\n";
+        Files.write(launchPropFile, launchProperties.getBytes(StandardCharsets.ISO_8859_1));
+        launchConfig = new CarbonLaunchConfig(launchPropFile.toFile());
+        Files.delete(launchPropFile);
+    }
+
+    @Test
+    public void testParallelInitialBundleLoading() throws Exception {
+        Assert.assertTrue(launchConfig.isParallelInitialBundleLoadingEnabled());
+
+        CarbonServer carbonServer = new CarbonServer(launchConfig);
+        Thread stopThread = new Thread(() -> {
+            try {
+                while (carbonServer.getServerCurrentStatus() != ServerStatus.STARTED) {
+                    Thread.sleep(10);
+                }
+                carbonServer.stop();
+            } catch (InterruptedException e) {
+                logger.warning("Error while calling thread.sleep");
+            }
+        });
+        stopThread.start();
+        carbonServer.start();
+        stopThread.join();
+
+        Assert.assertNotNull(initialBundlesLoadedEvent);
+        List<InitialBundleLoadTime> loadTimes = initialBundlesLoadedEvent.getInitialBundleLoadTimes();
+        // Load times are reported in the order of the initial bundles in the launch configuration.
+        Assert.assertEquals(loadTimes.stream().map(InitialBundleLoadTime::getInitialBundle)
+                .collect(Collectors.toList()), launchConfig.getInitialBundles());
+        Assert.assertTrue(loadTimes.stream().map(InitialBundleLoadTime::getSymbolicName)
+                .collect(Collectors.toList()).containsAll(Arrays.asList("org.wso2.carbon.launcher.test.first",
+                        "org.wso2.carbon.launcher.test.second")));
+        loadTimes.forEach(loadTime -> {
+            Assert.assertTrue(loadTime.getInstallTime() >= 0);
+            Assert.assertTrue(loadTime.getStartTime() >= 0);
+        });
+    }
+
+    private static void createBundle(Path bundlePath, String symbolicName) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", symbolicName);
+        attributes.putValue("Bundle-Version", "1.0.0");
+        try (OutputStream outputStream = Files.newOutputStream(bundlePath);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest)) {
+            jarOutputStream.flush();
+        }
+    }
+
+    /**
+     * Carbon server listener which captures the {@link CarbonServerEvent#INITIAL_BUNDLES_LOADED} event.
+     */
+    public static class InitialBundlesLoadedListener implements CarbonServerListener {
+
+        @Override
+        public void notify(CarbonServerEvent event) {
+            if (event.getType() == CarbonServerEvent.INITIAL_BUNDLES_LOADED) {
+                initialBundlesLoadedEvent = event;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.utils.JarManifestReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Test reading JAR file manifests using the {@link JarManifestReader}.
+ *
+ * @since 5.2.9
+ */
+public class JarManifestReaderTest {
+    private static final Logger logger = Logger.getLogger(JarManifestReaderTest.class.getName());
+    private static final int LARGE_BUNDLE_ENTRY_COUNT = 20000;
+    private static final int BENCHMARK_ITERATIONS = 50;
+
+    private Path workDirectory;
+
+    @BeforeClass
+    public void init() throws IOException {
+        workDirectory = Files.createTempDirectory("jar-manifest-reader");
+    }
+
+    @AfterClass
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(workDirectory.toFile());
+    }
+
+    @Test
+    public void testReadingDeflatedManifest() throws IOException {
+        Path bundle = workDirectory.resolve("deflated.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(bundle),
+                createManifest("org.wso2.carbon.deflated"))) {
+            addEntries(outputStream, 10);
+            outputStream.setComment("A JAR file comment");
+        }
+        assertManifest(bundle, "org.wso2.carbon.deflated");
+    }
+
+    @Test
+    public void testReadingStoredManifestAfterOtherEntries() throws IOException {
+        Path bundle = workDirectory.resolve("stored.jar");
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(bundle))) {
+            addEntries(outputStream, 10);
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            createManifest("org.wso2.carbon.stored").write(content);
+            byte[] manifestContent = content.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(manifestContent);
+            ZipEntry manifestEntry = new ZipEntry("meta-inf/manifest.mf");
+            manifestEntry.setMethod(ZipEntry.STORED);
+            manifestEntry.setSize(manifestContent.length);
+            manifestEntry.setCrc(crc.getValue());
+            outputStream.putNextEntry(manifestEntry);
+            outputStream.write(manifestContent);
+            outputStream.closeEntry();
+        }
+        assertManifest(bundle, "org.wso2.carbon.stored");
+    }
+
+    @Test
+    public void testReadingJarWithoutManifest() throws IOException {
+        Path jar = workDirectory.resolve("no-manifest.jar");
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+            addEntries(outputStream, 10);
+        }
+        Assert.assertEquals(JarManifestReader.readManifest(jar), Optional.empty());
+    }
+
+    @Test(expectedExceptions = {IOException.class})
+    public void testReadingInvalidJar() throws IOException {
+        Path jar = workDirectory.resolve("invalid.jar");
+        Files.write(jar, "not a JAR file".getBytes(StandardCharsets.UTF_8));
+        JarManifestReader.readManifest(jar);
+    }
+
+    @Test
+    public void testReadingLargeBundleManifest() throws IOException {
+        Path bundle = workDirectory.resolve("large.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(bundle),
+                createManifest("org.wso2.carbon.large"))) {
+            addEntries(outputStream, LARGE_BUNDLE_ENTRY_COUNT);
+        }
+        assertManifest(bundle, "org.wso2.carbon.large");
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            try (JarFile jarFile = new JarFile(bundle.toFile())) {
+                Assert.assertNotNull(jarFile.getManifest());
+            }
+        }
+        long jarFileTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            Assert.assertTrue(JarManifestReader.readManifest(bundle).isPresent());
+        }
+        long readerTime = System.nanoTime() - startTime;
+
+        logger.info(String.format("Read the manifest of a bundle with %d entries %d times, JarFile: %d ms, " +
+                        "JarManifestReader: %d ms", LARGE_BUNDLE_ENTRY_COUNT, BENCHMARK_ITERATIONS,
+                jarFileTime / 1000000, readerTime / 1000000));
+    }
+
+    private static void assertManifest(Path bundle, String symbolicName) throws IOException {
+        Optional<Manifest> manifest = JarManifestReader.readManifest(bundle);
+        Assert.assertTrue(manifest.isPresent());
+        Assert.assertEquals(manifest.get().getMainAttributes().getValue("Bundle-SymbolicName"), symbolicName);
+        try (JarFile jarFile = new JarFile(bundle.toFile())) {
+            Assert.assertEquals(manifest.get(), jarFile.getManifest());
+        }
+    }
+
+    private static Manifest createManifest(String symbolicName) {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", symbolicName);
+        attributes.putValue("Bundle-Version", "1.0.0");
+        return manifest;
+    }
+
+    private static void addEntries(ZipOutputStream outputStream, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            outputStream.putNextEntry(new ZipEntry("org/wso2/carbon/test/package" + (i % 100) + "/Class" + i +
+                    ".class"));
+            outputStream.write(("class " + i).getBytes(StandardCharsets.UTF_8));
+            outputStream.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.extensions.OSGiLibBundleDeployerUtils;
+import org.wso2.carbon.launcher.extensions.model.BundleInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+
+/**
+ * Test the incremental scanning of the {@value org.wso2.carbon.launcher.Constants#OSGI_LIB} directory using the
+ * OSGi-lib index.
+ *
+ * @since 5.2.9
+ */
+public class OSGiLibIndexTest {
+    private static final Logger logger = Logger.getLogger(OSGiLibIndexTest.class.getName());
+    private static final int BENCHMARK_BUNDLE_COUNT = 1000;
+
+    private Path workDirectory;
+    private Path libDirectory;
+    private Path indexFile;
+
+    @BeforeClass
+    public void init() throws IOException {
+        workDirectory = Files.createTempDirectory("osgi-lib-index");
+        libDirectory = Files.createDirectories(workDirectory.resolve(Constants.OSGI_LIB));
+        indexFile = workDirectory.resolve(Constants.OSGI_LIB_INDEX);
+    }
+
+    @AfterClass
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(workDirectory.toFile());
+    }
+
+    @Test
+    public void testUnchangedBundlesAreNotReopened() throws IOException {
+        Path bundle = libDirectory.resolve("org.wso2.carbon.index.test_1.0.0.jar");
+        createBundle(bundle, "org.wso2.carbon.index.test", false);
+        createBundle(libDirectory.resolve("org.wso2.carbon.index.fragment_1.0.0.jar"),
+                "org.wso2.carbon.index.fragment", true);
+
+        List<BundleInfo> bundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile);
+        Assert.assertEquals(bundlesInfo.size(), 2);
+        Assert.assertTrue(Files.exists(indexFile));
+        FileTime indexModifiedTime = Files.getLastModifiedTime(indexFile);
+
+        // Replaces the bundle content with an invalid jar of the same size, which is never read while the size and
+        // the last modified time of the bundle stay the same.
+        FileTime bundleModifiedTime = Files.getLastModifiedTime(bundle);
+        Files.write(bundle, new byte[(int) Files.size(bundle)]);
+        Files.setLastModifiedTime(bundle, bundleModifiedTime);
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(indexModifiedTime.toMillis() - 10000));
+        indexModifiedTime = Files.getLastModifiedTime(indexFile);
+
+        List<BundleInfo> indexedBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile);
+        Assert.assertEquals(new HashSet<>(indexedBundlesInfo), new HashSet<>(bundlesInfo));
+        Assert.assertEquals(indexedBundlesInfo.stream().filter(BundleInfo::isFragment).count(), 1);
+        Assert.assertEquals(Files.getLastModifiedTime(indexFile), indexModifiedTime);
+
+        // Once the bundle is modified, it is read again and dropped as it is no longer a valid OSGi bundle.
+        Files.setLastModifiedTime(bundle, FileTime.fromMillis(bundleModifiedTime.toMillis() + 10000));
+        List<BundleInfo> updatedBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile);
+        Assert.assertEquals(updatedBundlesInfo.size(), 1);
+        Assert.assertEquals(updatedBundlesInfo.get(0).getBundleSymbolicName(), "org.wso2.carbon.index.fragment");
+        Assert.assertNotEquals(Files.getLastModifiedTime(indexFile), indexModifiedTime);
+
+        Files.delete(bundle);
+        Files.delete(libDirectory.resolve("org.wso2.carbon.index.fragment_1.0.0.jar"));
+        Assert.assertTrue(OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile).isEmpty());
+    }
+
+    @Test(dependsOnMethods = {"testUnchangedBundlesAreNotReopened"})
+    public void testScanningWithAndWithoutIndex() throws IOException {
+        for (int i = 0; i < BENCHMARK_BUNDLE_COUNT; i++) {
+            createBundle(libDirectory.resolve("org.wso2.carbon.benchmark" + i + "_1.0.0.jar"),
+                    "org.wso2.carbon.benchmark" + i, false);
+        }
+        Files.deleteIfExists(indexFile);
+
+        long startTime = System.nanoTime();
+        List<BundleInfo> fullScan = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory);
+        long fullScanTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<BundleInfo> indexingScan = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile);
+        long indexingScanTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        List<BundleInfo> indexedScan = OSGiLibBundleDeployerUtils.getBundlesInfo(libDirectory, indexFile);
+        long indexedScanTime = System.nanoTime() - startTime;
+
+        Assert.assertEquals(fullScan.size(), BENCHMARK_BUNDLE_COUNT);
+        Assert.assertEquals(new HashSet<>(indexingScan), new HashSet<>(fullScan));
+        Assert.assertEquals(new HashSet<>(indexedScan), new HashSet<>(fullScan));
+        logger.info(String.format("Scanned %d OSGi bundles, full scan: %d ms, indexing scan: %d ms, " +
+                        "indexed scan: %d ms", BENCHMARK_BUNDLE_COUNT, fullScanTime / 1000000,
+                indexingScanTime / 1000000, indexedScanTime / 1000000));
+    }
+
+    private static void createBundle(Path bundlePath, String symbolicName, boolean fragment) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", symbolicName);
+        attributes.putValue("Bundle-Version", "1.0.0");
+        if (fragment) {
+            attributes.putValue("Fragment-Host", "org.eclipse.osgi");
+        }
+        try (OutputStream outputStream = Files.newOutputStream(bundlePath);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest)) {
+            jarOutputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.launcher.test;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.launcher.Constants;
+import org.wso2.carbon.launcher.ShutdownCoordinator;
+import org.wso2.carbon.launcher.config.CarbonLaunchConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.wso2.carbon.launcher.Constants.DEFAULT_PROFILE;
+import static org.wso2.carbon.launcher.Constants.LOG_LEVEL_WARN;
+import static org.wso2.carbon.launcher.Constants.PAX_DEFAULT_SERVICE_LOG_LEVEL;
+import static org.wso2.carbon.launcher.Constants.PROFILE;
+
+/**
+ * Test stopping the bundles and the OSGi framework using {@link ShutdownCoordinator}.
+ *
+ * @since 5.2.9
+ */
+public class ShutdownCoordinatorTest extends BaseTest {
+    private static final String STOP_DELAY_HEADER = "Carbon-Test-Stop-Delay";
+    private static final String STOPPING_AT_PROPERTY = "carbon.test.bundle.stopping.";
+    private static final String STOPPED_AT_PROPERTY = "carbon.test.bundle.stopped.";
+    private static final String RELEASE_PROPERTY = "carbon.test.bundle.release.";
+    private static final String PROVIDER_PACKAGE = "org.wso2.carbon.launcher.test.shutdown.provider";
+    private static final long STOP_DELAY = 600;
+
+    private CarbonLaunchConfig launchConfig;
+    private Path bundlesDirectory;
+    private Framework framework;
+
+    @BeforeClass
+    public void init() throws IOException {
+        setupCarbonHome();
+        String profileName = System.getProperty(PROFILE);
+        if (profileName == null || profileName.length() == 0) {
+            System.setProperty(PROFILE, DEFAULT_PROFILE);
+        }
+
+        // Set log level for Pax logger to WARN.
+        System.setProperty(PAX_DEFAULT_SERVICE_LOG_LEVEL, LOG_LEVEL_WARN);
+
+        Path launchPropFile = Files.createTempFile("shutdown-launch", ".properties");
+        String launchProperties = Constants.CARBON_SHUTDOWN_TIMEOUT + "=5000\n" +
+                Constants.CARBON_SHUTDOWN_BUNDLE_STOP_BUDGET + "=100\n" +
+                Constants.CARBON_SHUTDOWN_BUNDLES_PARALLEL + "=true\n";
+        Files.write(launchPropFile, launchProperties.getBytes(StandardCharsets.ISO_8859_1));
+        launchConfig = new CarbonLaunchConfig(launchPropFile.toFile());
+        Files.delete(launchPropFile);
+
+        bundlesDirectory = Files.createTempDirectory("shutdown-bundles");
+    }
+
+    @AfterMethod
+    public void stopFramework() throws Exception {
+        if (framework != null) {
+            framework.stop();
+            framework.waitForStop(10000);
+            framework = null;
+        }
+    }
+
+    @Test
+    public void testShutdownConfiguration() {
+        Assert.assertEquals(launchConfig.getShutdownTimeout(), 5000);
+        Assert.assertEquals(launchConfig.getBundleStopBudget(), 100);
+        Assert.assertTrue(launchConfig.isParallelBundleStopEnabled());
+        Assert.assertEquals(new CarbonLaunchConfig().getShutdownTimeout(), Constants.DEFAULT_SHUTDOWN_TIMEOUT);
+        Assert.assertFalse(new CarbonLaunchConfig().isParallelBundleStopEnabled());
+    }
+
+    @Test
+    public void testParallelShutdownByStartLevel() throws Exception {
+        framework = startFramework();
+        installBundle("org.wso2.carbon.launcher.test.shutdown.low", 2, 0);
+        installBundle("org.wso2.carbon.launcher.test.shutdown.high1", 3, STOP_DELAY);
+        installBundle("org.wso2.carbon.launcher.test.shutdown.high2", 3, STOP_DELAY);
+
+        ShutdownCoordinator shutdownCoordinator = new ShutdownCoordinator(framework,
+                launchConfig.getShutdownTimeout(), launchConfig.getBundleStopBudget(),
+                launchConfig.isParallelBundleStopEnabled());
+        Assert.assertTrue(shutdownCoordinator.shutdown());
+        // Bundles of the same start level are stopped in parallel, hence each started stopping before the other
+        // stopped.
+        Assert.assertTrue(getTimestamp(STOPPING_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.high1") <
+                getTimestamp(STOPPED_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.high2"));
+        Assert.assertTrue(getTimestamp(STOPPING_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.high2") <
+                getTimestamp(STOPPED_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.high1"));
+
+        Map<String, Long> bundleStopTimes = shutdownCoordinator.getBundleStopTimes();
+        Assert.assertTrue(bundleStopTimes.get("org.wso2.carbon.launcher.test.shutdown.high1:1.0.0") >= STOP_DELAY);
+        Assert.assertTrue(bundleStopTimes.get("org.wso2.carbon.launcher.test.shutdown.high2:1.0.0") >= STOP_DELAY);
+        Assert.assertTrue(bundleStopTimes.keySet().iterator().next().startsWith(
+                "org.wso2.carbon.launcher.test.shutdown.high"));
+        Assert.assertTrue(bundleStopTimes.containsKey("org.wso2.carbon.launcher.test.shutdown.low:1.0.0"));
+
+        // Bundles are stopped in the descending order of the start levels.
+        long lowStoppedAt = Long.parseLong(System.getProperty(STOPPED_AT_PROPERTY +
+                "org.wso2.carbon.launcher.test.shutdown.low"));
+        Assert.assertTrue(lowStoppedAt >= Long.parseLong(System.getProperty(STOPPED_AT_PROPERTY +
+                "org.wso2.carbon.launcher.test.shutdown.high1")));
+        Assert.assertTrue(lowStoppedAt >= Long.parseLong(System.getProperty(STOPPED_AT_PROPERTY +
+                "org.wso2.carbon.launcher.test.shutdown.high2")));
+    }
+
+    @Test
+    public void testParallelShutdownByWiring() throws Exception {
+        framework = startFramework();
+        installBundle("org.wso2.carbon.launcher.test.shutdown.provider", 3, 0, "Export-Package", PROVIDER_PACKAGE);
+        installBundle("org.wso2.carbon.launcher.test.shutdown.consumer", 3, STOP_DELAY, "Import-Package",
+                "org.osgi.framework," + PROVIDER_PACKAGE);
+
+        Assert.assertTrue(new ShutdownCoordinator(framework, launchConfig.getShutdownTimeout(),
+                launchConfig.getBundleStopBudget(), true).shutdown());
+        // The provider is stopped only after the bundle which imports its package, although both are of the same
+        // start level.
+        Assert.assertTrue(getTimestamp(STOPPING_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.provider") >=
+                getTimestamp(STOPPED_AT_PROPERTY, "org.wso2.carbon.launcher.test.shutdown.consumer"));
+    }
+
+    @Test
+    public void testShutdownTimeout() throws Exception {
+        framework = startFramework();
+        // The bundle does not stop until it is released.
+        String slowBundle = "org.wso2.carbon.launcher.test.shutdown.slow";
+        installBundle(slowBundle, 3, 100 * STOP_DELAY);
+
+        try {
+            Assert.assertFalse(new ShutdownCoordinator(framework, STOP_DELAY, 100).shutdown());
+            // The shutdown does not wait for the bundle to stop once the shutdown timeout has elapsed.
+            Assert.assertNotNull(System.getProperty(STOPPING_AT_PROPERTY + slowBundle));
+            Assert.assertNull(System.getProperty(STOPPED_AT_PROPERTY + slowBundle));
+        } finally {
+            System.setProperty(RELEASE_PROPERTY + slowBundle, "true");
+        }
+    }
+
+    private Framework startFramework() throws BundleException {
+        ClassLoader classLoader = new URLClassLoader(new URL[]{launchConfig.getCarbonOSGiFramework()});
+        FrameworkFactory frameworkFactory = ServiceLoader.load(FrameworkFactory.class, classLoader).iterator().next();
+        Framework osgiFramework = frameworkFactory.newFramework(launchConfig.getProperties());
+        osgiFramework.start();
+        return osgiFramework;
+    }
+
+    private void installBundle(String symbolicName, int startLevel, long stopDelay)
+            throws IOException, BundleException {
+        installBundle(symbolicName, startLevel, stopDelay, "Import-Package", "org.osgi.framework");
+    }
+
+    private void installBundle(String symbolicName, int startLevel, long stopDelay, String headerName,
+                               String headerValue) throws IOException, BundleException {
+        Path bundlePath = bundlesDirectory.resolve(symbolicName + "_1.0.0.jar");
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-ManifestVersion", "2");
+        attributes.putValue("Bundle-SymbolicName", symbolicName);
+        attributes.putValue("Bundle-Version", "1.0.0");
+        attributes.putValue("Bundle-Activator", DelayedStopActivator.class.getName());
+        attributes.putValue("Import-Package", "org.osgi.framework");
+        attributes.putValue(headerName, headerValue);
+        attributes.putValue(STOP_DELAY_HEADER, Long.toString(stopDelay));
+
+        // The activator is packaged in the bundle, hence it is loaded by the class loader of the bundle.
+        String activatorEntry = DelayedStopActivator.class.getName().replace('.', '/') + ".class";
+        try (OutputStream outputStream = Files.newOutputStream(bundlePath);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream, manifest);
+             InputStream activator = DelayedStopActivator.class.getClassLoader()
+                     .getResourceAsStream(activatorEntry)) {
+            jarOutputStream.putNextEntry(new JarEntry(activatorEntry));
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = activator.read(buffer)) != -1) {
+                jarOutputStream.write(buffer, 0, length);
+            }
+            jarOutputStream.closeEntry();
+        }
+
+        Bundle bundle = framework.getBundleContext().installBundle(bundlePath.toUri().toString());
+        bundle.adapt(BundleStartLevel.class).setStartLevel(startLevel);
+        bundle.start();
+    }
+
+    private static long getTimestamp(String propertyPrefix, String symbolicName) {
+        return Long.parseLong(System.getProperty(propertyPrefix + symbolicName));
+    }
+
+    /**
+     * Bundle activator which takes the time given in the bundle manifest to stop, unless it is released earlier, and
+     * records when it starts stopping and when it is stopped. The activator is loaded by the class loader of the
+     * bundle, hence it communicates with the test through System properties.
+     */
+    public static class DelayedStopActivator implements BundleActivator {
+
+        @Override
+        public void start(BundleContext bundleContext) {
+        }
+
+        @Override
+        public void stop(BundleContext bundleContext) throws InterruptedException {
+            Bundle bundle = bundleContext.getBundle();
+            System.setProperty(STOPPING_AT_PROPERTY + bundle.getSymbolicName(),
+                    Long.toString(System.currentTimeMillis()));
+            long stopAt = System.currentTimeMillis() + Long.parseLong(bundle.getHeaders().get(STOP_DELAY_HEADER));
+            while (System.currentTimeMillis() < stopAt &&
+                    System.getProperty(RELEASE_PROPERTY + bundle.getSymbolicName()) == null) {
+                Thread.sleep(10);
+            }
+            System.setProperty(STOPPED_AT_PROPERTY + bundle.getSymbolicName(),
+                    Long.toString(System.currentTimeMillis()));
+        }
+    }
+}
@@ -32,8 +32,11 @@ public class Constants {
     public static final String BUNDLE_ACTIVATOR = "Bundle-Activator";
     public static final String BUNDLE_VERSION = "Bundle-Version";
     public static final String EXPORT_PACKAGE = "Export-Package";
+    public static final String IMPORT_PACKAGE = "Import-Package";
     public static final String BUNDLE_CLASSPATH = "Bundle-ClassPath";
     public static final String DYNAMIC_IMPORT_PACKAGE = "DynamicImport-Package";
+    public static final String IMPLEMENTATION_VERSION = "Implementation-Version";
+    public static final String SPECIFICATION_VERSION = "Specification-Version";
 
     //  file path name and extension constants
     public static final String JAR_TO_BUNDLE_TEMP_DIRECTORY_NAME = "temp";
@@ -43,6 +46,11 @@ public class Constants {
     public static final String P2_INF_FILE_EXTENSION = ".inf";
     public static final String JAR_FILE_EXTENSION = ".jar";
     public static final String ZIP_FILE_EXTENSION = ".zip";
+    public static final String CONTENT_HASH_FILE_EXTENSION = ".sha256";
+
+    //  JAR to OSGi bundle conversion properties
+    public static final String JAR_TO_BUNDLE_PARALLELISM_PROPERTY = "wso2.carbon.tool.jartobundle.parallelism";
+    public static final String JAR_TO_BUNDLE_ANALYSIS_PROPERTY = "wso2.carbon.tool.jartobundle.analysis";
 
     //  create zip file system properties
     public static final String CREATE_NEW_ZIP_FILE_PROPERTY = "create";
@@ -16,6 +16,9 @@
 package org.wso2.carbon.tools.converter;
 
 import org.wso2.carbon.tools.CarbonTool;
+import org.wso2.carbon.tools.Constants;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator;
+import org.wso2.carbon.tools.converter.utils.BundleAnalyzer;
 import org.wso2.carbon.tools.converter.utils.BundleGeneratorUtils;
 import org.wso2.carbon.tools.exception.CarbonToolException;
 
@@ -23,7 +26,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
@@ -55,18 +58,17 @@ public class BundleGeneratorTool implements CarbonTool {
 
             if ((source.isPresent()) && (destination.isPresent())) {
                 if ((Files.isReadable(source.get())) && (Files.isWritable(destination.get()))) {
+                    //  the package headers are generated by analyzing the class files, if requested
+                    boolean analyze = Boolean.getBoolean(Constants.JAR_TO_BUNDLE_ANALYSIS_PROPERTY);
                     try {
                         if (!Files.isDirectory(source.get())) {
-                            BundleGeneratorUtils.
-                                    convertFromJarToBundle(source.get(), destination.get(), new Manifest(), "");
-                        } else {
-                            List<Path> directoryContent = BundleGeneratorUtils.listFiles(source.get());
-                            for (Path aDirectoryItem : directoryContent) {
-                                if (aDirectoryItem.toString().endsWith(".jar")) {
-                                    BundleGeneratorUtils.convertFromJarToBundle(
-                                            aDirectoryItem, destination.get(), new Manifest(), "");
-                                }
+                            Manifest manifest = new Manifest();
+                            if (analyze) {
+                                BundleAnalyzer.analyze(source.get()).addHeaders(manifest, Collections.emptyMap());
                             }
+                            BundleGeneratorUtils.convertFromJarToBundle(source.get(), destination.get(), manifest, "");
+                        } else {
+                            BatchBundleGenerator.convert(source.get(), destination.get(), getParallelism(), analyze);
                         }
                     } catch (IOException | CarbonToolException e) {
                         logger.log(Level.SEVERE,
@@ -88,6 +90,22 @@ public class BundleGeneratorTool implements CarbonTool {
         }
     }
 
+    /**
+     * Returns the maximum number of JAR files converted concurrently when the source is a directory, as specified by
+     * the {@value Constants#JAR_TO_BUNDLE_PARALLELISM_PROPERTY} system property. Defaults to the number of available
+     * processors.
+     *
+     * @return the maximum number of JAR files converted concurrently
+     */
+    private static int getParallelism() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        try {
+            return Math.max(1, Integer.getInteger(Constants.JAR_TO_BUNDLE_PARALLELISM_PROPERTY, processors));
+        } catch (NumberFormatException e) {
+            return processors;
+        }
+    }
+
     /**
      * Returns a {@code Path} instance if the {@code String userPathInput} is valid.
      *
@@ -0,0 +1,333 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.converter.utils;
+
+import org.wso2.carbon.tools.Constants;
+import org.wso2.carbon.tools.exception.CarbonToolException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Converts all the JAR files in a directory tree to OSGi bundles, using a bounded pool of worker threads.
+ * <p>
+ * The SHA-256 hash of the source JAR file content is recorded next to each generated OSGi bundle, in a file with the
+ * {@value org.wso2.carbon.tools.Constants#CONTENT_HASH_FILE_EXTENSION} extension. An OSGi bundle is regenerated only
+ * if the recorded hash does not match the current content of its source JAR file.
+ * <p>
+ * In the analysis mode, the package headers of the OSGi bundles are generated by {@link BundleAnalyzer}, and the
+ * versions of the packages of all the JAR files in the directory tree are used as the versions of the imported
+ * packages. These versions are recorded with the hash, hence a version change regenerates all the OSGi bundles.
+ *
+ * @since 5.2.9
+ */
+public class BatchBundleGenerator {
+    private static final Logger logger = Logger.getLogger(BatchBundleGenerator.class.getName());
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Prevents instantiating this class.
+     */
+    private BatchBundleGenerator() {
+    }
+
+    /**
+     * Converts the JAR files in the specified directory tree to OSGi bundles at the specified destination, and logs a
+     * summary of the time taken for each JAR file.
+     *
+     * @param sourceDirectory the directory tree in which the JAR files reside
+     * @param targetDirectory the directory into which the created OSGi bundles need to be placed
+     * @param parallelism     the maximum number of JAR files converted concurrently
+     * @return the conversion results of the JAR files, in the order of their paths
+     * @throws IOException         if an I/O error occurs while listing the JAR files
+     * @throws CarbonToolException if the {@code targetDirectory} is not a directory
+     */
+    public static List<ConversionResult> convert(Path sourceDirectory, Path targetDirectory, int parallelism)
+            throws IOException, CarbonToolException {
+        return convert(sourceDirectory, targetDirectory, parallelism, false);
+    }
+
+    /**
+     * Converts the JAR files in the specified directory tree to OSGi bundles at the specified destination, and logs a
+     * summary of the time taken for each JAR file.
+     *
+     * @param sourceDirectory the directory tree in which the JAR files reside
+     * @param targetDirectory the directory into which the created OSGi bundles need to be placed
+     * @param parallelism     the maximum number of JAR files converted concurrently
+     * @param analyze         true if the package headers are to be generated by analyzing the class files, else false
+     * @return the conversion results of the JAR files, in the order of their paths
+     * @throws IOException         if an I/O error occurs while listing the JAR files
+     * @throws CarbonToolException if the {@code targetDirectory} is not a directory
+     */
+    public static List<ConversionResult> convert(Path sourceDirectory, Path targetDirectory, int parallelism,
+                                                 boolean analyze) throws IOException, CarbonToolException {
+        if (!Files.isDirectory(targetDirectory)) {
+            throw new CarbonToolException("Path target directory does not point to a directory");
+        }
+
+        //  skips the OSGi bundles generated by earlier conversions, and the destination if it is a subdirectory
+        List<Path> jarFiles;
+        Path destination = targetDirectory.toAbsolutePath().normalize();
+        boolean skipDestination = !sourceDirectory.toAbsolutePath().normalize().startsWith(destination);
+        try (Stream<Path> paths = Files.walk(sourceDirectory)) {
+            jarFiles = paths
+                    .filter(path -> !skipDestination || !path.toAbsolutePath().normalize().startsWith(destination))
+                    .filter(path -> path.toString().endsWith(Constants.JAR_FILE_EXTENSION))
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !Files.exists(getContentHashFile(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        long startTime = System.nanoTime();
+        int threadCount = Math.max(1, Math.min(parallelism, jarFiles.size()));
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "jartobundle-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<ConversionResult> results = new ArrayList<>();
+        try {
+            Map<String, String> packageVersions = null;
+            String hashSuffix = "";
+            if (analyze) {
+                packageVersions = getPackageVersions(jarFiles, executorService);
+                hashSuffix = "+" + getHash(packageVersions.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            Set<String> bundleFileNames = new HashSet<>();
+            List<Future<ConversionResult>> conversions = new ArrayList<>();
+            for (Path jarFile : jarFiles) {
+                Path jarFileName = jarFile.getFileName();
+                if (jarFileName == null) {
+                    continue;
+                }
+                String bundleFileName = BundleGeneratorUtils.getBundleFileName(jarFileName.toString(), "");
+                if (!bundleFileNames.add(bundleFileName)) {
+                    logger.log(Level.WARNING, "Skipped the JAR file " + jarFile + " as another JAR file in the " +
+                            "source directory is converted to the OSGi bundle " + bundleFileName);
+                    continue;
+                }
+                Path bundle = targetDirectory.resolve(bundleFileName);
+                Map<String, String> versions = packageVersions;
+                String suffix = hashSuffix;
+                conversions.add(executorService.submit(() -> convert(jarFile, bundle, versions, suffix)));
+            }
+
+            for (Future<ConversionResult> conversion : conversions) {
+                results.add(conversion.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CarbonToolException("Interrupted while converting the JAR files in " + sourceDirectory, e);
+        } catch (ExecutionException e) {
+            throw new CarbonToolException("Failed to convert the JAR files in " + sourceDirectory, e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        logger.log(Level.INFO, getSummary(results, threadCount, (System.nanoTime() - startTime) / 1000000));
+        return results;
+    }
+
+    /**
+     * Returns the versions of the packages of the specified JAR files, by package name, in a sorted map. A package
+     * found in more than one JAR file takes the version from the first of them.
+     */
+    private static Map<String, String> getPackageVersions(List<Path> jarFiles, ExecutorService executorService)
+            throws InterruptedException {
+        List<Future<Map<String, String>>> analyses = new ArrayList<>();
+        jarFiles.forEach(jarFile -> analyses.add(executorService.submit(() ->
+                BundleAnalyzer.getExportedPackageVersions(jarFile))));
+
+        Map<String, String> packageVersions = new TreeMap<>();
+        for (int index = 0; index < analyses.size(); index++) {
+            try {
+                analyses.get(index).get().forEach(packageVersions::putIfAbsent);
+            } catch (ExecutionException e) {
+                logger.log(Level.WARNING, "Failed to read the package versions of the JAR file " +
+                        jarFiles.get(index), e.getCause());
+            }
+        }
+        return packageVersions;
+    }
+
+    /**
+     * Converts the specified JAR file to the specified OSGi bundle, unless the OSGi bundle has already been generated
+     * from the current content of the JAR file. The package headers are generated by analyzing the class files, if
+     * the known package versions are specified.
+     */
+    private static ConversionResult convert(Path jarFile, Path bundle, Map<String, String> packageVersions,
+                                            String hashSuffix) {
+        long startTime = System.nanoTime();
+        Path contentHashFile = getContentHashFile(bundle);
+        try {
+            String contentHash = getContentHash(jarFile) + hashSuffix;
+            if (Files.exists(bundle) && Files.exists(contentHashFile) && contentHash
+                    .equals(new String(Files.readAllBytes(contentHashFile), StandardCharsets.UTF_8).trim())) {
+                return new ConversionResult(jarFile, bundle, ConversionStatus.UP_TO_DATE, startTime);
+            }
+
+            Files.deleteIfExists(contentHashFile);
+            Files.deleteIfExists(bundle);
+            Path targetDirectory = bundle.getParent();
+            if (targetDirectory == null) {
+                throw new CarbonToolException("OSGi bundle path has no parent directory: " + bundle);
+            }
+            Manifest manifest = new Manifest();
+            if (packageVersions != null) {
+                BundleAnalyzer.analyze(jarFile).addHeaders(manifest, packageVersions);
+            }
+            BundleGeneratorUtils.convertFromJarToBundle(jarFile, targetDirectory, manifest, "");
+
+            Path tempFile = contentHashFile.resolveSibling(contentHashFile.getFileName() + ".tmp");
+            Files.write(tempFile, contentHash.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, contentHashFile, StandardCopyOption.REPLACE_EXISTING);
+            return new ConversionResult(jarFile, bundle, ConversionStatus.CONVERTED, startTime);
+        } catch (IOException | CarbonToolException e) {
+            logger.log(Level.SEVERE, "An error occurred when converting the JAR file " + jarFile + " to an OSGi " +
+                    "bundle", e);
+            return new ConversionResult(jarFile, bundle, ConversionStatus.FAILED, startTime);
+        }
+    }
+
+    private static Path getContentHashFile(Path bundle) {
+        return bundle.resolveSibling(bundle.getFileName() + Constants.CONTENT_HASH_FILE_EXTENSION);
+    }
+
+    private static String getContentHash(Path file) throws IOException {
+        MessageDigest digest = getDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return toHexString(digest.digest());
+    }
+
+    private static String getHash(byte[] content) throws IOException {
+        return toHexString(getDigest().digest(content));
+    }
+
+    private static MessageDigest getDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Message digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHexString(byte[] hashBytes) {
+        StringBuilder hash = new StringBuilder();
+        for (byte hashByte : hashBytes) {
+            hash.append(String.format("%02x", hashByte));
+        }
+        return hash.toString();
+    }
+
+    private static String getSummary(List<ConversionResult> results, int threadCount, long duration) {
+        StringBuilder summary = new StringBuilder("\nJAR to OSGi bundle conversion summary\n\n");
+        results.stream()
+                .sorted(Comparator.comparingLong(ConversionResult::getDuration).reversed())
+                .forEach(result -> summary.append(String.format("%8d ms  %-10s  %s%n", result.getDuration(),
+                        result.getStatus(), result.getJarFile())));
+
+        summary.append(String.format("%nConverted: %d, up-to-date: %d, failed: %d, in %d ms using %d thread(s)",
+                count(results, ConversionStatus.CONVERTED), count(results, ConversionStatus.UP_TO_DATE),
+                count(results, ConversionStatus.FAILED), duration, threadCount));
+        return summary.toString();
+    }
+
+    private static long count(List<ConversionResult> results, ConversionStatus status) {
+        return results.stream()
+                .filter(result -> result.getStatus() == status)
+                .count();
+    }
+
+    /**
+     * The status of the conversion of a JAR file to an OSGi bundle.
+     */
+    public enum ConversionStatus {
+        CONVERTED, UP_TO_DATE, FAILED
+    }
+
+    /**
+     * The result of the conversion of a JAR file to an OSGi bundle.
+     */
+    public static class ConversionResult {
+        private final Path jarFile;
+        private final Path bundle;
+        private final ConversionStatus status;
+        private final long duration;
+
+        private ConversionResult(Path jarFile, Path bundle, ConversionStatus status, long startTime) {
+            this.jarFile = jarFile;
+            this.bundle = bundle;
+            this.status = status;
+            this.duration = (System.nanoTime() - startTime) / 1000000;
+        }
+
+        public Path getJarFile() {
+            return jarFile;
+        }
+
+        public Path getBundle() {
+            return bundle;
+        }
+
+        public ConversionStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the time taken to convert the JAR file, or to find the OSGi bundle up-to-date.
+         *
+         * @return the time taken in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.converter.utils;
+
+import org.wso2.carbon.launcher.utils.JarManifestReader;
+import org.wso2.carbon.tools.Constants;
+import org.wso2.carbon.tools.exception.CarbonToolException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzes the class files of a JAR file, to generate the precise Export-Package and Import-Package headers of the
+ * OSGi bundle converted from it.
+ * <p>
+ * Each exported package declares the other packages referenced by the public API of its classes in a {@code uses}
+ * directive. Each package referenced by the classes and not contained in the JAR file is imported, using a version
+ * range if a version of it is known, or else as an optional import. Hence the OSGi bundle resolves statically, without
+ * a {@code DynamicImport-Package: *} header.
+ *
+ * @since 5.2.9
+ */
+public class BundleAnalyzer {
+    private static final Logger logger = Logger.getLogger(BundleAnalyzer.class.getName());
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^\\s*(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?");
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String JAVA_PACKAGE_PREFIX = "java.";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Map<String, Set<String>> exportedPackages = new TreeMap<>();
+    private final Set<String> importedPackages = new TreeSet<>();
+    private final String version;
+
+    private BundleAnalyzer(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Analyzes the class files of the specified JAR file.
+     *
+     * @param jarFile the JAR file to be analyzed
+     * @return the analysis of the JAR file
+     * @throws IOException if an I/O error occurs or if a class file of the JAR file is invalid
+     */
+    public static BundleAnalyzer analyze(Path jarFile) throws IOException {
+        try (JarFile jar = new JarFile(jarFile.toFile())) {
+            BundleAnalyzer analyzer = new BundleAnalyzer(getVersion(jar.getManifest()).orElse(null));
+            Map<String, Set<String>> apiPackages = new HashMap<>();
+            Set<String> referencedPackages = new TreeSet<>();
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!isClassFile(entry.getName())) {
+                    continue;
+                }
+                ClassFileReader classFile;
+                try (InputStream inputStream = new BufferedInputStream(jar.getInputStream(entry), BUFFER_SIZE)) {
+                    classFile = new ClassFileReader(inputStream);
+                } catch (IOException e) {
+                    throw new IOException("Failed to read the class file " + entry.getName() + " in " + jarFile, e);
+                }
+
+                Optional<String> packageName = getPackageName(classFile.getClassName());
+                packageName.ifPresent(name -> {
+                    Set<String> uses = apiPackages.computeIfAbsent(name, key -> new TreeSet<>());
+                    classFile.getApiTypes().forEach(type -> getPackageName(type).ifPresent(uses::add));
+                });
+                classFile.getReferencedTypes().forEach(type -> getPackageName(type).ifPresent(referencedPackages::add));
+            }
+
+            apiPackages.forEach((packageName, uses) -> {
+                uses.removeIf(use -> use.equals(packageName) || use.startsWith(JAVA_PACKAGE_PREFIX));
+                analyzer.exportedPackages.put(packageName, uses);
+            });
+            referencedPackages.stream()
+                    .filter(packageName -> !packageName.startsWith(JAVA_PACKAGE_PREFIX))
+                    .filter(packageName -> !analyzer.exportedPackages.containsKey(packageName))
+                    .forEach(analyzer.importedPackages::add);
+            logger.log(Level.FINE, "Analyzed the JAR file " + jarFile + ", " + analyzer.exportedPackages.size() +
+                    " exported and " + analyzer.importedPackages.size() + " imported packages");
+            return analyzer;
+        }
+    }
+
+    /**
+     * Returns the versions of the packages which the specified JAR file would export, read only from its manifest and
+     * its central directory. The Export-Package header is used if the JAR file is already an OSGi bundle.
+     *
+     * @param jarFile the JAR file
+     * @return the versions of the packages of the JAR file, by package name, which exclude the packages of which the
+     * version is unknown
+     * @throws IOException         if an I/O error occurs
+     * @throws CarbonToolException if the {@code jarFile} does not refer to a JAR file
+     */
+    public static Map<String, String> getExportedPackageVersions(Path jarFile)
+            throws IOException, CarbonToolException {
+        Optional<Manifest> manifest = JarManifestReader.readManifest(jarFile);
+        String exportPackage = manifest
+                .map(value -> value.getMainAttributes().getValue(Constants.EXPORT_PACKAGE))
+                .orElse(null);
+        if (exportPackage != null) {
+            return parseExportPackage(exportPackage);
+        }
+
+        Optional<String> version = getVersion(manifest.orElse(null));
+        if (!version.isPresent()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> packageVersions = new HashMap<>();
+        BundleGeneratorUtils.listPackages(jarFile).forEach(packageName -> packageVersions.put(packageName,
+                version.get()));
+        return packageVersions;
+    }
+
+    /**
+     * Returns the names of the packages contained in the JAR file.
+     *
+     * @return the names of the packages contained in the JAR file, in order
+     */
+    public Set<String> getExportedPackages() {
+        return Collections.unmodifiableSet(exportedPackages.keySet());
+    }
+
+    /**
+     * Returns the names of the packages referenced by the classes of the JAR file, excluding the packages contained in
+     * the JAR file and the {@code java.*} packages.
+     *
+     * @return the names of the packages imported by the OSGi bundle, in order
+     */
+    public Set<String> getImportedPackages() {
+        return Collections.unmodifiableSet(importedPackages);
+    }
+
+    /**
+     * Sets the Export-Package and Import-Package headers of the specified OSGi bundle manifest.
+     *
+     * @param manifest        the OSGi bundle manifest
+     * @param packageVersions the known versions of the imported packages, by package name
+     */
+    public void addHeaders(Manifest manifest, Map<String, String> packageVersions) {
+        List<String> exports = new ArrayList<>();
+        exportedPackages.forEach((packageName, uses) -> {
+            StringBuilder clause = new StringBuilder(packageName);
+            if (!uses.isEmpty()) {
+                clause.append(";uses:=\"").append(String.join(",", uses)).append("\"");
+            }
+            if (version != null) {
+                clause.append(";version=\"").append(version).append("\"");
+            }
+            exports.add(clause.toString());
+        });
+
+        List<String> imports = new ArrayList<>();
+        importedPackages.forEach(packageName -> {
+            String packageVersion = packageVersions.get(packageName);
+            if (packageVersion != null) {
+                imports.add(packageName + ";version=\"" + getVersionRange(packageVersion) + "\"");
+            } else {
+                imports.add(packageName + ";resolution:=optional");
+            }
+        });
+
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.putValue(Constants.EXPORT_PACKAGE, String.join(",", exports));
+        if (imports.isEmpty()) {
+            attributes.remove(new Attributes.Name(Constants.IMPORT_PACKAGE));
+        } else {
+            attributes.putValue(Constants.IMPORT_PACKAGE, String.join(",", imports));
+        }
+    }
+
+    private static boolean isClassFile(String entryName) {
+        return entryName.endsWith(CLASS_FILE_EXTENSION) && !entryName.startsWith(Constants.JAR_MANIFEST_FOLDER + "/")
+                && !entryName.endsWith("module-info" + CLASS_FILE_EXTENSION);
+    }
+
+    private static Optional<String> getPackageName(String internalName) {
+        int index = internalName.lastIndexOf('/');
+        if (index <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(internalName.substring(0, index).replace('/', '.'));
+    }
+
+    /**
+     * Returns the OSGi version of a JAR file from the Bundle-Version, Implementation-Version or Specification-Version
+     * header of its manifest, reduced to its numeric major, minor and micro parts.
+     */
+    private static Optional<String> getVersion(Manifest manifest) {
+        if (manifest == null) {
+            return Optional.empty();
+        }
+        Attributes attributes = manifest.getMainAttributes();
+        for (String header : new String[]{Constants.BUNDLE_VERSION, Constants.IMPLEMENTATION_VERSION,
+                Constants.SPECIFICATION_VERSION}) {
+            Optional<String> version = toOSGiVersion(attributes.getValue(header));
+            if (version.isPresent()) {
+                return version;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<String> toOSGiVersion(String version) {
+        if (version == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = VERSION_PATTERN.matcher(version);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Integer.parseInt(matcher.group(1)) + "." +
+                    (matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2))) + "." +
+                    (matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3))));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the range of versions compatible with the specified version, from its major and minor parts up to the
+     * next major version, such as {@code [1.2,2)} for {@code 1.2.3}.
+     */
+    private static String getVersionRange(String version) {
+        String[] parts = version.split("\\.");
+        int major = Integer.parseInt(parts[0]);
+        return "[" + major + "." + (parts.length > 1 ? parts[1] : "0") + "," + (major + 1) + ")";
+    }
+
+    /**
+     * Returns the versions of the packages of an Export-Package header, such as
+     * {@code a.b;c.d;version="1.0",e.f;uses:="a.b";version=2}.
+     */
+    private static Map<String, String> parseExportPackage(String header) {
+        Map<String, String> packageVersions = new HashMap<>();
+        for (String clause : split(header, ',')) {
+            List<String> packageNames = new ArrayList<>();
+            String version = null;
+            for (String parameter : split(clause, ';')) {
+                int index = parameter.indexOf('=');
+                if (index < 0) {
+                    packageNames.add(parameter.trim());
+                } else if ((index > 0) && (parameter.charAt(index - 1) != ':') && parameter.substring(0, index).trim()
+                        .equals("version")) {
+                    version = toOSGiVersion(parameter.substring(index + 1).trim().replace("\"", "")).orElse(null);
+                }
+            }
+            if (version != null) {
+                String packageVersion = version;
+                packageNames.forEach(packageName -> packageVersions.put(packageName, packageVersion));
+            }
+        }
+        return packageVersions;
+    }
+
+    private static List<String> split(String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            if (character == '"') {
+                quoted = !quoted;
+            } else if ((character == separator) && !quoted) {
+                parts.add(value.substring(start, index));
+                start = index + 1;
+            }
+        }
+        parts.add(value.substring(start));
+        return parts;
+    }
+}
@@ -15,13 +15,15 @@
  */
 package org.wso2.carbon.tools.converter.utils;
 
+import org.wso2.carbon.launcher.utils.JarManifestReader;
 import org.wso2.carbon.tools.Constants;
 import org.wso2.carbon.tools.exception.CarbonToolException;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -30,16 +32,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 /**
  * A Java class which contains utility methods utilized during the process of converting a JAR file
@@ -49,6 +58,7 @@ import java.util.stream.IntStream;
  */
 public class BundleGeneratorUtils {
     private static final Logger logger = Logger.getLogger(BundleGeneratorUtils.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     /**
      * Prevents instantiating this class.
@@ -58,6 +68,9 @@ public class BundleGeneratorUtils {
 
     /**
      * Converts a specified non-OSGi JAR file to an OSGi bundle at the specified destination.
+     * <p>
+     * Unless the specified manifest already has an Export-Package header, all packages in the JAR file are exported.
+     * Unless it already has an Import-Package header, all packages are imported dynamically.
      *
      * @param jarFile         the JAR file to be bundled
      * @param targetDirectory the directory into which the created OSGi bundle needs to be placed
@@ -79,31 +92,38 @@ public class BundleGeneratorUtils {
         if (tempJarFilePathHolder != null) {
             String fileName = tempJarFilePathHolder.toString();
             if (fileName.endsWith(Constants.JAR_FILE_EXTENSION)) {
-                if (BundleGeneratorUtils.isOSGiBundle(jarFile)) {
-                    logger.log(Level.WARNING, "Path " + jarFile.toString() + " refers to an OSGi bundle");
-                }
-
                 if (manifest == null) {
                     manifest = new Manifest();
                 }
-                String exportedPackages = BundleGeneratorUtils.
-                        generateExportPackageList(BundleGeneratorUtils.listPackages(jarFile));
-                fileName = fileName.replaceAll("-", "_");
-                fileName = fileName.substring(0, fileName.length() - 4);
+                Attributes attributes = manifest.getMainAttributes();
+
+                //  reads the manifest and the package names from the central directory of the JAR file only
+                try (JarFile jar = new JarFile(jarFile.toFile())) {
+                    if (isOSGiBundle(jar.getManifest())) {
+                        logger.log(Level.WARNING, "Path " + jarFile.toString() + " refers to an OSGi bundle");
+                    }
+                    //  keeps the package headers, if any, generated by analyzing the class files of the JAR file
+                    if (attributes.getValue(Constants.EXPORT_PACKAGE) == null) {
+                        attributes.putValue(Constants.EXPORT_PACKAGE,
+                                BundleGeneratorUtils.generateExportPackageList(listPackages(jar)));
+                    }
+                }
+
+                fileName = getBundleName(fileName);
                 String symbolicName = extensionPrefix + fileName;
-                String pluginName = extensionPrefix + fileName + "_1.0.0" + Constants.JAR_FILE_EXTENSION;
+                String pluginName = getBundleFileName(tempJarFilePathHolder.toString(), extensionPrefix);
                 Path extensionBundle = Paths.get(targetDirectory.toString(), pluginName);
 
                 logger.log(Level.FINEST, "Setting Manifest attributes");
-                Attributes attributes = manifest.getMainAttributes();
                 attributes.putValue(Constants.MANIFEST_VERSION, "1.0");
                 attributes.putValue(Constants.BUNDLE_MANIFEST_VERSION, "2");
                 attributes.putValue(Constants.BUNDLE_NAME, fileName);
                 attributes.putValue(Constants.BUNDLE_SYMBOLIC_NAME, symbolicName);
                 attributes.putValue(Constants.BUNDLE_VERSION, "1.0.0");
-                attributes.putValue(Constants.EXPORT_PACKAGE, exportedPackages);
                 attributes.putValue(Constants.BUNDLE_CLASSPATH, ".," + tempJarFilePathHolder.toString());
-                attributes.putValue(Constants.DYNAMIC_IMPORT_PACKAGE, "*");
+                if (attributes.getValue(Constants.IMPORT_PACKAGE) == null) {
+                    attributes.putValue(Constants.DYNAMIC_IMPORT_PACKAGE, "*");
+                }
 
                 if (!(Files.exists(extensionBundle))) {
                     logger.log(Level.FINE, "Creating the OSGi bundle for JAR file " + jarFile.toString());
@@ -127,6 +147,22 @@ public class BundleGeneratorUtils {
         }
     }
 
+    /**
+     * Returns the file name of the OSGi bundle generated from the specified JAR file.
+     *
+     * @param jarFileName     the JAR file name
+     * @param extensionPrefix prefix, if any, for the bundle
+     * @return the file name of the OSGi bundle generated from the specified JAR file
+     */
+    public static String getBundleFileName(String jarFileName, String extensionPrefix) {
+        return extensionPrefix + getBundleName(jarFileName) + "_1.0.0" + Constants.JAR_FILE_EXTENSION;
+    }
+
+    private static String getBundleName(String jarFileName) {
+        String bundleName = jarFileName.replaceAll("-", "_");
+        return bundleName.substring(0, bundleName.length() - Constants.JAR_FILE_EXTENSION.length());
+    }
+
     /**
      * Returns a comma separated {@code String} value of the concatenated package names from the {@code List<String>}.
      *
@@ -158,19 +194,33 @@ public class BundleGeneratorUtils {
      *                             {@link Path} {@code zipFilePath} has zero elements
      */
     public static boolean isOSGiBundle(Path jaFilePath) throws IOException, CarbonToolException {
-        boolean hasSymbolicName, hasVersion;
-        try (FileSystem zipFileSystem = BundleGeneratorUtils.createZipFileSystem(jaFilePath, false)) {
-            Path manifestPath = zipFileSystem.getPath(Constants.JAR_MANIFEST_FOLDER, Constants.MANIFEST_FILE_NAME);
-            Manifest manifest = new Manifest(Files.newInputStream(manifestPath));
-            Attributes attributes = manifest.getMainAttributes();
-            hasSymbolicName = attributes.getValue(Constants.BUNDLE_SYMBOLIC_NAME) != null;
-            hasVersion = attributes.getValue(Constants.BUNDLE_VERSION) != null;
+        Path jarFileName = jaFilePath.getFileName();
+        if (jarFileName == null) {
+            throw new CarbonToolException("Path representing the zip file name has zero elements");
+        }
+        if (!(jarFileName.toString().endsWith(Constants.ZIP_FILE_EXTENSION)) && !(jarFileName.toString()
+                .endsWith(Constants.JAR_FILE_EXTENSION))) {
+            throw new CarbonToolException("Path zipFilePath does not refer to a .zip or .jar file");
+        }
+
+        return isOSGiBundle(JarManifestReader.readManifest(jaFilePath).orElse(null));
+    }
+
+    private static boolean isOSGiBundle(Manifest manifest) {
+        if (manifest == null) {
+            return false;
         }
+        Attributes attributes = manifest.getMainAttributes();
+        boolean hasSymbolicName = attributes.getValue(Constants.BUNDLE_SYMBOLIC_NAME) != null;
+        boolean hasVersion = attributes.getValue(Constants.BUNDLE_VERSION) != null;
         return (hasSymbolicName && hasVersion);
     }
 
     /**
      * Creates an OSGi bundle out of a JAR file.
+     * <p>
+     * The OSGi bundle is written as a stream, with the manifest and the p2.inf file followed by the JAR file, which is
+     * copied into the OSGi bundle without being compressed again. No temporary files are created.
      *
      * @param jarFile    the JAR file to be bundled
      * @param bundlePath the directory into which the created OSGi bundlePath needs to be placed into
@@ -184,41 +234,31 @@ public class BundleGeneratorUtils {
         Path tempJarFilePathHolder = jarFile.getFileName();
         if (tempJarFilePathHolder != null) {
             if (manifest != null) {
-                Path tempBundleHolder = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")),
-                        Constants.JAR_TO_BUNDLE_TEMP_DIRECTORY_NAME);
-                tempBundleHolder.toFile().deleteOnExit();
-
-                Path manifestFile = Paths.get(tempBundleHolder.toString(), Constants.MANIFEST_FILE_NAME);
-                Path p2InfFile = Files.
-                        createTempFile(tempBundleHolder, Constants.P2_INF_FILE_NAME, Constants.P2_INF_FILE_EXTENSION);
-                p2InfFile.toFile().deleteOnExit();
-
-                try (OutputStream manifestOutputStream = Files.newOutputStream(manifestFile);
-                     OutputStream p2InfOutputStream = Files.newOutputStream(p2InfFile);
-                     FileSystem zipFileSystem = createZipFileSystem(bundlePath, true)) {
-                    manifest.write(manifestOutputStream);
+                boolean created = false;
+                try (OutputStream outputStream = new BufferedOutputStream(
+                        Files.newOutputStream(bundlePath, StandardOpenOption.CREATE_NEW), BUFFER_SIZE);
+                     JarOutputStream bundleOutputStream = new JarOutputStream(outputStream, manifest)) {
                     logger.log(Level.FINE,
                             "Generated the OSGi bundlePath MANIFEST.MF for the JAR file " + jarFile.toString());
-                    p2InfOutputStream.write("instructions.configure=markStarted(started:true);".
-                            getBytes(Charset.forName("UTF-8")));
-                    p2InfOutputStream.flush();
+
+                    bundleOutputStream.putNextEntry(new ZipEntry(Constants.JAR_MANIFEST_FOLDER + "/" +
+                            Constants.P2_INF_FILE_NAME + Constants.P2_INF_FILE_EXTENSION));
+                    bundleOutputStream.write("instructions.configure=markStarted(started:true);".
+                            getBytes(StandardCharsets.UTF_8));
+                    bundleOutputStream.closeEntry();
                     logger.log(Level.FINE,
                             "Generated the OSGi bundlePath p2.inf for the JAR file " + jarFile.toString());
 
-                    Path manifestFolderPath = zipFileSystem.getPath(Constants.JAR_MANIFEST_FOLDER);
-                    if (!Files.exists(manifestFolderPath)) {
-                        Files.createDirectories(manifestFolderPath);
+                    //  the JAR file content is already compressed, hence it is only stored in the OSGi bundle
+                    bundleOutputStream.setLevel(Deflater.NO_COMPRESSION);
+                    bundleOutputStream.putNextEntry(new ZipEntry(tempJarFilePathHolder.toString()));
+                    Files.copy(jarFile, bundleOutputStream);
+                    bundleOutputStream.closeEntry();
+                    created = true;
+                } finally {
+                    if (!created) {
+                        Files.deleteIfExists(bundlePath);
                     }
-                    Path manifestPathInBundle = zipFileSystem.
-                            getPath(Constants.JAR_MANIFEST_FOLDER, Constants.MANIFEST_FILE_NAME);
-                    Path p2InfPathInBundle = zipFileSystem.getPath(Constants.JAR_MANIFEST_FOLDER,
-                            Constants.P2_INF_FILE_NAME + Constants.P2_INF_FILE_EXTENSION);
-                    Files.copy(jarFile, zipFileSystem.getPath(tempJarFilePathHolder.toString()));
-                    Files.copy(manifestFile, manifestPathInBundle);
-                    Files.copy(p2InfFile, p2InfPathInBundle);
-
-                    //  delete temporary manifest file
-                    delete(manifestFile);
                 }
             } else {
                 throw new CarbonToolException("Manifest cannot refer to null");
@@ -278,28 +318,42 @@ public class BundleGeneratorUtils {
      * @throws CarbonToolException if an error occurs when retrieving child content from the {@code jarFile}
      */
     public static List<String> listPackages(Path jarFile) throws IOException, CarbonToolException {
-        List<String> exportedPackagesList = new ArrayList<>();
-        List<Path> content = BundleGeneratorUtils.listZipFileContent(jarFile);
-        content
-                .forEach(zipChild -> {
-                    String path = zipChild.toString();
-                    if (!path.endsWith("/") && path.endsWith(".class")) {
-                        //  This is package that contains classes. Thus, exportedPackagesList
-                        int index = path.lastIndexOf('/');
-                        if (index != -1) {
-                            path = path.substring(1, index);
-                            path = path.replaceAll("/", ".");
-                            if (!exportedPackagesList.contains(path)) {
-                                exportedPackagesList.add(path);
-                            }
-                        }
-                    }
-                });
+        Path jarFileName = jarFile.getFileName();
+        if ((!Files.exists(jarFile)) || (Files.isDirectory(jarFile)) || (jarFileName == null) || ((!jarFileName
+                .toString().endsWith(Constants.ZIP_FILE_EXTENSION)) && (!jarFileName.toString()
+                .endsWith(Constants.JAR_FILE_EXTENSION)))) {
+            throw new CarbonToolException("Path jarFile may not exist or may not refer to a .zip or .jar file");
+        }
 
+        List<String> exportedPackagesList;
+        try (JarFile jar = new JarFile(jarFile.toFile())) {
+            exportedPackagesList = listPackages(jar);
+        }
         logger.log(Level.FINE, "Returning a List<String> of packages from the JAR file " + jarFile.toString());
         return exportedPackagesList;
     }
 
+    /**
+     * Returns a {@code List} of {@code String} Java package names within the JAR file, in the order of their first
+     * occurrence. Only the entry names in the central directory of the JAR file are read.
+     *
+     * @param jarFile the JAR file of which the package name list is to be returned
+     * @return a {@link List} of {@link String} Java package names within the JAR file
+     */
+    private static List<String> listPackages(JarFile jarFile) {
+        Set<String> exportedPackages = new LinkedHashSet<>();
+        jarFile.stream()
+                .map(ZipEntry::getName)
+                .filter(name -> name.endsWith(".class"))
+                .forEach(name -> {
+                    int index = name.lastIndexOf('/');
+                    if (index > 0) {
+                        exportedPackages.add(name.substring(name.startsWith("/") ? 1 : 0, index).replace('/', '.'));
+                    }
+                });
+        return new ArrayList<>(exportedPackages);
+    }
+
     /**
      * Returns a list of content in the .zip or .jar file corresponding to the {@code zipFilePath Path} instance, in the
      * form of {@code Path} instances.
@@ -0,0 +1,238 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.converter.utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the names of the types referenced by a Java class file, from its constant pool and the descriptors of its
+ * fields and methods. Method bodies and attributes are not parsed.
+ *
+ * @since 5.2.9
+ */
+class ClassFileReader {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PROTECTED = 0x0004;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final String className;
+    private final boolean publicClass;
+    private final Set<String> referencedTypes = new HashSet<>();
+    private final Set<String> apiTypes = new HashSet<>();
+
+    /**
+     * Reads the specified class file.
+     *
+     * @param inputStream the class file content
+     * @throws IOException if an I/O error occurs or if the content is not a valid class file
+     */
+    ClassFileReader(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Invalid class file");
+        }
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+
+        int constantPoolCount = input.readUnsignedShort();
+        String[] utf8Entries = new String[constantPoolCount];
+        int[] classEntries = new int[constantPoolCount];
+        List<Integer> descriptorEntries = new ArrayList<>();
+        for (int index = 1; index < constantPoolCount; index++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+            case CONSTANT_UTF8:
+                utf8Entries[index] = input.readUTF();
+                break;
+            case CONSTANT_CLASS:
+                classEntries[index] = input.readUnsignedShort();
+                break;
+            case CONSTANT_NAME_AND_TYPE:
+                input.readUnsignedShort();
+                descriptorEntries.add(input.readUnsignedShort());
+                break;
+            case CONSTANT_METHOD_TYPE:
+                descriptorEntries.add(input.readUnsignedShort());
+                break;
+            case CONSTANT_STRING:
+            case CONSTANT_MODULE:
+            case CONSTANT_PACKAGE:
+                input.skipBytes(2);
+                break;
+            case CONSTANT_METHOD_HANDLE:
+                input.skipBytes(3);
+                break;
+            case CONSTANT_INTEGER:
+            case CONSTANT_FLOAT:
+            case CONSTANT_FIELD_REF:
+            case CONSTANT_METHOD_REF:
+            case CONSTANT_INTERFACE_METHOD_REF:
+            case CONSTANT_DYNAMIC:
+            case CONSTANT_INVOKE_DYNAMIC:
+                input.skipBytes(4);
+                break;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                input.skipBytes(8);
+                //  eight byte constants take up two entries in the constant pool
+                index++;
+                break;
+            default:
+                throw new IOException("Invalid constant pool tag " + tag + " in class file");
+            }
+        }
+
+        int accessFlags = input.readUnsignedShort();
+        publicClass = (accessFlags & ACC_PUBLIC) != 0;
+        className = utf8Entries[classEntries[input.readUnsignedShort()]];
+        int superClass = input.readUnsignedShort();
+        if (superClass != 0) {
+            addTypeName(utf8Entries[classEntries[superClass]], apiTypes);
+        }
+        int interfaceCount = input.readUnsignedShort();
+        for (int interfaceIndex = 0; interfaceIndex < interfaceCount; interfaceIndex++) {
+            addTypeName(utf8Entries[classEntries[input.readUnsignedShort()]], apiTypes);
+        }
+
+        //  reads the descriptors of the fields, followed by those of the methods
+        for (int memberType = 0; memberType < 2; memberType++) {
+            int memberCount = input.readUnsignedShort();
+            for (int member = 0; member < memberCount; member++) {
+                int memberAccessFlags = input.readUnsignedShort();
+                input.readUnsignedShort();
+                String descriptor = utf8Entries[input.readUnsignedShort()];
+                boolean api = (memberAccessFlags & (ACC_PUBLIC | ACC_PROTECTED)) != 0;
+                addDescriptorTypes(descriptor, api ? apiTypes : referencedTypes);
+                int attributeCount = input.readUnsignedShort();
+                for (int attribute = 0; attribute < attributeCount; attribute++) {
+                    input.readUnsignedShort();
+                    skipFully(input, input.readInt() & 0xFFFFFFFFL);
+                }
+            }
+        }
+
+        for (int index = 1; index < constantPoolCount; index++) {
+            if (classEntries[index] != 0) {
+                addTypeName(utf8Entries[classEntries[index]], referencedTypes);
+            }
+        }
+        descriptorEntries.forEach(index -> addDescriptorTypes(utf8Entries[index], referencedTypes));
+        referencedTypes.addAll(apiTypes);
+        referencedTypes.remove(className);
+        if (publicClass) {
+            apiTypes.remove(className);
+        } else {
+            apiTypes.clear();
+        }
+    }
+
+    /**
+     * Returns the internal name of the class, such as {@code org/wso2/carbon/Example}.
+     *
+     * @return the internal name of the class
+     */
+    String getClassName() {
+        return className;
+    }
+
+    boolean isPublic() {
+        return publicClass;
+    }
+
+    /**
+     * Returns the internal names of all the types referenced by the class.
+     *
+     * @return the internal names of the types referenced by the class
+     */
+    Set<String> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    /**
+     * Returns the internal names of the types referenced by the public API of the class, that is the super class,
+     * the interfaces and the public or protected fields and methods of a public class.
+     *
+     * @return the internal names of the types referenced by the public API of the class
+     */
+    Set<String> getApiTypes() {
+        return apiTypes;
+    }
+
+    private static void addTypeName(String typeName, Set<String> types) {
+        if (typeName == null) {
+            return;
+        }
+        if (typeName.startsWith("[")) {
+            addDescriptorTypes(typeName, types);
+        } else {
+            types.add(typeName);
+        }
+    }
+
+    /**
+     * Adds the object types of the specified field or method descriptor, such as
+     * {@code (Ljava/lang/String;[I)Lorg/wso2/carbon/Example;}.
+     */
+    private static void addDescriptorTypes(String descriptor, Set<String> types) {
+        if (descriptor == null) {
+            return;
+        }
+        int index = descriptor.indexOf('L');
+        while (index >= 0) {
+            int end = descriptor.indexOf(';', index);
+            if (end < 0) {
+                return;
+            }
+            types.add(descriptor.substring(index + 1, end));
+            index = descriptor.indexOf('L', end);
+        }
+    }
+
+    private static void skipFully(DataInputStream input, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int skipped = input.skipBytes((int) Math.min(remaining, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+}
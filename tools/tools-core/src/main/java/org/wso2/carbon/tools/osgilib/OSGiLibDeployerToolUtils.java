@@ -50,23 +50,26 @@ class OSGiLibDeployerToolUtils {
 
         if (profile != null) {
             Path osgiLibDirectoryPath = Paths.get(carbonHome, Constants.OSGI_LIB);
+            Path osgiLibIndexPath = Paths.get(carbonHome, Constants.OSGI_REPOSITORY, Constants.OSGI_LIB_INDEX);
             logger.log(Level.FINE,
                     "Loading the new OSGi bundle information from " + Constants.OSGI_LIB + " folder...");
-            List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils.getBundlesInfo(osgiLibDirectoryPath);
+            List<BundleInfo> newBundlesInfo = OSGiLibBundleDeployerUtils
+                    .getBundlesInfo(osgiLibDirectoryPath, osgiLibIndexPath);
             logger.log(Level.FINE, "Successfully loaded the new OSGi bundle information from " + Constants.OSGI_LIB +
                     " folder");
 
             if (profile.equals("ALL")) {
-                OSGiLibBundleDeployerUtils.getCarbonProfiles(carbonHome)
-                        .forEach(carbonProfile -> {
-                            try {
-                                OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome, carbonProfile, newBundlesInfo);
-                            } catch (IOException e) {
-                                logger.log(Level.SEVERE,
-                                        "Failed to update the OSGi bundle information of Carbon Runtime: "
-                                                + carbonProfile, e);
-                            }
-                        });
+                //  updates all Carbon Runtimes from the single scan above, while holding the OSGi-lib lock
+                List<String> carbonProfiles = OSGiLibBundleDeployerUtils.getCarbonProfiles(carbonHome);
+                if (carbonProfiles.isEmpty()) {
+                    logger.log(Level.FINE, "No Carbon Runtimes found to update");
+                    return;
+                }
+                try {
+                    OSGiLibBundleDeployerUtils.updateOSGiLibForProfiles(carbonHome, carbonProfiles, newBundlesInfo);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Failed to update the OSGi bundle information of Carbon Runtimes", e);
+                }
             } else {
                 try {
                     OSGiLibBundleDeployerUtils.updateOSGiLib(carbonHome, profile, newBundlesInfo);
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import javax.naming.spi.InitialContextFactory;
+
+/**
+ * Generates the class file of the BundleActivator which registers an {@link InitialContextFactory} implementation,
+ * without compiling its source. The generated class is equivalent to the following, compiled for Java 8.
+ * <pre>
+ * package internal;
+ *
+ * public class CustomBundleActivator implements BundleActivator {
+ *     public void start(BundleContext bundleContext) throws Exception {
+ *         bundleContext.registerService(new String[] { "javax.naming.spi.InitialContextFactory", "[ICF class]" },
+ *                 new [ICF class](), null);
+ *     }
+ *
+ *     public void stop(BundleContext bundleContext) throws Exception {
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 5.2.9
+ */
+class BundleActivatorGenerator {
+    static final String ACTIVATOR_CLASS_NAME = "internal.CustomBundleActivator";
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int JAVA_8_MAJOR_VERSION = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    //  constant pool indexes
+    private static final int ACTIVATOR_CLASS = 2;
+    private static final int OBJECT_CLASS = 4;
+    private static final int BUNDLE_ACTIVATOR_CLASS = 6;
+    private static final int INIT_NAME = 7;
+    private static final int NO_ARGUMENTS_DESCRIPTOR = 8;
+    private static final int OBJECT_INIT = 10;
+    private static final int ICF_CLASS = 12;
+    private static final int ICF_INIT = 13;
+    private static final int STRING_CLASS = 15;
+    private static final int ICF_INTERFACE_NAME = 17;
+    private static final int ICF_CLASS_NAME = 19;
+    private static final int REGISTER_SERVICE = 25;
+    private static final int START_NAME = 26;
+    private static final int LIFECYCLE_METHOD_DESCRIPTOR = 27;
+    private static final int STOP_NAME = 28;
+    private static final int CODE_ATTRIBUTE_NAME = 29;
+    private static final int EXCEPTIONS_ATTRIBUTE_NAME = 30;
+    private static final int EXCEPTION_CLASS = 32;
+    private static final int CONSTANT_POOL_COUNT = 33;
+
+    //  bytecode instructions
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int ICONST_2 = 0x05;
+    private static final int ACONST_NULL = 0x01;
+    private static final int LDC = 0x12;
+    private static final int AASTORE = 0x53;
+    private static final int POP = 0x57;
+    private static final int DUP = 0x59;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int ANEWARRAY = 0xbd;
+
+    /**
+     * Prevents instantiating this class.
+     */
+    private BundleActivatorGenerator() {
+    }
+
+    /**
+     * Returns the class file of the BundleActivator which registers the specified {@link InitialContextFactory}
+     * implementation.
+     *
+     * @param icfClassName the fully qualified name of the {@link InitialContextFactory} implementation
+     * @return the class file content of the {@value #ACTIVATOR_CLASS_NAME} class
+     */
+    static byte[] generate(String icfClassName) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(content)) {
+            output.writeInt(MAGIC);
+            output.writeShort(0);
+            output.writeShort(JAVA_8_MAJOR_VERSION);
+
+            output.writeShort(CONSTANT_POOL_COUNT);
+            writeUtf8(output, ACTIVATOR_CLASS_NAME.replace('.', '/'));
+            writeReference(output, CONSTANT_CLASS, 1);
+            writeUtf8(output, "java/lang/Object");
+            writeReference(output, CONSTANT_CLASS, 3);
+            writeUtf8(output, "org/osgi/framework/BundleActivator");
+            writeReference(output, CONSTANT_CLASS, 5);
+            writeUtf8(output, "<init>");
+            writeUtf8(output, "()V");
+            writeReference(output, CONSTANT_NAME_AND_TYPE, INIT_NAME, NO_ARGUMENTS_DESCRIPTOR);
+            writeReference(output, CONSTANT_METHOD_REF, OBJECT_CLASS, 9);
+            writeUtf8(output, icfClassName.replace('.', '/'));
+            writeReference(output, CONSTANT_CLASS, 11);
+            writeReference(output, CONSTANT_METHOD_REF, ICF_CLASS, 9);
+            writeUtf8(output, "java/lang/String");
+            writeReference(output, CONSTANT_CLASS, 14);
+            writeUtf8(output, InitialContextFactory.class.getName());
+            writeReference(output, CONSTANT_STRING, 16);
+            writeUtf8(output, icfClassName);
+            writeReference(output, CONSTANT_STRING, 18);
+            writeUtf8(output, "org/osgi/framework/BundleContext");
+            writeReference(output, CONSTANT_CLASS, 20);
+            writeUtf8(output, "registerService");
+            writeUtf8(output, "([Ljava/lang/String;Ljava/lang/Object;Ljava/util/Dictionary;)" +
+                    "Lorg/osgi/framework/ServiceRegistration;");
+            writeReference(output, CONSTANT_NAME_AND_TYPE, 22, 23);
+            writeReference(output, CONSTANT_INTERFACE_METHOD_REF, 21, 24);
+            writeUtf8(output, "start");
+            writeUtf8(output, "(Lorg/osgi/framework/BundleContext;)V");
+            writeUtf8(output, "stop");
+            writeUtf8(output, "Code");
+            writeUtf8(output, "Exceptions");
+            writeUtf8(output, "java/lang/Exception");
+            writeReference(output, CONSTANT_CLASS, 31);
+
+            output.writeShort(ACC_PUBLIC | ACC_SUPER);
+            output.writeShort(ACTIVATOR_CLASS);
+            output.writeShort(OBJECT_CLASS);
+            output.writeShort(1);
+            output.writeShort(BUNDLE_ACTIVATOR_CLASS);
+            //  fields
+            output.writeShort(0);
+
+            output.writeShort(3);
+            writeMethod(output, INIT_NAME, NO_ARGUMENTS_DESCRIPTOR, false, 1, 1,
+                    ALOAD_0,
+                    INVOKESPECIAL, OBJECT_INIT >> 8, OBJECT_INIT & 0xFF,
+                    RETURN);
+            writeMethod(output, START_NAME, LIFECYCLE_METHOD_DESCRIPTOR, true, 5, 2,
+                    ALOAD_1,
+                    ICONST_2,
+                    ANEWARRAY, STRING_CLASS >> 8, STRING_CLASS & 0xFF,
+                    DUP,
+                    ICONST_0,
+                    LDC, ICF_INTERFACE_NAME,
+                    AASTORE,
+                    DUP,
+                    ICONST_1,
+                    LDC, ICF_CLASS_NAME,
+                    AASTORE,
+                    NEW, ICF_CLASS >> 8, ICF_CLASS & 0xFF,
+                    DUP,
+                    INVOKESPECIAL, ICF_INIT >> 8, ICF_INIT & 0xFF,
+                    ACONST_NULL,
+                    INVOKEINTERFACE, REGISTER_SERVICE >> 8, REGISTER_SERVICE & 0xFF, 4, 0,
+                    POP,
+                    RETURN);
+            writeMethod(output, STOP_NAME, LIFECYCLE_METHOD_DESCRIPTOR, true, 0, 2,
+                    RETURN);
+
+            //  class attributes
+            output.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate the class " + ACTIVATOR_CLASS_NAME, e);
+        }
+        return content.toByteArray();
+    }
+
+    private static void writeUtf8(DataOutputStream output, String value) throws IOException {
+        output.writeByte(CONSTANT_UTF8);
+        output.writeUTF(value);
+    }
+
+    private static void writeReference(DataOutputStream output, int tag, int... indexes) throws IOException {
+        output.writeByte(tag);
+        for (int index : indexes) {
+            output.writeShort(index);
+        }
+    }
+
+    /**
+     * Writes a public method with the specified bytecode, which declares {@code throws Exception} if specified.
+     */
+    private static void writeMethod(DataOutputStream output, int name, int descriptor, boolean throwsException,
+                                    int maxStack, int maxLocals, int... code) throws IOException {
+        output.writeShort(ACC_PUBLIC);
+        output.writeShort(name);
+        output.writeShort(descriptor);
+        output.writeShort(throwsException ? 2 : 1);
+
+        output.writeShort(CODE_ATTRIBUTE_NAME);
+        output.writeInt(12 + code.length);
+        output.writeShort(maxStack);
+        output.writeShort(maxLocals);
+        output.writeInt(code.length);
+        for (int instruction : code) {
+            output.writeByte(instruction);
+        }
+        //  exception table and attributes of the code
+        output.writeShort(0);
+        output.writeShort(0);
+
+        if (throwsException) {
+            output.writeShort(EXCEPTIONS_ATTRIBUTE_NAME);
+            output.writeInt(4);
+            output.writeShort(1);
+            output.writeShort(EXCEPTION_CLASS);
+        }
+    }
+}
@@ -19,33 +19,26 @@ import org.wso2.carbon.tools.CarbonTool;
 import org.wso2.carbon.tools.converter.utils.BundleGeneratorUtils;
 import org.wso2.carbon.tools.exception.CarbonToolException;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
 import javax.naming.spi.InitialContextFactory;
-import javax.tools.JavaCompiler;
-import javax.tools.ToolProvider;
 
 import static org.wso2.carbon.tools.Constants.BUNDLE_ACTIVATOR;
 import static org.wso2.carbon.tools.Constants.JAR_MANIFEST_FOLDER;
@@ -59,33 +52,12 @@ import static org.wso2.carbon.tools.Constants.MANIFEST_FILE_NAME;
 public class ICFProviderTool implements CarbonTool {
 
     private static final Logger logger = Logger.getLogger(ICFProviderTool.class.getName());
-    private static final String ACTIVATOR_CLASS_FILE = "CustomBundleActivator.class";
-    private static final String ACTIVATOR_JAVA_FILE = "CustomBundleActivator.java";
-    private static final String INTERNAL_PKG_NAME = "internal";
-    private static final String ACTIVATOR_FULL_QUALIFIED_NAME = "internal.CustomBundleActivator";
-
-    private static final String CLASS_TEMPLATE =
-            "package internal;\n" +
-            "import org.osgi.framework.BundleActivator;\n" +
-            "import org.osgi.framework.BundleContext;\n" +
-            "import %s;\n" +
-            "\n" +
-            "import javax.naming.spi.InitialContextFactory;\n" +
-            "\n" +
-            "public class CustomBundleActivator implements BundleActivator {\n" +
-            "\n" + "    " +
-            "@Override\n" +
-            "    public void start(BundleContext bundleContext) throws Exception {\n" +
-            "        bundleContext.registerService(new String[] { \"" + InitialContextFactory.class.getName() +
-            "\", \"%s\" }, new %s(), null);\n" +
-            "    }\n" +
-            "\n" +
-            "    @Override\n" +
-            "    public void stop(BundleContext bundleContext) throws Exception {\n" +
-            "\n" +
-            "    " +
-            "}\n" +
-            "}\n";
+    private static final String ACTIVATOR_CLASS_ENTRY =
+            BundleActivatorGenerator.ACTIVATOR_CLASS_NAME.replace('.', '/') + ".class";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //  the generated BundleActivator class files, by InitialContextFactory implementation class name
+    private static final Map<String, byte[]> activatorClasses = new ConcurrentHashMap<>();
 
     @Override
     public void execute(String... toolArgs) {
@@ -97,12 +69,14 @@ public class ICFProviderTool implements CarbonTool {
             return;
         }
 
+        //  the optional OSGi jar path is no longer required, as the BundleActivator is not compiled
         String spiImpl = toolArgs[0];
         Path jarFile = Paths.get(toolArgs[1]);
         Path destination = Paths.get(toolArgs[2]);
-        String osgiJar = (toolArgs.length == 4 && !toolArgs[3].isEmpty()) ? toolArgs[3] :
-                         Paths.get(System.getProperty("carbon.home"), "wso2", "lib", "plugins",
-                                   "org.eclipse.osgi_3.11.0.v20160603-1336.jar").toString();
+        if (!isClassName(spiImpl)) {
+            logger.log(Level.WARNING, "'" + spiImpl + "' is not a valid class name");
+            return;
+        }
 
         Path fileName = jarFile.getFileName();
         if (fileName == null) {
@@ -111,66 +85,29 @@ public class ICFProviderTool implements CarbonTool {
         String jarFileName = fileName.toString();
         Path tmpDir = destination.resolve(jarFileName.substring(0, jarFileName.lastIndexOf(".")));
 
-        Process process = null;
         if (Files.exists(jarFile) && Files.exists(destination) && Files.isWritable(destination) &&
             !Files.exists(tmpDir)) {
-            FileOutputStream fileOutputStream = null;
             try {
                 Files.createDirectory(tmpDir);
 
-                // Prepare source.
-                String source = String.format(CLASS_TEMPLATE, spiImpl, spiImpl, spiImpl);
-
-                // Save source in .java file.
-                Path internal = Files.createDirectory(tmpDir.resolve(INTERNAL_PKG_NAME));
-                File sourceFile = new File(internal.toFile(), ACTIVATOR_JAVA_FILE);
-                Files.write(internal.resolve(ACTIVATOR_JAVA_FILE), source.getBytes(StandardCharsets.UTF_8));
-
-                // Compile source file.
-                JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-
-                List<String> compilerArgs = new ArrayList<>();
-                compilerArgs.add("-cp");
-                String separator =
-                        System.getProperty("os.name").toLowerCase(Locale.ENGLISH).contains("windows") ? ";" : ":";
-                compilerArgs.add(jarFile.toString() + separator + osgiJar);
-                compilerArgs.add(sourceFile.getPath());
-                fileOutputStream = new FileOutputStream(internal.resolve(ACTIVATOR_CLASS_FILE).toFile());
-                compiler.run(null, fileOutputStream, null, compilerArgs.toArray(new String[0]));
-
-                //Copy the original jar file to tmp dir
+                //  the BundleActivator class is generated directly, instead of compiling its source
+                byte[] activatorClass = activatorClasses.computeIfAbsent(spiImpl, BundleActivatorGenerator::generate);
                 Path finalJarPath = tmpDir.resolve(jarFileName);
-                Files.copy(jarFile, finalJarPath);
-
-                // Add the .class file to jar
-                StringBuilder command = new StringBuilder();
-                command.append("jar uf ")
-                       .append(finalJarPath.toString())
-                       .append(" -C ")
-                       .append(tmpDir.toString())
-                       .append(" ")
-                       .append(internal.resolve(ACTIVATOR_CLASS_FILE).toString().replace(tmpDir.toString(), ""));
-                logger.log(Level.INFO, "Executing '" + command.toString() + "'");
-                process = Runtime.getRuntime().exec(command.toString());
-                process.waitFor(5, TimeUnit.SECONDS);
-                addBundleActivatorHeader(finalJarPath, tmpDir);
+                boolean osgiBundle = BundleGeneratorUtils.isOSGiBundle(jarFile);
+                addBundleActivator(jarFile, finalJarPath, spiImpl, activatorClass, osgiBundle);
+                if (osgiBundle) {
+                    logger.log(Level.INFO, "Created bundle file: '" + finalJarPath.toString());
+                } else {
+                    logger.log(Level.INFO, "Running jar to bundle conversion");
+                    Manifest manifest = new Manifest();
+                    manifest.getMainAttributes().putValue(BUNDLE_ACTIVATOR,
+                            BundleActivatorGenerator.ACTIVATOR_CLASS_NAME);
+                    BundleGeneratorUtils.convertFromJarToBundle(finalJarPath, tmpDir, manifest, "");
+                }
             } catch (IOException e) {
                 logger.log(Level.SEVERE, "Error while running SPI Creator", e);
-            } catch (InterruptedException e) {
-                logger.log(Level.SEVERE, "Error while adding SPI", e);
             } catch (CarbonToolException e) {
                 logger.log(Level.SEVERE, "Error while converting to bundle", e);
-            } finally {
-                if (process != null) {
-                    process.destroy();
-                }
-                if (fileOutputStream != null) {
-                    try {
-                        fileOutputStream.close();
-                    } catch (IOException e) {
-                        logger.log(Level.WARNING, "Error while closing OutputStream", e);
-                    }
-                }
             }
         } else {
             String message = "The destination location '" + tmpDir.toString() +
@@ -180,41 +117,83 @@ public class ICFProviderTool implements CarbonTool {
     }
 
     /**
-     * Add 'Bundle-Activator: CustomBundleActivator' to MANIFEST.MF file.
+     * Copies the JAR file to the specified path in a single pass, adding the generated BundleActivator class. If the
+     * JAR file is an OSGi bundle, 'Bundle-Activator: internal.CustomBundleActivator' is added to its MANIFEST.MF file,
+     * and its signature files, which no longer match the manifest, are left out.
      *
-     * @param finalJarPath Path of the jar file
-     * @param destination  Destination path where jar get created.
-     * @throws IOException         if an error occur while reading/writing jar file
-     * @throws CarbonToolException if an error occur when converting to bundle
+     * @param jarFile        the JAR file
+     * @param finalJarPath   path of the JAR file to be created
+     * @param spiImpl        the {@link InitialContextFactory} implementation class name
+     * @param activatorClass the class file content of the BundleActivator
+     * @param osgiBundle     true if the JAR file is an OSGi bundle, else false
+     * @throws IOException if an error occur while reading/writing jar file
      */
-    private void addBundleActivatorHeader(Path finalJarPath, Path destination) throws IOException, CarbonToolException {
-        Manifest manifest = new Manifest();
-        manifest.getMainAttributes().putValue(BUNDLE_ACTIVATOR, ACTIVATOR_FULL_QUALIFIED_NAME);
-        if (BundleGeneratorUtils.isOSGiBundle(finalJarPath)) {
-            logger.log(Level.INFO, "Adding '" + BUNDLE_ACTIVATOR + ": CustomBundleActivator' to " + MANIFEST_FILE_NAME);
-            Path manifestmfFile = destination.resolve(MANIFEST_FILE_NAME);
-            try (JarFile jar = new JarFile(finalJarPath.toString()); PrintWriter printWriter = new PrintWriter(
-                    new OutputStreamWriter(new FileOutputStream(manifestmfFile.toFile()),
-                                           "UTF-8")); InputStream inputStream = jar
-                    .getInputStream(jar.getEntry(JAR_MANIFEST_FOLDER + "/" + MANIFEST_FILE_NAME));) {
-                Files.copy(inputStream, destination.resolve(MANIFEST_FILE_NAME + ".tmp"));
-                List<String> existingManifest = Files.readAllLines(destination.resolve(MANIFEST_FILE_NAME + ".tmp"));
-                existingManifest.add(BUNDLE_ACTIVATOR + ": " + ACTIVATOR_FULL_QUALIFIED_NAME);
-                existingManifest.forEach(printWriter::println);
-                printWriter.flush();
+    private static void addBundleActivator(Path jarFile, Path finalJarPath, String spiImpl, byte[] activatorClass,
+                                           boolean osgiBundle) throws IOException {
+        boolean created = false;
+        try (JarFile jar = new JarFile(jarFile.toFile());
+             OutputStream outputStream = new BufferedOutputStream(
+                     Files.newOutputStream(finalJarPath, StandardOpenOption.CREATE_NEW), BUFFER_SIZE);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+            if (jar.getEntry(spiImpl.replace('.', '/') + ".class") == null) {
+                logger.log(Level.WARNING, "Class " + spiImpl + " is not found in " + jarFile.toString());
             }
 
-            Map<String, String> env = new HashMap<>();
-            env.put("create", "true");
-            URI uri = URI.create("jar:file:" + finalJarPath.toString());
-            try (FileSystem zipfs = FileSystems.newFileSystem(uri, env)) {
-                Path pathInZipfile = zipfs.getPath(JAR_MANIFEST_FOLDER, MANIFEST_FILE_NAME);
-                Files.copy(manifestmfFile, pathInZipfile, StandardCopyOption.REPLACE_EXISTING);
+            Manifest manifest = jar.getManifest();
+            if (osgiBundle && (manifest != null)) {
+                logger.log(Level.INFO, "Adding '" + BUNDLE_ACTIVATOR + ": CustomBundleActivator' to " +
+                        MANIFEST_FILE_NAME);
+                manifest.getMainAttributes().putValue(BUNDLE_ACTIVATOR, BundleActivatorGenerator.ACTIVATOR_CLASS_NAME);
+                jarOutputStream.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                manifest.write(jarOutputStream);
+                jarOutputStream.closeEntry();
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (entryName.equals(ACTIVATOR_CLASS_ENTRY) || (osgiBundle &&
+                        (entryName.equalsIgnoreCase(JarFile.MANIFEST_NAME) || isSignatureFile(entryName)))) {
+                    continue;
+                }
+                ZipEntry copy = new ZipEntry(entryName);
+                copy.setTime(entry.getTime());
+                jarOutputStream.putNextEntry(copy);
+                try (InputStream inputStream = jar.getInputStream(entry)) {
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        jarOutputStream.write(buffer, 0, read);
+                    }
+                }
+                jarOutputStream.closeEntry();
+            }
+
+            jarOutputStream.putNextEntry(new ZipEntry(ACTIVATOR_CLASS_ENTRY));
+            jarOutputStream.write(activatorClass);
+            jarOutputStream.closeEntry();
+            created = true;
+        } finally {
+            if (!created) {
+                Files.deleteIfExists(finalJarPath);
             }
-            logger.log(Level.INFO, "Created bundle file: '" + finalJarPath.toString());
-        } else {
-            logger.log(Level.INFO, "Running jar to bundle conversion");
-            BundleGeneratorUtils.convertFromJarToBundle(finalJarPath, destination, manifest, "");
         }
     }
+
+    private static boolean isClassName(String className) {
+        for (String identifier : className.split("\\.", -1)) {
+            if (identifier.isEmpty() || !Character.isJavaIdentifierStart(identifier.charAt(0)) ||
+                !identifier.chars().allMatch(Character::isJavaIdentifierPart)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSignatureFile(String entryName) {
+        String name = entryName.toUpperCase(Locale.ENGLISH);
+        return name.startsWith(JAR_MANIFEST_FOLDER + "/") && (name.indexOf('/') == name.lastIndexOf('/')) &&
+                (name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC"));
+    }
 }
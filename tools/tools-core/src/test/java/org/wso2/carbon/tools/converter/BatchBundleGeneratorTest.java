@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.converter;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.tools.Constants;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator.ConversionResult;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator.ConversionStatus;
+import org.wso2.carbon.tools.converter.utils.BundleGeneratorUtils;
+import org.wso2.carbon.tools.exception.CarbonToolException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A Java class which tests the parallel, incremental conversion of JAR files by the BatchBundleGenerator.java class.
+ *
+ * @since 5.2.9
+ */
+public class BatchBundleGeneratorTest {
+    private static final int JAR_FILE_COUNT = 20;
+
+    private Path workDirectory;
+    private Path sourceDirectory;
+    private Path destination;
+
+    @BeforeClass
+    public void init() throws IOException {
+        workDirectory = Files.createTempDirectory("batch-bundle-generator");
+        sourceDirectory = workDirectory.resolve("source");
+        destination = Files.createDirectories(sourceDirectory.resolve("bundles"));
+        Path nestedDirectory = Files.createDirectories(sourceDirectory.resolve("nested"));
+        for (int i = 0; i < JAR_FILE_COUNT; i++) {
+            createJar((i % 2 == 0 ? sourceDirectory : nestedDirectory).resolve("library-" + i + ".jar"), i);
+        }
+    }
+
+    @AfterClass
+    public void cleanup() throws IOException {
+        BundleGeneratorUtils.delete(workDirectory);
+    }
+
+    @Test(description = "Converts a directory tree of JAR files in parallel")
+    public void testConvertingDirectoryTree() throws IOException, CarbonToolException {
+        List<ConversionResult> results = BatchBundleGenerator.convert(sourceDirectory, destination, 4);
+        Assert.assertEquals(results.size(), JAR_FILE_COUNT);
+        results.forEach(result -> {
+            Assert.assertEquals(result.getStatus(), ConversionStatus.CONVERTED);
+            Assert.assertTrue(Files.exists(result.getBundle()));
+            Assert.assertTrue(Files.exists(result.getBundle().resolveSibling(result.getBundle().getFileName() +
+                    Constants.CONTENT_HASH_FILE_EXTENSION)));
+        });
+    }
+
+    @Test(description = "Skips the OSGi bundles generated from unchanged JAR files",
+            dependsOnMethods = "testConvertingDirectoryTree")
+    public void testSkippingUpToDateBundles() throws IOException, CarbonToolException {
+        //  a changed JAR file is detected by its content, even if its size and last modified time are unchanged
+        Path changedJar = sourceDirectory.resolve("library-0.jar");
+        FileTime lastModifiedTime = Files.getLastModifiedTime(changedJar);
+        createJar(changedJar, JAR_FILE_COUNT);
+        Files.setLastModifiedTime(changedJar, lastModifiedTime);
+
+        List<ConversionResult> results = BatchBundleGenerator.convert(sourceDirectory, destination, 4);
+        Assert.assertEquals(results.size(), JAR_FILE_COUNT);
+        results.forEach(result -> Assert.assertEquals(result.getStatus(), result.getJarFile().equals(changedJar) ?
+                ConversionStatus.CONVERTED : ConversionStatus.UP_TO_DATE, result.getJarFile().toString()));
+    }
+
+    @Test(description = "Converts the JAR files of a directory into the same directory",
+            dependsOnMethods = "testSkippingUpToDateBundles")
+    public void testConvertingIntoSourceDirectory() throws IOException, CarbonToolException {
+        Path nestedDirectory = sourceDirectory.resolve("nested");
+        Assert.assertEquals(BatchBundleGenerator.convert(nestedDirectory, nestedDirectory, 2).size(),
+                JAR_FILE_COUNT / 2);
+        //  the generated OSGi bundles are not converted again
+        List<ConversionResult> results = BatchBundleGenerator.convert(nestedDirectory, nestedDirectory, 2);
+        Assert.assertEquals(results.size(), JAR_FILE_COUNT / 2);
+        results.forEach(result -> Assert.assertEquals(result.getStatus(), ConversionStatus.UP_TO_DATE));
+    }
+
+    private static void createJar(Path jarFile, int version) throws IOException {
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(jarFile))) {
+            outputStream.putNextEntry(new ZipEntry("org/wso2/carbon/batch/Library.class"));
+            outputStream.write(("version " + version).getBytes(StandardCharsets.UTF_8));
+            outputStream.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.wso2.carbon.tools.converter;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.tools.CarbonTool;
+import org.wso2.carbon.tools.Constants;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator.ConversionResult;
+import org.wso2.carbon.tools.converter.utils.BatchBundleGenerator.ConversionStatus;
+import org.wso2.carbon.tools.converter.utils.BundleAnalyzer;
+import org.wso2.carbon.tools.converter.utils.BundleGeneratorUtils;
+import org.wso2.carbon.tools.exception.CarbonToolException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * A Java class which tests the generation of package headers by analyzing class files, using BundleAnalyzer.java.
+ *
+ * @since 5.2.9
+ */
+public class BundleAnalyzerTest {
+    private static final String CONVERTER_PACKAGE = "org.wso2.carbon.tools.converter";
+    private static final String CONVERTER_UTILS_PACKAGE = "org.wso2.carbon.tools.converter.utils";
+    private static final String TOOLS_PACKAGE = "org.wso2.carbon.tools";
+    private static final String EXCEPTION_PACKAGE = "org.wso2.carbon.tools.exception";
+
+    private Path workDirectory;
+    private Path jarDirectory;
+    private Path toolsJar;
+    private Path converterJar;
+
+    @BeforeClass
+    public void init() throws IOException {
+        workDirectory = Files.createTempDirectory("bundle-analyzer");
+        jarDirectory = Files.createDirectories(workDirectory.resolve("jars"));
+        toolsJar = createJar(jarDirectory.resolve("tools.jar"), "5.2.9-SNAPSHOT", Constants.class, CarbonTool.class,
+                CarbonToolException.class);
+        converterJar = createJar(jarDirectory.resolve("converter.jar"), "1.2", BundleGeneratorTool.class,
+                BundleAnalyzer.class, BundleGeneratorUtils.class);
+    }
+
+    @AfterClass
+    public void cleanup() throws IOException {
+        BundleGeneratorUtils.delete(workDirectory);
+    }
+
+    @Test(description = "Analyzes the packages contained in and referenced by the class files of a JAR file")
+    public void testAnalyzingPackages() throws IOException {
+        BundleAnalyzer analyzer = BundleAnalyzer.analyze(converterJar);
+        Assert.assertEquals(analyzer.getExportedPackages(),
+                new HashSet<>(Arrays.asList(CONVERTER_PACKAGE, CONVERTER_UTILS_PACKAGE)));
+        Assert.assertTrue(analyzer.getImportedPackages().containsAll(Arrays.asList(TOOLS_PACKAGE, EXCEPTION_PACKAGE,
+                "org.wso2.carbon.launcher.utils")));
+        analyzer.getImportedPackages().forEach(packageName -> Assert.assertFalse(packageName.startsWith("java.")));
+    }
+
+    @Test(description = "Generates the Export-Package and Import-Package headers of a JAR file")
+    public void testGeneratingHeaders() throws IOException {
+        Manifest manifest = new Manifest();
+        Map<String, String> packageVersions = new HashMap<>();
+        packageVersions.put(TOOLS_PACKAGE, "5.2.9");
+        BundleAnalyzer.analyze(converterJar).addHeaders(manifest, packageVersions);
+
+        List<String> exports = getClauses(manifest.getMainAttributes().getValue(Constants.EXPORT_PACKAGE));
+        //  the public BundleGeneratorTool class implements the CarbonTool interface
+        Assert.assertTrue(exports.contains(CONVERTER_PACKAGE + ";uses:=\"" + TOOLS_PACKAGE + "\";version=\"1.2.0\""),
+                exports.toString());
+
+        List<String> imports = getClauses(manifest.getMainAttributes().getValue(Constants.IMPORT_PACKAGE));
+        Assert.assertTrue(imports.contains(TOOLS_PACKAGE + ";version=\"[5.2,6)\""), imports.toString());
+        Assert.assertTrue(imports.contains(EXCEPTION_PACKAGE + ";resolution:=optional"), imports.toString());
+    }
+
+    @Test(description = "Reads the package versions of a JAR file and of an OSGi bundle")
+    public void testReadingPackageVersions() throws IOException, CarbonToolException {
+        Map<String, String> packageVersions = BundleAnalyzer.getExportedPackageVersions(toolsJar);
+        Assert.assertEquals(packageVersions.get(TOOLS_PACKAGE), "5.2.9");
+        Assert.assertEquals(packageVersions.get(EXCEPTION_PACKAGE), "5.2.9");
+
+        Path bundle = workDirectory.resolve("bundle.jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.EXPORT_PACKAGE,
+                "a.b;c.d;version=\"1.0\",e.f;uses:=\"a.b,c.d\";version=2.1.3.SNAPSHOT,g.h");
+        new JarOutputStream(Files.newOutputStream(bundle), manifest).close();
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("a.b", "1.0.0");
+        expected.put("c.d", "1.0.0");
+        expected.put("e.f", "2.1.3");
+        Assert.assertEquals(BundleAnalyzer.getExportedPackageVersions(bundle), expected);
+    }
+
+    @Test(description = "Converts a directory of JAR files using the analysis mode")
+    public void testConvertingDirectoryWithAnalysis() throws IOException, CarbonToolException {
+        Path destination = Files.createDirectories(workDirectory.resolve("bundles"));
+        List<ConversionResult> results = BatchBundleGenerator.convert(jarDirectory, destination, 2, true);
+        Assert.assertEquals(results.size(), 2);
+        results.forEach(result -> Assert.assertEquals(result.getStatus(), ConversionStatus.CONVERTED));
+
+        Path bundle = destination.resolve(BundleGeneratorUtils.getBundleFileName("converter.jar", ""));
+        try (JarInputStream inputStream = new JarInputStream(Files.newInputStream(bundle))) {
+            Attributes attributes = inputStream.getManifest().getMainAttributes();
+            Assert.assertNull(attributes.getValue(Constants.DYNAMIC_IMPORT_PACKAGE));
+            //  the version of the package imported from the other JAR file is resolved
+            Assert.assertTrue(getClauses(attributes.getValue(Constants.IMPORT_PACKAGE))
+                    .contains(TOOLS_PACKAGE + ";version=\"[5.2,6)\""));
+        }
+
+        results = BatchBundleGenerator.convert(jarDirectory, destination, 2, true);
+        results.forEach(result -> Assert.assertEquals(result.getStatus(), ConversionStatus.UP_TO_DATE));
+        //  the OSGi bundles generated without the analysis mode have different package headers
+        results = BatchBundleGenerator.convert(jarDirectory, destination, 2);
+        results.forEach(result -> Assert.assertEquals(result.getStatus(), ConversionStatus.CONVERTED));
+    }
+
+    /**
+     * Splits a package header into its clauses, each of which starts with a package name.
+     */
+    private static List<String> getClauses(String header) {
+        return Arrays.asList(header.split(",(?=[a-z])"));
+    }
+
+    private static Path createJar(Path jarFile, String version, Class<?>... classes) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.IMPLEMENTATION_VERSION, version);
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(jarFile), manifest)) {
+            for (Class<?> aClass : classes) {
+                String entryName = aClass.getName().replace('.', '/') + ".class";
+                outputStream.putNextEntry(new ZipEntry(entryName));
+                outputStream.write(readClassFile(entryName));
+                outputStream.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    private static byte[] readClassFile(String entryName) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (InputStream inputStream = BundleAnalyzerTest.class.getClassLoader().getResourceAsStream(entryName)) {
+            Assert.assertNotNull(inputStream, entryName);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        }
+        return content.toByteArray();
+    }
+}
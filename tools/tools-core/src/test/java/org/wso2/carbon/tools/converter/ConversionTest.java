@@ -24,14 +24,20 @@ import org.wso2.carbon.tools.TestConstants;
 import org.wso2.carbon.tools.converter.utils.BundleGeneratorUtils;
 import org.wso2.carbon.tools.exception.CarbonToolException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * A Java class which tests the convertFromJarToBundle and createBundle methods of BundleGeneratorUtils.java class
@@ -40,6 +46,8 @@ import java.util.jar.Manifest;
  * @since 5.0.0
  */
 public class ConversionTest {
+    private static final Logger logger = Logger.getLogger(ConversionTest.class.getName());
+    private static final int LARGE_JAR_ENTRY_COUNT = 20000;
     private static final Path converterTestResources = Paths.get(TestConstants.TARGET_FOLDER,
             TestConstants.TEST_RESOURCES, TestConstants.CONVERTER_TEST_RESOURCES);
     private static final Path sampleJARFile = Paths.get(converterTestResources.toString(), TestConstants.ARTIFACT_FIVE);
@@ -234,6 +242,46 @@ public class ConversionTest {
         converter.execute(arguments);
     }
 
+    @Test(description = "Converts a large JAR file and verifies the layout of the generated OSGi bundle")
+    public void testConvertingLargeJar() throws IOException, CarbonToolException {
+        Path workDirectory = Files.createTempDirectory("large-jar-conversion");
+        Path largeJar = workDirectory.resolve("large-library.jar");
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(largeJar))) {
+            for (int i = 0; i < LARGE_JAR_ENTRY_COUNT; i++) {
+                outputStream.putNextEntry(new ZipEntry("org/wso2/carbon/large/package" + (i % 100) + "/Class" + i +
+                        ".class"));
+                outputStream.write(new byte[1024]);
+                outputStream.closeEntry();
+            }
+        }
+
+        long startTime = System.nanoTime();
+        BundleGeneratorUtils.convertFromJarToBundle(largeJar, workDirectory, new Manifest(), "");
+        logger.info(String.format("Converted a JAR file with %d entries (%d KB) to an OSGi bundle in %d ms",
+                LARGE_JAR_ENTRY_COUNT, Files.size(largeJar) / 1024, (System.nanoTime() - startTime) / 1000000));
+
+        Path bundle = workDirectory.resolve("large_library_1.0.0.jar");
+        try (JarInputStream inputStream = new JarInputStream(Files.newInputStream(bundle))) {
+            Manifest manifest = inputStream.getManifest();
+            Assert.assertNotNull(manifest);
+            Assert.assertEquals(manifest.getMainAttributes().getValue(Constants.EXPORT_PACKAGE).split(",").length,
+                    100);
+            Assert.assertEquals(inputStream.getNextEntry().getName(), Constants.JAR_MANIFEST_FOLDER + "/" +
+                    Constants.P2_INF_FILE_NAME + Constants.P2_INF_FILE_EXTENSION);
+            Assert.assertEquals(inputStream.getNextEntry().getName(), largeJar.getFileName().toString());
+            ByteArrayOutputStream nestedJar = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                nestedJar.write(buffer, 0, read);
+            }
+            Assert.assertTrue(Arrays.equals(nestedJar.toByteArray(), Files.readAllBytes(largeJar)));
+            Assert.assertNull(inputStream.getNextEntry());
+        } finally {
+            BundleGeneratorUtils.delete(workDirectory);
+        }
+    }
+
     private boolean isOSGiBundle(Path bundlePath, String bundleSymbolicName) throws IOException, CarbonToolException {
         if (Files.exists(bundlePath)) {
             boolean validSymbolicName, exportPackageAttributeCheck, importPackageAttributeCheck;
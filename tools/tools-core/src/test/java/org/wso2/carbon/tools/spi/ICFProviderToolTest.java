@@ -15,19 +15,29 @@
 */
 package org.wso2.carbon.tools.spi;
 
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
 import org.testng.annotations.Test;
 import org.wso2.carbon.tools.Constants;
 import org.wso2.carbon.tools.TestConstants;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Proxy;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
 import java.util.jar.JarFile;
+import javax.naming.Context;
+import javax.naming.spi.InitialContextFactory;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
 /**
@@ -75,4 +85,64 @@ public class ICFProviderToolTest {
             assertNotNull(jarFile.getEntry("internal/CustomBundleActivator.class"));
         }
     }
+
+    /**
+     * Test case for the BundleActivator class generated without compiling its source.
+     *
+     * @throws Exception on exception on loading or starting the BundleActivator
+     */
+    @Test
+    public void testGeneratedBundleActivator() throws Exception {
+        byte[] activatorClass = BundleActivatorGenerator.generate(TestInitialContextFactory.class.getName());
+        BundleActivator activator = (BundleActivator) new ActivatorClassLoader(activatorClass)
+                .loadClass(BundleActivatorGenerator.ACTIVATOR_CLASS_NAME).newInstance();
+
+        List<Object[]> registrations = new ArrayList<>();
+        BundleContext bundleContext = (BundleContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BundleContext.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("registerService")) {
+                        registrations.add(args);
+                    }
+                    return null;
+                });
+        activator.start(bundleContext);
+        activator.stop(bundleContext);
+
+        assertEquals(1, registrations.size());
+        Object[] registration = registrations.get(0);
+        assertEquals(Arrays.asList(InitialContextFactory.class.getName(), TestInitialContextFactory.class.getName()),
+                Arrays.asList((String[]) registration[0]));
+        assertSame(TestInitialContextFactory.class, registration[1].getClass());
+        assertEquals(null, registration[2]);
+    }
+
+    /**
+     * An {@link InitialContextFactory} implementation registered by the generated BundleActivator.
+     */
+    public static class TestInitialContextFactory implements InitialContextFactory {
+        @Override
+        public Context getInitialContext(Hashtable<?, ?> environment) {
+            return null;
+        }
+    }
+
+    /**
+     * Defines the generated BundleActivator class.
+     */
+    private static class ActivatorClassLoader extends ClassLoader {
+        private final byte[] activatorClass;
+
+        ActivatorClassLoader(byte[] activatorClass) {
+            super(ICFProviderToolTest.class.getClassLoader());
+            this.activatorClass = activatorClass;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.equals(BundleActivatorGenerator.ACTIVATOR_CLASS_NAME)) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, activatorClass, 0, activatorClass.length);
+        }
+    }
 }